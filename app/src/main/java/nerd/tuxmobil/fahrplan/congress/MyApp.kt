@@ -9,26 +9,15 @@ import org.ligi.tracedroid.TraceDroid
 
 class MyApp : Application() {
 
-    enum class TASKS {
-        NONE, FETCH, PARSE
-    }
-
-    companion object {
-
-        @JvmField
-        var taskRunning = TASKS.NONE
-
-    }
-
     @CallSuper
     override fun onCreate() {
         super.onCreate()
         TraceDroid.init(this)
-        taskRunning = TASKS.NONE
         AppRepository.initialize(
             context = applicationContext,
             logging = Logging.get()
         )
+        AppRepository.reparseScheduleIfOutdated()
     }
 
 }
@@ -0,0 +1,107 @@
+package nerd.tuxmobil.fahrplan.congress.alarms
+
+import info.metadude.android.eventfahrplan.commons.temporal.Moment
+
+/**
+ * Adapts the interval of automatic schedule updates during the conference to how often the
+ * schedule actually changes. A refresh which found changes halves the interval. The interval is
+ * stretched by half once the last [stretchAfter] refreshes found no changes. The interval always
+ * stays within [minIntervalMillis] and [maxIntervalMillis].
+ *
+ * Stateless. The [AdaptiveRefreshState] is passed in and returned so that it can be persisted.
+ */
+class AdaptiveRefreshInterval(
+
+    private val defaultIntervalMillis: Long = DEFAULT_INTERVAL_MILLIS,
+    private val minIntervalMillis: Long = MIN_INTERVAL_MILLIS,
+    private val maxIntervalMillis: Long = MAX_INTERVAL_MILLIS,
+    private val stretchAfter: Int = STRETCH_AFTER,
+    private val historySize: Int = HISTORY_SIZE
+
+) {
+
+    companion object {
+        const val DEFAULT_INTERVAL_MILLIS = 2 * Moment.MILLISECONDS_OF_ONE_HOUR
+        const val MIN_INTERVAL_MILLIS = 30L * Moment.MILLISECONDS_OF_ONE_MINUTE
+        const val MAX_INTERVAL_MILLIS = 6 * Moment.MILLISECONDS_OF_ONE_HOUR
+        const val STRETCH_AFTER = 3
+        const val HISTORY_SIZE = 8
+    }
+
+    init {
+        require(minIntervalMillis in 1..maxIntervalMillis) { "Invalid bounds: $minIntervalMillis..$maxIntervalMillis" }
+        require(stretchAfter in 1..historySize) { "Invalid stretchAfter: $stretchAfter" }
+    }
+
+    /**
+     * Returns the interval of the given [state] within the configured bounds.
+     * Returns the default interval if no interval has been adapted so far.
+     */
+    fun intervalOf(state: AdaptiveRefreshState) = if (state.intervalMillis <= 0) {
+        defaultIntervalMillis
+    } else {
+        state.intervalMillis
+    }.coerceIn(minIntervalMillis, maxIntervalMillis)
+
+    /**
+     * Returns the state following the given [state] once a refresh ended with the given [outcome].
+     */
+    fun record(state: AdaptiveRefreshState, outcome: RefreshOutcome): AdaptiveRefreshState {
+        val outcomes = (state.outcomes + outcome).takeLast(historySize)
+        val interval = intervalOf(state)
+        val nextInterval = when {
+            outcome == RefreshOutcome.CHANGED -> interval / 2
+            outcomes.size >= stretchAfter && outcomes.takeLast(stretchAfter).none { it == RefreshOutcome.CHANGED } -> interval * 3 / 2
+            else -> interval
+        }.coerceIn(minIntervalMillis, maxIntervalMillis)
+        return AdaptiveRefreshState(nextInterval, outcomes)
+    }
+
+}
+
+/**
+ * The adapted refresh interval and the outcomes of the most recent refreshes, oldest first.
+ * An [intervalMillis] of `0` means that no interval has been adapted so far.
+ */
+data class AdaptiveRefreshState(
+
+    val intervalMillis: Long = 0,
+    val outcomes: List<RefreshOutcome> = emptyList()
+
+)
+
+/**
+ * The outcome of a single schedule refresh.
+ */
+enum class RefreshOutcome(val code: Char) {
+
+    /**
+     * The server answered with HTTP 304.
+     */
+    NOT_MODIFIED('N'),
+
+    /**
+     * The schedule has been downloaded but its content did not change.
+     */
+    UNCHANGED('U'),
+
+    /**
+     * The schedule has been downloaded and its content changed.
+     */
+    CHANGED('C');
+
+    companion object {
+
+        /**
+         * Returns the outcomes encoded by [encode]. Unknown characters are skipped.
+         */
+        fun decode(outcomes: String) = outcomes.mapNotNull { code -> values().firstOrNull { it.code == code } }
+
+        /**
+         * Returns the given [outcomes] as a compact string suitable to be persisted.
+         */
+        fun encode(outcomes: List<RefreshOutcome>) = outcomes.map { it.code }.joinToString("")
+
+    }
+
+}
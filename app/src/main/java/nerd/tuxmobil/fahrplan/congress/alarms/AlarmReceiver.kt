@@ -12,7 +12,7 @@ import androidx.core.net.toUri
 import info.metadude.android.eventfahrplan.commons.logging.Logging
 import nerd.tuxmobil.fahrplan.congress.alarms.AlarmReceiver.AlarmIntentFactory.Companion.ALARM_SESSION
 
-import nerd.tuxmobil.fahrplan.congress.autoupdate.UpdateService
+import nerd.tuxmobil.fahrplan.congress.autoupdate.UpdateWorker
 import nerd.tuxmobil.fahrplan.congress.contract.BundleKeys
 import nerd.tuxmobil.fahrplan.congress.extensions.withExtras
 import nerd.tuxmobil.fahrplan.congress.notifications.NotificationHelper
@@ -51,7 +51,7 @@ class AlarmReceiver : BroadcastReceiver() {
 
         when (intent.action) {
             ALARM_DISMISSED -> onSessionAlarmNotificationDismissed(intent)
-            ALARM_UPDATE -> UpdateService.start(context)
+            ALARM_UPDATE -> UpdateWorker.start(context)
             ALARM_SESSION -> {
                 val sessionId = intent.getStringExtra(BundleKeys.ALARM_SESSION_ID)!!
                 val day = intent.getIntExtra(BundleKeys.ALARM_DAY, 1)
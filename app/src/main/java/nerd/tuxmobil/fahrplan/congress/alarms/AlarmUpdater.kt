@@ -56,7 +56,7 @@ class AlarmUpdater(
                 when {
                     conference.contains(moment) -> {
                         logging.d(LOG_TAG, "START <= moment < END")
-                        interval = TWO_HOURS
+                        interval = appRepository.readAdaptiveScheduleRefreshInterval()
                         nextFetch = moment.plusMilliseconds(interval)
                     }
 
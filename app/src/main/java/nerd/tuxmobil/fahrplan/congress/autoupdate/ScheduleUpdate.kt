@@ -0,0 +1,78 @@
+package nerd.tuxmobil.fahrplan.congress.autoupdate
+
+import kotlinx.coroutines.suspendCancellableCoroutine
+import kotlinx.coroutines.withTimeoutOrNull
+import nerd.tuxmobil.fahrplan.congress.autoupdate.UpdateMetrics.Outcome
+import nerd.tuxmobil.fahrplan.congress.net.FetchScheduleResult
+import nerd.tuxmobil.fahrplan.congress.net.ParseResult
+import nerd.tuxmobil.fahrplan.congress.net.ParseScheduleResult
+import nerd.tuxmobil.fahrplan.congress.repositories.ScheduleLoadListener
+import kotlin.coroutines.resume
+
+/**
+ * The outcome of a background schedule update. [parseScheduleResult] is only set
+ * if the schedule has been parsed.
+ */
+internal data class ScheduleUpdateResult(
+
+    val outcome: Outcome,
+    val parseScheduleResult: ParseScheduleResult? = null
+
+)
+
+/**
+ * Starts a schedule load via the given [loadSchedule] function and suspends until it is done.
+ * No thread is blocked while waiting. Returns [Outcome.TIMED_OUT] if the load does not finish
+ * within [timeoutMillis]. The load itself is not cancelled then so that a late result is still
+ * stored and shown the next time the schedule is displayed.
+ */
+internal suspend fun awaitScheduleUpdate(
+    timeoutMillis: Long,
+    loadSchedule: (listener: ScheduleLoadListener) -> Unit
+): ScheduleUpdateResult = withTimeoutOrNull(timeoutMillis) {
+    suspendCancellableCoroutine { continuation ->
+        val collector = ResultCollector()
+        val listener = ScheduleLoadListener(
+            onFetchingDone = collector::onFetchingDone,
+            onParsingDone = collector::onParsingDone,
+            onLoadingShiftsDone = {},
+            onLoadingDone = {
+                if (continuation.isActive) {
+                    continuation.resume(collector.result())
+                }
+            }
+        )
+        loadSchedule(listener)
+    }
+} ?: ScheduleUpdateResult(Outcome.TIMED_OUT)
+
+/**
+ * Collects the results of a schedule load which are delivered on different threads.
+ */
+private class ResultCollector {
+
+    @Volatile
+    private var outcome: Outcome? = null
+
+    @Volatile
+    private var parseScheduleResult: ParseScheduleResult? = null
+
+    fun onFetchingDone(result: FetchScheduleResult) {
+        outcome = when {
+            result.isSuccessful -> null // Parsing follows.
+            result.isNotModified -> Outcome.NOT_MODIFIED
+            else -> Outcome.FETCH_FAILED
+        }
+    }
+
+    fun onParsingDone(result: ParseResult) {
+        if (result is ParseScheduleResult) {
+            parseScheduleResult = result
+        }
+        outcome = if (result.isSuccess) Outcome.UPDATED else Outcome.PARSE_FAILED
+    }
+
+    // A load which is done after fetching the schedule successfully must have parsed it.
+    fun result() = ScheduleUpdateResult(outcome ?: Outcome.PARSE_FAILED, parseScheduleResult)
+
+}
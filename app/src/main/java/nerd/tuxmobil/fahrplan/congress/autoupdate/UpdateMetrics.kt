@@ -0,0 +1,95 @@
+package nerd.tuxmobil.fahrplan.congress.autoupdate
+
+/**
+ * Counts the outcomes of the background schedule updates run by the [UpdateWorker] and how long
+ * they took. Persisted via the `AppRepository` so that the counts survive the process.
+ */
+data class UpdateMetrics(
+
+    private val outcomeCounts: Map<Outcome, Int> = emptyMap(),
+    private val totalDurationMillis: Long = 0
+
+) {
+
+    enum class Outcome {
+
+        /**
+         * The schedule has been fetched and parsed successfully.
+         */
+        UPDATED,
+
+        /**
+         * The server answered that the schedule has not been modified.
+         */
+        NOT_MODIFIED,
+
+        /**
+         * The schedule could not be fetched.
+         */
+        FETCH_FAILED,
+
+        /**
+         * The schedule has been fetched but could not be parsed.
+         */
+        PARSE_FAILED,
+
+        /**
+         * The update did not finish within its time budget.
+         */
+        TIMED_OUT,
+
+    }
+
+    companion object {
+
+        private const val ENTRY_SEPARATOR = ";"
+        private const val COUNT_SEPARATOR = "="
+
+        /**
+         * Returns the metrics encoded by [encode]. Malformed metrics are reset,
+         * unknown outcomes are skipped.
+         */
+        fun decode(metrics: String): UpdateMetrics {
+            val entries = metrics.split(ENTRY_SEPARATOR)
+            val totalDurationMillis = entries.first().toLongOrNull() ?: return UpdateMetrics()
+            val outcomeCounts = entries.drop(1).mapNotNull { entry ->
+                val outcome = Outcome.values().firstOrNull { entry.startsWith("${it.name}$COUNT_SEPARATOR") }
+                val count = entry.substringAfter(COUNT_SEPARATOR).toIntOrNull()
+                if (outcome == null || count == null) null else outcome to count
+            }.toMap()
+            return UpdateMetrics(outcomeCounts, totalDurationMillis)
+        }
+
+        /**
+         * Returns the given [metrics] as a compact string suitable to be persisted.
+         */
+        fun encode(metrics: UpdateMetrics) = with(metrics) {
+            val counts = outcomeCounts.map { (outcome, count) -> "${outcome.name}$COUNT_SEPARATOR$count" }
+            (listOf(totalDurationMillis.toString()) + counts).joinToString(ENTRY_SEPARATOR)
+        }
+
+    }
+
+    fun outcomes(outcome: Outcome) = outcomeCounts[outcome] ?: 0
+
+    fun runs() = outcomeCounts.values.sum()
+
+    fun averageDurationMillis(): Long {
+        val runs = runs()
+        return if (runs == 0) 0 else totalDurationMillis / runs
+    }
+
+    /**
+     * Returns a copy of these metrics which additionally counts the given [outcome].
+     */
+    fun plus(outcome: Outcome, durationMillis: Long) = UpdateMetrics(
+        outcomeCounts = outcomeCounts + (outcome to outcomes(outcome) + 1),
+        totalDurationMillis = totalDurationMillis + durationMillis
+    )
+
+    override fun toString(): String {
+        val outcomes = Outcome.values().joinToString { "$it=${outcomes(it)}" }
+        return "UpdateMetrics(runs=${runs()}, averageDurationMillis=${averageDurationMillis()}, $outcomes)"
+    }
+
+}
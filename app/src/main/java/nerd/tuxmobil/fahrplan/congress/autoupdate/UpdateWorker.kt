@@ -0,0 +1,132 @@
+package nerd.tuxmobil.fahrplan.congress.autoupdate
+
+import android.app.PendingIntent
+import android.app.PendingIntent.FLAG_ONE_SHOT
+import android.content.Context
+import android.content.Intent
+import android.content.Intent.FLAG_ACTIVITY_CLEAR_TOP
+import android.content.Intent.FLAG_ACTIVITY_RESET_TASK_IF_NEEDED
+import android.os.SystemClock
+import androidx.work.Constraints
+import androidx.work.CoroutineWorker
+import androidx.work.ExistingWorkPolicy
+import androidx.work.NetworkType
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.WorkManager
+import androidx.work.WorkerParameters
+import info.metadude.android.eventfahrplan.commons.logging.Logging
+import info.metadude.android.eventfahrplan.commons.temporal.Moment
+import nerd.tuxmobil.fahrplan.congress.R
+import nerd.tuxmobil.fahrplan.congress.alarms.AlarmUpdater
+import nerd.tuxmobil.fahrplan.congress.net.ParseScheduleResult
+import nerd.tuxmobil.fahrplan.congress.notifications.NotificationHelper
+import nerd.tuxmobil.fahrplan.congress.repositories.AppRepository
+import nerd.tuxmobil.fahrplan.congress.schedule.MainActivity
+import nerd.tuxmobil.fahrplan.congress.utils.FahrplanMisc
+import nerd.tuxmobil.fahrplan.congress.utils.PendingIntentCompat.FLAG_IMMUTABLE
+
+/**
+ * Updates the schedule in the background. It only runs while a network is connected.
+ * The worker suspends while the schedule is being fetched and parsed, no thread is blocked.
+ * An update which does not finish within [TIMEOUT_MILLIS] is abandoned.
+ * The outcomes are counted in the [UpdateMetrics] stored by the [AppRepository].
+ */
+class UpdateWorker(
+
+    context: Context,
+    parameters: WorkerParameters
+
+) : CoroutineWorker(context, parameters) {
+
+    companion object {
+
+        private const val LOG_TAG = "UpdateWorker"
+        private const val UNIQUE_WORK_NAME = "nerd.tuxmobil.fahrplan.congress.autoupdate.UPDATE"
+        private const val TIMEOUT_MILLIS = 5L * Moment.MILLISECONDS_OF_ONE_MINUTE
+
+        /**
+         * Enqueues a schedule update which runs once a network is connected.
+         * Nothing happens if an update has already been enqueued or is running.
+         */
+        fun start(context: Context) {
+            val constraints = Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build()
+            val request = OneTimeWorkRequestBuilder<UpdateWorker>()
+                .setConstraints(constraints)
+                .build()
+            WorkManager.getInstance(context)
+                .enqueueUniqueWork(UNIQUE_WORK_NAME, ExistingWorkPolicy.KEEP, request)
+        }
+    }
+
+    private val appRepository = AppRepository
+    private val logging = Logging.get()
+
+    /**
+     * Joins the schedule load in flight if there is one, see [AppRepository.loadSchedule].
+     */
+    override suspend fun doWork(): Result {
+        val previousRefreshInterval = appRepository.readAdaptiveScheduleRefreshInterval()
+        val startedAt = SystemClock.elapsedRealtime()
+        val result = awaitScheduleUpdate(TIMEOUT_MILLIS) { listener ->
+            appRepository.loadSchedule(
+                isUserRequest = false,
+                onFetchingDone = listener.onFetchingDone,
+                onParsingDone = listener.onParsingDone,
+                onLoadingShiftsDone = listener.onLoadingShiftsDone,
+                onLoadingDone = listener.onLoadingDone
+            )
+        }
+        val metrics = appRepository.recordUpdateOutcome(result.outcome, SystemClock.elapsedRealtime() - startedAt)
+        logging.d(LOG_TAG, "Schedule update done: outcome = ${result.outcome}, $metrics")
+
+        result.parseScheduleResult?.let(::onParseDone)
+        rescheduleUpdateAlarmIfAdapted(previousRefreshInterval)
+        // Failures are not retried. The next update alarm starts another attempt.
+        return Result.success()
+    }
+
+    private fun onParseDone(result: ParseScheduleResult) {
+        val numDays = appRepository.readMeta().numDays
+        logging.d(LOG_TAG, "onParseDone -> isSuccess=${result.isSuccess}, numDays=$numDays")
+        val changesList = appRepository.loadChangedSessions()
+        if (changesList.isNotEmpty()) {
+            showScheduleUpdateNotification(result.version, changesList.size)
+        }
+    }
+
+    private fun showScheduleUpdateNotification(version: String, changesCount: Int) {
+        val notificationIntent = Intent(applicationContext, MainActivity::class.java)
+        notificationIntent.flags = FLAG_ACTIVITY_CLEAR_TOP or FLAG_ACTIVITY_RESET_TASK_IF_NEEDED
+        val contentIntent = PendingIntent.getActivity(applicationContext, 0, notificationIntent, FLAG_ONE_SHOT or FLAG_IMMUTABLE)
+
+        val contentText = if (version.isEmpty()) {
+            applicationContext.getString(R.string.schedule_updated)
+        } else {
+            applicationContext.getString(R.string.schedule_updated_to, version)
+        }
+
+        val soundUri = appRepository.readAlarmToneUri()
+        val notificationHelper = NotificationHelper(applicationContext)
+        val builder = notificationHelper.getScheduleUpdateNotificationBuilder(
+            contentIntent,
+            contentText,
+            changesCount,
+            soundUri
+        )
+        notificationHelper.notify(NotificationHelper.SCHEDULE_UPDATE_ID, builder)
+    }
+
+    /**
+     * Reschedules the update alarm if the refresh adapted its interval, see [AlarmUpdater].
+     */
+    private fun rescheduleUpdateAlarmIfAdapted(previousRefreshInterval: Long) {
+        val refreshInterval = appRepository.readAdaptiveScheduleRefreshInterval()
+        if (refreshInterval != previousRefreshInterval) {
+            logging.d(LOG_TAG, "Refresh interval adapted from $previousRefreshInterval to $refreshInterval ms")
+            FahrplanMisc.setUpdateAlarm(applicationContext, appRepository.loadConferenceTimeFrame(), isInitial = true, logging)
+        }
+    }
+
+}
@@ -90,7 +90,7 @@ class CalendarDescriptionComposer(
 
     /**
      * Detects a trailing comma at the end of a Markdown formatted link
-     * and replaces it with a HTML line break. See ParserTask#parseFahrplan
+     * and replaces it with a HTML line break. See FahrplanParser#parseFahrplan
      * which adds the Markdown initially.
      */
     private fun String.separateByHtmlLineBreaks(): String {
@@ -40,5 +40,7 @@ object BundleKeys {
         "nerd.tuxmobil.fahrplan.congress.Prefs.ALTERNATIVE_HIGHLIGHT"
     const val USE_DEVICE_TIME_ZONE_UPDATED =
         "nerd.tuxmobil.fahrplan.congress.Prefs.USE_DEVICE_TIME_ZONE_UPDATED"
+    const val CANVAS_SESSION_CELLS_UPDATED =
+        "nerd.tuxmobil.fahrplan.congress.Prefs.CANVAS_SESSION_CELLS_UPDATED"
 
 }
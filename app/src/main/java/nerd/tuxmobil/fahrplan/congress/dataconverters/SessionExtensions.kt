@@ -20,6 +20,15 @@ fun Session.shiftRoomIndexOnDays(dayIndices: Set<Int>) =
         this
     }
 
+/**
+ * Applies the same rule as [Session.shiftRoomIndexOnDays] but modifies this session in place.
+ */
+fun SessionNetworkModel.shiftRoomIndexOnDays(dayIndices: Set<Int>) {
+    if (dayIndex in dayIndices) {
+        roomIndex += 1
+    }
+}
+
 fun Session.toRoom() = Room(identifier = roomIdentifier, name = roomName)
 
 fun Session.toDateInfo(): DateInfo = DateInfo(dayIndex, Moment.parseDate(dateText))
@@ -162,6 +171,55 @@ fun SessionNetworkModel.toSessionAppModel(): Session {
     )
 }
 
+/**
+ * Returns a database session which holds the properties of this network session as they are and
+ * the change flags of the given [flaggedSession], the app model of this session which has been
+ * compared to the stored sessions. Skips the app model so that the speakers are not split
+ * and joined again.
+ */
+fun SessionNetworkModel.toSessionDatabaseModel(flaggedSession: Session) = SessionDatabaseModel(
+        sessionId = sessionId,
+        abstractt = abstractt,
+        date = date,
+        dateUTC = dateUTC,
+        dayIndex = dayIndex,
+        description = description,
+        duration = duration, // minutes
+        feedbackUrl = feedbackUrl,
+        hasAlarm = hasAlarm,
+        language = language,
+        links = links,
+        isHighlight = isHighlight,
+        recordingLicense = recordingLicense,
+        recordingOptOut = recordingOptOut,
+        relativeStartTime = relativeStartTime,
+        roomName = roomName,
+        roomIdentifier = roomGuid,
+        roomIndex = roomIndex,
+        slug = slug,
+        speakers = speakers,
+        startTime = startTime, // minutes since day start
+        subtitle = subtitle,
+        timeZoneOffset = timeZoneOffset, // seconds
+        title = title,
+        track = track,
+        type = type,
+        url = url,
+
+        changedDay = flaggedSession.changedDayIndex,
+        changedDuration = flaggedSession.changedDuration,
+        changedIsCanceled = flaggedSession.changedIsCanceled,
+        changedIsNew = flaggedSession.changedIsNew,
+        changedLanguage = flaggedSession.changedLanguage,
+        changedRecordingOptOut = flaggedSession.changedRecordingOptOut,
+        changedRoomName = flaggedSession.changedRoomName,
+        changedSpeakers = flaggedSession.changedSpeakers,
+        changedSubtitle = flaggedSession.changedSubtitle,
+        changedTime = flaggedSession.changedStartTime,
+        changedTitle = flaggedSession.changedTitle,
+        changedTrack = flaggedSession.changedTrack
+)
+
 /**
  * Rewrites certain properties of a session to make its rendering more pleasant and to reduce
  * visual clutter. This is accomplished by removing duplicate information, moving content to more
@@ -169,7 +227,62 @@ fun SessionNetworkModel.toSessionAppModel(): Session {
  * scheme is used for similar sessions. This is achieved by customizing related track names. Colors
  * are derived from track names, see [TrackBackgrounds].
  */
-fun Session.sanitize(): Session {
+fun Session.sanitize(): Session = sanitize(
+    title = title,
+    subtitle = subtitle,
+    abstractt = abstractt,
+    description = description,
+    track = track,
+    language = language,
+    type = type,
+    roomName = roomName,
+    speakers = createSpeakersString(speakers),
+) { sanitizedTitle, sanitizedSubtitle, sanitizedAbstract, sanitizedDescription, sanitizedTrack, sanitizedLanguage ->
+    copy(
+        title = sanitizedTitle,
+        subtitle = sanitizedSubtitle,
+        abstractt = sanitizedAbstract,
+        description = sanitizedDescription,
+        track = sanitizedTrack,
+        language = sanitizedLanguage,
+    )
+}
+
+/**
+ * Applies the same rules as [Session.sanitize] but modifies this session in place.
+ * Meant to be invoked right after a session has been parsed to avoid creating a copy.
+ */
+fun SessionNetworkModel.sanitize() = sanitize(
+    title = title,
+    subtitle = subtitle,
+    abstractt = abstractt,
+    description = description,
+    track = track,
+    language = language,
+    type = type,
+    roomName = roomName,
+    speakers = speakers,
+) { sanitizedTitle, sanitizedSubtitle, sanitizedAbstract, sanitizedDescription, sanitizedTrack, sanitizedLanguage ->
+    title = sanitizedTitle
+    subtitle = sanitizedSubtitle
+    abstractt = sanitizedAbstract
+    description = sanitizedDescription
+    track = sanitizedTrack
+    language = sanitizedLanguage
+}
+
+private inline fun <T> sanitize(
+    title: String,
+    subtitle: String,
+    abstractt: String,
+    description: String,
+    track: String,
+    language: String,
+    type: String,
+    roomName: String,
+    speakers: String,
+    onSanitized: (title: String, subtitle: String, abstractt: String, description: String, track: String, language: String) -> T
+): T {
     var tempTitle = title
     var tempSubtitle = subtitle
     var tempAbstract = abstractt
@@ -186,7 +299,7 @@ fun Session.sanitize(): Session {
     if (tempAbstract == tempDescription) {
         tempAbstract = ""
     }
-    if (createSpeakersString(speakers) == tempSubtitle) {
+    if (speakers == tempSubtitle) {
         tempSubtitle = ""
     }
     if (tempDescription.isEmpty()) {
@@ -208,14 +321,7 @@ fun Session.sanitize(): Session {
     if (tempTrack.isEmpty() && type.isNotEmpty()) {
         tempTrack = type
     }
-    return this.copy(
-        title = tempTitle,
-        subtitle = tempSubtitle,
-        abstractt = tempAbstract,
-        description = tempDescription,
-        track = tempTrack,
-        language = tempLanguage,
-    )
+    return onSanitized(tempTitle, tempSubtitle, tempAbstract, tempDescription, tempTrack, tempLanguage)
 }
 
 /**
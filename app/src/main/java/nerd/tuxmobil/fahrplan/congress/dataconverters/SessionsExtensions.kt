@@ -5,7 +5,6 @@ import info.metadude.android.eventfahrplan.commons.temporal.Moment
 import nerd.tuxmobil.fahrplan.congress.models.Session
 import nerd.tuxmobil.fahrplan.congress.models.VirtualDay
 import info.metadude.android.eventfahrplan.database.models.Session as SessionDatabaseModel
-import info.metadude.android.eventfahrplan.network.models.Session as SessionNetworkModel
 
 fun List<Session>.shiftRoomIndicesOfMainSchedule(dayIndices: Set<Int>) = map {
     it.shiftRoomIndexOnDays(dayIndices)
@@ -46,8 +45,6 @@ fun List<Session>.toDayRanges(): List<DayRange> {
     return ranges.sortedBy { it.startsAt }.toList()
 }
 
-fun List<SessionNetworkModel>.toSessionsAppModel2(): List<Session> = map(SessionNetworkModel::toSessionAppModel)
-
 fun List<SessionDatabaseModel>.toSessionsAppModel() = map(SessionDatabaseModel::toSessionAppModel)
 
 fun List<Session>.sanitize(): List<Session> = map(Session::sanitize)
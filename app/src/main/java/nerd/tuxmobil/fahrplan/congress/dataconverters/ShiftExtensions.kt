@@ -1,31 +1,27 @@
 package nerd.tuxmobil.fahrplan.congress.dataconverters
 
 import androidx.annotation.VisibleForTesting
-import info.metadude.android.eventfahrplan.commons.logging.Logging
-import info.metadude.android.eventfahrplan.commons.temporal.DayRange
+import info.metadude.android.eventfahrplan.commons.temporal.DayRangeIndex
 import info.metadude.android.eventfahrplan.commons.temporal.Moment.Companion.MILLISECONDS_OF_ONE_SECOND
 import info.metadude.android.eventfahrplan.commons.temporal.Moment.Companion.toMoment
 import info.metadude.kotlin.library.engelsystem.models.Shift
 import nerd.tuxmobil.fahrplan.congress.models.Session
 import org.threeten.bp.Duration
 
-private const val LOG_TAG = "ShiftsExtensions"
-
 // Avoid conflicts with the IDs of the main schedule.
 private const val SHIFT_ID_OFFSET = 300000
 
 fun Shift.toSessionAppModel(
 
-        logging: Logging,
         virtualRoomName: String,
-        dayRanges: List<DayRange>
+        dayRangeIndex: DayRangeIndex
 
 ) = Session(
     sessionId = "${SHIFT_ID_OFFSET + sID}",
     abstractt = "",
     dateText = startsAtLocalDateString,
     dateUTC = dateUtcMs,
-    dayIndex = oneBasedDayIndex(logging, dayRanges),
+    dayIndex = oneBasedDayIndex(dayRangeIndex),
     description = descriptionText,
     duration = shiftDuration, // minutes
     relStartTime = minuteOfDay,
@@ -45,14 +41,10 @@ fun Shift.toSessionAppModel(
  * If the start time is within the start and end range of a day then the day index is returned.
  */
 @VisibleForTesting
-fun Shift.oneBasedDayIndex(logging: Logging, dayRanges: List<DayRange>): Int {
-    dayRanges.forEachIndexed { index, dayRange ->
-        if (dayRange.contains(startsAtDate)) {
-            logging.d(LOG_TAG, "${dayRange.startsAt} <= $startsAtDate < ${dayRange.endsAt} -> $talkTitle")
-            return index + 1
-        }
-    }
-    error("Shift start time $startsAtDate (${startsAtDate.toEpochSecond()}) exceeds all day ranges.")
+fun Shift.oneBasedDayIndex(dayRangeIndex: DayRangeIndex): Int {
+    val index = dayRangeIndex.indexOf(startsAtDate)
+    check(index != -1) { "Shift start time $startsAtDate (${startsAtDate.toEpochSecond()}) exceeds all day ranges." }
+    return index + 1
 }
 
 private val Shift.dateUtcMs
@@ -1,20 +1,18 @@
 package nerd.tuxmobil.fahrplan.congress.dataconverters
 
-import info.metadude.android.eventfahrplan.commons.logging.Logging
-import info.metadude.android.eventfahrplan.commons.temporal.DayRange
+import info.metadude.android.eventfahrplan.commons.temporal.DayRangeIndex
 import info.metadude.kotlin.library.engelsystem.models.Shift
 
 fun List<Shift>.toSessionAppModels(
 
-        logging: Logging,
         virtualRoomName: String,
-        dayRanges: List<DayRange>
+        dayRangeIndex: DayRangeIndex
 
-) = map { it.toSessionAppModel(logging, virtualRoomName, dayRanges) }
+) = map { it.toSessionAppModel(virtualRoomName, dayRangeIndex) }
 
 /**
  * Returns a list of shifts which only contains shifts which are within the given day ranges extent.
  * Shifts with a start date which is before or after the day ranges are dropped.
  */
-fun List<Shift>.cropToDayRangesExtent(dayRanges: List<DayRange>) =
-        filter { dayRanges.any { dayRange -> dayRange.contains(it.startsAtDate) } }
+fun List<Shift>.cropToDayRangesExtent(dayRangeIndex: DayRangeIndex) =
+        filter { it.startsAtDate in dayRangeIndex }
@@ -15,7 +15,7 @@ data class Session(
     val abstractt: String = "",
     val description: String = "",
     val feedbackUrl: String? = null, // URL to Frab/Pretalx feedback system, e.g. feedbackUrl = "https://talks.event.net/2023/talk/V8LUNA/feedback"
-    val links: String = "", // Comma separated Markdown formatted links, see ParserTask#parseFahrplan.
+    val links: String = "", // Comma separated Markdown formatted links, see FahrplanParser#parseFahrplan.
     val url: String = "",
     @Deprecated(
         "The value of this field is generated by {@link FahrplanParser} " +
@@ -0,0 +1,40 @@
+package nerd.tuxmobil.fahrplan.congress.net
+
+import android.content.Context
+import kotlinx.coroutines.FlowPreview
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.debounce
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.filter
+import kotlinx.coroutines.flow.map
+
+/**
+ * Emits `true` whenever a network which has been validated to reach the internet becomes
+ * available and `false` whenever the network is lost. Values repeat, e.g. when roaming between
+ * access points or when the capabilities of the network change. See [ConnectivityObserver].
+ */
+fun Context.validatedConnectivity(): Flow<Boolean> = callbackFlow {
+    val connectivityObserver = ConnectivityObserver(
+        context = this@validatedConnectivity,
+        onConnectionAvailable = { trySend(true) },
+        onConnectionLost = { trySend(false) },
+        shouldRequireValidatedNetwork = true
+    )
+    connectivityObserver.start()
+    awaitClose { connectivityObserver.stop() }
+}
+
+/**
+ * Emits once the connectivity settled on being available after it has not been available or
+ * after collecting started. Changes within the given [timeoutMillis] are collapsed so that
+ * roaming between access points, a VPN coming up or a fallback to cellular data cause one
+ * emission at most.
+ */
+@OptIn(FlowPreview::class)
+fun Flow<Boolean>.settledReconnects(timeoutMillis: Long): Flow<Unit> = this
+    .debounce(timeoutMillis)
+    .distinctUntilChanged()
+    .filter { isAvailable -> isAvailable }
+    .map { }
@@ -8,6 +8,7 @@ import android.content.Intent
 import android.content.IntentFilter
 import android.net.ConnectivityManager
 import android.net.Network
+import android.net.NetworkCapabilities
 import android.os.Build
 import androidx.core.content.ContextCompat
 import androidx.core.content.ContextCompat.RECEIVER_NOT_EXPORTED
@@ -16,13 +17,18 @@ import androidx.core.content.getSystemService
 /**
  * Observes network connectivity by consulting the [ConnectivityManager].
  * Observing can run infinitely or automatically be stopped after the first response is received.
+ *
+ * If [shouldRequireValidatedNetwork] is `true` a network is only reported as available once the
+ * system validated that it reaches the internet, e.g. after passing a captive portal.
+ * This is supported as of Android N. Before, any connected network is reported.
  */
 class ConnectivityObserver(
 
         val context: Context,
         val onConnectionAvailable: () -> Unit,
         val onConnectionLost: () -> Unit = {},
-        val shouldStopAfterFirstResponse: Boolean = false
+        val shouldStopAfterFirstResponse: Boolean = false,
+        val shouldRequireValidatedNetwork: Boolean = false
 
 ) {
 
@@ -60,6 +66,22 @@ class ConnectivityObserver(
 
                 override fun onAvailable(network: Network) {
                     super.onAvailable(network)
+                    if (shouldRequireValidatedNetwork) {
+                        return
+                    }
+                    onConnectionAvailable.invoke()
+                    if (shouldStopAfterFirstResponse) {
+                        stop()
+                    }
+                }
+
+                override fun onCapabilitiesChanged(network: Network, networkCapabilities: NetworkCapabilities) {
+                    super.onCapabilitiesChanged(network, networkCapabilities)
+                    if (!shouldRequireValidatedNetwork ||
+                        !networkCapabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED)) {
+                        return
+                    }
+                    // Also invoked when other capabilities such as the bandwidth change.
                     onConnectionAvailable.invoke()
                     if (shouldStopAfterFirstResponse) {
                         stop()
@@ -1,6 +1,7 @@
 package nerd.tuxmobil.fahrplan.congress.net
 
 import android.content.Context
+import info.metadude.android.eventfahrplan.commons.logging.Logging
 import nerd.tuxmobil.fahrplan.congress.BuildConfig
 import okhttp3.Cache
 import okhttp3.OkHttpClient
@@ -10,12 +11,21 @@ object CustomHttpClient {
 
     private const val CACHE_MAX_SIZE_BYTES = 10 * 1024 * 1024L // 10 MB
 
-    fun createHttpClient(context: Context): OkHttpClient {
+    fun createHttpClient(context: Context, logging: Logging): OkHttpClient {
         val clientBuilder = OkHttpClient.Builder()
 
+        // Derived clients such as the one of the Engelsystem service share the connection pool and
+        // the dispatcher. Responses are requested gzip compressed and decompressed by OkHttp itself
+        // as long as no "Accept-Encoding" header is set explicitly.
+        val networkProfile = NetworkProfile.of(BuildConfig.NETWORK_PROFILE)
+        networkProfile.applyTo(clientBuilder)
+
         val cache = Cache(context.cacheDir, CACHE_MAX_SIZE_BYTES)
         clientBuilder.cache(cache)
 
+        // Application interceptor so that each attempt passes the cache and the network interceptors.
+        clientBuilder.addInterceptor(RetryInterceptor(networkProfile.retryPolicy(), logging))
+
         val userAgentInterceptor = UserAgentInterceptor(
             userAgent = "${BuildConfig.APPLICATION_ID}, ${BuildConfig.VERSION_NAME}"
         )
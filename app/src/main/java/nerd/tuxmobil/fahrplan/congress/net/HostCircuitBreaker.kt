@@ -0,0 +1,61 @@
+package nerd.tuxmobil.fahrplan.congress.net
+
+/**
+ * Tracks consecutive failures per host. Once [failureThreshold] failures have been counted
+ * the circuit of the host is open: [tryAcquire] rejects all requests for [openMillis].
+ * Afterwards a single probing request is let through. Its success closes the circuit,
+ * its failure keeps the circuit open for another [openMillis].
+ *
+ * Each acquired request must be followed by [onSuccess], [onFailure] or, if its result says
+ * nothing about the host, by [releaseProbe].
+ */
+internal class HostCircuitBreaker(
+
+    private val failureThreshold: Int,
+    private val openMillis: Long,
+    private val clock: () -> Long,
+
+) {
+
+    private class Circuit {
+        var consecutiveFailures = 0
+        var openUntil = 0L
+        var isProbing = false
+    }
+
+    private val circuits = mutableMapOf<String, Circuit>()
+
+    @Synchronized
+    fun tryAcquire(host: String): Boolean {
+        val circuit = circuits[host] ?: return true
+        if (circuit.consecutiveFailures < failureThreshold) {
+            return true
+        }
+        if (clock() < circuit.openUntil || circuit.isProbing) {
+            return false
+        }
+        circuit.isProbing = true
+        return true
+    }
+
+    @Synchronized
+    fun onSuccess(host: String) {
+        circuits.remove(host)
+    }
+
+    @Synchronized
+    fun releaseProbe(host: String) {
+        circuits[host]?.isProbing = false
+    }
+
+    @Synchronized
+    fun onFailure(host: String) {
+        val circuit = circuits.getOrPut(host) { Circuit() }
+        circuit.isProbing = false
+        circuit.consecutiveFailures++
+        if (circuit.consecutiveFailures >= failureThreshold) {
+            circuit.openUntil = clock() + openMillis
+        }
+    }
+
+}
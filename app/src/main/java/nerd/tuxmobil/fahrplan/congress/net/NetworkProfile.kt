@@ -0,0 +1,85 @@
+package nerd.tuxmobil.fahrplan.congress.net
+
+import okhttp3.ConnectionPool
+import okhttp3.Dispatcher
+import okhttp3.OkHttpClient
+import java.util.concurrent.TimeUnit
+
+/**
+ * Timeouts and connection limits of the [OkHttpClient] which is shared by the schedule and
+ * the Engelsystem requests, see [CustomHttpClient]. A flavor picks a profile by its name
+ * via the `NETWORK_PROFILE` build config field.
+ *
+ * [maxRequestsPerHost] is enforced by the [Dispatcher] which only runs asynchronous calls.
+ * It therefore limits the Engelsystem requests but not the schedule download which is
+ * executed synchronously.
+ */
+enum class NetworkProfile(
+
+    val connectTimeoutSeconds: Long,
+    val readTimeoutSeconds: Long,
+    val writeTimeoutSeconds: Long,
+    val maxIdleConnections: Int,
+    val keepAliveMinutes: Long,
+    val maxRequestsPerHost: Int,
+
+) {
+
+    /**
+     * The OkHttp defaults.
+     */
+    DEFAULT(
+        connectTimeoutSeconds = 10,
+        readTimeoutSeconds = 10,
+        writeTimeoutSeconds = 10,
+        maxIdleConnections = 5,
+        keepAliveMinutes = 5,
+        maxRequestsPerHost = 5,
+    ),
+
+    /**
+     * Congress and camp networks where thousands of devices share an overloaded uplink.
+     * Connecting gives up early so that the [RetryInterceptor] can try again soon instead of
+     * hanging. Slow responses are awaited longer. Idle connections are kept alive longer to
+     * save TLS handshakes between refreshes. Fewer parallel Engelsystem requests per host leave
+     * bandwidth to the schedule download.
+     */
+    EVENT(
+        connectTimeoutSeconds = 5,
+        readTimeoutSeconds = 20,
+        writeTimeoutSeconds = 10,
+        maxIdleConnections = 4,
+        keepAliveMinutes = 10,
+        maxRequestsPerHost = 2,
+    );
+
+    fun applyTo(clientBuilder: OkHttpClient.Builder) {
+        clientBuilder
+            .connectTimeout(connectTimeoutSeconds, TimeUnit.SECONDS)
+            .readTimeout(readTimeoutSeconds, TimeUnit.SECONDS)
+            .writeTimeout(writeTimeoutSeconds, TimeUnit.SECONDS)
+            .connectionPool(ConnectionPool(maxIdleConnections, keepAliveMinutes, TimeUnit.MINUTES))
+            .dispatcher(Dispatcher().apply { maxRequestsPerHost = this@NetworkProfile.maxRequestsPerHost })
+    }
+
+    /**
+     * Returns the retry policy whose time budget leaves room for [RETRY_BUDGET_ATTEMPTS] attempts
+     * which each use up the connect and the read timeout. A smaller budget would cut the
+     * timeouts of this profile short.
+     */
+    fun retryPolicy() = RetryPolicy(
+        totalBudgetMillis = TimeUnit.SECONDS.toMillis(connectTimeoutSeconds + readTimeoutSeconds) * RETRY_BUDGET_ATTEMPTS
+    )
+
+    companion object {
+
+        private const val RETRY_BUDGET_ATTEMPTS = 2
+
+        /**
+         * Returns the profile with the given case-insensitive [name] or [DEFAULT] if there is none.
+         */
+        fun of(name: String) = values().firstOrNull { it.name.equals(name, ignoreCase = true) } ?: DEFAULT
+
+    }
+
+}
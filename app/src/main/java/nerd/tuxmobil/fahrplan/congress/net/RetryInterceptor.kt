@@ -0,0 +1,190 @@
+package nerd.tuxmobil.fahrplan.congress.net
+
+import info.metadude.android.eventfahrplan.commons.logging.Logging
+import nerd.tuxmobil.fahrplan.congress.net.RetryMetrics.Outcome
+import okhttp3.Interceptor
+import okhttp3.Interceptor.Chain
+import okhttp3.Request
+import okhttp3.Response
+import java.io.IOException
+import java.io.InterruptedIOException
+import java.net.ProtocolException
+import java.net.SocketTimeoutException
+import java.net.UnknownServiceException
+import java.util.concurrent.TimeUnit
+import javax.net.ssl.SSLException
+import kotlin.math.max
+import kotlin.math.min
+import kotlin.random.Random
+
+/**
+ * Retries idempotent requests which failed for reasons which are likely to be temporary such as
+ * a dropped connection, a timeout or a server which is overloaded. The delays between attempts
+ * and the limits are configured by the given [policy]. Failures which require the user to act
+ * such as an untrusted certificate or a forbidden cleartext connection are never retried.
+ *
+ * Requests to a host which failed too often recently are rejected with a [CircuitOpenException]
+ * without touching the network.
+ *
+ * Attempts and final outcomes are counted in [metrics]. The counts of the host are logged
+ * once a request has finished.
+ */
+class RetryInterceptor(
+
+    private val policy: RetryPolicy,
+    private val logging: Logging,
+    private val metrics: RetryMetrics = RetryMetrics(),
+    private val clock: () -> Long = { System.nanoTime() / 1_000_000 },
+    private val sleep: (millis: Long) -> Unit = Thread::sleep,
+    private val random: Random = Random.Default,
+
+) : Interceptor {
+
+    private companion object {
+        const val LOG_TAG = "RetryInterceptor"
+        const val RETRY_AFTER_HEADER = "Retry-After"
+        val IDEMPOTENT_METHODS = setOf("GET", "HEAD")
+        val RETRYABLE_STATUS_CODES = setOf(408, 429, 500, 502, 503, 504)
+    }
+
+    private val circuitBreaker = HostCircuitBreaker(policy.circuitFailureThreshold, policy.circuitOpenMillis, clock)
+
+    @Throws(IOException::class)
+    override fun intercept(chain: Chain): Response {
+        val request = chain.request()
+        if (request.method !in IDEMPOTENT_METHODS) {
+            return chain.proceed(request)
+        }
+        val host = request.url.host
+        val startedAt = clock()
+        var attempt = 0
+        while (true) {
+            if (!circuitBreaker.tryAcquire(host)) {
+                finish(host, Outcome.CIRCUIT_OPEN, attempt)
+                throw CircuitOpenException(host)
+            }
+            attempt++
+            metrics.countAttempt(host)
+            val remainingMillis = policy.totalBudgetMillis - (clock() - startedAt)
+            val response = try {
+                chain.attempt(host, request, remainingMillis)
+            } catch (e: IOException) {
+                if (chain.call().isCanceled() || !e.isRetryable()) {
+                    finish(host, Outcome.FAILED, attempt)
+                    throw e
+                }
+                val delay = policy.backoffMillis(attempt, random)
+                val outcome = giveUpOutcome(attempt, startedAt, delay)
+                if (outcome != null) {
+                    finish(host, outcome, attempt)
+                    throw e
+                }
+                logging.d(LOG_TAG, "Retrying $host in $delay ms after attempt $attempt failed: $e")
+                backOff(delay)
+                continue
+            }
+
+            if (response.code !in RETRYABLE_STATUS_CODES) {
+                finish(host, if (attempt == 1) Outcome.COMPLETED else Outcome.RECOVERED, attempt)
+                return response
+            }
+            val delay = max(policy.backoffMillis(attempt, random), response.retryAfterMillis())
+            val outcome = giveUpOutcome(attempt, startedAt, delay)
+            if (outcome != null) {
+                finish(host, outcome, attempt)
+                return response
+            }
+            logging.d(LOG_TAG, "Retrying $host in $delay ms after attempt $attempt responded with HTTP ${response.code}.")
+            response.close()
+            backOff(delay)
+        }
+    }
+
+    /**
+     * Sends the [request] once and reports the result to the circuit breaker. A canceled call
+     * says nothing about the host and is not counted as a failure. Without a result the probe
+     * of the host is released so that the next request can probe again.
+     */
+    private fun Chain.attempt(host: String, request: Request, remainingMillis: Long): Response {
+        var isReported = false
+        try {
+            val response = withinBudget(remainingMillis).proceed(request)
+            if (response.code in RETRYABLE_STATUS_CODES) {
+                circuitBreaker.onFailure(host)
+            } else {
+                circuitBreaker.onSuccess(host)
+            }
+            isReported = true
+            return response
+        } catch (e: IOException) {
+            if (!call().isCanceled()) {
+                circuitBreaker.onFailure(host)
+                isReported = true
+            }
+            throw e
+        } finally {
+            if (!isReported) {
+                circuitBreaker.releaseProbe(host)
+            }
+        }
+    }
+
+    private fun giveUpOutcome(attempt: Int, startedAt: Long, delay: Long) = when {
+        attempt >= policy.maxAttempts -> Outcome.FAILED
+        clock() - startedAt + delay >= policy.totalBudgetMillis -> Outcome.BUDGET_EXHAUSTED
+        else -> null
+    }
+
+    private fun finish(host: String, outcome: Outcome, attempts: Int) {
+        metrics.countOutcome(host, outcome)
+        logging.d(LOG_TAG, "Request to $host ended with $outcome after $attempts attempt(s). Totals: ${metrics.summary(host)}")
+    }
+
+    private fun backOff(millis: Long) {
+        try {
+            sleep(millis)
+        } catch (e: InterruptedException) {
+            Thread.currentThread().interrupt()
+            throw InterruptedIOException("Interrupted while backing off.")
+        }
+    }
+
+    /**
+     * Lowers the connect and read timeouts so that a single attempt cannot take much longer
+     * than the remaining time budget. A timeout of `0` means no timeout.
+     */
+    private fun Chain.withinBudget(remainingMillis: Long): Chain {
+        val connectTimeout = boundedTimeout(connectTimeoutMillis(), remainingMillis)
+        val readTimeout = boundedTimeout(readTimeoutMillis(), remainingMillis)
+        return withConnectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
+            .withReadTimeout(readTimeout, TimeUnit.MILLISECONDS)
+    }
+
+    private fun boundedTimeout(timeoutMillis: Int, remainingMillis: Long): Int {
+        val boundedMillis = if (timeoutMillis == 0) remainingMillis else min(timeoutMillis.toLong(), remainingMillis)
+        return boundedMillis.coerceIn(1, Int.MAX_VALUE.toLong()).toInt()
+    }
+
+    private fun IOException.isRetryable() = when (this) {
+        is SocketTimeoutException -> true
+        // Any other interruption is caused by a canceled call.
+        is InterruptedIOException -> false
+        is SSLException, is UnknownServiceException, is ProtocolException -> false
+        else -> true
+    }
+
+    /**
+     * Returns the delay in milliseconds which the server requested in seconds or `0` if it
+     * requested none or a date.
+     */
+    private fun Response.retryAfterMillis(): Long {
+        val seconds = header(RETRY_AFTER_HEADER)?.trim()?.toLongOrNull() ?: return 0
+        return TimeUnit.SECONDS.toMillis(seconds.coerceAtLeast(0))
+    }
+
+}
+
+/**
+ * Thrown instead of sending a request to a host which failed too often recently.
+ */
+class CircuitOpenException(host: String) : IOException("Too many failed requests to $host. Not trying again for now.")
@@ -0,0 +1,68 @@
+package nerd.tuxmobil.fahrplan.congress.net
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicIntegerArray
+
+/**
+ * Counts the attempts and final outcomes of the requests passing the [RetryInterceptor] per host.
+ * Safe to be read and written from any thread.
+ */
+class RetryMetrics {
+
+    enum class Outcome {
+
+        /**
+         * A response has been received on the first attempt. Its status code might still
+         * indicate an error which is not worth retrying such as 404.
+         */
+        COMPLETED,
+
+        /**
+         * A response has been received after at least one failed attempt.
+         */
+        RECOVERED,
+
+        /**
+         * The last attempt failed either with an error which is not worth retrying
+         * or after the maximum number of attempts.
+         */
+        FAILED,
+
+        /**
+         * No further attempt has been made because it would have exceeded the total time budget.
+         */
+        BUDGET_EXHAUSTED,
+
+        /**
+         * The request has been rejected because the host failed too often recently.
+         */
+        CIRCUIT_OPEN,
+
+    }
+
+    private val attemptsByHost = ConcurrentHashMap<String, AtomicInteger>()
+    private val outcomesByHost = ConcurrentHashMap<String, AtomicIntegerArray>()
+
+    fun attempts(host: String) = attemptsByHost[host]?.get() ?: 0
+
+    fun outcomes(host: String, outcome: Outcome) = outcomesByHost[host]?.get(outcome.ordinal) ?: 0
+
+    internal fun countAttempt(host: String) {
+        attemptsByHost.getOrPut(host) { AtomicInteger() }.incrementAndGet()
+    }
+
+    internal fun countOutcome(host: String, outcome: Outcome) {
+        outcomesByHost.getOrPut(host) { AtomicIntegerArray(Outcome.values().size) }.incrementAndGet(outcome.ordinal)
+    }
+
+    fun summary(host: String): String {
+        val outcomes = Outcome.values().joinToString { "$it=${outcomes(host, it)}" }
+        return "attempts=${attempts(host)}, $outcomes"
+    }
+
+    override fun toString() = attemptsByHost.keys.joinToString(prefix = "RetryMetrics(", postfix = ")") { host ->
+        "$host: ${summary(host)}"
+    }
+
+}
@@ -0,0 +1,59 @@
+package nerd.tuxmobil.fahrplan.congress.net
+
+import kotlin.math.min
+import kotlin.random.Random
+
+/**
+ * Configures how the [RetryInterceptor] retries failed requests.
+ *
+ * @param maxAttempts the maximum number of attempts per request including the first one.
+ * @param initialBackoffMillis the upper bound of the delay before the first retry.
+ * It doubles with every further retry.
+ * @param maxBackoffMillis the upper bound of the delay before any retry.
+ * @param totalBudgetMillis the time after which no further attempt is started. It also bounds
+ * the connect and read timeouts of each attempt.
+ * @param circuitFailureThreshold the number of consecutive failed attempts after which requests
+ * to the same host are rejected without touching the network.
+ * @param circuitOpenMillis the time for which requests to a host are rejected before a single
+ * request is let through to probe whether the host is reachable again.
+ */
+data class RetryPolicy(
+
+    val maxAttempts: Int = 4,
+    val initialBackoffMillis: Long = 500,
+    val maxBackoffMillis: Long = 8_000,
+    val totalBudgetMillis: Long = 30_000,
+    val circuitFailureThreshold: Int = 6,
+    val circuitOpenMillis: Long = 60_000,
+
+) {
+
+    init {
+        require(maxAttempts > 0) { "Max attempts must be positive but is $maxAttempts." }
+        require(initialBackoffMillis > 0) { "Initial backoff must be positive but is $initialBackoffMillis ms." }
+        require(maxBackoffMillis >= initialBackoffMillis) { "Max backoff must not be less than the initial backoff but is $maxBackoffMillis ms." }
+        require(totalBudgetMillis > 0) { "Total budget must be positive but is $totalBudgetMillis ms." }
+        require(circuitFailureThreshold > 0) { "Circuit failure threshold must be positive but is $circuitFailureThreshold." }
+        require(circuitOpenMillis > 0) { "Circuit open time must be positive but is $circuitOpenMillis ms." }
+    }
+
+    /**
+     * Returns a random delay between `0` and the exponentially growing upper bound for the
+     * given [retry] which starts at `1`. Spreading the delay over the whole range ("full jitter")
+     * prevents all clients on the same network from retrying in lockstep.
+     */
+    fun backoffMillis(retry: Int, random: Random): Long {
+        require(retry > 0) { "Retry must be positive but is $retry." }
+        val exponent = min(retry - 1, MAX_EXPONENT)
+        val upperBound = min(maxBackoffMillis, initialBackoffMillis shl exponent)
+        return random.nextLong(upperBound + 1)
+    }
+
+    private companion object {
+        /**
+         * Prevents the shifted initial backoff from overflowing.
+         */
+        const val MAX_EXPONENT = 20
+    }
+
+}
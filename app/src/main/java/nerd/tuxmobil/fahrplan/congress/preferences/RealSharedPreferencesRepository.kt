@@ -10,11 +10,22 @@ class RealSharedPreferencesRepository(val context: Context) : SharedPreferencesR
 
     private companion object {
 
+        const val ADAPTIVE_SCHEDULE_REFRESH_INTERVAL_KEY = "nerd.tuxmobil.fahrplan.congress.Prefs.ADAPTIVE_SCHEDULE_REFRESH_INTERVAL"
         const val CHANGES_SEEN_KEY = "nerd.tuxmobil.fahrplan.congress.Prefs.CHANGES_SEEN"
         const val DISPLAY_DAY_INDEX_KEY = "nerd.tuxmobil.fahrplan.congress.Prefs.DISPLAY_DAY_INDEX"
-        const val ENGELSYSTEM_SHIFTS_HASH_KEY = "nerd.tuxmobil.fahrplan.congress.Prefs.ENGELSYSTEM_SHIFTS_HASH"
+        const val ENGELSYSTEM_SHIFTS_HASH_KEY = "nerd.tuxmobil.fahrplan.congress.Prefs.ENGELSYSTEM_SHIFTS_MODELS_HASH"
+        /**
+         * Hash of the stored shift rows. Replaced by [ENGELSYSTEM_SHIFTS_HASH_KEY] which hashes
+         * the written shifts instead of reading all of them back.
+         */
+        const val LEGACY_ENGELSYSTEM_SHIFTS_HASH_KEY = "nerd.tuxmobil.fahrplan.congress.Prefs.ENGELSYSTEM_SHIFTS_HASH"
+        const val ENGELSYSTEM_SHIFTS_HTTP_HEADER_URL_KEY = "nerd.tuxmobil.fahrplan.congress.Prefs.ENGELSYSTEM_SHIFTS_HTTP_HEADER_URL"
+        const val ENGELSYSTEM_SHIFTS_ETAG_KEY = "nerd.tuxmobil.fahrplan.congress.Prefs.ENGELSYSTEM_SHIFTS_ETAG"
+        const val ENGELSYSTEM_SHIFTS_LAST_MODIFIED_KEY = "nerd.tuxmobil.fahrplan.congress.Prefs.ENGELSYSTEM_SHIFTS_LAST_MODIFIED"
         const val SCHEDULE_LAST_FETCHED_AT_KEY = "nerd.tuxmobil.fahrplan.congress.Prefs.SCHEDULE_LAST_FETCHED_AT"
+        const val SCHEDULE_REFRESH_OUTCOMES_KEY = "nerd.tuxmobil.fahrplan.congress.Prefs.SCHEDULE_REFRESH_OUTCOMES"
         const val SELECTED_SESSION_ID_KEY = "nerd.tuxmobil.fahrplan.congress.Prefs.SELECTED_SESSION_ID_KEY"
+        const val UPDATE_METRICS_KEY = "nerd.tuxmobil.fahrplan.congress.Prefs.UPDATE_METRICS"
 
     }
 
@@ -22,6 +33,9 @@ class RealSharedPreferencesRepository(val context: Context) : SharedPreferencesR
 
     init {
         PreferenceManager.setDefaultValues(context, R.xml.prefs, false)
+        if (preferences.contains(LEGACY_ENGELSYSTEM_SHIFTS_HASH_KEY)) {
+            preferences.edit { remove(LEGACY_ENGELSYSTEM_SHIFTS_HASH_KEY) }
+        }
     }
 
     override fun getScheduleRefreshIntervalDefaultValue(): Int {
@@ -63,6 +77,12 @@ class RealSharedPreferencesRepository(val context: Context) : SharedPreferencesR
         return preferences.getBoolean(key, defaultValue)
     }
 
+    override fun isCanvasSessionCellsEnabled(): Boolean {
+        val key = context.getString(R.string.preference_key_canvas_session_cells_enabled)
+        val defaultValue = context.resources.getBoolean(R.bool.preference_default_value_canvas_session_cells_enabled)
+        return preferences.getBoolean(key, defaultValue)
+    }
+
     override fun isAutoUpdateEnabled(): Boolean {
         val key = context.getString(R.string.preference_key_auto_update_enabled)
         val defaultValue = context.resources.getBoolean(R.bool.preference_default_value_auto_update_enabled)
@@ -88,6 +108,24 @@ class RealSharedPreferencesRepository(val context: Context) : SharedPreferencesR
         putLong(SCHEDULE_LAST_FETCHED_AT_KEY, fetchedAt)
     }
 
+    override fun getAdaptiveScheduleRefreshInterval() =
+            preferences.getLong(ADAPTIVE_SCHEDULE_REFRESH_INTERVAL_KEY, 0)
+
+    override fun getScheduleRefreshOutcomes() =
+            preferences.getString(SCHEDULE_REFRESH_OUTCOMES_KEY, "")!!
+
+    override fun setAdaptiveScheduleRefreshState(interval: Long, outcomes: String) = preferences.edit {
+        putLong(ADAPTIVE_SCHEDULE_REFRESH_INTERVAL_KEY, interval)
+        putString(SCHEDULE_REFRESH_OUTCOMES_KEY, outcomes)
+    }
+
+    override fun getUpdateMetrics() =
+            preferences.getString(UPDATE_METRICS_KEY, "")!!
+
+    override fun setUpdateMetrics(metrics: String) = preferences.edit {
+        putString(UPDATE_METRICS_KEY, metrics)
+    }
+
     override fun getChangesSeen() =
             preferences.getBoolean(CHANGES_SEEN_KEY, true)
 
@@ -114,6 +152,21 @@ class RealSharedPreferencesRepository(val context: Context) : SharedPreferencesR
         putInt(ENGELSYSTEM_SHIFTS_HASH_KEY, hash)
     }
 
+    override fun getEngelsystemShiftsHttpHeaderUrl() =
+            preferences.getString(ENGELSYSTEM_SHIFTS_HTTP_HEADER_URL_KEY, "")!!
+
+    override fun getEngelsystemShiftsETag() =
+            preferences.getString(ENGELSYSTEM_SHIFTS_ETAG_KEY, "")!!
+
+    override fun getEngelsystemShiftsLastModified() =
+            preferences.getString(ENGELSYSTEM_SHIFTS_LAST_MODIFIED_KEY, "")!!
+
+    override fun setEngelsystemShiftsHttpHeader(url: String, eTag: String, lastModified: String) = preferences.edit {
+        putString(ENGELSYSTEM_SHIFTS_HTTP_HEADER_URL_KEY, url)
+        putString(ENGELSYSTEM_SHIFTS_ETAG_KEY, eTag)
+        putString(ENGELSYSTEM_SHIFTS_LAST_MODIFIED_KEY, lastModified)
+    }
+
     override fun getSelectedSessionId() =
         preferences.getString(SELECTED_SESSION_ID_KEY, "")!!
 
@@ -12,6 +12,8 @@ interface SharedPreferencesRepository {
 
     fun isAlternativeHighlightingEnabled(): Boolean
 
+    fun isCanvasSessionCellsEnabled(): Boolean
+
     fun isAutoUpdateEnabled(): Boolean
 
     fun getDisplayDayIndex(): Int
@@ -22,6 +24,13 @@ interface SharedPreferencesRepository {
     fun getScheduleLastFetchedAt(): Long
     fun setScheduleLastFetchedAt(fetchedAt: Long)
 
+    fun getAdaptiveScheduleRefreshInterval(): Long
+    fun getScheduleRefreshOutcomes(): String
+    fun setAdaptiveScheduleRefreshState(interval: Long, outcomes: String)
+
+    fun getUpdateMetrics(): String
+    fun setUpdateMetrics(metrics: String)
+
     fun getChangesSeen(): Boolean
     fun setChangesSeen(changesSeen: Boolean)
 
@@ -32,6 +41,11 @@ interface SharedPreferencesRepository {
     fun getLastEngelsystemShiftsHash(): Int
     fun setLastEngelsystemShiftsHash(hash: Int)
 
+    fun getEngelsystemShiftsHttpHeaderUrl(): String
+    fun getEngelsystemShiftsETag(): String
+    fun getEngelsystemShiftsLastModified(): String
+    fun setEngelsystemShiftsHttpHeader(url: String, eTag: String, lastModified: String)
+
     fun getSelectedSessionId(): String
     fun setSelectedSessionId(sessionId: String): Boolean
 
@@ -6,7 +6,9 @@ import androidx.annotation.VisibleForTesting
 import androidx.annotation.WorkerThread
 import info.metadude.android.eventfahrplan.commons.extensions.onFailure
 import info.metadude.android.eventfahrplan.commons.logging.Logging
+import info.metadude.android.eventfahrplan.commons.temporal.DayRangeIndex
 import info.metadude.android.eventfahrplan.commons.temporal.Moment
+import info.metadude.android.eventfahrplan.commons.text.StringPool
 import info.metadude.android.eventfahrplan.database.extensions.toContentValues
 import info.metadude.android.eventfahrplan.database.repositories.AlarmsDatabaseRepository
 import info.metadude.android.eventfahrplan.database.repositories.HighlightsDatabaseRepository
@@ -22,11 +24,15 @@ import info.metadude.android.eventfahrplan.database.sqliteopenhelper.MetaDBOpenH
 import info.metadude.android.eventfahrplan.database.sqliteopenhelper.SessionsDBOpenHelper
 import info.metadude.android.eventfahrplan.engelsystem.EngelsystemNetworkRepository
 import info.metadude.android.eventfahrplan.engelsystem.RealEngelsystemNetworkRepository
+import info.metadude.android.eventfahrplan.engelsystem.models.ShiftsHttpHeader
 import info.metadude.android.eventfahrplan.engelsystem.models.ShiftsResult
 import info.metadude.android.eventfahrplan.network.models.HttpHeader
 import info.metadude.android.eventfahrplan.network.repositories.RealScheduleNetworkRepository
 import info.metadude.android.eventfahrplan.network.repositories.ScheduleNetworkRepository
+import info.metadude.android.eventfahrplan.network.serialization.FahrplanParser
 import info.metadude.kotlin.library.engelsystem.models.Shift
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.Deferred
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.Job
 import kotlinx.coroutines.channels.BufferOverflow
@@ -35,10 +41,16 @@ import kotlinx.coroutines.flow.MutableSharedFlow
 import kotlinx.coroutines.flow.flowOn
 import kotlinx.coroutines.flow.mapLatest
 import kotlinx.coroutines.flow.onStart
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.yield
 import nerd.tuxmobil.fahrplan.congress.BuildConfig
+import nerd.tuxmobil.fahrplan.congress.alarms.AdaptiveRefreshInterval
+import nerd.tuxmobil.fahrplan.congress.alarms.AdaptiveRefreshState
+import nerd.tuxmobil.fahrplan.congress.alarms.RefreshOutcome
+import nerd.tuxmobil.fahrplan.congress.autoupdate.UpdateMetrics
 import nerd.tuxmobil.fahrplan.congress.dataconverters.cropToDayRangesExtent
 import nerd.tuxmobil.fahrplan.congress.dataconverters.sanitize
-import nerd.tuxmobil.fahrplan.congress.dataconverters.shiftRoomIndicesOfMainSchedule
 import nerd.tuxmobil.fahrplan.congress.dataconverters.toAlarmDatabaseModel
 import nerd.tuxmobil.fahrplan.congress.dataconverters.toAlarmsAppModel
 import nerd.tuxmobil.fahrplan.congress.dataconverters.toAppFetchScheduleResult
@@ -53,7 +65,6 @@ import nerd.tuxmobil.fahrplan.congress.dataconverters.toMetaNetworkModel
 import nerd.tuxmobil.fahrplan.congress.dataconverters.toSessionAppModel
 import nerd.tuxmobil.fahrplan.congress.dataconverters.toSessionAppModels
 import nerd.tuxmobil.fahrplan.congress.dataconverters.toSessionsAppModel
-import nerd.tuxmobil.fahrplan.congress.dataconverters.toSessionsAppModel2
 import nerd.tuxmobil.fahrplan.congress.dataconverters.toSessionsDatabaseModel
 import nerd.tuxmobil.fahrplan.congress.exceptions.AppExceptionHandler
 import nerd.tuxmobil.fahrplan.congress.models.Alarm
@@ -86,6 +97,8 @@ import nerd.tuxmobil.fahrplan.congress.serialization.ScheduleChanges.Companion.c
 import nerd.tuxmobil.fahrplan.congress.utils.AlarmToneConversion
 import nerd.tuxmobil.fahrplan.congress.validation.MetaValidation.validate
 import okhttp3.OkHttpClient
+import java.util.Collections
+import info.metadude.android.eventfahrplan.database.models.Session as SessionDatabaseModel
 import info.metadude.android.eventfahrplan.network.models.Meta as MetaNetworkModel
 import nerd.tuxmobil.fahrplan.congress.models.Meta as MetaAppModel
 
@@ -99,10 +112,19 @@ object AppRepository {
     const val ENGELSYSTEM_ROOM_NAME = "Engelshifts"
     private const val ALL_DAYS = -1
 
+    /**
+     * Version of the rules which turn a schedule document into sessions, namely
+     * [FahrplanParser] and [sanitize]. Increment it whenever one of them changes its output.
+     * The stored schedule document is then parsed again, see [reparseScheduleIfOutdated].
+     */
+    @VisibleForTesting
+    const val SCHEDULE_PARSER_VERSION = 1
+
     private const val LOG_TAG = "AppRepository"
     private lateinit var logging: Logging
 
-    private val parentJobs = mutableMapOf<String, Job>()
+    // Touched from the UI, database and network threads.
+    private val parentJobs: MutableMap<String, Job> = Collections.synchronizedMap(mutableMapOf())
     private lateinit var executionContext: ExecutionContext
     private lateinit var databaseScope: DatabaseScope
     private lateinit var networkScope: NetworkScope
@@ -111,13 +133,21 @@ object AppRepository {
 
     private lateinit var alarmsDatabaseRepository: AlarmsDatabaseRepository
     private lateinit var highlightsDatabaseRepository: HighlightsDatabaseRepository
+    private lateinit var stringPool: StringPool
     private lateinit var sessionsDatabaseRepository: SessionsDatabaseRepository
     private lateinit var metaDatabaseRepository: MetaDatabaseRepository
 
     private lateinit var scheduleNetworkRepository: ScheduleNetworkRepository
+    private lateinit var scheduleDocumentRepository: ScheduleDocumentRepository
     private lateinit var engelsystemNetworkRepository: EngelsystemNetworkRepository
     private lateinit var sharedPreferencesRepository: SharedPreferencesRepository
     private lateinit var sessionsTransformer: SessionsTransformer
+    private lateinit var scheduleLoads: ScheduleLoadCoordinator
+    private lateinit var scheduleIngestion: ScheduleIngestion
+    // Serializes ingesting a fetched schedule and parsing the stored schedule document again.
+    private val scheduleIngestionMutex = Mutex()
+    private lateinit var dayScheduleDataCache: DayScheduleDataCache
+    private val adaptiveRefreshInterval = AdaptiveRefreshInterval()
 
     private val mutableLoadScheduleState = MutableSharedFlow<LoadScheduleState>(
         replay = 1,
@@ -241,7 +271,14 @@ object AppRepository {
 
     private val refreshUncanceledSessionsSignal = MutableSharedFlow<Unit>()
 
-    private fun refreshUncanceledSessions() {
+    /**
+     * Pass `true` for [isDisplayDayChange] if only the displayed day changed.
+     * Otherwise the cached days are dropped, see [DayScheduleDataCache].
+     */
+    private fun refreshUncanceledSessions(isDisplayDayChange: Boolean = false) {
+        if (!isDisplayDayChange) {
+            dayScheduleDataCache.invalidate()
+        }
         logging.d(LOG_TAG, "Refreshing uncanceled sessions ...")
         val requestIdentifier = "refreshUncanceledSessions"
         parentJobs[requestIdentifier] = databaseScope.launchNamed(requestIdentifier) {
@@ -312,12 +349,14 @@ object AppRepository {
             executionContext: ExecutionContext = AppExecutionContext,
             databaseScope: DatabaseScope = DatabaseScope.of(executionContext, AppExceptionHandler(logging)),
             networkScope: NetworkScope = NetworkScope.of(executionContext, AppExceptionHandler(logging)),
-            okHttpClient: OkHttpClient = CustomHttpClient.createHttpClient(context),
+            okHttpClient: OkHttpClient = CustomHttpClient.createHttpClient(context, logging),
             alarmsDatabaseRepository: AlarmsDatabaseRepository = RealAlarmsDatabaseRepository(AlarmsDBOpenHelper(context), logging),
             highlightsDatabaseRepository: HighlightsDatabaseRepository = RealHighlightsDatabaseRepository(HighlightDBOpenHelper(context)),
-            sessionsDatabaseRepository: SessionsDatabaseRepository = RealSessionsDatabaseRepository(SessionsDBOpenHelper(context), logging),
+            stringPool: StringPool = StringPool(),
+            sessionsDatabaseRepository: SessionsDatabaseRepository = RealSessionsDatabaseRepository(SessionsDBOpenHelper(context), logging, stringPool),
             metaDatabaseRepository: MetaDatabaseRepository = RealMetaDatabaseRepository(MetaDBOpenHelper(context)),
-            scheduleNetworkRepository: ScheduleNetworkRepository = RealScheduleNetworkRepository(logging),
+            scheduleNetworkRepository: ScheduleNetworkRepository = RealScheduleNetworkRepository(logging, stringPool),
+            scheduleDocumentRepository: ScheduleDocumentRepository = RealScheduleDocumentRepository(context, logging),
             engelsystemNetworkRepository: EngelsystemNetworkRepository = RealEngelsystemNetworkRepository(),
             sharedPreferencesRepository: SharedPreferencesRepository = RealSharedPreferencesRepository(context),
             sessionsTransformer: SessionsTransformer = SessionsTransformer.createSessionsTransformer()
@@ -329,12 +368,17 @@ object AppRepository {
         this.okHttpClient = okHttpClient
         this.alarmsDatabaseRepository = alarmsDatabaseRepository
         this.highlightsDatabaseRepository = highlightsDatabaseRepository
+        this.stringPool = stringPool
         this.sessionsDatabaseRepository = sessionsDatabaseRepository
         this.metaDatabaseRepository = metaDatabaseRepository
         this.scheduleNetworkRepository = scheduleNetworkRepository
+        this.scheduleDocumentRepository = scheduleDocumentRepository
         this.engelsystemNetworkRepository = engelsystemNetworkRepository
         this.sharedPreferencesRepository = sharedPreferencesRepository
         this.sessionsTransformer = sessionsTransformer
+        this.scheduleIngestion = ScheduleIngestion(executionContext)
+        this.scheduleLoads = ScheduleLoadCoordinator()
+        this.dayScheduleDataCache = DayScheduleDataCache()
     }
 
     private fun loadingFailed(@Suppress("SameParameterValue") requestIdentifier: String) {
@@ -342,39 +386,59 @@ object AppRepository {
     }
 
     fun cancelLoading() {
-        parentJobs.values.forEach {
-            it.cancel()
+        synchronized(parentJobs) {
+            parentJobs.values.forEach {
+                it.cancel()
+            }
+            parentJobs.clear()
         }
-        parentJobs.clear()
+        scheduleLoads.clear()
     }
 
     /**
      * Loads the schedule from the given [url]. Automated calls to this function must set the
      * [isUserRequest] parameter to `false` while call originating from a direct user interaction
      * must set the parameter to `true`.
+     *
+     * Personal Engelsystem shifts are downloaded at the same time. They are joined with the
+     * schedule once it has been parsed or found to be unmodified.
+     *
+     * Calls made while the schedule is being loaded from the same [url] do not start another
+     * load but receive the results of the load in flight. A user request upgrades a load in
+     * flight to a user request so that its failures are reported to the user.
+     *
+     * [onLoadingDone] is invoked last once no further result follows.
      */
-    // TODO Remove zombie callbacks when cleaning up UpdateService
     @WorkerThread
     fun loadSchedule(url: String = readScheduleUrl(),
                      isUserRequest: Boolean,
                      onFetchingDone: (fetchScheduleResult: FetchScheduleResult) -> Unit,
                      onParsingDone: (parseScheduleResult: ParseResult) -> Unit,
-                     onLoadingShiftsDone: (loadShiftsResult: LoadShiftsResult) -> Unit
+                     onLoadingShiftsDone: (loadShiftsResult: LoadShiftsResult) -> Unit,
+                     onLoadingDone: () -> Unit = {}
     ) {
         check(onFetchingDone != {}) { "Nobody registered to receive FetchScheduleResult." }
+        val listener = ScheduleLoadListener(onFetchingDone, onParsingDone, onLoadingShiftsDone, onLoadingDone)
+        val load = scheduleLoads.join(url, isUserRequest, listener)
+        if (load == null) {
+            logging.d(LOG_TAG, "Joined schedule load in flight: isUserRequest = $isUserRequest")
+            return
+        }
         // Fetching
         val meta = readMeta().toMetaNetworkModel()
         val fetchingStatus = if (meta.numDays == 0) InitialFetching else Fetching
         mutableLoadScheduleState.tryEmit(fetchingStatus)
+        // Both hosts are independent until the shifts are joined with the schedule.
+        val shiftsDownload = downloadShifts()
         scheduleNetworkRepository.fetchSchedule(okHttpClient, url, meta.httpHeader) { fetchScheduleResult ->
             val fetchResult = fetchScheduleResult.toAppFetchScheduleResult()
             val fetchResultStatus = if (fetchResult.isSuccessful) {
                 FetchSuccess
             } else {
-                FetchFailure(fetchResult.httpStatus, fetchResult.hostName, fetchResult.exceptionMessage, isUserRequest)
+                FetchFailure(fetchResult.httpStatus, fetchResult.hostName, fetchResult.exceptionMessage, load.isUserRequest)
             }
             mutableLoadScheduleState.tryEmit(fetchResultStatus)
-            onFetchingDone.invoke(fetchResult)
+            load.onFetchingDone(fetchResult)
 
             if (fetchResult.isNotModified || fetchResult.isSuccessful) {
                 updateScheduleLastFetchedAt()
@@ -391,11 +455,15 @@ object AppRepository {
                     scheduleXml = fetchScheduleResult.scheduleXml,
                     httpHeader = fetchScheduleResult.httpHeader,
                     oldMeta = meta,
-                    onParsingDone = onParsingDone,
-                    onLoadingShiftsDone = onLoadingShiftsDone
+                    shiftsDownload = shiftsDownload,
+                    load = load
                 )
             } else if (fetchResult.isNotModified) {
-                loadShifts(onLoadingShiftsDone)
+                updateAdaptiveScheduleRefreshState(RefreshOutcome.NOT_MODIFIED)
+                loadShifts(shiftsDownload, isScheduleUpdated = false, load)
+            } else {
+                shiftsDownload?.result?.cancel()
+                load.finish()
             }
         }
     }
@@ -403,90 +471,284 @@ object AppRepository {
     private fun parseSchedule(scheduleXml: String,
                               httpHeader: HttpHeader,
                               oldMeta: MetaNetworkModel,
-                              onParsingDone: (parseScheduleResult: ParseResult) -> Unit,
-                              onLoadingShiftsDone: (loadShiftsResult: LoadShiftsResult) -> Unit) {
-        scheduleNetworkRepository.parseSchedule(scheduleXml, httpHeader,
-                onUpdateSessions = { sessions ->
-                    val oldSessions = loadSessionsForAllDays(true)
-                    val newSessions = sessions.toSessionsAppModel2().sanitize()
-                    val scheduleChanges = computeSessionsWithChangeFlags(newSessions, oldSessions)
-                    if (scheduleChanges.foundNoteworthyChanges) {
-                        updateScheduleChangesSeen(false)
-                    }
-                    updateSessions(scheduleChanges.sessionsWithChangeFlags, scheduleChanges.oldCanceledSessions)
-                },
-                onUpdateMeta = { meta ->
-                    val validMeta = meta.validate()
-                    updateMeta(validMeta)
-                },
-                onParsingDone = { isSuccess: Boolean, version: String ->
-                    if (!isSuccess) {
-                        updateMeta(oldMeta.copy(httpHeader = HttpHeader(eTag = "", lastModified = "")))
+                              shiftsDownload: ShiftsDownload?,
+                              load: ScheduleLoad) {
+        val requestIdentifier = "parseSchedule"
+        parentJobs[requestIdentifier] = networkScope.launchNamed(requestIdentifier) {
+            // Once handed over to loading the shifts, the latter finishes the load.
+            var isLoadHandedOver = false
+            try {
+                val ingestionResult = try {
+                    scheduleIngestionMutex.withLock {
+                        val oldSessions = loadSessionsForAllDays(true)
+                        val shiftDayIndices = loadEngelsystemShiftsForAllDays().toDayIndices()
+                        // Drop values which might no longer be part of the schedule.
+                        stringPool.clear()
+                        val ingestionResult = scheduleIngestion.ingest(
+                            parse = { isCancelled, onSessionParsed ->
+                                scheduleNetworkRepository.parseScheduleIncrementally(scheduleXml, httpHeader, isCancelled, onSessionParsed)
+                            },
+                            oldSessions = oldSessions,
+                            roomIndexShiftedDays = shiftDayIndices,
+                            writer = stagedSessionsWriter
+                        )
+                        val (isSuccess, meta) = ingestionResult.parseResult
+                        if (isSuccess) {
+                            // Old canceled shifts have been deleted along with the other old canceled sessions.
+                            updateRoomIndicesOfMainSchedule(shiftDayIndices, loadEngelsystemShiftsForAllDays().toDayIndices())
+                            val validMeta = meta.copy(parserVersion = SCHEDULE_PARSER_VERSION).validate()
+                            updateMeta(validMeta)
+                        } else {
+                            updateMeta(oldMeta.copy(httpHeader = HttpHeader(eTag = "", lastModified = "")))
+                        }
+                        ingestionResult
                     }
-                    val parseResult = ParseScheduleResult(isSuccess, version)
-                    val parseScheduleStatus = if (isSuccess) ParseSuccess else ParseFailure(parseResult)
-                    mutableLoadScheduleState.tryEmit(parseScheduleStatus)
-                    onParsingDone(parseResult)
-                    loadShifts(onLoadingShiftsDone)
-                })
+                } catch (e: CancellationException) {
+                    throw e
+                } catch (e: Exception) {
+                    logging.e(LOG_TAG, "Schedule ingestion failed: $e")
+                    onScheduleIngestionFailed(oldMeta, shiftsDownload, load)
+                    return@launchNamed
+                }
+                logging.d(LOG_TAG, "Schedule ingestion: ${ingestionResult.stageCounters.joinToString()}")
+                logging.d(LOG_TAG, "Schedule ingestion: $stringPool")
+                if (ingestionResult.foundNoteworthyChanges) {
+                    updateScheduleChangesSeen(false)
+                }
+                refreshSessionsAfterUpdate()
+
+                val (isSuccess, meta) = ingestionResult.parseResult
+                if (isSuccess) {
+                    updateScheduleDocument(scheduleXml)
+                    val outcome = if (ingestionResult.foundChanges) RefreshOutcome.CHANGED else RefreshOutcome.UNCHANGED
+                    updateAdaptiveScheduleRefreshState(outcome)
+                }
+                val parseResult = ParseScheduleResult(isSuccess, meta.version)
+                val parseScheduleStatus = if (isSuccess) ParseSuccess else ParseFailure(parseResult)
+                mutableLoadScheduleState.tryEmit(parseScheduleStatus)
+                networkScope.withUiContext {
+                    load.onParsingDone(parseResult)
+                    loadShifts(shiftsDownload, isScheduleUpdated = isSuccess, load)
+                    isLoadHandedOver = true
+                }
+            } finally {
+                if (!isLoadHandedOver) {
+                    load.finish()
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports a failed parsing for the given [load] if the schedule ingestion threw
+     * an exception, e.g. because the database could not be written.
+     */
+    private suspend fun onScheduleIngestionFailed(oldMeta: MetaNetworkModel,
+                                                  shiftsDownload: ShiftsDownload?,
+                                                  load: ScheduleLoad) {
+        shiftsDownload?.result?.cancel()
+        val parseResult = ParseScheduleResult(isSuccess = false, oldMeta.version)
+        mutableLoadScheduleState.tryEmit(ParseFailure(parseResult))
+        networkScope.withUiContext {
+            load.onParsingDone(parseResult)
+        }
+        // Fetches the schedule again next time instead of receiving HTTP 304.
+        updateMeta(oldMeta.copy(httpHeader = HttpHeader(eTag = "", lastModified = "")))
+    }
+
+    /**
+     * Parses the locally stored schedule document again if the stored sessions have been
+     * created by an outdated [parser version][SCHEDULE_PARSER_VERSION] or if a database
+     * migration has cleared them. No network request is made. Nothing happens if no schedule
+     * document has been stored so far.
+     *
+     * A schedule load in flight is awaited first since it might replace the stored sessions
+     * anyway. Change flags of the stored sessions are retained. Engelsystem shifts are kept
+     * as they are.
+     */
+    fun reparseScheduleIfOutdated() {
+        val requestIdentifier = "reparseScheduleIfOutdated"
+        parentJobs[requestIdentifier] = databaseScope.launchNamed(requestIdentifier) {
+            if (!isScheduleOutdated()) {
+                return@launchNamed
+            }
+            val listener = ScheduleLoadListener(
+                onFetchingDone = {},
+                onParsingDone = {},
+                onLoadingShiftsDone = {},
+                onLoadingDone = { reparseScheduleIfOutdated() }
+            )
+            if (scheduleLoads.joinInFlight(readScheduleUrl(), isUserRequest = false, listener)) {
+                logging.d(LOG_TAG, "Parsing stored schedule document again once the schedule load in flight is done.")
+                return@launchNamed
+            }
+            val isSuccess = scheduleIngestionMutex.withLock {
+                // A schedule load might have replaced the stored sessions in the meantime.
+                isScheduleOutdated() && reparseSchedule()
+            }
+            if (isSuccess) {
+                refreshSessionsAfterUpdate()
+            }
+        }
+    }
+
+    private fun isScheduleOutdated(): Boolean {
+        val isOutdated = readMeta().parserVersion != SCHEDULE_PARSER_VERSION
+        val isCleared = sessionsDatabaseRepository.querySessionsCount() == 0L
+        return isOutdated || isCleared
+    }
+
+    /**
+     * Replaces the stored sessions with the ones parsed from the stored schedule document which
+     * has already been processed before. Bumps the stored parser version once the
+     * sessions have been stored. Returns `true` if the sessions have been stored.
+     */
+    private suspend fun reparseSchedule(): Boolean {
+        val scheduleXml = scheduleDocumentRepository.read()
+        if (scheduleXml == null) {
+            logging.d(LOG_TAG, "No schedule document stored which could be parsed again.")
+            return false
+        }
+        val oldMeta = readMeta().toMetaNetworkModel()
+        logging.d(LOG_TAG, "Parsing stored schedule document again: parserVersion = ${oldMeta.parserVersion}")
+        val ingestionResult = scheduleIngestion.ingest(
+            parse = { isCancelled, onSessionParsed ->
+                scheduleNetworkRepository.parseScheduleIncrementally(scheduleXml, oldMeta.httpHeader, isCancelled, onSessionParsed)
+            },
+            oldSessions = loadSessionsForAllDays(false),
+            roomIndexShiftedDays = loadEngelsystemShiftsForAllDays().toDayIndices(),
+            retainChangeFlags = true,
+            writer = stagedSessionsWriter
+        )
+        val (isSuccess, meta) = ingestionResult.parseResult
+        logging.d(LOG_TAG, "Parsing stored schedule document done: " +
+                "isSuccess = $isSuccess, version = '${meta.version}'")
+        if (isSuccess) {
+            val validMeta = meta.copy(parserVersion = SCHEDULE_PARSER_VERSION).validate()
+            updateMeta(validMeta)
+        }
+        return isSuccess
+    }
+
+    private fun updateScheduleDocument(scheduleXml: String) {
+        val requestIdentifier = "updateScheduleDocument"
+        parentJobs[requestIdentifier] = databaseScope.launchNamed(requestIdentifier) {
+            scheduleDocumentRepository.write(scheduleXml)
+        }
     }
 
+    private class ShiftsDownload(val url: String, val result: Deferred<ShiftsResult>)
+
     /**
-     * Loads personal shifts from the Engelsystem and joins them with the conference schedule.
-     * Once loading is done (successful or not) the given [onLoadingShiftsDone] function is invoked.
+     * Starts downloading personal shifts from the Engelsystem. Returns `null` if shifts are
+     * disabled or no Engelsystem URL has been entered. The result is processed by [loadShifts].
+     * The request is conditional if shifts have been downloaded from the same URL before.
      */
-    private fun loadShifts(onLoadingShiftsDone: (loadShiftsResult: LoadShiftsResult) -> Unit) {
+    private fun downloadShifts(): ShiftsDownload? {
         @Suppress("ConstantConditionIf")
         if (!BuildConfig.ENABLE_ENGELSYSTEM_SHIFTS) {
-            return
+            return null
         }
         val url = readEngelsystemShiftsUrl()
         if (url.isEmpty()) {
+            return null
+        }
+        val httpHeader = readEngelsystemShiftsHttpHeader(url)
+        val requestIdentifier = "downloadShifts"
+        val result = networkScope.asyncNamed(requestIdentifier) {
+            engelsystemNetworkRepository.load(okHttpClient, url, httpHeader)
+        }
+        parentJobs[requestIdentifier] = result
+        return ShiftsDownload(url, result)
+    }
+
+    /**
+     * Waits for the given [shiftsDownload] and joins the shifts with the conference schedule.
+     * Unchanged shifts are left as they are unless [isScheduleUpdated] is `true`: the stored
+     * shifts then have to be joined with the new schedule which requires downloading them again.
+     * Once loading is done (successful or not) the listeners of the given schedule [load] are
+     * notified and the [load] is finished.
+     */
+    private fun loadShifts(
+        shiftsDownload: ShiftsDownload?,
+        isScheduleUpdated: Boolean,
+        load: ScheduleLoad
+    ) {
+        @Suppress("ConstantConditionIf")
+        if (!BuildConfig.ENABLE_ENGELSYSTEM_SHIFTS) {
+            load.finish()
+            return
+        }
+        if (shiftsDownload == null) {
             logging.d(LOG_TAG, "Engelsystem shifts URL is empty.")
             deleteAllEngelsystemShiftsForAllDays()
+            load.finish()
             return
         }
         val requestIdentifier = "loadShifts"
         parentJobs[requestIdentifier] = networkScope.launchNamed(requestIdentifier) {
-            suspend fun notifyLoadingShiftsDone(loadShiftsResult: LoadShiftsResult) {
-                networkScope.withUiContext {
-                    onLoadingShiftsDone(loadShiftsResult)
-                }
+            try {
+                awaitAndJoinShifts(shiftsDownload, isScheduleUpdated, load, requestIdentifier)
+            } finally {
+                load.finish()
             }
-            when (val result = engelsystemNetworkRepository.load(okHttpClient, url)) {
-                is ShiftsResult.Success -> {
-                    updateShifts(result.shifts)
-                    notifyLoadingShiftsDone(LoadShiftsResult.Success)
-                    updateLastEngelsystemShiftsHash()
-                }
-                is ShiftsResult.Error -> {
-                    logging.e(LOG_TAG, "ShiftsResult.Error: $result")
-                    loadingFailed(requestIdentifier)
-                    val loadShiftsError = LoadShiftsResult.Error(result.httpStatusCode, result.exceptionMessage)
-                    mutableLoadScheduleState.tryEmit(ParseFailure(ParseShiftsResult.of(loadShiftsError)))
-                    notifyLoadingShiftsDone(loadShiftsError)
-                }
-                is ShiftsResult.Exception -> {
-                    logging.e(LOG_TAG, "ShiftsResult.Exception: ${result.throwable.message}")
-                    result.throwable.printStackTrace()
-                    val loadShiftsException = LoadShiftsResult.Exception(result.throwable)
-                    mutableLoadScheduleState.tryEmit(ParseFailure(ParseShiftsResult.of(loadShiftsException)))
-                    notifyLoadingShiftsDone(loadShiftsException)
+        }
+    }
+
+    private suspend fun awaitAndJoinShifts(
+        shiftsDownload: ShiftsDownload,
+        isScheduleUpdated: Boolean,
+        load: ScheduleLoad,
+        requestIdentifier: String
+    ) {
+        suspend fun notifyLoadingShiftsDone(loadShiftsResult: LoadShiftsResult) {
+            networkScope.withUiContext {
+                load.onLoadingShiftsDone(loadShiftsResult)
+            }
+        }
+        var result = shiftsDownload.result.await()
+        if (result is ShiftsResult.NotModified && isScheduleUpdated) {
+            result = engelsystemNetworkRepository.load(okHttpClient, shiftsDownload.url)
+        }
+        when (result) {
+            is ShiftsResult.Success -> {
+                val shiftsHash = updateShifts(result.shifts)
+                notifyLoadingShiftsDone(LoadShiftsResult.Success)
+                if (shiftsHash != null) {
+                    updateLastEngelsystemShiftsHash(shiftsHash)
                 }
+                updateEngelsystemShiftsHttpHeader(shiftsDownload.url, result.httpHeader)
+            }
+            is ShiftsResult.NotModified -> {
+                logging.d(LOG_TAG, "Shifts have not been modified.")
+                notifyLoadingShiftsDone(LoadShiftsResult.Success)
+            }
+            is ShiftsResult.Error -> {
+                logging.e(LOG_TAG, "ShiftsResult.Error: $result")
+                loadingFailed(requestIdentifier)
+                val loadShiftsError = LoadShiftsResult.Error(result.httpStatusCode, result.exceptionMessage)
+                mutableLoadScheduleState.tryEmit(ParseFailure(ParseShiftsResult.of(loadShiftsError)))
+                notifyLoadingShiftsDone(loadShiftsError)
+            }
+            is ShiftsResult.Exception -> {
+                logging.e(LOG_TAG, "ShiftsResult.Exception: ${result.throwable.message}")
+                result.throwable.printStackTrace()
+                val loadShiftsException = LoadShiftsResult.Exception(result.throwable)
+                mutableLoadScheduleState.tryEmit(ParseFailure(ParseShiftsResult.of(loadShiftsException)))
+                notifyLoadingShiftsDone(loadShiftsException)
             }
         }
     }
 
-    private fun updateLastEngelsystemShiftsHash() {
+    private fun updateLastEngelsystemShiftsHash(currentShiftsHash: Int) {
         val identifier = "updateLastEngelsystemShiftsHash"
         parentJobs[identifier] = databaseScope.launchNamed(identifier) {
             val lastShiftsHash = readLastEngelsystemShiftsHash()
-            val currentShiftsHash = readEngelsystemShiftsHash()
             logging.d(LOG_TAG, "Shifts hash (OLD) = $lastShiftsHash")
             logging.d(LOG_TAG, "Shifts hash (NEW) = $currentShiftsHash")
             val shiftsChanged = currentShiftsHash != lastShiftsHash
             if (shiftsChanged) {
-                updateLastEngelsystemShiftsHash(currentShiftsHash)
+                writeLastEngelsystemShiftsHash(currentShiftsHash)
             }
         }
     }
@@ -495,39 +757,48 @@ object AppRepository {
      * Inserts shifts or updates the locally stored shifts. Canceled shifts are deleted.
      * Shifts which take place before or after the main conference days are omitted.
      * New [shifts] are joined with conference schedule session.
+     * Returns the hash of the stored shifts or `null` if nothing has been stored.
+     * The hash is computed from the written shifts without reading them back.
      */
-    private fun updateShifts(shifts: List<Shift>) {
+    private fun updateShifts(shifts: List<Shift>): Int? {
         if (shifts.isEmpty()) {
-            return
+            return null
         }
-        val dayRanges = loadSessionsForAllDays(includeEngelsystemShifts = false)
-                .toDayRanges()
+        val dayRangeIndex = DayRangeIndex(loadSessionsForAllDays(includeEngelsystemShifts = false).toDayRanges())
         val oldShifts = loadEngelsystemShiftsForAllDays()
         val sessionizedShifts = shifts
                 .also { logging.d(LOG_TAG, "Shifts unfiltered = ${it.size}") }
-                .cropToDayRangesExtent(dayRanges)
+                .cropToDayRangesExtent(dayRangeIndex)
                 .also { logging.d(LOG_TAG, "Shifts filtered = ${it.size}") }
-                .toSessionAppModels(logging, ENGELSYSTEM_ROOM_NAME, dayRanges)
+                .toSessionAppModels(ENGELSYSTEM_ROOM_NAME, dayRangeIndex)
                 .sanitize()
         val shiftChanges = computeSessionsWithChangeFlags(sessionizedShifts, oldShifts)
         if (oldShifts.isEmpty() || shiftChanges.foundChanges) {
-            val toBeUpdatedSessions = loadSessionsForAllDays(false) // Drop all shifts before ...
-                .toMutableList()
-                .let {
-                    when {
-                        // Shift rooms to make space for the Engelshifts room
-                        oldShifts.isEmpty() -> it.shiftRoomIndicesOfMainSchedule(sessionizedShifts.toDayIndices())
-                        // Prevent shifting room indices increasing the gap more and more
-                        else -> it
-                    }
-                }
-                .plus(sessionizedShifts) // ... adding them again.
-                .toList()
+            val newShiftIds = sessionizedShifts.mapTo(HashSet(sessionizedShifts.size)) { it.sessionId }
             val toBeDeletedSessions = oldShifts
-                .filter { persisted -> sessionizedShifts.none { newOrUpdated -> persisted.sessionId == newOrUpdated.sessionId } }
+                .filterNot { it.sessionId in newShiftIds }
                 .also { logging.d(LOG_TAG, "Shifts to be removed = ${it.size}") }
-            updateSessions(toBeUpdatedSessions, toBeDeletedSessions)
+            writeSessions(sessionizedShifts, toBeDeletedSessions)
+            updateRoomIndicesOfMainSchedule(oldShifts.toDayIndices(), sessionizedShifts.toDayIndices())
+            refreshSessionsAfterUpdate()
+            return sessionizedShifts.hashCode()
         }
+        // The stored shifts and therefore their hash are unchanged.
+        return null
+    }
+
+    /**
+     * Moves the rooms of the main schedule one position to the right on days which gained shifts
+     * to make space for the Engelshifts room and back on days which lost all of their shifts.
+     * Sessions on other days are not touched.
+     *
+     * Relies on the room indices of the main schedule being shifted on all days which have
+     * shifts and on no other day. Ingesting a schedule therefore shifts the room indices of the
+     * parsed sessions on the days which have shifts, see [ScheduleIngestion.ingest].
+     */
+    private fun updateRoomIndicesOfMainSchedule(oldShiftDayIndices: Set<Int>, newShiftDayIndices: Set<Int>) {
+        sessionsDatabaseRepository.shiftRoomIndices(newShiftDayIndices - oldShiftDayIndices, offset = 1, ENGELSYSTEM_ROOM_NAME)
+        sessionsDatabaseRepository.shiftRoomIndices(oldShiftDayIndices - newShiftDayIndices, offset = -1, ENGELSYSTEM_ROOM_NAME)
     }
 
     /**
@@ -565,6 +836,41 @@ object AppRepository {
     @WorkerThread
     fun loadUncanceledSessionsForDayIndex(): ScheduleData {
         val dayIndex = readDisplayDayIndex()
+        val generation = dayScheduleDataCache.generation
+        val scheduleData = dayScheduleDataCache[dayIndex]
+            ?: loadUncanceledScheduleDataForDayIndex(dayIndex).also { dayScheduleDataCache.put(generation, it) }
+        prefetchAdjacentDays(dayIndex)
+        return scheduleData
+    }
+
+    /**
+     * Loads the sessions of the days before and after the given [day][dayIndex] in the
+     * background so that switching to one of them does not query the database.
+     */
+    private fun prefetchAdjacentDays(dayIndex: Int) {
+        val requestIdentifier = "prefetchAdjacentDays"
+        parentJobs[requestIdentifier]?.cancel()
+        parentJobs[requestIdentifier] = databaseScope.launchNamed(requestIdentifier) {
+            dayScheduleDataCache.retainAdjacentDays(dayIndex)
+            val numDays = readMeta().numDays
+            for (adjacentDayIndex in listOf(dayIndex + 1, dayIndex - 1)) {
+                if (adjacentDayIndex in 1..numDays && dayScheduleDataCache[adjacentDayIndex] == null) {
+                    val generation = dayScheduleDataCache.generation
+                    val scheduleData = loadUncanceledScheduleDataForDayIndex(adjacentDayIndex)
+                    dayScheduleDataCache.put(generation, scheduleData)
+                    logging.d(LOG_TAG, "Prefetched sessions of day $adjacentDayIndex.")
+                }
+                yield()
+            }
+        }
+    }
+
+    /**
+     * Load all sessions for the given [day][dayIndex] from the database which have not been
+     * canceled and returns them as [ScheduleData]. The contained list of sessions might be empty.
+     */
+    @WorkerThread
+    fun loadUncanceledScheduleDataForDayIndex(dayIndex: Int): ScheduleData {
         val sessions = loadUncanceledSessionsForDayIndex(dayIndex)
         return sessionsTransformer.transformSessions(dayIndex, sessions)
     }
@@ -606,7 +912,11 @@ object AppRepository {
      */
     private fun deleteAllEngelsystemShiftsForAllDays() {
         val toBeDeletedSessions = readEngelsystemShiftsOrderedByDateUtc()
-        updateSessions(emptyList(), toBeDeletedSessions)
+        writeSessions(emptyList(), toBeDeletedSessions)
+        updateRoomIndicesOfMainSchedule(toBeDeletedSessions.toDayIndices(), emptySet())
+        refreshSessionsAfterUpdate()
+        // The next response must not be skipped as not modified.
+        updateEngelsystemShiftsHttpHeader(url = "", ShiftsHttpHeader())
     }
 
     /**
@@ -784,21 +1094,58 @@ object AppRepository {
     private fun readLastEngelsystemShiftsHash() =
             sharedPreferencesRepository.getLastEngelsystemShiftsHash()
 
-    private fun updateLastEngelsystemShiftsHash(hash: Int) =
+    private fun writeLastEngelsystemShiftsHash(hash: Int) =
             sharedPreferencesRepository.setLastEngelsystemShiftsHash(hash)
 
-    private fun readEngelsystemShiftsHash() =
-            sessionsDatabaseRepository.querySessionsWithinRoom(ENGELSYSTEM_ROOM_NAME).hashCode()
+    /**
+     * Returns the validators of the last shifts response or empty validators
+     * if they have been received from another [url].
+     */
+    private fun readEngelsystemShiftsHttpHeader(url: String) =
+            if (sharedPreferencesRepository.getEngelsystemShiftsHttpHeaderUrl() == url) {
+                ShiftsHttpHeader(
+                    eTag = sharedPreferencesRepository.getEngelsystemShiftsETag(),
+                    lastModified = sharedPreferencesRepository.getEngelsystemShiftsLastModified()
+                )
+            } else {
+                ShiftsHttpHeader()
+            }
+
+    private fun updateEngelsystemShiftsHttpHeader(url: String, httpHeader: ShiftsHttpHeader) =
+            sharedPreferencesRepository.setEngelsystemShiftsHttpHeader(url, httpHeader.eTag, httpHeader.lastModified)
 
     @WorkerThread
     fun readDateInfos() =
             readSessionsOrderedByDateUtc().toDateInfos()
 
-    private fun updateSessions(toBeUpdatedSessions: List<Session>, toBeDeletedSessions: List<Session> = emptyList()) {
-        val toBeUpdatedSessionsDatabaseModel = toBeUpdatedSessions.toSessionsDatabaseModel()
-        val toBeUpdated = toBeUpdatedSessionsDatabaseModel.map { it.sessionId to it.toContentValues() }
+    /**
+     * Writes the given sessions in one transaction without notifying any observer.
+     * Invoke [refreshSessionsAfterUpdate] once all sessions have been written.
+     */
+    private fun writeSessions(toBeUpdatedSessions: List<Session>, toBeDeletedSessions: List<Session>) {
+        val toBeUpdated = toBeUpdatedSessions.toSessionsDatabaseModel()
         val toBeDeleted = toBeDeletedSessions.map { it.sessionId }
         sessionsDatabaseRepository.updateSessions(toBeUpdated, toBeDeleted)
+    }
+
+    /**
+     * Stages the sessions of a schedule ingestion without notifying any observer.
+     * Invoke [refreshSessionsAfterUpdate] once the staged sessions have been committed.
+     */
+    private val stagedSessionsWriter = object : ScheduleIngestion.Writer {
+
+        override fun discard() =
+            sessionsDatabaseRepository.clearStagedSessions()
+
+        override fun stage(sessions: List<SessionDatabaseModel>) =
+            sessionsDatabaseRepository.stageSessions(sessions)
+
+        override fun commit(toBeDeletedSessions: List<Session>) =
+            sessionsDatabaseRepository.commitStagedSessions(toBeDeletedSessions.map { it.sessionId })
+
+    }
+
+    private fun refreshSessionsAfterUpdate() {
         refreshStarredSessions()
         refreshSessions()
         refreshSessionsWithoutShifts()
@@ -870,6 +1217,9 @@ object AppRepository {
     fun readAlternativeHighlightingEnabled() =
             sharedPreferencesRepository.isAlternativeHighlightingEnabled()
 
+    fun readCanvasSessionCellsEnabled() =
+            sharedPreferencesRepository.isCanvasSessionCellsEnabled()
+
     @WorkerThread
     fun readAutoUpdateEnabled() =
             sharedPreferencesRepository.isAutoUpdateEnabled()
@@ -891,6 +1241,37 @@ object AppRepository {
         sharedPreferencesRepository.setScheduleLastFetchedAt(toMilliseconds())
     }
 
+    /**
+     * Returns the interval of automatic schedule updates during the conference adapted to the
+     * outcomes of the recent schedule refreshes, see [AdaptiveRefreshInterval].
+     */
+    fun readAdaptiveScheduleRefreshInterval() =
+            adaptiveRefreshInterval.intervalOf(readAdaptiveScheduleRefreshState())
+
+    private fun readAdaptiveScheduleRefreshState() = AdaptiveRefreshState(
+            intervalMillis = sharedPreferencesRepository.getAdaptiveScheduleRefreshInterval(),
+            outcomes = RefreshOutcome.decode(sharedPreferencesRepository.getScheduleRefreshOutcomes())
+    )
+
+    private fun updateAdaptiveScheduleRefreshState(outcome: RefreshOutcome) {
+        val state = adaptiveRefreshInterval.record(readAdaptiveScheduleRefreshState(), outcome)
+        logging.d(LOG_TAG, "Adaptive schedule refresh: outcome = $outcome, interval = ${state.intervalMillis} ms")
+        sharedPreferencesRepository.setAdaptiveScheduleRefreshState(state.intervalMillis, RefreshOutcome.encode(state.outcomes))
+    }
+
+    fun readUpdateMetrics() =
+            UpdateMetrics.decode(sharedPreferencesRepository.getUpdateMetrics())
+
+    /**
+     * Counts the [outcome] of a background schedule update which took [durationMillis]
+     * and returns the updated metrics.
+     */
+    fun recordUpdateOutcome(outcome: UpdateMetrics.Outcome, durationMillis: Long): UpdateMetrics {
+        val metrics = readUpdateMetrics().plus(outcome, durationMillis)
+        sharedPreferencesRepository.setUpdateMetrics(UpdateMetrics.encode(metrics))
+        return metrics
+    }
+
     @WorkerThread
     fun readScheduleChangesSeen() =
             sharedPreferencesRepository.getChangesSeen()
@@ -906,7 +1287,7 @@ object AppRepository {
     @WorkerThread
     fun updateDisplayDayIndex(displayDayIndex: Int) {
         sharedPreferencesRepository.setDisplayDayIndex(displayDayIndex)
-        refreshUncanceledSessions()
+        refreshUncanceledSessions(isDisplayDayChange = true)
     }
 
     fun readInsistentAlarmsEnabled() =
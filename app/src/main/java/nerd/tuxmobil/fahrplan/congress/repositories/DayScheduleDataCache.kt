@@ -0,0 +1,55 @@
+package nerd.tuxmobil.fahrplan.congress.repositories
+
+import nerd.tuxmobil.fahrplan.congress.models.ScheduleData
+import kotlin.math.abs
+
+/**
+ * Holds the [ScheduleData] of the displayed day and of its adjacent days so that switching
+ * between them does not query the database. The adjacent days are loaded in the background.
+ *
+ * Must be [invalidated][invalidate] whenever the sessions, highlights or alarms change.
+ * Data which has been loaded before the last invalidation is not [stored][put] anymore,
+ * see [generation].
+ *
+ * Safe to be used from any thread.
+ */
+internal class DayScheduleDataCache {
+
+    private val scheduleDataByDayIndex = mutableMapOf<Int, ScheduleData>()
+
+    /**
+     * Incremented by each [invalidate]. Must be read before loading the data to be [stored][put].
+     */
+    @get:Synchronized
+    var generation = 0
+        private set
+
+    @Synchronized
+    operator fun get(dayIndex: Int): ScheduleData? = scheduleDataByDayIndex[dayIndex]
+
+    /**
+     * Stores the given [scheduleData] unless the cache has been invalidated after the given
+     * [generation] has been read.
+     */
+    @Synchronized
+    fun put(generation: Int, scheduleData: ScheduleData) {
+        if (generation == this.generation) {
+            scheduleDataByDayIndex[scheduleData.dayIndex] = scheduleData
+        }
+    }
+
+    /**
+     * Drops all days except the given [day][dayIndex] and its adjacent days.
+     */
+    @Synchronized
+    fun retainAdjacentDays(dayIndex: Int) {
+        scheduleDataByDayIndex.keys.retainAll { abs(it - dayIndex) <= 1 }
+    }
+
+    @Synchronized
+    fun invalidate() {
+        generation++
+        scheduleDataByDayIndex.clear()
+    }
+
+}
@@ -3,8 +3,10 @@ package nerd.tuxmobil.fahrplan.congress.repositories
 import kotlinx.coroutines.CoroutineExceptionHandler
 import kotlinx.coroutines.CoroutineName
 import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Deferred
 import kotlinx.coroutines.Job
 import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
 import kotlinx.coroutines.launch
 import nerd.tuxmobil.fahrplan.congress.exceptions.ExceptionHandling
 
@@ -31,6 +33,14 @@ class NetworkScope private constructor(
         return scope.launch(context = CoroutineName(name), block = block)
     }
 
+    /**
+     * Starts the given [block] right away and returns its future result. Exceptions are not
+     * passed to the exception handler but thrown when awaiting the result.
+     */
+    fun <T> asyncNamed(name: String, block: suspend CoroutineScope.() -> T): Deferred<T> {
+        return scope.async(context = CoroutineName(name), block = block)
+    }
+
     suspend fun <T> withUiContext(block: suspend CoroutineScope.() -> T) = executionContext.withUiContext(block)
 
 }
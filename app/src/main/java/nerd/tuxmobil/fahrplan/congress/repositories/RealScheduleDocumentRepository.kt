@@ -0,0 +1,57 @@
+package nerd.tuxmobil.fahrplan.congress.repositories
+
+import android.content.Context
+import androidx.annotation.WorkerThread
+import androidx.core.util.AtomicFile
+import androidx.core.util.tryWrite
+import info.metadude.android.eventfahrplan.commons.logging.Logging
+import java.io.File
+import java.io.IOException
+import java.util.zip.GZIPInputStream
+import java.util.zip.GZIPOutputStream
+
+/**
+ * Stores the schedule document GZIP compressed in the private files directory.
+ * Writes are atomic: a partially written file never replaces a complete one.
+ */
+class RealScheduleDocumentRepository(
+
+    private val context: Context,
+    private val logging: Logging
+
+) : ScheduleDocumentRepository {
+
+    private companion object {
+        const val LOG_TAG = "ScheduleDocumentRepository"
+        const val FILE_NAME = "schedule.xml.gz"
+    }
+
+    private val file by lazy { AtomicFile(File(context.filesDir, FILE_NAME)) }
+
+    @WorkerThread
+    override fun read() = try {
+        GZIPInputStream(file.openRead()).bufferedReader().use { it.readText() }
+    } catch (e: IOException) {
+        // Includes FileNotFoundException if nothing has been stored yet.
+        null
+    }
+
+    @WorkerThread
+    override fun write(scheduleXml: String) {
+        try {
+            file.tryWrite { outputStream ->
+                // Finish instead of close: AtomicFile syncs and closes the underlying stream itself.
+                val gzipOutputStream = GZIPOutputStream(outputStream)
+                gzipOutputStream.write(scheduleXml.toByteArray())
+                gzipOutputStream.finish()
+            }
+        } catch (e: IOException) {
+            logging.e(LOG_TAG, "Failure storing schedule document: ${e.message}")
+        }
+    }
+
+    override fun delete() {
+        file.delete()
+    }
+
+}
@@ -0,0 +1,18 @@
+package nerd.tuxmobil.fahrplan.congress.repositories
+
+/**
+ * Keeps the raw schedule document of the last successful update around so that the
+ * schedule can be parsed again without a network round trip.
+ */
+interface ScheduleDocumentRepository {
+
+    /**
+     * Returns the stored schedule document or `null` if none has been stored yet.
+     */
+    fun read(): String?
+
+    fun write(scheduleXml: String)
+
+    fun delete()
+
+}
@@ -0,0 +1,250 @@
+package nerd.tuxmobil.fahrplan.congress.repositories
+
+import info.metadude.android.eventfahrplan.network.serialization.ParseScheduleResult
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.channels.produce
+import kotlinx.coroutines.channels.trySendBlocking
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.withContext
+import nerd.tuxmobil.fahrplan.congress.dataconverters.sanitize
+import nerd.tuxmobil.fahrplan.congress.dataconverters.shiftRoomIndexOnDays
+import nerd.tuxmobil.fahrplan.congress.dataconverters.toSessionAppModel
+import nerd.tuxmobil.fahrplan.congress.dataconverters.toSessionDatabaseModel
+import nerd.tuxmobil.fahrplan.congress.models.Session
+import nerd.tuxmobil.fahrplan.congress.serialization.IncrementalScheduleChanges
+import nerd.tuxmobil.fahrplan.congress.serialization.ScheduleChanges.Companion.carryOverChangeFlags
+import info.metadude.android.eventfahrplan.database.models.Session as SessionDatabaseModel
+import info.metadude.android.eventfahrplan.network.models.Session as SessionNetworkModel
+
+/**
+ * Turns a schedule document into stored sessions in four stages which run concurrently:
+ *
+ * 1. parsing the document and sanitizing each session in place
+ * 2. shifting the room index of each session if needed and deriving its app model
+ * 3. detecting changes compared to the stored sessions by means of the app model
+ * 4. staging the sessions in chunks of [batchSize] sessions, each in its own transaction
+ *
+ * Only the change flags of the app model are kept. The database model of each session is
+ * derived from the parsed session directly, see [toSessionDatabaseModel].
+ *
+ * The stages are connected by channels which hold at most [channelCapacity] sessions each.
+ * A fast stage is suspended until the next one catches up. Hence, neither the whole list of
+ * parsed sessions nor the whole list of flagged sessions is held in memory at any time.
+ * The stored sessions which the new sessions are compared to are held in memory though.
+ * The parser cannot suspend, it blocks its thread instead. Therefore, the
+ * [network dispatcher][ExecutionContext.network] must not be confined to a single thread.
+ *
+ * The staged sessions only replace the stored sessions once the document has been parsed
+ * completely. Old sessions which are missing from the new schedule are flagged as canceled and
+ * old canceled sessions are deleted at the same time. A document which fails to parse midway
+ * or an ingestion which is cancelled discards the staged sessions and leaves the stored
+ * sessions untouched.
+ *
+ * A schedule document which has been ingested before can be ingested again, e.g. after a parser
+ * upgrade, by carrying over the change flags of the stored sessions instead of detecting changes.
+ */
+class ScheduleIngestion(
+
+    private val executionContext: ExecutionContext,
+    private val batchSize: Int = DEFAULT_BATCH_SIZE,
+    private val channelCapacity: Int = DEFAULT_CHANNEL_CAPACITY,
+
+) {
+
+    companion object {
+        const val DEFAULT_BATCH_SIZE = 200
+        const val DEFAULT_CHANNEL_CAPACITY = 64
+    }
+
+    /**
+     * Stores the sessions of an ingestion. Sessions are staged first and replace the stored
+     * sessions all at once when committed.
+     */
+    interface Writer {
+
+        /**
+         * Drops all staged sessions.
+         */
+        fun discard()
+
+        /**
+         * Stages the given sessions without touching the stored sessions.
+         */
+        fun stage(sessions: List<SessionDatabaseModel>)
+
+        /**
+         * Replaces the stored sessions with the staged sessions and deletes the given sessions,
+         * all in one transaction.
+         */
+        fun commit(toBeDeletedSessions: List<Session>)
+
+    }
+
+    init {
+        require(batchSize > 0) { "Batch size must be positive but is $batchSize." }
+        require(channelCapacity > 0) { "Channel capacity must be positive but is $channelCapacity." }
+    }
+
+    /**
+     * Runs all stages and suspends until the sessions have been committed or discarded.
+     *
+     * @param parse parses the schedule document on the calling thread and passes each session
+     * to the given function as soon as it has been read. Parsing must stop once the given
+     * cancellation check returns `true`.
+     * @param oldSessions the sessions stored before, used to detect changes. Held in memory
+     * until the ingestion is done.
+     * @param roomIndexShiftedDays the days on which the room index of each parsed session is
+     * increased by one to make space for the Engelshifts room.
+     * @param retainChangeFlags `true` to carry over the change flags of the old sessions
+     * instead of detecting changes. Neither cancels nor deletes any session.
+     * @param writer stages and commits the sessions.
+     */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    suspend fun ingest(
+        parse: (isCancelled: () -> Boolean, onSessionParsed: (session: SessionNetworkModel) -> Unit) -> ParseScheduleResult,
+        oldSessions: List<Session>,
+        roomIndexShiftedDays: Set<Int> = emptySet(),
+        retainChangeFlags: Boolean = false,
+        writer: Writer,
+    ): ScheduleIngestionResult = coroutineScope {
+        val parseCounter = StageCounter("parse")
+        val convertCounter = StageCounter("convert")
+        val diffCounter = StageCounter("diff")
+        val writeCounter = StageCounter("write")
+        val parseResult = CompletableDeferred<ParseScheduleResult>()
+        val changes = IncrementalScheduleChanges(oldSessions)
+
+        val parsedSessions = produce(executionContext.network, channelCapacity) {
+            parseCounter.measure {
+                // Blocks the parser thread while the channel is full. Throws once the channel
+                // has been closed which makes the parser stop and report a failure.
+                val result = parse({ !isActive }) { session ->
+                    session.sanitize()
+                    channel.trySendBlocking(session).getOrThrow()
+                    parseCounter.increment()
+                }
+                parseResult.complete(result)
+            }
+        }
+
+        val convertedSessions = produce(executionContext.network, channelCapacity) {
+            convertCounter.measure {
+                for (session in parsedSessions) {
+                    session.shiftRoomIndexOnDays(roomIndexShiftedDays)
+                    send(session to session.toSessionAppModel())
+                    convertCounter.increment()
+                }
+            }
+        }
+
+        val flaggedSessions = produce(executionContext.database, channelCapacity) {
+            diffCounter.measure {
+                if (retainChangeFlags) {
+                    val oldSessionsById = oldSessions.associateBy { it.sessionId }
+                    for ((session, appSession) in convertedSessions) {
+                        val flaggedSession = carryOverChangeFlags(appSession, oldSessionsById[session.sessionId])
+                        send(session.toSessionDatabaseModel(flaggedSession))
+                        diffCounter.increment()
+                    }
+                    return@measure
+                }
+                for ((session, appSession) in convertedSessions) {
+                    send(session.toSessionDatabaseModel(changes.flag(appSession)))
+                    diffCounter.increment()
+                }
+                if (parseResult.await().isSuccess) {
+                    changes.flagCanceledSessions().forEach { send(it.toSessionDatabaseModel()) }
+                }
+            }
+        }
+
+        withContext(executionContext.database) {
+            writeCounter.measure {
+                // Drops leftovers of an ingestion which has been interrupted by process death.
+                writer.discard()
+                try {
+                    val chunk = ArrayList<SessionDatabaseModel>(batchSize)
+                    for (session in flaggedSessions) {
+                        chunk += session
+                        if (chunk.size == batchSize) {
+                            writer.stage(chunk.toList())
+                            writeCounter.increment(chunk.size)
+                            chunk.clear()
+                        }
+                    }
+                    if (parseResult.await().isSuccess) {
+                        if (chunk.isNotEmpty()) {
+                            writer.stage(chunk.toList())
+                            writeCounter.increment(chunk.size)
+                        }
+                        writer.commit(if (retainChangeFlags) emptyList() else changes.oldCanceledSessions)
+                    } else {
+                        writer.discard()
+                    }
+                } catch (e: Throwable) {
+                    writer.discard()
+                    throw e
+                }
+            }
+        }
+
+        ScheduleIngestionResult(
+            parseResult = parseResult.await(),
+            foundNoteworthyChanges = changes.foundNoteworthyChanges,
+            foundChanges = changes.foundChanges,
+            stageCounters = listOf(parseCounter, convertCounter, diffCounter, writeCounter),
+        )
+    }
+
+}
+
+data class ScheduleIngestionResult(
+
+    val parseResult: ParseScheduleResult,
+    val foundNoteworthyChanges: Boolean,
+    val foundChanges: Boolean,
+    val stageCounters: List<StageCounter>,
+
+)
+
+/**
+ * Counts the sessions which passed a stage of the [ScheduleIngestion] and measures how long
+ * the stage has been running. Each counter is only modified by the coroutine of its own stage.
+ */
+class StageCounter(val name: String) {
+
+    var count = 0
+        private set
+
+    var durationMillis = 0L
+        private set
+
+    /**
+     * Sessions per second or `0` if nothing has been measured.
+     */
+    val throughput: Double
+        get() = if (durationMillis == 0L) 0.0 else count * 1000.0 / durationMillis
+
+    fun increment(delta: Int = 1) {
+        count += delta
+    }
+
+    inline fun <T> measure(block: () -> T): T {
+        val startedAt = System.currentTimeMillis()
+        try {
+            return block()
+        } finally {
+            addDuration(System.currentTimeMillis() - startedAt)
+        }
+    }
+
+    @PublishedApi
+    internal fun addDuration(millis: Long) {
+        durationMillis += millis
+    }
+
+    override fun toString() = "$name: $count sessions in $durationMillis ms"
+
+}
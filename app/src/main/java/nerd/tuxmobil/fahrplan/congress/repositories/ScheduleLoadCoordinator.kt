@@ -0,0 +1,161 @@
+package nerd.tuxmobil.fahrplan.congress.repositories
+
+import nerd.tuxmobil.fahrplan.congress.net.FetchScheduleResult
+import nerd.tuxmobil.fahrplan.congress.net.LoadShiftsResult
+import nerd.tuxmobil.fahrplan.congress.net.ParseResult
+
+/**
+ * Lets concurrent requests to load the schedule share a single load per URL ("single flight").
+ * The first caller starts a [ScheduleLoad]. Callers arriving while it is in flight join it and
+ * receive its results including those which have been delivered before they joined.
+ * A user request joining a background load upgrades it to a user request.
+ *
+ * Safe to be used from any thread.
+ */
+internal class ScheduleLoadCoordinator {
+
+    private val loads = mutableMapOf<String, ScheduleLoad>()
+
+    /**
+     * Registers the given [listener] with the load in flight for the given [url].
+     * Returns a new load which the caller must start or `null` if a load in flight has been joined.
+     */
+    @Synchronized
+    fun join(url: String, isUserRequest: Boolean, listener: ScheduleLoadListener): ScheduleLoad? {
+        val loadInFlight = loads[url]
+        if (loadInFlight != null && loadInFlight.join(isUserRequest, listener)) {
+            return null
+        }
+        val load = ScheduleLoad(isUserRequest, listener, onFinished = { remove(url, it) })
+        loads[url] = load
+        return load
+    }
+
+    /**
+     * Registers the given [listener] with the load in flight for the given [url] without ever
+     * starting a new load. Returns `false` if no load is in flight.
+     */
+    @Synchronized
+    fun joinInFlight(url: String, isUserRequest: Boolean, listener: ScheduleLoadListener): Boolean {
+        val loadInFlight = loads[url] ?: return false
+        return loadInFlight.join(isUserRequest, listener)
+    }
+
+    /**
+     * Forgets all loads in flight. The next caller starts a new load.
+     */
+    @Synchronized
+    fun clear() {
+        loads.clear()
+    }
+
+    @Synchronized
+    private fun remove(url: String, load: ScheduleLoad) {
+        if (loads[url] === load) {
+            loads.remove(url)
+        }
+    }
+
+}
+
+/**
+ * Receives the results of a [ScheduleLoad]. [onLoadingDone] is invoked last once no further
+ * result follows.
+ */
+internal class ScheduleLoadListener(
+
+    val onFetchingDone: (fetchScheduleResult: FetchScheduleResult) -> Unit,
+    val onParsingDone: (parseScheduleResult: ParseResult) -> Unit,
+    val onLoadingShiftsDone: (loadShiftsResult: LoadShiftsResult) -> Unit,
+    val onLoadingDone: () -> Unit = {},
+
+)
+
+/**
+ * A load of the schedule in flight which forwards its results to all of its listeners.
+ * It must be [finished][finish] once no further result follows.
+ */
+internal class ScheduleLoad(
+
+    isUserRequest: Boolean,
+    listener: ScheduleLoadListener,
+    private val onFinished: (load: ScheduleLoad) -> Unit,
+
+) {
+
+    /**
+     * `true` if at least one of the callers sharing this load is a user request.
+     */
+    @Volatile
+    var isUserRequest = isUserRequest
+        private set
+
+    private val listeners = mutableListOf(listener)
+    private var fetchScheduleResult: FetchScheduleResult? = null
+    private var parseResult: ParseResult? = null
+    private var loadShiftsResult: LoadShiftsResult? = null
+    private var isFinished = false
+
+    /**
+     * Adds the given [listener] and passes the results delivered so far to it.
+     * Returns `false` if this load has already finished.
+     */
+    fun join(isUserRequest: Boolean, listener: ScheduleLoadListener): Boolean {
+        val (fetchScheduleResult, parseResult, loadShiftsResult) = synchronized(this) {
+            if (isFinished) {
+                return false
+            }
+            if (isUserRequest) {
+                this.isUserRequest = true
+            }
+            listeners += listener
+            Triple(fetchScheduleResult, parseResult, loadShiftsResult)
+        }
+        fetchScheduleResult?.let(listener.onFetchingDone)
+        parseResult?.let(listener.onParsingDone)
+        loadShiftsResult?.let(listener.onLoadingShiftsDone)
+        return true
+    }
+
+    fun onFetchingDone(result: FetchScheduleResult) {
+        val listeners = synchronized(this) {
+            fetchScheduleResult = result
+            listeners.toList()
+        }
+        listeners.forEach { it.onFetchingDone(result) }
+    }
+
+    fun onParsingDone(result: ParseResult) {
+        val listeners = synchronized(this) {
+            parseResult = result
+            listeners.toList()
+        }
+        listeners.forEach { it.onParsingDone(result) }
+    }
+
+    fun onLoadingShiftsDone(result: LoadShiftsResult) {
+        val listeners = synchronized(this) {
+            loadShiftsResult = result
+            listeners.toList()
+        }
+        listeners.forEach { it.onLoadingShiftsDone(result) }
+    }
+
+    /**
+     * Marks this load as finished so that the next caller starts a new load.
+     * Invoking it more than once has no effect.
+     */
+    fun finish() {
+        val listeners = synchronized(this) {
+            if (isFinished) {
+                return
+            }
+            isFinished = true
+            listeners.toList()
+        }
+        // Outside of the lock of this load to not lock the coordinator while holding it.
+        onFinished(this)
+        listeners.forEach { it.onLoadingDone() }
+    }
+
+}
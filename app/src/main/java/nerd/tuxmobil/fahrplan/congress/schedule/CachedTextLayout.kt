@@ -0,0 +1,62 @@
+package nerd.tuxmobil.fahrplan.congress.schedule
+
+import android.os.Build
+import android.text.Layout
+import android.text.StaticLayout
+import android.text.TextPaint
+import android.text.TextUtils.TruncateAt
+
+/**
+ * Holds the [StaticLayout] of a text drawn with the given [paint]. The layout is only
+ * built again if the text or the width changed or if it has been [invalidated][invalidate].
+ * Text without line breaks is limited to [maxLines] lines which are [ellipsized][ellipsize].
+ */
+internal class CachedTextLayout(
+
+    private val paint: TextPaint,
+    private val alignment: Layout.Alignment = Layout.Alignment.ALIGN_NORMAL,
+    private val ellipsize: TruncateAt? = null,
+    private val maxLines: Int = Int.MAX_VALUE
+
+) {
+
+    private var text: CharSequence = ""
+    private var width = 0
+    private var layout: StaticLayout? = null
+
+    /**
+     * Returns the layout of the given [text] fitting into the given [width].
+     */
+    fun obtain(text: CharSequence, width: Int): StaticLayout {
+        val layoutWidth = width.coerceAtLeast(0)
+        val cachedLayout = layout
+        if (cachedLayout != null && this.width == layoutWidth && this.text == text) {
+            return cachedLayout
+        }
+        this.text = text
+        this.width = layoutWidth
+        return createLayout(text, layoutWidth).also { layout = it }
+    }
+
+    /**
+     * Discards the cached layout, e.g. after the size or the typeface of the [paint] changed.
+     */
+    fun invalidate() {
+        layout = null
+    }
+
+    private fun createLayout(text: CharSequence, width: Int): StaticLayout =
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            StaticLayout.Builder.obtain(text, 0, text.length, paint, width)
+                .setAlignment(alignment)
+                .setIncludePad(false)
+                .setEllipsize(ellipsize)
+                .setMaxLines(maxLines)
+                .build()
+        } else {
+            // The number of lines cannot be limited before Android 6. Single lines are ellipsized though.
+            @Suppress("DEPRECATION")
+            StaticLayout(text, 0, text.length, paint, width, alignment, 1f, 0f, false, ellipsize, width)
+        }
+
+}
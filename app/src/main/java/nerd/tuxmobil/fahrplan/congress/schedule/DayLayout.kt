@@ -0,0 +1,54 @@
+package nerd.tuxmobil.fahrplan.congress.schedule
+
+import nerd.tuxmobil.fahrplan.congress.models.RoomData
+
+/**
+ * Vertical layout of the sessions of one room in pixels as calculated by the [LayoutCalculator].
+ * The arrays are indexed like the sessions of the room.
+ */
+internal class ColumnLayout(sessionCount: Int) {
+
+    val topMargins = IntArray(sessionCount)
+    val heights = IntArray(sessionCount)
+    val bottomMargins = IntArray(sessionCount)
+
+    val size
+        get() = heights.size
+
+}
+
+/**
+ * Layout of the sessions of all rooms of a day, one [ColumnLayout] per room.
+ *
+ * The [fingerprint] identifies the positions of the sessions the layout has been calculated for,
+ * see [fingerprintOf]. Changes which do not affect the layout such as favoring a session keep it.
+ */
+internal class DayLayout(
+
+    val columns: List<ColumnLayout>,
+    val fingerprint: Int
+
+) {
+
+    companion object {
+
+        /**
+         * Returns a hash of the IDs, start times and durations of the sessions of the given rooms.
+         */
+        fun fingerprintOf(roomDataList: List<RoomData>): Int {
+            var hash = roomDataList.size
+            roomDataList.forEach { roomData ->
+                hash = 31 * hash + roomData.sessions.size
+                roomData.sessions.forEach { session ->
+                    hash = 31 * hash + session.sessionId.hashCode()
+                    hash = 31 * hash + session.dateUTC.hashCode()
+                    hash = 31 * hash + session.relStartTime
+                    hash = 31 * hash + session.duration
+                }
+            }
+            return hash
+        }
+
+    }
+
+}
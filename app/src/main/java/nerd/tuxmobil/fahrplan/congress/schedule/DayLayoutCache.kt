@@ -0,0 +1,54 @@
+package nerd.tuxmobil.fahrplan.congress.schedule
+
+import nerd.tuxmobil.fahrplan.congress.models.ScheduleData
+
+/**
+ * Holds the [DayLayout] of each day of the current schedule version per box height.
+ * The layouts are precomputed in the background after a schedule update so that
+ * showing a day or switching to another day does not need to calculate them.
+ *
+ * A cached layout is only returned if its [fingerprint][DayLayout.fingerprint] matches
+ * the given sessions. Otherwise it is calculated again.
+ */
+internal class DayLayoutCache {
+
+    private data class Key(val dayIndex: Int, val normalizedBoxHeight: Int)
+
+    private var scheduleVersion: String? = null
+    private val layouts = HashMap<Key, DayLayout>()
+
+    /**
+     * Drops the layouts of the previous schedule version if the given [scheduleVersion] differs.
+     */
+    @Synchronized
+    fun updateScheduleVersion(scheduleVersion: String) {
+        if (this.scheduleVersion != scheduleVersion) {
+            this.scheduleVersion = scheduleVersion
+            layouts.clear()
+        }
+    }
+
+    /**
+     * Returns the layout of the sessions of the given [scheduleData] day.
+     * Calculates and caches it if it has not been cached yet.
+     */
+    fun layoutOf(scheduleData: ScheduleData, normalizedBoxHeight: Int): DayLayout {
+        val key = Key(scheduleData.dayIndex, normalizedBoxHeight)
+        val roomDataList = scheduleData.roomDataList
+        val fingerprint = DayLayout.fingerprintOf(roomDataList)
+        synchronized(this) {
+            val layout = layouts[key]
+            if (layout != null && layout.fingerprint == fingerprint) {
+                return layout
+            }
+        }
+        // Calculated without holding the lock so that a lookup never waits for a calculation.
+        val conference = Conference.ofSessions(scheduleData.allSessions)
+        val layout = LayoutCalculator(normalizedBoxHeight).calculateDayLayout(roomDataList, conference)
+        synchronized(this) {
+            layouts[key] = layout
+        }
+        return layout
+    }
+
+}
@@ -23,7 +23,6 @@ import android.view.ViewGroup
 import android.widget.ArrayAdapter
 import android.widget.HorizontalScrollView
 import android.widget.LinearLayout
-import android.widget.LinearLayout.LayoutParams.MATCH_PARENT
 import android.widget.LinearLayout.LayoutParams.WRAP_CONTENT
 import android.widget.TextView
 import android.widget.Toast
@@ -35,15 +34,13 @@ import androidx.appcompat.app.ActionBar.OnNavigationListener
 import androidx.appcompat.app.AppCompatActivity
 import androidx.core.content.ContextCompat
 import androidx.core.net.toUri
+import androidx.core.view.updateLayoutParams
 import androidx.core.view.updatePadding
 import androidx.core.widget.NestedScrollView
 import androidx.core.widget.NestedScrollView.OnScrollChangeListener
 import androidx.fragment.app.Fragment
 import androidx.fragment.app.FragmentContainerView
 import androidx.lifecycle.ViewModelProvider
-import androidx.recyclerview.widget.LinearLayoutManager
-import androidx.recyclerview.widget.RecyclerView
-import androidx.recyclerview.widget.RecyclerView.LayoutParams
 import info.metadude.android.eventfahrplan.commons.flow.observe
 import info.metadude.android.eventfahrplan.commons.logging.Logging
 import info.metadude.android.eventfahrplan.commons.temporal.Moment
@@ -59,11 +56,12 @@ import nerd.tuxmobil.fahrplan.congress.extensions.requireViewByIdCompat
 import nerd.tuxmobil.fahrplan.congress.models.DateInfos
 import nerd.tuxmobil.fahrplan.congress.models.ScheduleData
 import nerd.tuxmobil.fahrplan.congress.models.Session
-import nerd.tuxmobil.fahrplan.congress.net.ConnectivityObserver
 import nerd.tuxmobil.fahrplan.congress.net.ErrorMessage
+import nerd.tuxmobil.fahrplan.congress.net.settledReconnects
+import nerd.tuxmobil.fahrplan.congress.net.validatedConnectivity
 import nerd.tuxmobil.fahrplan.congress.notifications.NotificationHelper
 import nerd.tuxmobil.fahrplan.congress.repositories.AppRepository
-import nerd.tuxmobil.fahrplan.congress.schedule.observables.TimeTextViewParameter
+import nerd.tuxmobil.fahrplan.congress.schedule.observables.TimeRulerParameter
 import nerd.tuxmobil.fahrplan.congress.sharing.SessionSharer
 import nerd.tuxmobil.fahrplan.congress.utils.ContentDescriptionFormatter
 import nerd.tuxmobil.fahrplan.congress.utils.FahrplanMisc
@@ -88,6 +86,9 @@ class FahrplanFragment : Fragment(), SessionViewEventsHandler {
         private const val LOG_TAG = "FahrplanFragment"
         const val FRAGMENT_TAG = "schedule"
         private const val FAHRPLAN_FRAGMENT_REQUEST_KEY = "FAHRPLAN_FRAGMENT_REQUEST_KEY"
+        private const val CONNECTIVITY_DEBOUNCE_MILLIS = 3_000L
+        private const val NOW_MARKER_UPDATE_INTERVAL_MILLIS = 60_000L
+        private const val ESTIMATED_SESSION_DURATION_MINUTES = 45
 
         private const val CONTEXT_MENU_ITEM_ID_FAVORITES = 0
         private const val CONTEXT_MENU_ITEM_ID_SET_ALARM = 1
@@ -99,6 +100,7 @@ class FahrplanFragment : Fragment(), SessionViewEventsHandler {
 
         const val FIFTEEN_MINUTES = 15
         const val BOX_HEIGHT_MULTIPLIER = 3
+        private const val NO_DAY_INDEX = -1
 
     }
 
@@ -107,15 +109,29 @@ class FahrplanFragment : Fragment(), SessionViewEventsHandler {
     private lateinit var inflater: LayoutInflater
     private lateinit var sessionViewDrawer: SessionViewDrawer
     private lateinit var errorMessageFactory: ErrorMessage.Factory
-    private lateinit var connectivityObserver: ConnectivityObserver
     private lateinit var roomTitleTypeFace: Typeface
     private lateinit var contextMenuView: View
     private lateinit var viewModel: FahrplanViewModel
 
     private val logging = Logging.get()
+    private val frameTimeRecorder = FrameTimeRecorder(name = "Schedule update", logging = logging)
+    private var sessionViewGridBinder: SessionViewGridBinder? = null
+    private var viewedDayIndex = NO_DAY_INDEX
     private var onSessionClickListener: OnSessionClickListener? = null
     private var lastSelectedSession: Session? = null
     private var displayDensityScale = 0f
+    private var isCanvasSessionCellsEnabled = false
+
+    /**
+     * Moves the "now" marker of the time ruler while the schedule is shown.
+     * Only redraws the time ruler, see [TimeRulerView.setParameter].
+     */
+    private val nowMarkerUpdater = object : Runnable {
+        override fun run() {
+            viewModel.fillTimes(Moment.now(), getNormalizedBoxHeight())
+            view?.postDelayed(this, NOW_MARKER_UPDATE_INTERVAL_MILLIS)
+        }
+    }
 
     override fun onAttach(context: Context) {
         super.onAttach(context)
@@ -185,15 +201,19 @@ class FahrplanFragment : Fragment(), SessionViewEventsHandler {
             getSessionPadding = { sessionPadding },
         )
         errorMessageFactory = ErrorMessage.Factory(context)
-        connectivityObserver = ConnectivityObserver(context, onConnectionAvailable = {
-            logging.d(LOG_TAG, "Network is available.")
-            viewModel.requestScheduleAutoUpdate()
-        })
-        connectivityObserver.start()
+        // The fragment is replaced when the setting changes.
+        isCanvasSessionCellsEnabled = AppRepository.readCanvasSessionCellsEnabled()
+        context.validatedConnectivity()
+            .settledReconnects(CONNECTIVITY_DEBOUNCE_MILLIS)
+            .observe(this) {
+                logging.d(LOG_TAG, "Network is available.")
+                viewModel.requestScheduleAutoUpdateOnReconnect()
+            }
     }
 
     override fun onCreateView(inflater: LayoutInflater, container: ViewGroup?, savedInstanceState: Bundle?): View? {
         val layoutRootView = inflater.inflate(R.layout.schedule, container, false)
+        viewedDayIndex = NO_DAY_INDEX
         val verticalScrollView = layoutRootView.requireViewByIdCompat<NestedScrollView>(R.id.verticalScrollView)
         verticalScrollView.setOnScrollChangeListener(
             OnScrollChangeListener { _, _, _, _, _ -> viewModel.preserveVerticalScrollPosition = true }
@@ -205,6 +225,7 @@ class FahrplanFragment : Fragment(), SessionViewEventsHandler {
         super.onViewCreated(view, savedInstanceState)
         observeViewModel()
         displayDensityScale = resources.displayMetrics.density
+        viewModel.updateDayLayoutBoxHeight(getNormalizedBoxHeight())
 
         val roomScroller = view.requireViewByIdCompat<HorizontalScrollView>(R.id.roomScroller)
         val snapScroller = view.requireViewByIdCompat<HorizontalSnapScrollView>(R.id.horizScroller)
@@ -212,6 +233,16 @@ class FahrplanFragment : Fragment(), SessionViewEventsHandler {
         roomScroller.setOnTouchListener { _, _ -> true }
 
         inflater = view.context.getLayoutInflater()
+
+        // Session views are created in the background while the sessions are loaded.
+        val scheduleGrid = snapScroller.getChildAt(0) as ScheduleGridLayout
+        scheduleGrid.binder = requireSessionViewGridBinder(AppRepository.readUseDeviceTimeZoneEnabled())
+        scheduleGrid.prewarm(estimateSessionViewCount())
+    }
+
+    override fun onDestroyView() {
+        frameTimeRecorder.stop()
+        super.onDestroyView()
     }
 
     @SuppressLint("InlinedApi")
@@ -238,8 +269,8 @@ class FahrplanFragment : Fragment(), SessionViewEventsHandler {
                 Toast.makeText(context, R.string.share_error_activity_not_found, Toast.LENGTH_SHORT).show()
             }
         }
-        viewModel.timeTextViewParameters.observe(this) { timeTextViewParameters ->
-            fillTimes(timeTextViewParameters)
+        viewModel.timeRulerParameter.observe(this) { timeRulerParameter ->
+            fillTimes(timeRulerParameter)
         }
         viewModel.scrollToCurrentSessionParameter.observe(viewLifecycleOwner) { (scheduleData, dateInfos) ->
             val boxHeight = getNormalizedBoxHeight()
@@ -266,6 +297,7 @@ class FahrplanFragment : Fragment(), SessionViewEventsHandler {
 
     override fun onResume() {
         super.onResume()
+        view?.postDelayed(nowMarkerUpdater, NOW_MARKER_UPDATE_INTERVAL_MILLIS)
         val activity = requireActivity()
         activity.invalidateOptionsMenu()
         val intent = activity.intent
@@ -279,18 +311,25 @@ class FahrplanFragment : Fragment(), SessionViewEventsHandler {
         }
     }
 
-    override fun onDestroy() {
-        connectivityObserver.stop()
-        super.onDestroy()
+    override fun onPause() {
+        view?.removeCallbacks(nowMarkerUpdater)
+        super.onPause()
     }
 
     /**
-     * Updates the session data in the schedule view.
+     * Updates the session data in the schedule view. Existing views are updated in place.
+     * The horizontal scroll position is only reset when another day is viewed.
      */
     private fun viewDay(scheduleData: ScheduleData, useDeviceTimeZone: Boolean, numDays: Int, dayIndex: Int) {
+        if (BuildConfig.DEBUG) {
+            frameTimeRecorder.start()
+        }
         val layoutRoot = requireView()
         val horizontalScroller = layoutRoot.requireViewByIdCompat<HorizontalSnapScrollView>(R.id.horizScroller)
-        horizontalScroller.scrollTo(0, 0)
+        if (viewedDayIndex != dayIndex) {
+            viewedDayIndex = dayIndex
+            horizontalScroller.scrollTo(0, 0)
+        }
         val roomCount = scheduleData.roomCount
         horizontalScroller.setRoomsCount(roomCount)
 
@@ -319,9 +358,10 @@ class FahrplanFragment : Fragment(), SessionViewEventsHandler {
     }
 
     /**
-     * Adds `roomCount` room column views as child views to the first child
-     * (which is a row layout) of the given [horizontalScroller] layout.
-     * Previously added child views are removed.
+     * Passes the sessions of all rooms to the [ScheduleGridLayout] which is the first child
+     * of the given [horizontalScroller] layout. It only creates views for the visible sessions
+     * and only binds the sessions which changed since the previous call. The layout of the day
+     * has usually been precomputed in the background, see [FahrplanViewModel.dayLayoutOf].
      */
     private fun addRoomColumns(
         horizontalScroller: HorizontalSnapScrollView,
@@ -329,68 +369,74 @@ class FahrplanFragment : Fragment(), SessionViewEventsHandler {
         scheduleData: ScheduleData,
         useDeviceTimeZone: Boolean,
     ) {
-        val columnsLayout = horizontalScroller.getChildAt(0) as LinearLayout
-        // TODO Optimization: Track room names and check if they can be re-used with the updated scheduleData
-        columnsLayout.removeAllViews()
-        val boxHeight = getNormalizedBoxHeight()
-        val layoutCalculator = LayoutCalculator(boxHeight)
-        val context = horizontalScroller.context
-        val roomDataList = scheduleData.roomDataList
-        val conference = Conference.ofSessions(scheduleData.allSessions)
-        for (roomIndex in roomDataList.indices) {
-            val roomData = roomDataList[roomIndex]
-            val layoutParamsBySession = layoutCalculator.calculateLayoutParams(roomData, conference)
-            val columnRecyclerView = RecyclerView(context).apply {
-                setHasFixedSize(true)
-                setFadingEdgeLength(0)
-                isNestedScrollingEnabled = false // enables flinging
-                layoutManager = LinearLayoutManager(context)
-                layoutParams = LayoutParams(columnWidth, WRAP_CONTENT)
-            }
-            val roomSessions = roomData.sessions
-            val adapter = SessionViewColumnAdapter(
-                sessions = roomSessions,
-                layoutParamsBySession = layoutParamsBySession,
-                useDeviceTimeZone = useDeviceTimeZone,
-                drawer = sessionViewDrawer,
-                eventsHandler = this
-            )
-            columnRecyclerView.adapter = adapter
-            columnsLayout.addView(columnRecyclerView)
-        }
+        val scheduleGrid = horizontalScroller.getChildAt(0) as ScheduleGridLayout
+        val dayLayout = viewModel.dayLayoutOf(scheduleData, getNormalizedBoxHeight())
+        scheduleGrid.binder = requireSessionViewGridBinder(useDeviceTimeZone)
+        scheduleGrid.columnWidth = columnWidth
+        sessionViewDrawer.startRenderPass()
+        scheduleGrid.submitGrid(ScheduleGrid.of(scheduleData.roomDataList, dayLayout))
+    }
+
+    private fun requireSessionViewGridBinder(useDeviceTimeZone: Boolean) = sessionViewGridBinder
+        ?.takeIf { it.useDeviceTimeZone == useDeviceTimeZone }
+        ?: SessionViewGridBinder(
+            useDeviceTimeZone = useDeviceTimeZone,
+            useSessionCellView = isCanvasSessionCellsEnabled,
+            drawer = sessionViewDrawer,
+            eventsHandler = this
+        ).also { sessionViewGridBinder = it }
+
+    /**
+     * Estimates the number of session views the [ScheduleGridLayout] holds at once: sessions of
+     * [ESTIMATED_SESSION_DURATION_MINUTES] filling two screens in the visible and the adjacent columns.
+     */
+    private fun estimateSessionViewCount(): Int {
+        val sessionHeight = LayoutCalculator(getNormalizedBoxHeight())
+            .calculateDisplayDistance(ESTIMATED_SESSION_DURATION_MINUTES)
+        val rowCount = 2 * resources.displayMetrics.heightPixels / sessionHeight.coerceAtLeast(1) + 1
+        val columnCount = resources.getInteger(R.integer.max_cols) + 2
+        return rowCount * columnCount
     }
 
     /**
      * Adds room title views as child views to the given [roomTitlesRowLayout].
-     * Previously added child views are removed.
+     * Previously added child views are reused. Views are only added or removed
+     * if the number of rooms changed.
      */
     private fun addRoomTitleViews(
         roomTitlesRowLayout: LinearLayout,
         columnWidth: Int,
         roomNames: List<String>
     ) {
-        roomTitlesRowLayout.removeAllViews()
         val titleTextSize = resources.getInteger(R.integer.room_title_size).toFloat()
-        val params = LinearLayout.LayoutParams(columnWidth, WRAP_CONTENT, 1f).apply {
-            gravity = CENTER
-        }
         val paddingRight = sessionPadding
         val context = roomTitlesRowLayout.context
         val titleTextColor = ContextCompat.getColor(context, R.color.schedule_room_name_header_text)
-        for (roomName in roomNames) {
-            val roomTitle = TextView(context).apply {
-                layoutParams = params
+        roomNames.forEachIndexed { index, roomName ->
+            val roomTitle = roomTitlesRowLayout.getChildAt(index) as TextView? ?: TextView(context).apply {
+                layoutParams = LinearLayout.LayoutParams(columnWidth, WRAP_CONTENT, 1f).apply {
+                    gravity = CENTER
+                }
                 maxLines = 1
                 ellipsize = TruncateAt.END
                 updatePadding(right = paddingRight)
                 gravity = CENTER
                 typeface = roomTitleTypeFace
-                text = roomName
                 setTextColor(titleTextColor)
-                contentDescription = getString(R.string.session_list_item_room_content_description, roomName)
                 textSize = titleTextSize
+                roomTitlesRowLayout.addView(this)
+            }
+            if (roomTitle.layoutParams.width != columnWidth) {
+                roomTitle.updateLayoutParams { width = columnWidth }
+            }
+            if (roomTitle.text.toString() != roomName) {
+                roomTitle.text = roomName
+                roomTitle.contentDescription = getString(R.string.session_list_item_room_content_description, roomName)
             }
-            roomTitlesRowLayout.addView(roomTitle)
+        }
+        val surplusCount = roomTitlesRowLayout.childCount - roomNames.size
+        if (surplusCount > 0) {
+            roomTitlesRowLayout.removeViews(roomNames.size, surplusCount)
         }
     }
 
@@ -437,18 +483,8 @@ class FahrplanFragment : Fragment(), SessionViewEventsHandler {
         }
     }
 
-    private fun fillTimes(parameters: List<TimeTextViewParameter>) {
-        val timeTextColumn = requireView().requireViewByIdCompat<LinearLayout>(R.id.times_layout)
-        timeTextColumn.importantForAccessibility = IMPORTANT_FOR_ACCESSIBILITY_NO_HIDE_DESCENDANTS
-        timeTextColumn.removeAllViews()
-        var timeTextView: View
-        for ((layout, height, titleText) in parameters) {
-            timeTextView = inflater.inflate(layout, null)
-            timeTextColumn.addView(timeTextView, MATCH_PARENT, height)
-            timeTextView.requireViewByIdCompat<TextView>(R.id.time).apply {
-                text = titleText
-            }
-        }
+    private fun fillTimes(parameter: TimeRulerParameter) {
+        requireView().requireViewByIdCompat<TimeRulerView>(R.id.times_layout).setParameter(parameter)
     }
 
     private val sessionPadding: Int
@@ -10,13 +10,16 @@ import kotlinx.coroutines.channels.Channel
 import kotlinx.coroutines.channels.SendChannel
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.collectLatest
 import kotlinx.coroutines.flow.combine
 import kotlinx.coroutines.flow.distinctUntilChanged
 import kotlinx.coroutines.flow.filter
 import kotlinx.coroutines.flow.filterNotNull
+import kotlinx.coroutines.flow.flowOn
 import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.flow.receiveAsFlow
 import kotlinx.coroutines.launch
+import kotlinx.coroutines.yield
 import nerd.tuxmobil.fahrplan.congress.alarms.AlarmServices
 import nerd.tuxmobil.fahrplan.congress.alarms.SessionAlarmViewModelDelegate
 import nerd.tuxmobil.fahrplan.congress.models.Alarm
@@ -32,7 +35,7 @@ import nerd.tuxmobil.fahrplan.congress.schedule.observables.FahrplanEmptyParamet
 import nerd.tuxmobil.fahrplan.congress.schedule.observables.FahrplanParameter
 import nerd.tuxmobil.fahrplan.congress.schedule.observables.ScrollToCurrentSessionParameter
 import nerd.tuxmobil.fahrplan.congress.schedule.observables.ScrollToSessionParameter
-import nerd.tuxmobil.fahrplan.congress.schedule.observables.TimeTextViewParameter
+import nerd.tuxmobil.fahrplan.congress.schedule.observables.TimeRulerParameter
 import nerd.tuxmobil.fahrplan.congress.sharing.JsonSessionFormat
 import nerd.tuxmobil.fahrplan.congress.sharing.SimpleSessionFormat
 import nerd.tuxmobil.fahrplan.congress.utils.FahrplanMisc
@@ -56,6 +59,7 @@ internal class FahrplanViewModel(
 
     private companion object {
         const val LOG_TAG = "FahrplanViewModel"
+        const val RECONNECT_UPDATE_MIN_INTERVAL_MILLIS = 5 * 60 * 1000L // 5 minutes
     }
 
     private var sessionAlarmViewModelDelegate: SessionAlarmViewModelDelegate =
@@ -66,6 +70,10 @@ internal class FahrplanViewModel(
             runsAtLeastOnAndroidTiramisu,
         )
 
+    /**
+     * Emits the sessions of the displayed day. Prepared on the database dispatcher so that
+     * switching to a prefetched day only updates the views on the main thread.
+     */
     val fahrplanParameter = combine(
         repository.uncanceledSessionsForDayIndex.filter { it.allSessions.isNotEmpty() },
         repository.sessionsWithoutShifts.filterNotNull(),
@@ -76,7 +84,7 @@ internal class FahrplanViewModel(
             allSessionsForAllDaysWithoutShifts = allSessionsForAllDaysWithoutShifts,
             alarms = alarms
         )
-    }
+    }.flowOn(executionContext.database)
 
     private val mutableFahrplanEmptyParameter = Channel<FahrplanEmptyParameter>()
     val fahrplanEmptyParameter = mutableFahrplanEmptyParameter.receiveAsFlow()
@@ -90,8 +98,25 @@ internal class FahrplanViewModel(
     private val mutableShareJson = Channel<String>()
     val shareJson = mutableShareJson.receiveAsFlow()
 
-    private val mutableTimeTextViewParameters = MutableStateFlow<List<TimeTextViewParameter>>(emptyList())
-    val timeTextViewParameters: Flow<List<TimeTextViewParameter>> = mutableTimeTextViewParameters
+    private val dayLayoutCache = DayLayoutCache()
+    private val dayLayoutBoxHeight = MutableStateFlow<Int?>(null)
+
+    private val timeRulerLabelsCache = TimeRulerLabelsCache()
+    private val timeRulerRequest = MutableStateFlow<TimeRulerRequest?>(null)
+
+    /**
+     * Emits the [TimeRulerParameter] whenever the sessions of the day change or the time ruler
+     * is [requested][fillTimes] again. The labels are taken from the [TimeRulerLabelsCache]
+     * so that updating the "now" marker does not format them again.
+     */
+    val timeRulerParameter: Flow<TimeRulerParameter> = combine(
+        repository.uncanceledSessionsForDayIndex.filter { it.allSessions.isNotEmpty() },
+        timeRulerRequest.filterNotNull()
+    ) { scheduleData, (nowMoment, normalizedBoxHeight) ->
+        scheduleData.toTimeRulerParameter(nowMoment, normalizedBoxHeight)
+    }
+        .distinctUntilChanged()
+        .flowOn(executionContext.database)
 
     private val mutableScrollToCurrentSessionParameter = Channel<ScrollToCurrentSessionParameter>()
     val scrollToCurrentSessionParameter = mutableScrollToCurrentSessionParameter.receiveAsFlow()
@@ -116,6 +141,7 @@ internal class FahrplanViewModel(
     init {
         updateUncanceledSessions()
         requestScheduleUpdateAlarm()
+        precomputeDayLayouts()
     }
 
     private fun updateUncanceledSessions() {
@@ -153,6 +179,30 @@ internal class FahrplanViewModel(
         }
     }
 
+    /**
+     * Calculates the [DayLayout] of all days in the background whenever the schedule has been
+     * updated so that the UI only applies them. Layouts are cached per schedule version and
+     * box height, see [DayLayoutCache]. Restarts if the box height changes meanwhile.
+     */
+    private fun precomputeDayLayouts() {
+        launch {
+            combine(repository.sessions, dayLayoutBoxHeight.filterNotNull()) { _, normalizedBoxHeight ->
+                normalizedBoxHeight
+            }.collectLatest { normalizedBoxHeight ->
+                val meta = repository.readMeta()
+                dayLayoutCache.updateScheduleVersion(meta.version)
+                for (dayIndex in 1..meta.numDays) {
+                    val scheduleData = repository.loadUncanceledScheduleDataForDayIndex(dayIndex)
+                    if (scheduleData.allSessions.isNotEmpty()) {
+                        dayLayoutCache.layoutOf(scheduleData, normalizedBoxHeight)
+                    }
+                    yield()
+                }
+                logging.d(LOG_TAG, "Precomputed layouts of ${meta.numDays} days.")
+            }
+        }
+    }
+
     /**
      * Rewrites properties to which "Engelshifts" has been applied before
      * in ShiftExtensions -> Shift.toSessionAppModel.
@@ -245,26 +295,54 @@ internal class FahrplanViewModel(
         }
     }
 
-    fun fillTimes(nowMoment: Moment, normalizedBoxHeight: Int) {
+    /**
+     * Requests an [automatic schedule update][requestScheduleAutoUpdate] after the device
+     * reconnected unless the schedule has been fetched within the last minutes.
+     * Frequent reconnects on crowded event networks must not cause a refresh each.
+     */
+    fun requestScheduleAutoUpdateOnReconnect() {
         launch {
-            repository.uncanceledSessionsForDayIndex.collect { scheduleData ->
-                val sessions = scheduleData.allSessions
-                if (sessions.isNotEmpty()) {
-                    val parameters = sessions.toTimeTextViewParameters(nowMoment, normalizedBoxHeight)
-                    mutableTimeTextViewParameters.value = parameters
-                }
+            val lastFetchedAt = repository.readScheduleLastFetchedAt()
+            val elapsedMillis = Moment.now().toMilliseconds() - lastFetchedAt
+            if (elapsedMillis in 0 until RECONNECT_UPDATE_MIN_INTERVAL_MILLIS) {
+                logging.d(LOG_TAG, "Skipping schedule update, last fetched $elapsedMillis ms ago.")
+            } else {
+                requestScheduleAutoUpdate()
             }
         }
     }
 
-    private fun List<Session>.toTimeTextViewParameters(nowMoment: Moment, normalizedBoxHeight: Int): List<TimeTextViewParameter> {
+    /**
+     * Sets the box height the [day layouts][dayLayoutOf] are precomputed for.
+     */
+    fun updateDayLayoutBoxHeight(normalizedBoxHeight: Int) {
+        dayLayoutBoxHeight.value = normalizedBoxHeight
+    }
+
+    /**
+     * Returns the precomputed layout of the sessions of the given [scheduleData] day.
+     * Calculates it if it has not been precomputed yet, e.g. right after a schedule update.
+     */
+    fun dayLayoutOf(scheduleData: ScheduleData, normalizedBoxHeight: Int) =
+        dayLayoutCache.layoutOf(scheduleData, normalizedBoxHeight)
+
+    /**
+     * Requests the [timeRulerParameter] for the given [nowMoment]. Also invoked periodically
+     * to move the "now" marker of the time ruler.
+     */
+    fun fillTimes(nowMoment: Moment, normalizedBoxHeight: Int) {
+        timeRulerRequest.value = TimeRulerRequest(nowMoment, normalizedBoxHeight)
+    }
+
+    private fun ScheduleData.toTimeRulerParameter(nowMoment: Moment, normalizedBoxHeight: Int): TimeRulerParameter {
         val useDeviceTimeZone = repository.readUseDeviceTimeZoneEnabled()
-        val conference = Conference.ofSessions(this)
-        return TimeTextViewParameter.parametersOf(
+        val conference = Conference.ofSessions(allSessions)
+        val slotLabels = timeRulerLabelsCache.slotLabelsOf(dayIndex, conference, useDeviceTimeZone)
+        return TimeRulerParameter.parameterOf(
             nowMoment = nowMoment,
             conference = conference,
             normalizedBoxHeight = normalizedBoxHeight,
-            useDeviceTimeZone = useDeviceTimeZone
+            slotLabels = slotLabels
         )
     }
 
@@ -370,4 +448,6 @@ internal class FahrplanViewModel(
         }
     }
 
+    private data class TimeRulerRequest(val nowMoment: Moment, val normalizedBoxHeight: Int)
+
 }
@@ -0,0 +1,99 @@
+package nerd.tuxmobil.fahrplan.congress.schedule
+
+import android.view.Choreographer
+import info.metadude.android.eventfahrplan.commons.logging.Logging
+import java.util.concurrent.TimeUnit
+
+/**
+ * Records the durations of the frames following a call to [start] and logs them once
+ * [frameCount] frames have been drawn. Meant to compare the rendering costs of schedule updates.
+ */
+internal class FrameTimeRecorder(
+
+    private val name: String,
+    private val logging: Logging,
+    private val frameCount: Int = 60
+
+) : Choreographer.FrameCallback {
+
+    private companion object {
+        const val LOG_TAG = "FrameTimeRecorder"
+    }
+
+    private var stats = FrameTimeStats()
+    private var lastFrameTimeNanos = 0L
+    private var remainingFrames = 0
+
+    /**
+     * Starts a new recording. A running recording is discarded.
+     */
+    fun start() {
+        if (remainingFrames == 0) {
+            Choreographer.getInstance().postFrameCallback(this)
+        }
+        stats = FrameTimeStats()
+        lastFrameTimeNanos = 0L
+        remainingFrames = frameCount
+    }
+
+    /**
+     * Stops a running recording without logging it.
+     */
+    fun stop() {
+        Choreographer.getInstance().removeFrameCallback(this)
+        remainingFrames = 0
+    }
+
+    override fun doFrame(frameTimeNanos: Long) {
+        if (lastFrameTimeNanos != 0L) {
+            stats.add(frameTimeNanos - lastFrameTimeNanos)
+        }
+        lastFrameTimeNanos = frameTimeNanos
+        if (--remainingFrames > 0) {
+            Choreographer.getInstance().postFrameCallback(this)
+        } else {
+            logging.d(LOG_TAG, "$name: $stats")
+        }
+    }
+
+}
+
+/**
+ * Statistics of consecutive frame durations. Frames taking longer than
+ * [jankThresholdNanos] count as janky. The default threshold allows
+ * a 50% delay of a frame at a refresh rate of 60 Hz.
+ */
+internal class FrameTimeStats(
+
+    private val jankThresholdNanos: Long = TimeUnit.MILLISECONDS.toNanos(25)
+
+) {
+
+    var frames = 0
+        private set
+
+    var jankyFrames = 0
+        private set
+
+    var maxDurationNanos = 0L
+        private set
+
+    private var totalDurationNanos = 0L
+
+    fun add(durationNanos: Long) {
+        frames++
+        totalDurationNanos += durationNanos
+        maxDurationNanos = maxOf(maxDurationNanos, durationNanos)
+        if (durationNanos > jankThresholdNanos) {
+            jankyFrames++
+        }
+    }
+
+    val averageDurationNanos
+        get() = if (frames == 0) 0L else totalDurationNanos / frames
+
+    override fun toString() = "frames = $frames, janky = $jankyFrames, " +
+            "average = ${TimeUnit.NANOSECONDS.toMillis(averageDurationNanos)} ms, " +
+            "max = ${TimeUnit.NANOSECONDS.toMillis(maxDurationNanos)} ms"
+
+}
@@ -13,7 +13,6 @@ import android.widget.HorizontalScrollView
 import androidx.annotation.IntRange
 import androidx.annotation.VisibleForTesting
 import androidx.core.view.children
-import androidx.core.view.forEach
 import androidx.core.view.get
 import androidx.core.view.updateLayoutParams
 import info.metadude.android.eventfahrplan.commons.logging.Logging
@@ -245,12 +244,8 @@ class HorizontalSnapScrollView(context: Context, attrs: AttributeSet) : Horizont
                 return
             }
 
-            val container = firstChild
-            container.forEach {
-                it.updateLayoutParams {
-                    width = horizontalSnapScrollState.columnWidth
-                }
-            }
+            val container = firstChild as ScheduleGridLayout
+            container.columnWidth = horizontalSnapScrollState.columnWidth
             container.measure(
                 MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED),
                 MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED)
@@ -1,15 +1,11 @@
 package nerd.tuxmobil.fahrplan.congress.schedule
 
-import android.view.ViewGroup
-import android.widget.LinearLayout
 import androidx.annotation.VisibleForTesting
 import info.metadude.android.eventfahrplan.commons.logging.Logging
+import info.metadude.android.eventfahrplan.commons.temporal.Moment.Companion.MILLISECONDS_OF_ONE_MINUTE
+import info.metadude.android.eventfahrplan.commons.temporal.Moment.Companion.MINUTES_OF_ONE_DAY
 import nerd.tuxmobil.fahrplan.congress.models.RoomData
 import nerd.tuxmobil.fahrplan.congress.models.Session
-import org.threeten.bp.Duration
-import kotlin.collections.set
-
-private typealias SessionId = String
 
 data class LayoutCalculator(
 
@@ -27,13 +23,26 @@ data class LayoutCalculator(
         return standardHeight * minutes / DIVISOR
     }
 
-    fun calculateLayoutParams(roomData: RoomData, conference: Conference): Map<SessionId, LinearLayout.LayoutParams> {
+    /**
+     * Calculates the layout of the sessions of all rooms of the given [conference] day.
+     * See [calculateColumnLayout].
+     */
+    internal fun calculateDayLayout(roomDataList: List<RoomData>, conference: Conference) = DayLayout(
+        columns = roomDataList.map { calculateColumnLayout(it, conference) },
+        fingerprint = DayLayout.fingerprintOf(roomDataList)
+    )
+
+    /**
+     * Calculates the margins and heights of the sessions of the given room. Overlapping
+     * sessions are cut to the start of their successor. Works on the plain start times
+     * and durations so that no temporary objects are created per session.
+     */
+    internal fun calculateColumnLayout(roomData: RoomData, conference: Conference): ColumnLayout {
         val sessions = roomData.sessions
+        val columnLayout = ColumnLayout(sessions.size)
         var previousSessionEndsAt: Int = conference.firstSessionStartsAt.minuteOfDay
         var startTime: Int
         var margin: Int
-        var previousSession: Session? = null
-        val layoutParamsBySession = mutableMapOf<SessionId, LinearLayout.LayoutParams>()
 
         for ((index, session) in sessions.withIndex()) {
             startTime = getStartTime(session, previousSessionEndsAt)
@@ -41,8 +50,8 @@ data class LayoutCalculator(
             if (startTime > previousSessionEndsAt) {
                 // consecutive session
                 margin = calculateDisplayDistance(startTime - previousSessionEndsAt)
-                if (previousSession != null) {
-                    layoutParamsBySession[previousSession.sessionId]!!.bottomMargin = margin
+                if (index > 0) {
+                    columnLayout.bottomMargins[index - 1] = margin
                     margin = 0
                 }
             } else {
@@ -50,38 +59,27 @@ data class LayoutCalculator(
                 margin = 0
             }
 
-            val adjustedSession = if (index < sessions.lastIndex) {
-                val nextSession = sessions[index + 1]
-                fixOverlappingSessions(session, nextSession)
+            val duration = if (index < sessions.lastIndex) {
+                getDurationWithoutOverlap(session, sessions[index + 1])
             } else {
-                session
-            }
-
-            val sessionId = adjustedSession.sessionId
-            if (!layoutParamsBySession.containsKey(sessionId)) {
-                layoutParamsBySession[sessionId] = createLayoutParams(adjustedSession)
+                session.duration
             }
 
-            layoutParamsBySession[sessionId]!!.topMargin = margin
-            previousSessionEndsAt = startTime + adjustedSession.duration
-            previousSession = adjustedSession
+            columnLayout.topMargins[index] = margin
+            columnLayout.heights[index] = calculateDisplayDistance(duration)
+            previousSessionEndsAt = startTime + duration
         }
 
-        return layoutParamsBySession
-    }
-
-    private fun createLayoutParams(session: Session): LinearLayout.LayoutParams {
-        val height = calculateDisplayDistance(session.duration)
-        val marginLayoutParams = ViewGroup.MarginLayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, height)
-        return LinearLayout.LayoutParams(marginLayoutParams)
+        return columnLayout
     }
 
     private fun getStartTime(session: Session, previousSessionEndsAt: Int): Int {
         var startTime: Int
         if (session.dateUTC > 0) {
-            startTime = session.startsAt.minuteOfDay
+            // Equals session.startsAt.minuteOfDay.
+            startTime = (session.dateUTC / MILLISECONDS_OF_ONE_MINUTE % MINUTES_OF_ONE_DAY).toInt()
             if (startTime < previousSessionEndsAt) {
-                startTime += Duration.ofDays(1).toMinutes().toInt()
+                startTime += MINUTES_OF_ONE_DAY
             }
         } else {
             startTime = session.relStartTime
@@ -91,13 +89,18 @@ data class LayoutCalculator(
 
     @VisibleForTesting
     fun fixOverlappingSessions(session: Session, next: Session): Session {
-        return if (next.dateUTC > 0 && next.startsAt.isBefore(session.endsAt)) {
+        val duration = getDurationWithoutOverlap(session, next)
+        return if (duration == session.duration) session else session.copy(duration = duration)
+    }
+
+    private fun getDurationWithoutOverlap(session: Session, next: Session): Int {
+        val sessionEndsAt = session.dateUTC + session.duration.toLong() * MILLISECONDS_OF_ONE_MINUTE
+        return if (next.dateUTC > 0 && next.dateUTC < sessionEndsAt) {
             logging.d(LOG_TAG, """Collision: "${session.title}" + "${next.title}"""")
             // cut current at the end, to match next sessions start time
-            val newDuration = session.startsAt.minutesUntil(next.startsAt).toInt()
-            session.copy(duration = newDuration)
+            ((next.dateUTC - session.dateUTC) / MILLISECONDS_OF_ONE_MINUTE).toInt()
         } else {
-            session
+            session.duration
         }
     }
 }
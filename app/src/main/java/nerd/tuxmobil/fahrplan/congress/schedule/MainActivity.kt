@@ -303,9 +303,11 @@ class MainActivity : BaseActivity(),
                         BundleKeys.ALTERNATIVE_HIGHLIGHTING_UPDATED, false)
                     val isUseDeviceTimeZoneUpdated = intent.getBooleanExtra(
                         BundleKeys.USE_DEVICE_TIME_ZONE_UPDATED, false)
+                    val isCanvasSessionCellsUpdated = intent.getBooleanExtra(
+                        BundleKeys.CANVAS_SESSION_CELLS_UPDATED, false)
 
                     @Suppress("kotlin:S1066")
-                    if (isAlternativeHighlightingUpdated || isUseDeviceTimeZoneUpdated) {
+                    if (isAlternativeHighlightingUpdated || isUseDeviceTimeZoneUpdated || isCanvasSessionCellsUpdated) {
                         if (findViewById<View>(R.id.schedule) != null && findFragment(FahrplanFragment.FRAGMENT_TAG) != null) {
                             replaceFragment(R.id.schedule, FahrplanFragment(), FahrplanFragment.FRAGMENT_TAG)
                         }
@@ -0,0 +1,109 @@
+package nerd.tuxmobil.fahrplan.congress.schedule
+
+import nerd.tuxmobil.fahrplan.congress.models.RoomData
+import nerd.tuxmobil.fahrplan.congress.models.Session
+
+/**
+ * Position of a [session] within the [ScheduleGrid]. [top] and [height] are given in pixels.
+ */
+internal data class GridCell(
+
+    val session: Session,
+    val columnIndex: Int,
+    val top: Int,
+    val height: Int
+
+) {
+
+    val bottom
+        get() = top + height
+
+}
+
+/**
+ * Positions of the sessions of all rooms of a day. One column per room.
+ * The cells of each column are ordered by their [top][GridCell.top] position.
+ */
+internal class ScheduleGrid(
+
+    val columns: List<List<GridCell>>
+
+) {
+
+    companion object {
+
+        val EMPTY = ScheduleGrid(emptyList())
+
+        /**
+         * Creates the grid by stacking the sessions of each room according to
+         * the [DayLayout] as calculated by the [LayoutCalculator].
+         */
+        fun of(
+            roomDataList: List<RoomData>,
+            dayLayout: DayLayout
+        ) = ScheduleGrid(roomDataList.mapIndexed { columnIndex, roomData ->
+            columnOf(columnIndex, roomData.sessions, dayLayout.columns[columnIndex])
+        })
+
+        private fun columnOf(
+            columnIndex: Int,
+            sessions: List<Session>,
+            columnLayout: ColumnLayout
+        ): List<GridCell> {
+            var top = 0
+            return sessions.mapIndexed { index, session ->
+                top += columnLayout.topMargins[index]
+                val height = columnLayout.heights[index]
+                val cell = GridCell(session, columnIndex, top, height)
+                top += height + columnLayout.bottomMargins[index]
+                cell
+            }
+        }
+
+    }
+
+    /**
+     * The height of the tallest column.
+     */
+    val height = columns.maxOfOrNull { column -> column.lastOrNull()?.bottom ?: 0 } ?: 0
+
+    /**
+     * Returns all cells keyed by the ID of their session.
+     */
+    fun cellsBySessionId(): Map<String, GridCell> {
+        val cellsBySessionId = HashMap<String, GridCell>()
+        columns.forEach { column ->
+            column.forEach { cell -> cellsBySessionId[cell.session.sessionId] = cell }
+        }
+        return cellsBySessionId
+    }
+
+    /**
+     * Returns the cells of the given [columnIndex] which intersect the vertical range
+     * from [top] (inclusive) to [bottom] (exclusive).
+     */
+    fun cellsWithin(columnIndex: Int, top: Int, bottom: Int): List<GridCell> {
+        val column = columns[columnIndex]
+        // The cells are stacked hence their bottom positions are ordered, too.
+        var low = 0
+        var high = column.size
+        while (low < high) {
+            val middle = (low + high) ushr 1
+            if (column[middle].bottom <= top) {
+                low = middle + 1
+            } else {
+                high = middle
+            }
+        }
+        val cells = mutableListOf<GridCell>()
+        for (index in low until column.size) {
+            val cell = column[index]
+            if (cell.top >= bottom) {
+                break
+            }
+            cells += cell
+        }
+        return cells
+    }
+
+}
@@ -0,0 +1,302 @@
+package nerd.tuxmobil.fahrplan.congress.schedule
+
+import android.content.Context
+import android.graphics.Rect
+import android.util.AttributeSet
+import android.view.View
+import android.view.ViewGroup
+import android.view.ViewTreeObserver.OnScrollChangedListener
+import nerd.tuxmobil.fahrplan.congress.models.Session
+import kotlin.math.abs
+
+/**
+ * Lays out the sessions of all rooms of a day as a two-dimensional grid, one column per room.
+ *
+ * The grid takes the size of the whole day so that it scrolls along with its parent scroll views.
+ * Only the sessions within or close to the visible part of the grid get a view. Views leaving it
+ * are recycled for the sessions coming into it. Hence the number of views depends on the screen
+ * size, not on the number of rooms or sessions.
+ *
+ * Views are keyed by their session ID. Submitting an updated grid keeps the views of
+ * unchanged sessions as they are and only binds the changed parts of the other ones.
+ */
+internal class ScheduleGridLayout(
+
+    context: Context,
+    attrs: AttributeSet? = null
+
+) : ViewGroup(context, attrs) {
+
+    /**
+     * Creates and binds the session views of the grid.
+     */
+    interface Binder {
+
+        fun onCreateView(parent: ViewGroup): View
+
+        /**
+         * Creates a view like [onCreateView] but possibly on a background thread.
+         * The [onViewCreated] callback is invoked on the main thread.
+         */
+        fun onCreateViewAsync(parent: ViewGroup, onViewCreated: (View) -> Unit) {
+            onViewCreated(onCreateView(parent))
+        }
+
+        fun onBindView(view: View, session: Session)
+
+        /**
+         * Binds only the given [changes] of the [session] to the [view]
+         * which has been bound to a previous version of the session.
+         */
+        fun onBindView(view: View, session: Session, changes: Set<SessionChange>) {
+            onBindView(view, session)
+        }
+
+        /**
+         * Invoked with the [sessions] which are close to the attached ones and likely to be
+         * bound soon so that their content can be prepared in the background.
+         */
+        fun onPrefetch(sessions: List<Session>) = Unit
+
+    }
+
+    private class AttachedView(var cell: GridCell, val view: View)
+
+    /**
+     * Replacing the binder recycles all views so that they are bound by the new binder.
+     */
+    var binder: Binder? = null
+        set(value) {
+            if (field !== value) {
+                field = value
+                recycleAll()
+                resetPrefetch()
+                requestLayout()
+            }
+        }
+
+    var columnWidth = 0
+        set(value) {
+            if (field != value) {
+                field = value
+                requestLayout()
+            }
+        }
+
+    private var grid = ScheduleGrid.EMPTY
+    private val attachedViews = HashMap<String, AttachedView>()
+    private val recycledViews = ArrayDeque<View>()
+    private val visibleRect = Rect()
+    private val prefetchedRect = Rect()
+    private val prefetchSessions = ArrayList<Session>()
+    private var prewarmViewCount = 0
+    private var isPrewarming = false
+    private val onScrollChangedListener = OnScrollChangedListener { updateAttachedViews() }
+
+    /**
+     * Replaces the grid with the given updated [grid]. Views of sessions which are no longer
+     * part of the grid are recycled. Views of sessions which changed are bound again, partially
+     * if possible, see [SessionChange.of]. Views of unchanged sessions are kept as they are.
+     * A new layout pass is only requested if the size of the grid changed.
+     */
+    fun submitGrid(grid: ScheduleGrid) {
+        val binder = binder
+        val cellsBySessionId = grid.cellsBySessionId()
+        var isMoved = false
+        val iterator = attachedViews.entries.iterator()
+        while (iterator.hasNext()) {
+            val (sessionId, attachedView) = iterator.next()
+            val newCell = cellsBySessionId[sessionId]
+            if (newCell == null || binder == null) {
+                iterator.remove()
+                recycle(attachedView.view)
+                continue
+            }
+            val oldCell = attachedView.cell
+            val changes = SessionChange.of(oldCell.session, newCell.session)
+            if (changes == null) {
+                binder.onBindView(attachedView.view, newCell.session)
+            } else if (changes.isNotEmpty()) {
+                binder.onBindView(attachedView.view, newCell.session, changes)
+            }
+            if (oldCell.columnIndex != newCell.columnIndex || oldCell.top != newCell.top || oldCell.height != newCell.height) {
+                measureCell(newCell, attachedView.view)
+                layoutCell(newCell, attachedView.view)
+                isMoved = true
+            }
+            attachedView.cell = newCell
+        }
+        val isResized = grid.columns.size != this.grid.columns.size || grid.height != this.grid.height
+        this.grid = grid
+        resetPrefetch()
+        if (isResized) {
+            requestLayout()
+        } else {
+            updateAttachedViews()
+            if (isMoved) {
+                invalidate()
+            }
+        }
+    }
+
+    /**
+     * Creates views in advance until the grid holds at least the given [viewCount] views
+     * so that showing the first sessions does not need to create them. The views are created
+     * one after another via [Binder.onCreateViewAsync] and kept until sessions are attached.
+     */
+    fun prewarm(viewCount: Int) {
+        prewarmViewCount = viewCount
+        if (!isPrewarming) {
+            prewarmNextView()
+        }
+    }
+
+    private fun prewarmNextView() {
+        val binder = binder
+        if (binder == null || attachedViews.size + recycledViews.size >= prewarmViewCount) {
+            isPrewarming = false
+            return
+        }
+        isPrewarming = true
+        binder.onCreateViewAsync(this) { view ->
+            // Views created by a replaced binder are dropped.
+            if (this.binder === binder) {
+                recycledViews.addLast(view)
+            }
+            prewarmNextView()
+        }
+    }
+
+    override fun onAttachedToWindow() {
+        super.onAttachedToWindow()
+        viewTreeObserver.addOnScrollChangedListener(onScrollChangedListener)
+    }
+
+    override fun onDetachedFromWindow() {
+        viewTreeObserver.removeOnScrollChangedListener(onScrollChangedListener)
+        super.onDetachedFromWindow()
+    }
+
+    override fun onMeasure(widthMeasureSpec: Int, heightMeasureSpec: Int) {
+        val width = grid.columns.size * columnWidth
+        setMeasuredDimension(
+            resolveSize(width.coerceAtLeast(suggestedMinimumWidth), widthMeasureSpec),
+            resolveSize(grid.height.coerceAtLeast(suggestedMinimumHeight), heightMeasureSpec)
+        )
+        attachedViews.values.forEach { measureCell(it.cell, it.view) }
+    }
+
+    override fun onLayout(changed: Boolean, left: Int, top: Int, right: Int, bottom: Int) {
+        attachedViews.values.forEach { layoutCell(it.cell, it.view) }
+        updateAttachedViews()
+    }
+
+    override fun shouldDelayChildPressedState() = false
+
+    /**
+     * Attaches views for the cells within or close to the visible part of the grid
+     * and recycles the views of all other cells. Invoked whenever the grid or one of
+     * its parents has been scrolled or laid out.
+     */
+    private fun updateAttachedViews() {
+        val binder = binder ?: return
+        if (columnWidth == 0 || grid.columns.isEmpty() || !getLocalVisibleRect(visibleRect)) {
+            return
+        }
+        // One column and half a screen beyond the visible part so that scrolling reveals bound views.
+        val overscanY = visibleRect.height() / 2
+        val windowTop = visibleRect.top - overscanY
+        val windowBottom = visibleRect.bottom + overscanY
+        val firstColumnIndex = (visibleRect.left / columnWidth - 1).coerceAtLeast(0)
+        val lastColumnIndex = ((visibleRect.right - 1) / columnWidth + 1).coerceAtMost(grid.columns.lastIndex)
+
+        var isChanged = false
+        val iterator = attachedViews.entries.iterator()
+        while (iterator.hasNext()) {
+            val attachedView = iterator.next().value
+            val cell = attachedView.cell
+            if (cell.columnIndex !in firstColumnIndex..lastColumnIndex || cell.bottom <= windowTop || cell.top >= windowBottom) {
+                iterator.remove()
+                recycle(attachedView.view)
+                isChanged = true
+            }
+        }
+        for (columnIndex in firstColumnIndex..lastColumnIndex) {
+            for (cell in grid.cellsWithin(columnIndex, windowTop, windowBottom)) {
+                if (cell.session.sessionId !in attachedViews) {
+                    val view = recycledViews.removeFirstOrNull() ?: binder.onCreateView(this)
+                    binder.onBindView(view, cell.session)
+                    addViewInLayout(view, -1, view.layoutParams ?: generateDefaultLayoutParams(), true)
+                    measureCell(cell, view)
+                    layoutCell(cell, view)
+                    attachedViews[cell.session.sessionId] = AttachedView(cell, view)
+                    isChanged = true
+                }
+            }
+        }
+        if (isChanged) {
+            invalidate()
+        }
+        prefetch(binder, firstColumnIndex, lastColumnIndex, windowTop, windowBottom)
+    }
+
+    /**
+     * Passes the sessions within one more screen and one more column beyond the attached
+     * cells to the [binder]. Only repeated once the visible part moved by half a screen
+     * or by a column so that scrolling does not prefetch the same sessions again and again.
+     */
+    private fun prefetch(binder: Binder, firstColumnIndex: Int, lastColumnIndex: Int, windowTop: Int, windowBottom: Int) {
+        if (!prefetchedRect.isEmpty &&
+            abs(prefetchedRect.top - visibleRect.top) < visibleRect.height() / 2 &&
+            abs(prefetchedRect.left - visibleRect.left) < columnWidth
+        ) {
+            return
+        }
+        prefetchedRect.set(visibleRect)
+        val overscanY = visibleRect.height()
+        val prefetchTop = windowTop - overscanY
+        val prefetchBottom = windowBottom + overscanY
+        val firstPrefetchColumnIndex = (firstColumnIndex - 1).coerceAtLeast(0)
+        val lastPrefetchColumnIndex = (lastColumnIndex + 1).coerceAtMost(grid.columns.lastIndex)
+        for (columnIndex in firstPrefetchColumnIndex..lastPrefetchColumnIndex) {
+            for (cell in grid.cellsWithin(columnIndex, prefetchTop, prefetchBottom)) {
+                if (cell.session.sessionId !in attachedViews) {
+                    prefetchSessions.add(cell.session)
+                }
+            }
+        }
+        if (prefetchSessions.isNotEmpty()) {
+            binder.onPrefetch(prefetchSessions)
+            prefetchSessions.clear()
+        }
+    }
+
+    private fun resetPrefetch() {
+        prefetchedRect.setEmpty()
+    }
+
+    private fun recycleAll() {
+        attachedViews.values.forEach { recycle(it.view) }
+        attachedViews.clear()
+    }
+
+    private fun recycle(view: View) {
+        removeViewInLayout(view)
+        recycledViews.addLast(view)
+    }
+
+    private fun measureCell(cell: GridCell, view: View) {
+        view.measure(
+            MeasureSpec.makeMeasureSpec(columnWidth, MeasureSpec.EXACTLY),
+            MeasureSpec.makeMeasureSpec(cell.height, MeasureSpec.EXACTLY)
+        )
+    }
+
+    private fun layoutCell(cell: GridCell, view: View) {
+        val left = cell.columnIndex * columnWidth
+        view.layout(left, cell.top, left + columnWidth, cell.bottom)
+    }
+
+    override fun generateDefaultLayoutParams() = LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT)
+
+}
@@ -0,0 +1,326 @@
+package nerd.tuxmobil.fahrplan.congress.schedule
+
+import android.content.Context
+import android.graphics.Canvas
+import android.graphics.Paint
+import android.graphics.Rect
+import android.graphics.Typeface
+import android.graphics.drawable.Drawable
+import android.os.Bundle
+import android.text.Layout
+import android.text.StaticLayout
+import android.text.TextPaint
+import android.text.TextUtils.TruncateAt
+import android.view.KeyEvent
+import android.view.MotionEvent
+import android.view.View
+import androidx.annotation.ColorInt
+import androidx.appcompat.content.res.AppCompatResources
+import androidx.core.graphics.withClip
+import androidx.core.graphics.withTranslation
+import androidx.core.view.ViewCompat
+import androidx.core.view.accessibility.AccessibilityNodeInfoCompat
+import androidx.customview.widget.ExploreByTouchHelper
+import nerd.tuxmobil.fahrplan.congress.R
+
+/**
+ * Lightweight alternative to the `session_layout` view hierarchy. Draws the title, subtitle,
+ * speakers, track and the recording opt-out and alarm icons of a session within a single view.
+ * Text layouts are cached and only built again if their text or width changed.
+ * The parts are exposed to accessibility services as virtual views. The state description and
+ * the click actions are attached to the cell itself as they are for `session_layout`.
+ *
+ * Mirrors the arrangement of `session_layout`: title and icons on top, the subtitle below
+ * and the speakers and the track at the bottom.
+ */
+internal class SessionCellView(context: Context) : View(context) {
+
+    /**
+     * Text of a part of the cell and its description for accessibility services.
+     */
+    data class Text(
+
+        val text: CharSequence,
+        val contentDescription: CharSequence
+
+    ) {
+
+        companion object {
+            val EMPTY = Text("", "")
+        }
+
+    }
+
+    private enum class Part {
+        TITLE,
+        SUBTITLE,
+        SPEAKERS,
+        TRACK,
+        NO_VIDEO,
+        ALARM,
+    }
+
+    private companion object {
+        val PARTS = Part.values()
+        val TEXT_PARTS = arrayOf(Part.TITLE, Part.SUBTITLE, Part.SPEAKERS, Part.TRACK)
+        const val SPEAKERS_WIDTH_RATIO = 0.6f
+    }
+
+    private val titlePaint = createTextPaint(R.dimen.session_cell_title_text_size, Typeface.DEFAULT_BOLD)
+    private val subtitlePaint = createTextPaint(R.dimen.session_cell_subtitle_text_size, Typeface.create("sans-serif-light", Typeface.NORMAL))
+    private val metaPaint = createTextPaint(R.dimen.session_cell_meta_text_size, Typeface.create("sans-serif-condensed", Typeface.NORMAL))
+    private val titleLayout = CachedTextLayout(titlePaint)
+    private val subtitleLayout = CachedTextLayout(subtitlePaint)
+    private val speakersLayout = CachedTextLayout(metaPaint, ellipsize = TruncateAt.END, maxLines = 1)
+    private val trackLayout = CachedTextLayout(metaPaint, Layout.Alignment.ALIGN_OPPOSITE, TruncateAt.START, maxLines = 1)
+    private val noVideoIcon = requireDrawable(R.drawable.ic_novideo)
+    private val alarmIcon = requireDrawable(R.drawable.ic_bell_on_session)
+    private val iconHeight = resources.getDimensionPixelSize(R.dimen.session_cell_icon_height)
+    private val alarmIconPadding = resources.getDimensionPixelSize(R.dimen.session_cell_alarm_icon_padding)
+    private val speakersPaddingRight = resources.getDimensionPixelSize(R.dimen.session_cell_speakers_padding_right)
+    private val accessibilityHelper = PartsAccessibilityHelper()
+
+    private var title = Text.EMPTY
+    private var subtitle = Text.EMPTY
+    private var speakers = Text.EMPTY
+    private var track = Text.EMPTY
+    private var hasAlarm = false
+    private var alarmContentDescription: CharSequence = ""
+    private var isRecordingOptOut = false
+    private var noVideoContentDescription: CharSequence = ""
+
+    private val partBounds = Array(PARTS.size) { Rect() }
+    private val partLayouts = arrayOfNulls<StaticLayout>(PARTS.size)
+    private var isPartsLayoutRequired = true
+
+    var titleTypeface: Typeface
+        get() = titlePaint.typeface
+        set(value) {
+            if (titlePaint.typeface != value) {
+                titlePaint.typeface = value
+                titleLayout.invalidate()
+                invalidateParts()
+            }
+        }
+
+    @get:ColorInt
+    var textColor: Int
+        get() = titlePaint.color
+        set(@ColorInt value) {
+            if (titlePaint.color != value) {
+                titlePaint.color = value
+                subtitlePaint.color = value
+                metaPaint.color = value
+                invalidate()
+            }
+        }
+
+    init {
+        ViewCompat.setAccessibilityDelegate(this, accessibilityHelper)
+    }
+
+    fun setTexts(title: Text, subtitle: Text, speakers: Text, track: Text) {
+        this.title = title
+        this.subtitle = subtitle
+        this.speakers = speakers
+        this.track = track
+        invalidateParts()
+    }
+
+    fun setAlarm(hasAlarm: Boolean, contentDescription: CharSequence) {
+        this.hasAlarm = hasAlarm
+        alarmContentDescription = contentDescription
+        invalidateParts()
+    }
+
+    fun setRecordingOptOut(isRecordingOptOut: Boolean, contentDescription: CharSequence) {
+        this.isRecordingOptOut = isRecordingOptOut
+        noVideoContentDescription = contentDescription
+        invalidateParts()
+    }
+
+    override fun onLayout(changed: Boolean, left: Int, top: Int, right: Int, bottom: Int) {
+        // Covers size and padding changes.
+        isPartsLayoutRequired = true
+    }
+
+    override fun onDraw(canvas: Canvas) {
+        layoutPartsIfRequired()
+        canvas.withClip(paddingLeft, paddingTop, width - paddingRight, height - paddingBottom) {
+            for (part in TEXT_PARTS) {
+                val layout = partLayouts[part.ordinal] ?: continue
+                val bounds = partBounds[part.ordinal]
+                withClip(bounds) {
+                    withTranslation(bounds.left.toFloat(), bounds.top.toFloat()) {
+                        layout.draw(this)
+                    }
+                }
+            }
+            drawIcon(this, noVideoIcon, partBounds[Part.NO_VIDEO.ordinal], padding = 0)
+            drawIcon(this, alarmIcon, partBounds[Part.ALARM.ordinal], alarmIconPadding)
+        }
+    }
+
+    private fun drawIcon(canvas: Canvas, icon: Drawable, bounds: Rect, padding: Int) {
+        if (!bounds.isEmpty) {
+            icon.setBounds(bounds.left + padding, bounds.top + padding, bounds.right - padding, bounds.bottom - padding)
+            icon.draw(canvas)
+        }
+    }
+
+    private fun invalidateParts() {
+        isPartsLayoutRequired = true
+        invalidate()
+        accessibilityHelper.invalidateRoot()
+    }
+
+    private fun layoutPartsIfRequired() {
+        if (isPartsLayoutRequired) {
+            isPartsLayoutRequired = false
+            layoutParts()
+        }
+    }
+
+    /**
+     * Positions the parts as the `LinearLayout`s of `session_layout` would do.
+     * Parts which do not fit into the view are clipped at its bottom.
+     */
+    private fun layoutParts() {
+        val left = paddingLeft
+        val top = paddingTop
+        val right = (width - paddingRight).coerceAtLeast(left)
+        val bottom = (height - paddingBottom).coerceAtLeast(top)
+        val contentWidth = right - left
+
+        // Icons on the right of the title
+        var iconsLeft = right
+        iconsLeft = layoutIcon(Part.ALARM, alarmIcon, hasAlarm, iconsLeft, top)
+        iconsLeft = layoutIcon(Part.NO_VIDEO, noVideoIcon, isRecordingOptOut, iconsLeft, top)
+        val titleHeight = layoutText(Part.TITLE, title.text, titleLayout, left, top, iconsLeft - left, maxBottom = bottom)?.height ?: 0
+        val hasIcons = hasAlarm || isRecordingOptOut
+        val titleRowBottom = top + maxOf(titleHeight, if (hasIcons) iconHeight else 0)
+
+        // Speakers and track at the bottom
+        val speakersWidth = (contentWidth * SPEAKERS_WIDTH_RATIO).toInt()
+        val trackWidth = contentWidth - speakersWidth
+        val metaHeight = maxOf(
+            speakersLayout.obtain(speakers.text, speakersWidth - speakersPaddingRight).height,
+            trackLayout.obtain(track.text, trackWidth).height
+        )
+        val metaTop = (bottom - metaHeight).coerceAtLeast(titleRowBottom)
+        layoutText(Part.SPEAKERS, speakers.text, speakersLayout, left, metaTop, speakersWidth - speakersPaddingRight)
+        layoutText(Part.TRACK, track.text, trackLayout, right - trackWidth, metaTop, trackWidth)
+
+        // Subtitle in between
+        layoutText(Part.SUBTITLE, subtitle.text, subtitleLayout, left, titleRowBottom, contentWidth, maxBottom = metaTop)
+    }
+
+    private fun layoutIcon(part: Part, icon: Drawable, isVisible: Boolean, right: Int, top: Int): Int {
+        val bounds = partBounds[part.ordinal]
+        if (!isVisible) {
+            bounds.setEmpty()
+            return right
+        }
+        // Keeps the aspect ratio of the icon as the "adjustViewBounds" attribute does.
+        val intrinsicHeight = icon.intrinsicHeight
+        val iconWidth = if (intrinsicHeight > 0) iconHeight * icon.intrinsicWidth / intrinsicHeight else iconHeight
+        bounds.set(right - iconWidth, top, right, top + iconHeight)
+        return bounds.left
+    }
+
+    private fun layoutText(
+        part: Part,
+        text: CharSequence,
+        cachedTextLayout: CachedTextLayout,
+        left: Int,
+        top: Int,
+        width: Int,
+        maxBottom: Int = Int.MAX_VALUE
+    ): StaticLayout? {
+        val bounds = partBounds[part.ordinal]
+        if (text.isEmpty() || width <= 0) {
+            bounds.setEmpty()
+            partLayouts[part.ordinal] = null
+            return null
+        }
+        val layout = cachedTextLayout.obtain(text, width)
+        bounds.set(left, top, left + width, (top + layout.height).coerceAtMost(maxBottom))
+        partLayouts[part.ordinal] = layout
+        return layout
+    }
+
+    private fun contentDescriptionOf(part: Part) = when (part) {
+        Part.TITLE -> title.contentDescription
+        Part.SUBTITLE -> subtitle.contentDescription
+        Part.SPEAKERS -> speakers.contentDescription
+        Part.TRACK -> track.contentDescription
+        Part.NO_VIDEO -> noVideoContentDescription
+        Part.ALARM -> alarmContentDescription
+    }
+
+    override fun dispatchHoverEvent(event: MotionEvent) =
+        accessibilityHelper.dispatchHoverEvent(event) || super.dispatchHoverEvent(event)
+
+    override fun dispatchKeyEvent(event: KeyEvent) =
+        accessibilityHelper.dispatchKeyEvent(event) || super.dispatchKeyEvent(event)
+
+    override fun onFocusChanged(gainFocus: Boolean, direction: Int, previouslyFocusedRect: Rect?) {
+        super.onFocusChanged(gainFocus, direction, previouslyFocusedRect)
+        accessibilityHelper.onFocusChanged(gainFocus, direction, previouslyFocusedRect)
+    }
+
+    private fun createTextPaint(textSizeResId: Int, typeface: Typeface) = TextPaint(Paint.ANTI_ALIAS_FLAG).apply {
+        textSize = resources.getDimension(textSizeResId)
+        this.typeface = typeface
+    }
+
+    private fun requireDrawable(drawableResId: Int) =
+        checkNotNull(AppCompatResources.getDrawable(context, drawableResId)) {
+            "Drawable $drawableResId cannot be loaded."
+        }
+
+    /**
+     * Exposes the visible parts of the cell as virtual views. Clicks on them are
+     * forwarded to the cell so that they behave like clicks on the cell itself.
+     */
+    private inner class PartsAccessibilityHelper : ExploreByTouchHelper(this) {
+
+        override fun getVirtualViewAt(x: Float, y: Float): Int {
+            layoutPartsIfRequired()
+            val part = PARTS.firstOrNull { partBounds[it.ordinal].contains(x.toInt(), y.toInt()) }
+            return part?.ordinal ?: INVALID_ID
+        }
+
+        override fun getVisibleVirtualViews(virtualViewIds: MutableList<Int>) {
+            layoutPartsIfRequired()
+            PARTS.filterNot { partBounds[it.ordinal].isEmpty }.mapTo(virtualViewIds) { it.ordinal }
+        }
+
+        override fun onPopulateNodeForHost(node: AccessibilityNodeInfoCompat) {
+            node.stateDescription = ViewCompat.getStateDescription(this@SessionCellView)
+            if (isClickable) {
+                node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK)
+            }
+            if (isLongClickable) {
+                node.addAction(AccessibilityNodeInfoCompat.ACTION_LONG_CLICK)
+            }
+        }
+
+        override fun onPopulateNodeForVirtualView(virtualViewId: Int, node: AccessibilityNodeInfoCompat) {
+            val part = PARTS[virtualViewId]
+            node.contentDescription = contentDescriptionOf(part)
+            @Suppress("DEPRECATION")
+            node.setBoundsInParent(partBounds[virtualViewId])
+            node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK)
+            node.addAction(AccessibilityNodeInfoCompat.ACTION_LONG_CLICK)
+        }
+
+        override fun onPerformActionForVirtualView(virtualViewId: Int, action: Int, arguments: Bundle?) = when (action) {
+            AccessibilityNodeInfoCompat.ACTION_CLICK -> performClick()
+            AccessibilityNodeInfoCompat.ACTION_LONG_CLICK -> performLongClick()
+            else -> false
+        }
+
+    }
+
+}
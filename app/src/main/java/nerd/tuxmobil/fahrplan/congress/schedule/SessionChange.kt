@@ -0,0 +1,38 @@
+package nerd.tuxmobil.fahrplan.congress.schedule
+
+import nerd.tuxmobil.fahrplan.congress.models.Session
+import java.util.EnumSet
+
+/**
+ * Parts of a session view which can be bound again on their own when only they changed.
+ */
+internal enum class SessionChange {
+
+    HIGHLIGHT,
+    ALARM;
+
+    companion object {
+
+        /**
+         * Returns the parts which differ between the [old] and the [new] version of a session.
+         * An empty set is returned if nothing visible changed. Returns `null` if any other
+         * property changed which requires to bind the whole session view again.
+         */
+        fun of(old: Session, new: Session): Set<SessionChange>? {
+            // Session#equals ignores the highlight and alarm flags.
+            if (old != new) {
+                return null
+            }
+            val changes = EnumSet.noneOf(SessionChange::class.java)
+            if (old.highlight != new.highlight) {
+                changes += HIGHLIGHT
+            }
+            if (old.hasAlarm != new.hasAlarm) {
+                changes += ALARM
+            }
+            return changes
+        }
+
+    }
+
+}
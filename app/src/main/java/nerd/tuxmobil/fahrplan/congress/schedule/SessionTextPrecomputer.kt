@@ -0,0 +1,75 @@
+package nerd.tuxmobil.fahrplan.congress.schedule
+
+import android.util.LruCache
+import android.widget.TextView
+import androidx.core.text.PrecomputedTextCompat
+import androidx.core.widget.TextViewCompat
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Future
+
+/**
+ * Measures the texts of session views on a background thread before the views are bound
+ * so that binding a newly visible session view does not measure its texts on the main thread.
+ *
+ * The texts are measured with the text metrics of the first [TextView] bound per [Role]
+ * (typeface, text size, break strategy etc.). Precomputed texts are cached by text and
+ * text metrics. They do not depend on the width of the view.
+ *
+ * Must only be used from the main thread. The measurement itself runs on the background
+ * executor of [PrecomputedTextCompat].
+ */
+internal class SessionTextPrecomputer(cacheSize: Int = DEFAULT_CACHE_SIZE) {
+
+    enum class Role {
+        TITLE,
+        SUBTITLE,
+        SPEAKERS,
+        TRACK,
+    }
+
+    private data class Key(val text: String, val params: PrecomputedTextCompat.Params)
+
+    private companion object {
+        const val DEFAULT_CACHE_SIZE = 512
+    }
+
+    private val paramsByRole = arrayOfNulls<PrecomputedTextCompat.Params>(Role.values().size)
+    private val precomputedTexts = LruCache<Key, Future<PrecomputedTextCompat>>(cacheSize)
+
+    /**
+     * Starts measuring the given [text] in the background unless it has been measured before.
+     * Does nothing as long as no text view has been bound for the given [role].
+     */
+    fun precompute(role: Role, text: CharSequence) {
+        val params = paramsByRole[role.ordinal] ?: return
+        if (text.isEmpty()) {
+            return
+        }
+        val key = Key(text.toString(), params)
+        if (precomputedTexts[key] == null) {
+            precomputedTexts.put(key, PrecomputedTextCompat.getTextFuture(text, params, null))
+        }
+    }
+
+    /**
+     * Sets the given [text] to the [textView]. The precomputed text is used if it is
+     * already available. Otherwise the plain text is set. Never waits for a measurement.
+     */
+    fun setText(role: Role, textView: TextView, text: CharSequence) {
+        val params = paramsByRole[role.ordinal]
+            ?: TextViewCompat.getTextMetricsParams(textView).also { paramsByRole[role.ordinal] = it }
+        val future = if (text.isEmpty()) null else precomputedTexts[Key(text.toString(), params)]
+        if (future != null && future.isDone) {
+            try {
+                TextViewCompat.setPrecomputedText(textView, future.get())
+                return
+            } catch (e: ExecutionException) {
+                // Falls back to the plain text below.
+            } catch (e: IllegalArgumentException) {
+                // The text metrics of the text view differ from the ones the text has been measured with.
+            }
+        }
+        textView.text = text
+    }
+
+}
@@ -1,6 +1,7 @@
 package nerd.tuxmobil.fahrplan.congress.schedule
 
 import android.content.Context
+import android.graphics.drawable.Drawable
 import android.view.View
 import android.widget.ImageView
 import android.widget.TextView
@@ -13,6 +14,7 @@ import nerd.tuxmobil.fahrplan.congress.R
 import nerd.tuxmobil.fahrplan.congress.extensions.requireViewByIdCompat
 import nerd.tuxmobil.fahrplan.congress.models.Session
 import nerd.tuxmobil.fahrplan.congress.repositories.AppRepository
+import nerd.tuxmobil.fahrplan.congress.schedule.SessionTextPrecomputer.Role
 import nerd.tuxmobil.fahrplan.congress.utils.ContentDescriptionFormatter
 import nerd.tuxmobil.fahrplan.congress.utils.Font
 import nerd.tuxmobil.fahrplan.congress.utils.SessionPropertiesFormatter
@@ -25,7 +27,7 @@ internal class SessionViewDrawer(
         private val contentDescriptionFormatter: ContentDescriptionFormatter,
         private val getSessionPadding: () -> Int,
         private val isAlternativeHighlightingEnabled: () -> Boolean = {
-            // Must load the latest alternative highlighting value every time a session is redrawn.
+            // Loaded once per render pass, see startRenderPass.
             AppRepository.readAlternativeHighlightingEnabled()
         }
 
@@ -40,51 +42,158 @@ internal class SessionViewDrawer(
     private val sessionDrawableStrokeWidth = resources.getDimensionPixelSize(R.dimen.session_drawable_selection_stroke_width)
     private val sessionDrawableStrokeColor = ContextCompat.getColor(context, R.color.session_drawable_selection_stroke)
     private val sessionDrawableRippleColor = ContextCompat.getColor(context, R.color.session_drawable_ripple)
-    private val trackNameBackgroundColorDefaultPairs = TrackBackgrounds.getTrackNameBackgroundColorDefaultPairs(context)
-    private val trackNameBackgroundColorHighlightPairs = TrackBackgrounds.getTrackNameBackgroundColorHighlightPairs(context)
+    private val trackNameBackgroundColorDefaultPairs = TrackBackgrounds.trackNameBackgroundColorDefaultPairs
+    private val trackNameBackgroundColorHighlightPairs = TrackBackgrounds.trackNameBackgroundColorHighlightPairs
+    // Drawable states per background style keyed by track name.
+    private val sessionBackgroundStates = Array(BACKGROUND_STYLES_COUNT) { HashMap<String, Drawable.ConstantState>() }
+    private var renderPass: RenderPass? = null
+    private val textPrecomputer = SessionTextPrecomputer()
 
     fun updateSessionView(sessionView: View, session: Session, useDeviceTimeZone: Boolean) {
+        if (sessionView is SessionCellView) {
+            updateSessionCellContent(sessionView, session)
+        } else {
+            updateSessionLayoutContent(sessionView, session)
+        }
+        ViewCompat.setStateDescription(sessionView, contentDescriptionFormatter
+            .getStateContentDescription(session, useDeviceTimeZone))
+        setSessionBackground(session.highlight, session.track, sessionView)
+        setSessionTextColor(session.highlight, sessionView)
+        sessionView.tag = session
+    }
+
+    private fun updateSessionCellContent(cellView: SessionCellView, session: Session) {
+        val context = cellView.context
+        cellView.titleTypeface = boldCondensed
+        val speakerNames = sessionPropertiesFormatter.getFormattedSpeakers(session)
+        cellView.setTexts(
+            title = SessionCellView.Text(session.title, contentDescriptionFormatter
+                .getTitleContentDescription(session.title)),
+            subtitle = SessionCellView.Text(session.subtitle, contentDescriptionFormatter
+                .getSubtitleContentDescription(session.subtitle)),
+            speakers = SessionCellView.Text(speakerNames, contentDescriptionFormatter
+                .getSpeakersContentDescription(session.speakers.size, speakerNames)),
+            track = SessionCellView.Text(sessionPropertiesFormatter.getFormattedTrackLanguageText(session), contentDescriptionFormatter
+                .getFormattedTrackContentDescription(session.track, sessionPropertiesFormatter.getLanguageText(session))),
+        )
+        cellView.setAlarm(session.hasAlarm, context.getString(R.string.session_item_has_alarm_content_description))
+        cellView.setRecordingOptOut(session.recordingOptOut, context.getString(R.string.session_item_no_video_content_description))
+    }
+
+    private fun updateSessionLayoutContent(sessionView: View, session: Session) {
         val bell = sessionView.requireViewByIdCompat<ImageView>(R.id.session_bell_view)
         bell.isVisible = session.hasAlarm
         bell.contentDescription = sessionView.context.getString(R.string.session_item_has_alarm_content_description)
         var textView = sessionView.requireViewByIdCompat<TextView>(R.id.session_title_view)
         textView.typeface = boldCondensed
-        textView.text = session.title
+        textPrecomputer.setText(Role.TITLE, textView, session.title)
         textView.contentDescription = contentDescriptionFormatter
             .getTitleContentDescription(session.title)
         textView = sessionView.requireViewByIdCompat(R.id.session_subtitle_view)
-        textView.text = session.subtitle
+        textPrecomputer.setText(Role.SUBTITLE, textView, session.subtitle)
         textView.contentDescription = contentDescriptionFormatter
             .getSubtitleContentDescription(session.subtitle)
         textView = sessionView.requireViewByIdCompat(R.id.session_speakers_view)
         val speakerNames = sessionPropertiesFormatter.getFormattedSpeakers(session)
-        textView.text = speakerNames
+        textPrecomputer.setText(Role.SPEAKERS, textView, speakerNames)
         textView.contentDescription = contentDescriptionFormatter
             .getSpeakersContentDescription(session.speakers.size, speakerNames)
         textView = sessionView.requireViewByIdCompat(R.id.session_track_view)
-        textView.text = sessionPropertiesFormatter.getFormattedTrackLanguageText(session)
+        textPrecomputer.setText(Role.TRACK, textView, sessionPropertiesFormatter.getFormattedTrackLanguageText(session))
         textView.contentDescription = contentDescriptionFormatter
             .getFormattedTrackContentDescription(session.track, sessionPropertiesFormatter.getLanguageText(session))
         val recordingOptOut = sessionView.findViewById<View>(R.id.session_no_video_view)
         if (recordingOptOut != null) {
             recordingOptOut.isVisible = session.recordingOptOut
         }
-        ViewCompat.setStateDescription(sessionView, contentDescriptionFormatter
-            .getStateContentDescription(session, useDeviceTimeZone))
-        setSessionBackground(session.highlight, session.track, sessionView)
-        setSessionTextColor(session.highlight, sessionView)
+    }
+
+    /**
+     * Measures the texts of the given [sessions] which are about to be shown in the background
+     * so that [updateSessionView] can set them without measuring them on the main thread.
+     * Only applies to `session_layout` views. The [SessionCellView] caches its text layouts itself.
+     */
+    fun precomputeTexts(sessions: List<Session>) {
+        sessions.forEach { session ->
+            textPrecomputer.precompute(Role.TITLE, session.title)
+            textPrecomputer.precompute(Role.SUBTITLE, session.subtitle)
+            textPrecomputer.precompute(Role.SPEAKERS, sessionPropertiesFormatter.getFormattedSpeakers(session))
+            textPrecomputer.precompute(Role.TRACK, sessionPropertiesFormatter.getFormattedTrackLanguageText(session))
+        }
+    }
+
+    /**
+     * Updates only the given [changes] of the [session] in the [sessionView]
+     * which has been updated via [updateSessionView] before.
+     */
+    fun updateSessionView(sessionView: View, session: Session, useDeviceTimeZone: Boolean, changes: Set<SessionChange>) {
+        if (SessionChange.ALARM in changes) {
+            if (sessionView is SessionCellView) {
+                sessionView.setAlarm(session.hasAlarm, sessionView.context.getString(R.string.session_item_has_alarm_content_description))
+            } else {
+                sessionView.requireViewByIdCompat<ImageView>(R.id.session_bell_view).isVisible = session.hasAlarm
+            }
+        }
+        if (SessionChange.HIGHLIGHT in changes) {
+            ViewCompat.setStateDescription(sessionView, contentDescriptionFormatter
+                .getStateContentDescription(session, useDeviceTimeZone))
+            setSessionBackground(session.highlight, session.track, sessionView)
+            setSessionTextColor(session.highlight, sessionView)
+        }
         sessionView.tag = session
     }
 
+    /**
+     * Reads the settings affecting the session backgrounds once. They apply to all
+     * session views updated until the next render pass is started.
+     */
+    fun startRenderPass() {
+        renderPass = readRenderPass()
+    }
+
+    private fun requireRenderPass() = renderPass ?: readRenderPass().also { renderPass = it }
+
+    private fun readRenderPass() = RenderPass(
+        isAlternativeHighlightingEnabled = isAlternativeHighlightingEnabled(),
+        sessionPadding = getSessionPadding()
+    )
+
+    /**
+     * Sets the background matching the given [track] and favored state. The drawable state
+     * is shared between all views showing the same background. The background of a view
+     * which already shows it is kept as is.
+     */
     fun setSessionBackground(isFavored: Boolean, track: String, sessionView: View) {
-        val context = sessionView.context
+        val renderPass = requireRenderPass()
+        val backgroundStyle = when {
+            !isFavored -> BACKGROUND_STYLE_DEFAULT
+            renderPass.isAlternativeHighlightingEnabled -> BACKGROUND_STYLE_HIGHLIGHT_WITH_STROKE
+            else -> BACKGROUND_STYLE_HIGHLIGHT
+        }
+        val backgroundStates = sessionBackgroundStates[backgroundStyle]
+        val backgroundState = backgroundStates.getOrPut(track) {
+            val sessionDrawable = createSessionDrawable(
+                sessionView.context, isFavored, track, backgroundStyle == BACKGROUND_STYLE_HIGHLIGHT_WITH_STROKE
+            )
+            checkNotNull(sessionDrawable.constantState) { "SessionDrawable must provide a constant state." }
+        }
+        // Drawables created from a constant state own a copy of it hence the state is tracked separately.
+        if (sessionView.getTag(R.id.session_background_state) !== backgroundState) {
+            sessionView.background = backgroundState.newDrawable(resources)
+            sessionView.setTag(R.id.session_background_state, backgroundState)
+        }
+        val padding = renderPass.sessionPadding
+        sessionView.setPadding(padding, padding, padding, padding)
+    }
+
+    private fun createSessionDrawable(context: Context, isFavored: Boolean, track: String, hasStroke: Boolean): SessionDrawable {
         @ColorRes val backgroundColorResId = if (isFavored) {
             trackNameBackgroundColorHighlightPairs[track] ?: R.color.track_background_highlight
         } else {
             trackNameBackgroundColorDefaultPairs[track] ?: R.color.track_background_default
         }
         @ColorInt val backgroundColor = ContextCompat.getColor(context, backgroundColorResId)
-        val sessionDrawable = if (isFavored && isAlternativeHighlightingEnabled()) {
+        val sessionDrawable = if (hasStroke) {
             SessionDrawable(
                     backgroundColor,
                     sessionDrawableCornerRadius.toFloat(),
@@ -107,24 +216,39 @@ internal class SessionViewDrawer(
                 sessionDrawableInsetTop,
                 sessionDrawableInsetRight,
                 0)
-        sessionView.background = sessionDrawable
-        val padding = getSessionPadding()
-        sessionView.setPadding(padding, padding, padding, padding)
+        return sessionDrawable
     }
 
+    /**
+     * Settings read once per render pass instead of once per session view.
+     */
+    private class RenderPass(
+        val isAlternativeHighlightingEnabled: Boolean,
+        val sessionPadding: Int
+    )
+
     companion object {
         const val LOG_TAG = "SessionViewDrawer"
 
+        private const val BACKGROUND_STYLE_DEFAULT = 0
+        private const val BACKGROUND_STYLE_HIGHLIGHT = 1
+        private const val BACKGROUND_STYLE_HIGHLIGHT_WITH_STROKE = 2
+        private const val BACKGROUND_STYLES_COUNT = 3
+
         fun setSessionTextColor(isFavored: Boolean, view: View) {
-            val title = view.requireViewByIdCompat<TextView>(R.id.session_title_view)
-            val subtitle = view.requireViewByIdCompat<TextView>(R.id.session_subtitle_view)
-            val speakers = view.requireViewByIdCompat<TextView>(R.id.session_speakers_view)
-            val track = view.requireViewByIdCompat<TextView>(R.id.session_track_view)
             val colorResId = if (isFavored)
                 R.color.session_item_text_on_highlight_background
             else
                 R.color.session_item_text_on_default_background
             val textColor = ContextCompat.getColor(view.context, colorResId)
+            if (view is SessionCellView) {
+                view.textColor = textColor
+                return
+            }
+            val title = view.requireViewByIdCompat<TextView>(R.id.session_title_view)
+            val subtitle = view.requireViewByIdCompat<TextView>(R.id.session_subtitle_view)
+            val speakers = view.requireViewByIdCompat<TextView>(R.id.session_speakers_view)
+            val track = view.requireViewByIdCompat<TextView>(R.id.session_track_view)
             title.setTextColor(textColor)
             subtitle.setTextColor(textColor)
             speakers.setTextColor(textColor)
@@ -0,0 +1,70 @@
+package nerd.tuxmobil.fahrplan.congress.schedule
+
+import android.view.LayoutInflater
+import android.view.View
+import android.view.ViewGroup
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater
+import nerd.tuxmobil.fahrplan.congress.R
+import nerd.tuxmobil.fahrplan.congress.models.Session
+
+internal interface SessionViewEventsHandler : View.OnCreateContextMenuListener, View.OnClickListener
+
+/**
+ * Binds sessions to `session_layout` views or, if [useSessionCellView] is enabled,
+ * to the lightweight [SessionCellView].
+ */
+internal class SessionViewGridBinder(
+        val useDeviceTimeZone: Boolean,
+        private val useSessionCellView: Boolean,
+        private val drawer: SessionViewDrawer,
+        private val eventsHandler: SessionViewEventsHandler
+) : ScheduleGridLayout.Binder {
+
+    private var asyncLayoutInflater: AsyncLayoutInflater? = null
+
+    override fun onCreateView(parent: ViewGroup): View {
+        val sessionView = if (useSessionCellView) {
+            SessionCellView(parent.context)
+        } else {
+            LayoutInflater.from(parent.context).inflate(R.layout.session_layout, parent, false)
+        }
+        return initSessionView(sessionView)
+    }
+
+    /**
+     * Inflates `session_layout` views on the background thread of the [AsyncLayoutInflater].
+     * The [SessionCellView] is cheap to create hence it is created right away.
+     */
+    override fun onCreateViewAsync(parent: ViewGroup, onViewCreated: (View) -> Unit) {
+        if (useSessionCellView) {
+            onViewCreated(onCreateView(parent))
+            return
+        }
+        val inflater = asyncLayoutInflater ?: AsyncLayoutInflater(parent.context).also { asyncLayoutInflater = it }
+        inflater.inflate(R.layout.session_layout, parent) { sessionView, _, _ ->
+            onViewCreated(initSessionView(sessionView))
+        }
+    }
+
+    private fun initSessionView(sessionView: View): View {
+        sessionView.setOnCreateContextMenuListener(eventsHandler)
+        sessionView.setOnClickListener(eventsHandler)
+        return sessionView
+    }
+
+    override fun onBindView(view: View, session: Session) {
+        view.tag = session
+        drawer.updateSessionView(view, session, useDeviceTimeZone)
+    }
+
+    override fun onBindView(view: View, session: Session, changes: Set<SessionChange>) {
+        drawer.updateSessionView(view, session, useDeviceTimeZone, changes)
+    }
+
+    override fun onPrefetch(sessions: List<Session>) {
+        if (!useSessionCellView) {
+            drawer.precomputeTexts(sessions)
+        }
+    }
+
+}
@@ -0,0 +1,44 @@
+package nerd.tuxmobil.fahrplan.congress.schedule
+
+import nerd.tuxmobil.fahrplan.congress.schedule.observables.TimeRulerParameter
+
+/**
+ * Caches the formatted labels of the time ruler per day and time zone mode.
+ * The labels of a day are only formatted again once the [Conference] time frame
+ * of the day changed, e.g. after a schedule update. The least recently used
+ * days are evicted once more than [maxSize] are cached.
+ */
+internal class TimeRulerLabelsCache(
+
+    private val maxSize: Int = DEFAULT_MAX_SIZE
+
+) {
+
+    private companion object {
+        const val DEFAULT_MAX_SIZE = 8
+    }
+
+    private data class Key(val dayIndex: Int, val useDeviceTimeZone: Boolean)
+
+    private class Entry(val conference: Conference, val slotLabels: List<String>)
+
+    private val entries = object : LinkedHashMap<Key, Entry>(maxSize, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Key, Entry>) = size > maxSize
+    }
+
+    /**
+     * Returns the labels of the given [conference] day. See [TimeRulerParameter.slotLabelsOf].
+     */
+    @Synchronized
+    fun slotLabelsOf(dayIndex: Int, conference: Conference, useDeviceTimeZone: Boolean): List<String> {
+        val key = Key(dayIndex, useDeviceTimeZone)
+        val entry = entries[key]
+        if (entry != null && entry.conference == conference) {
+            return entry.slotLabels
+        }
+        val slotLabels = TimeRulerParameter.slotLabelsOf(conference, useDeviceTimeZone)
+        entries[key] = Entry(conference, slotLabels)
+        return slotLabels
+    }
+
+}
@@ -0,0 +1,93 @@
+package nerd.tuxmobil.fahrplan.congress.schedule
+
+import android.content.Context
+import android.graphics.Canvas
+import android.graphics.Paint
+import android.graphics.Rect
+import android.text.TextPaint
+import android.util.AttributeSet
+import android.view.View
+import androidx.appcompat.content.res.AppCompatResources
+import androidx.core.content.ContextCompat
+import nerd.tuxmobil.fahrplan.congress.R
+import nerd.tuxmobil.fahrplan.congress.schedule.observables.TimeRulerParameter
+
+/**
+ * Draws the time column of the schedule within a single view, one slot per label of the
+ * [TimeRulerParameter]. Replaces one inflated text view per slot. Moving the "now" marker
+ * only redraws the view, changing the labels or the slot height also measures it again.
+ */
+internal class TimeRulerView(
+
+    context: Context,
+    attrs: AttributeSet? = null
+
+) : View(context, attrs) {
+
+    private val textPaint = TextPaint(Paint.ANTI_ALIAS_FLAG).apply {
+        textSize = resources.getDimension(R.dimen.time_ruler_text_size)
+        textAlign = Paint.Align.CENTER
+    }
+    private val slotPadding = resources.getDimensionPixelSize(R.dimen.time_ruler_padding)
+    private val normalTextColor = ContextCompat.getColor(context, R.color.schedule_time_column_item_text_normal)
+    private val nowTextColor = ContextCompat.getColor(context, R.color.schedule_time_column_item_text_emphasized)
+    private val nowBackgroundPaint = Paint().apply {
+        color = ContextCompat.getColor(context, R.color.schedule_time_column_item_background_emphasized)
+    }
+    private val slotBackground = checkNotNull(AppCompatResources.getDrawable(context, R.drawable.border)) {
+        "Drawable ${R.drawable.border} cannot be loaded."
+    }
+    private val visibleBounds = Rect()
+
+    // Same position as the first line of a text view with top gravity and font padding.
+    private val baselineOffset = slotPadding - textPaint.fontMetrics.top
+
+    private var parameter = TimeRulerParameter(emptyList(), slotHeight = 0, TimeRulerParameter.NO_SLOT_INDEX)
+
+    init {
+        importantForAccessibility = IMPORTANT_FOR_ACCESSIBILITY_NO
+    }
+
+    fun setParameter(parameter: TimeRulerParameter) {
+        val previous = this.parameter
+        if (previous == parameter) {
+            return
+        }
+        this.parameter = parameter
+        if (previous.slotLabels.size != parameter.slotLabels.size || previous.slotHeight != parameter.slotHeight) {
+            requestLayout()
+        }
+        invalidate()
+    }
+
+    override fun onMeasure(widthMeasureSpec: Int, heightMeasureSpec: Int) {
+        val height = parameter.slotLabels.size * parameter.slotHeight
+        setMeasuredDimension(
+            resolveSize(suggestedMinimumWidth, widthMeasureSpec),
+            resolveSize(height.coerceAtLeast(suggestedMinimumHeight), heightMeasureSpec)
+        )
+    }
+
+    override fun onDraw(canvas: Canvas) {
+        val (slotLabels, slotHeight, nowSlotIndex) = parameter
+        if (slotLabels.isEmpty() || slotHeight == 0 || !canvas.getClipBounds(visibleBounds)) {
+            return
+        }
+        val firstSlotIndex = (visibleBounds.top / slotHeight).coerceAtLeast(0)
+        val lastSlotIndex = ((visibleBounds.bottom - 1) / slotHeight).coerceAtMost(slotLabels.lastIndex)
+        val centerX = width / 2f
+        for (slotIndex in firstSlotIndex..lastSlotIndex) {
+            val top = slotIndex * slotHeight
+            if (slotIndex == nowSlotIndex) {
+                canvas.drawRect(0f, top.toFloat(), width.toFloat(), (top + slotHeight).toFloat(), nowBackgroundPaint)
+                textPaint.color = nowTextColor
+            } else {
+                slotBackground.setBounds(0, top, width, top + slotHeight)
+                slotBackground.draw(canvas)
+                textPaint.color = normalTextColor
+            }
+            canvas.drawText(slotLabels[slotIndex], centerX, top + baselineOffset, textPaint)
+        }
+    }
+
+}
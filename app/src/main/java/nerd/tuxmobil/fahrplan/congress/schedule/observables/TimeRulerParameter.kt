@@ -0,0 +1,78 @@
+package nerd.tuxmobil.fahrplan.congress.schedule.observables
+
+import info.metadude.android.eventfahrplan.commons.temporal.Moment
+import info.metadude.android.eventfahrplan.commons.temporal.Moment.Companion.MINUTES_OF_ONE_DAY
+import nerd.tuxmobil.fahrplan.congress.schedule.Conference
+import nerd.tuxmobil.fahrplan.congress.schedule.FahrplanFragment
+import nerd.tuxmobil.fahrplan.congress.schedule.FahrplanFragment.Companion.BOX_HEIGHT_MULTIPLIER
+import nerd.tuxmobil.fahrplan.congress.schedule.FahrplanFragment.Companion.FIFTEEN_MINUTES
+import nerd.tuxmobil.fahrplan.congress.schedule.FahrplanViewModel
+import nerd.tuxmobil.fahrplan.congress.schedule.TimeRulerView
+import nerd.tuxmobil.fahrplan.congress.schedule.TimeSegment
+
+/**
+ * Payload of the observable [timeRulerParameter][FahrplanViewModel.timeRulerParameter]
+ * property in the [FahrplanViewModel] which is observed by the [FahrplanFragment].
+ * Parameters to be used to draw the [TimeRulerView].
+ *
+ * The time ruler shows time information as hours and minutes at an interval of
+ * [FIFTEEN_MINUTES]. All [slotLabels] look the same with an exception for the slot at the
+ * [nowSlotIndex] which matches the current system time (now).
+ */
+internal data class TimeRulerParameter(
+
+        val slotLabels: List<String>,
+        val slotHeight: Int,
+        val nowSlotIndex: Int
+
+) {
+
+    companion object {
+
+        const val NO_SLOT_INDEX = -1
+
+        /**
+         * Returns the parameter to draw the time ruler of the given [conference] day
+         * with the given [slotLabels] as returned by [slotLabelsOf].
+         */
+        fun parameterOf(
+                nowMoment: Moment,
+                conference: Conference,
+                normalizedBoxHeight: Int,
+                slotLabels: List<String>
+        ): TimeRulerParameter {
+            val isToday = nowMoment in conference.timeFrame
+            val nowSlotIndex = if (isToday) {
+                timeSegmentsOf(conference).indexOfFirst { it.isMatched(nowMoment, FIFTEEN_MINUTES) }
+            } else {
+                NO_SLOT_INDEX
+            }
+            return TimeRulerParameter(slotLabels, BOX_HEIGHT_MULTIPLIER * normalizedBoxHeight, nowSlotIndex)
+        }
+
+        /**
+         * Returns the formatted labels of all time slots of the given [conference] day.
+         * They only depend on the day and the time zone mode, hence they can be cached.
+         *
+         * An event day can exceed midnight.
+         */
+        fun slotLabelsOf(conference: Conference, useDeviceTimeZone: Boolean): List<String> =
+            timeSegmentsOf(conference)
+                .map { it.getFormattedText(conference.timeZoneOffset, useDeviceTimeZone) }
+                .toList()
+
+        private fun timeSegmentsOf(conference: Conference) = sequence {
+            var sessionStartsAt = conference.firstSessionStartsAt
+            var sessionStartsAtMinutes = sessionStartsAt.minuteOfDay
+            val minutesToAdd = if (conference.spansMultipleDays) MINUTES_OF_ONE_DAY else 0
+            val lastSessionEndsAtMinutes = conference.lastSessionEndsAt.minuteOfDay + minutesToAdd
+            while (sessionStartsAtMinutes < lastSessionEndsAtMinutes) {
+                yield(TimeSegment.ofMoment(sessionStartsAt))
+                sessionStartsAt = sessionStartsAt.plusMinutes(FIFTEEN_MINUTES.toLong())
+                sessionStartsAtMinutes += FIFTEEN_MINUTES
+            }
+        }
+
+    }
+
+}
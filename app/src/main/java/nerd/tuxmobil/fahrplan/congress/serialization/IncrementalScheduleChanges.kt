@@ -0,0 +1,129 @@
+package nerd.tuxmobil.fahrplan.congress.serialization
+
+import nerd.tuxmobil.fahrplan.congress.models.Session as SessionAppModel
+
+/**
+ * Detects schedule changes one session at a time so that new sessions can be processed while
+ * the schedule is still being parsed. Each new session is matched with its equivalent from the
+ * [oldSessions] list by its session ID.
+ *
+ * Pass each new session to [flag]. Once all new sessions have been passed invoke
+ * [flagCanceledSessions] to obtain the old sessions which are missing from the new schedule.
+ * See [ScheduleChanges.computeSessionsWithChangeFlags] for the meaning of the flags.
+ *
+ * This class does not modify the given list nor any of its elements. It is not thread-safe.
+ */
+class IncrementalScheduleChanges(oldSessions: List<SessionAppModel>) {
+
+    /**
+     * Sessions are not flagged as "new" when they are loaded for the first time.
+     */
+    private val isInitialLoad = oldSessions.isEmpty()
+
+    private val oldNotCanceledSessionsById = oldSessions
+        .filterNot { it.changedIsCanceled }
+        .associateByTo(LinkedHashMap()) { it.sessionId }
+
+    val oldCanceledSessions = oldSessions.filter { it.changedIsCanceled }
+
+    /**
+     * Indicates generic changes which are relevant for the schedule changes screen.
+     */
+    var foundNoteworthyChanges = false
+        private set
+
+    /**
+     * Indicates changes based on the comparison of all session properties.
+     */
+    var foundChanges = false
+        private set
+
+    /**
+     * Returns the given [newSession] flagged as ["new"][SessionAppModel.changedIsNew] or
+     * according to the changes detected when comparing it to its old equivalent.
+     */
+    fun flag(newSession: SessionAppModel): SessionAppModel {
+        if (isInitialLoad) {
+            return newSession
+        }
+        val oldSession = oldNotCanceledSessionsById.remove(newSession.sessionId)
+        if (oldSession == null) {
+            foundNoteworthyChanges = true
+            foundChanges = true
+            return newSession.copy(changedIsNew = true)
+        }
+
+        if (!foundChanges && !oldSession.equalsContentWise(newSession)) {
+            foundChanges = true
+        }
+
+        if (oldSession.equalsInNoteworthyProperties(newSession)) {
+            return newSession
+        }
+        foundNoteworthyChanges = true
+        return newSession.copy(
+            changedTitle = newSession.title != oldSession.title,
+            changedSubtitle = newSession.subtitle != oldSession.subtitle,
+            changedSpeakers = newSession.speakers != oldSession.speakers,
+            changedLanguage = newSession.language != oldSession.language,
+            changedRoomName = newSession.roomName != oldSession.roomName,
+            changedTrack = newSession.track != oldSession.track,
+            changedRecordingOptOut = newSession.recordingOptOut != oldSession.recordingOptOut,
+            changedDayIndex = newSession.dayIndex != oldSession.dayIndex,
+            changedStartTime = newSession.startTime != oldSession.startTime,
+            changedDuration = newSession.duration != oldSession.duration,
+        )
+    }
+
+    /**
+     * Returns all old sessions which have not been matched by any new session so far flagged
+     * as ["canceled"][SessionAppModel.changedIsCanceled]. Invoke this function once after all
+     * new sessions have been passed to [flag].
+     */
+    fun flagCanceledSessions(): List<SessionAppModel> {
+        if (oldNotCanceledSessionsById.isEmpty()) {
+            return emptyList()
+        }
+        foundNoteworthyChanges = true
+        val canceledSessions = oldNotCanceledSessionsById.values.map { it.cancel() }
+        oldNotCanceledSessionsById.clear()
+        return canceledSessions
+    }
+
+    private fun SessionAppModel.equalsInNoteworthyProperties(session: SessionAppModel): Boolean {
+        return title == session.title &&
+                subtitle == session.subtitle &&
+                speakers == session.speakers &&
+                language == session.language &&
+                roomName == session.roomName &&
+                track == session.track &&
+                recordingOptOut == session.recordingOptOut &&
+                dayIndex == session.dayIndex &&
+                startTime == session.startTime &&
+                duration == session.duration
+    }
+
+    /**
+     * Intentionally omit volatile properties such as [SessionAppModel.hasAlarm],
+     * [SessionAppModel.highlight] which are only relevant for the UI layer.
+     * Also omit change flags such as [SessionAppModel.changedIsNew].
+     *
+     * Once [SessionAppModel] is converted into a Kotlin data class and its properties
+     * are separated this function can be replaced by an equals comparison.
+     */
+    private fun SessionAppModel.equalsContentWise(session: SessionAppModel): Boolean {
+        return equalsInNoteworthyProperties(session) &&
+                url == session.url &&
+                dateText == session.dateText &&
+                dateUTC == session.dateUTC &&
+                timeZoneOffset == session.timeZoneOffset &&
+                relStartTime == session.relStartTime &&
+                type == session.type &&
+                slug == session.slug &&
+                abstractt == session.abstractt &&
+                description == session.description &&
+                links == session.links &&
+                recordingLicense == session.recordingLicense
+    }
+
+}
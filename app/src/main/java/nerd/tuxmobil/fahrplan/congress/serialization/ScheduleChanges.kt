@@ -31,160 +31,70 @@ data class ScheduleChanges private constructor(
 
         ): ScheduleChanges {
 
-            var foundNoteworthyChanges = false
-            var foundChanges = false
             if (oldSessions.isEmpty()) {
                 // Do not flag sessions as "new" when sessions are loaded for the first time.
                 return ScheduleChanges(newSessions, emptyList(), foundNoteworthyChanges = false, foundChanges = false)
             }
 
-            val oldNotCanceledSessions = oldSessions.filterNot { it.changedIsCanceled }.toMutableList()
-            val oldCanceledSessions = oldSessions.filter { it.changedIsCanceled }
-            val sessionsWithChangeFlags = mutableListOf<SessionAppModel>()
-
-            var sessionIndex = 0
-            while (sessionIndex < newSessions.size) {
-                val newSession = newSessions[sessionIndex]
-                val oldSession = oldNotCanceledSessions.singleOrNull { oldNotCanceledSession -> newSession.sessionId == oldNotCanceledSession.sessionId }
-                if (oldSession == null) {
-                    sessionsWithChangeFlags += newSession.copy(changedIsNew = true)
-                    foundNoteworthyChanges = true
-                    foundChanges = true
-                    sessionIndex++
-                    continue
-                }
-
-                if (!foundChanges && !oldSession.equalsContentWise(newSession)) {
-                    foundChanges = true
-                }
-
-                if (oldSession.equalsInNoteworthyProperties(newSession)) {
-                    sessionsWithChangeFlags += newSession
-                    oldNotCanceledSessions -= oldSession
-                    sessionIndex++
-                    continue
-                }
-
-                val sessionChange = SessionChange()
-
-                if (newSession.title != oldSession.title) {
-                    sessionChange.changedTitle = true
-                    foundNoteworthyChanges = true
-                }
-                if (newSession.subtitle != oldSession.subtitle) {
-                    sessionChange.changedSubtitle = true
-                    foundNoteworthyChanges = true
-                }
-                if (newSession.speakers != oldSession.speakers) {
-                    sessionChange.changedSpeakers = true
-                    foundNoteworthyChanges = true
-                }
-                if (newSession.language != oldSession.language) {
-                    sessionChange.changedLanguage = true
-                    foundNoteworthyChanges = true
-                }
-                if (newSession.roomName != oldSession.roomName) {
-                    sessionChange.changedRoom = true
-                    foundNoteworthyChanges = true
-                }
-                if (newSession.track != oldSession.track) {
-                    sessionChange.changedTrack = true
-                    foundNoteworthyChanges = true
-                }
-                if (newSession.recordingOptOut != oldSession.recordingOptOut) {
-                    sessionChange.changedRecordingOptOut = true
-                    foundNoteworthyChanges = true
-                }
-                if (newSession.dayIndex != oldSession.dayIndex) {
-                    sessionChange.changedDayIndex = true
-                    foundNoteworthyChanges = true
-                }
-                if (newSession.startTime != oldSession.startTime) {
-                    sessionChange.changedStartTime = true
-                    foundNoteworthyChanges = true
-                }
-                if (newSession.duration != oldSession.duration) {
-                    sessionChange.changedDuration = true
-                    foundNoteworthyChanges = true
-                }
-                sessionsWithChangeFlags += newSession.copy(
-                    changedTitle = sessionChange.changedTitle,
-                    changedSubtitle = sessionChange.changedSubtitle,
-                    changedSpeakers = sessionChange.changedSpeakers,
-                    changedLanguage = sessionChange.changedLanguage,
-                    changedRoomName = sessionChange.changedRoom,
-                    changedTrack = sessionChange.changedTrack,
-                    changedRecordingOptOut = sessionChange.changedRecordingOptOut,
-                    changedDayIndex = sessionChange.changedDayIndex,
-                    changedStartTime = sessionChange.changedStartTime,
-                    changedDuration = sessionChange.changedDuration,
-                )
-                oldNotCanceledSessions -= oldSession
-                sessionIndex++
-            }
-
-            if (oldNotCanceledSessions.isNotEmpty()) {
-                // Flag all "old" sessions which are not present in the "new" set as canceled
-                // and append them to the "new" set.
-                sessionsWithChangeFlags += oldNotCanceledSessions.map { it.cancel() }
-                foundNoteworthyChanges = true
-            }
+            val changes = IncrementalScheduleChanges(oldSessions)
+            val sessionsWithChangeFlags = newSessions.map(changes::flag)
+            // Flag all "old" sessions which are not present in the "new" set as canceled
+            // and append them to the "new" set.
+            val canceledSessions = changes.flagCanceledSessions()
 
             return ScheduleChanges(
-                sessionsWithChangeFlags = sessionsWithChangeFlags.toList(),
-                oldCanceledSessions = oldCanceledSessions,
-                foundNoteworthyChanges = foundNoteworthyChanges,
-                foundChanges = foundChanges,
+                sessionsWithChangeFlags = sessionsWithChangeFlags + canceledSessions,
+                oldCanceledSessions = changes.oldCanceledSessions,
+                foundNoteworthyChanges = changes.foundNoteworthyChanges,
+                foundChanges = changes.foundChanges,
             )
         }
 
-        private data class SessionChange(
-                var changedTitle: Boolean = false,
-                var changedSubtitle: Boolean = false,
-                var changedSpeakers: Boolean = false,
-                var changedLanguage: Boolean = false,
-                var changedRoom: Boolean = false,
-                var changedDayIndex: Boolean = false,
-                var changedTrack: Boolean = false,
-                var changedRecordingOptOut: Boolean = false,
-                var changedStartTime: Boolean = false,
-                var changedDuration: Boolean = false
-        )
-
-        private fun SessionAppModel.equalsInNoteworthyProperties(session: SessionAppModel): Boolean {
-            return title == session.title &&
-                    subtitle == session.subtitle &&
-                    speakers == session.speakers &&
-                    language == session.language &&
-                    roomName == session.roomName &&
-                    track == session.track &&
-                    recordingOptOut == session.recordingOptOut &&
-                    dayIndex == session.dayIndex &&
-                    startTime == session.startTime &&
-                    duration == session.duration
+        /**
+         * Returns a new list of the given [newSessions] each carrying the change flags of its
+         * equivalent from the [oldSessions] list. Sessions without an equivalent are returned
+         * as they are. Meant for parsing the same schedule document again, e.g. after a parser
+         * upgrade, where previously detected changes must be retained and no new ones reported.
+         *
+         * This function does not modify the given lists nor any of its elements.
+         */
+        fun carryOverChangeFlags(
+
+                newSessions: List<SessionAppModel>,
+                oldSessions: List<SessionAppModel>
+
+        ): List<SessionAppModel> {
+            val oldSessionsById = oldSessions.associateBy { it.sessionId }
+            return newSessions.map { newSession ->
+                carryOverChangeFlags(newSession, oldSessionsById[newSession.sessionId])
+            }
         }
 
         /**
-         * Intentionally omit volatile properties such as [SessionAppModel.hasAlarm],
-         * [SessionAppModel.highlight] which are only relevant for the UI layer.
-         * Also omit change flags such as [SessionAppModel.changedIsNew].
-         *
-         * Once [SessionAppModel] is converted into a Kotlin data class and its properties
-         * are separated this function can be replaced by an equals comparison.
+         * Returns the given [newSession] carrying the change flags of the given [oldSession].
+         * The session is returned as it is if there is no [oldSession].
          */
-        private fun SessionAppModel.equalsContentWise(session: SessionAppModel): Boolean {
-            return equalsInNoteworthyProperties(session) &&
-                    url == session.url &&
-                    dateText == session.dateText &&
-                    dateUTC == session.dateUTC &&
-                    timeZoneOffset == session.timeZoneOffset &&
-                    relStartTime == session.relStartTime &&
-                    type == session.type &&
-                    slug == session.slug &&
-                    abstractt == session.abstractt &&
-                    description == session.description &&
-                    links == session.links &&
-                    recordingLicense == session.recordingLicense
+        fun carryOverChangeFlags(
+
+                newSession: SessionAppModel,
+                oldSession: SessionAppModel?
+
+        ): SessionAppModel {
+            oldSession ?: return newSession
+            return newSession.copy(
+                    changedTitle = oldSession.changedTitle,
+                    changedSubtitle = oldSession.changedSubtitle,
+                    changedRoomName = oldSession.changedRoomName,
+                    changedDayIndex = oldSession.changedDayIndex,
+                    changedStartTime = oldSession.changedStartTime,
+                    changedDuration = oldSession.changedDuration,
+                    changedSpeakers = oldSession.changedSpeakers,
+                    changedLanguage = oldSession.changedLanguage,
+                    changedRecordingOptOut = oldSession.changedRecordingOptOut,
+                    changedTrack = oldSession.changedTrack,
+                    changedIsNew = oldSession.changedIsNew,
+                    changedIsCanceled = oldSession.changedIsCanceled,
+            )
         }
 
     }
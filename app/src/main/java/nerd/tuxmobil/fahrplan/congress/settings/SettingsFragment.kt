@@ -61,6 +61,10 @@ class SettingsFragment : PreferenceFragmentCompat() {
             }
             true
         }
+        requirePreference<SwitchPreferenceCompat>(resources.getString(R.string.preference_key_canvas_session_cells_enabled)).onPreferenceChangeListener = OnPreferenceChangeListener { _: Preference?, _: Any? ->
+            requestRedraw(BundleKeys.CANVAS_SESSION_CELLS_UPDATED)
+            true
+        }
         if (!BuildConfig.DEBUG) {
             screen.removePreference(developmentCategory)
         }
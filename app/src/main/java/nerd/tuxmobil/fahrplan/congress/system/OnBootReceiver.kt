@@ -6,7 +6,7 @@ import android.content.Intent
 import info.metadude.android.eventfahrplan.commons.logging.Logging
 import info.metadude.android.eventfahrplan.commons.temporal.Moment
 import nerd.tuxmobil.fahrplan.congress.alarms.AlarmServices
-import nerd.tuxmobil.fahrplan.congress.autoupdate.UpdateService
+import nerd.tuxmobil.fahrplan.congress.autoupdate.UpdateWorker
 import nerd.tuxmobil.fahrplan.congress.dataconverters.toSchedulableAlarm
 import nerd.tuxmobil.fahrplan.congress.repositories.AppRepository
 import nerd.tuxmobil.fahrplan.congress.utils.FahrplanMisc
@@ -50,7 +50,7 @@ class OnBootReceiver : BroadcastReceiver() {
             logging.d(LOG_TAG, "now: $nowMillis, lastFetchedAt: $lastFetchedAt")
 
             if (interval > 0 && nowMillis - lastFetchedAt >= interval) {
-                UpdateService.start(context)
+                UpdateWorker.start(context)
             }
         }
     }
@@ -0,0 +1,98 @@
+package nerd.tuxmobil.fahrplan.congress.alarms
+
+import com.google.common.truth.Truth.assertThat
+import nerd.tuxmobil.fahrplan.congress.alarms.RefreshOutcome.CHANGED
+import nerd.tuxmobil.fahrplan.congress.alarms.RefreshOutcome.NOT_MODIFIED
+import nerd.tuxmobil.fahrplan.congress.alarms.RefreshOutcome.UNCHANGED
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+
+class AdaptiveRefreshIntervalTest {
+
+    private companion object {
+        const val DEFAULT_INTERVAL = 1_000L
+        const val MIN_INTERVAL = 400L
+        const val MAX_INTERVAL = 2_000L
+    }
+
+    private val adaptiveRefreshInterval = AdaptiveRefreshInterval(
+        defaultIntervalMillis = DEFAULT_INTERVAL,
+        minIntervalMillis = MIN_INTERVAL,
+        maxIntervalMillis = MAX_INTERVAL,
+        stretchAfter = 2,
+        historySize = 3
+    )
+
+    @Test
+    fun `intervalOf returns the default interval if no interval has been adapted so far`() {
+        assertThat(adaptiveRefreshInterval.intervalOf(AdaptiveRefreshState())).isEqualTo(DEFAULT_INTERVAL)
+    }
+
+    @Test
+    fun `intervalOf keeps the interval within its bounds`() {
+        assertThat(adaptiveRefreshInterval.intervalOf(AdaptiveRefreshState(intervalMillis = 1))).isEqualTo(MIN_INTERVAL)
+        assertThat(adaptiveRefreshInterval.intervalOf(AdaptiveRefreshState(intervalMillis = 9_000))).isEqualTo(MAX_INTERVAL)
+    }
+
+    @Test
+    fun `record halves the interval once the schedule changed`() {
+        val state = adaptiveRefreshInterval.record(AdaptiveRefreshState(), CHANGED)
+        assertThat(state).isEqualTo(AdaptiveRefreshState(500, listOf(CHANGED)))
+    }
+
+    @Test
+    fun `record does not shrink the interval below its lower bound`() {
+        val state = adaptiveRefreshInterval.record(AdaptiveRefreshState(500, listOf(CHANGED)), CHANGED)
+        assertThat(state.intervalMillis).isEqualTo(MIN_INTERVAL)
+    }
+
+    @Test
+    fun `record keeps the interval after a single refresh without changes`() {
+        val state = adaptiveRefreshInterval.record(AdaptiveRefreshState(), NOT_MODIFIED)
+        assertThat(state).isEqualTo(AdaptiveRefreshState(DEFAULT_INTERVAL, listOf(NOT_MODIFIED)))
+    }
+
+    @Test
+    fun `record stretches the interval once enough refreshes in a row found no changes`() {
+        val state = adaptiveRefreshInterval.record(AdaptiveRefreshState(DEFAULT_INTERVAL, listOf(NOT_MODIFIED)), UNCHANGED)
+        assertThat(state.intervalMillis).isEqualTo(1_500)
+    }
+
+    @Test
+    fun `record does not stretch the interval if a recent refresh found changes`() {
+        val state = adaptiveRefreshInterval.record(AdaptiveRefreshState(DEFAULT_INTERVAL, listOf(CHANGED)), UNCHANGED)
+        assertThat(state.intervalMillis).isEqualTo(DEFAULT_INTERVAL)
+    }
+
+    @Test
+    fun `record does not stretch the interval beyond its upper bound`() {
+        val state = adaptiveRefreshInterval.record(AdaptiveRefreshState(1_500, listOf(UNCHANGED)), UNCHANGED)
+        assertThat(state.intervalMillis).isEqualTo(MAX_INTERVAL)
+    }
+
+    @Test
+    fun `record retains the most recent outcomes only`() {
+        val state = adaptiveRefreshInterval.record(AdaptiveRefreshState(DEFAULT_INTERVAL, listOf(CHANGED, UNCHANGED, NOT_MODIFIED)), CHANGED)
+        assertThat(state.outcomes).containsExactly(UNCHANGED, NOT_MODIFIED, CHANGED).inOrder()
+    }
+
+    @Test
+    fun `init fails for invalid bounds`() {
+        assertThrows<IllegalArgumentException> {
+            AdaptiveRefreshInterval(minIntervalMillis = 2, maxIntervalMillis = 1)
+        }
+    }
+
+    @Test
+    fun `encode and decode round trip the outcomes`() {
+        val outcomes = listOf(NOT_MODIFIED, UNCHANGED, CHANGED)
+        assertThat(RefreshOutcome.encode(outcomes)).isEqualTo("NUC")
+        assertThat(RefreshOutcome.decode("NUC")).isEqualTo(outcomes)
+    }
+
+    @Test
+    fun `decode skips unknown outcomes`() {
+        assertThat(RefreshOutcome.decode("NXC")).containsExactly(NOT_MODIFIED, CHANGED).inOrder()
+    }
+
+}
@@ -30,6 +30,7 @@ class AlarmUpdaterTest {
         val NEVER_USED_MOMENT: Moment = Moment.ofEpochMilli(NEVER_USED)
 
         const val THREE_SECONDS = 3 * Moment.MILLISECONDS_OF_ONE_SECOND
+        const val ONE_HOUR = Moment.MILLISECONDS_OF_ONE_HOUR
         const val TWO_HOURS = 2 * Moment.MILLISECONDS_OF_ONE_HOUR
         const val ONE_DAY = Moment.MILLISECONDS_OF_ONE_DAY
 
@@ -119,6 +120,25 @@ class AlarmUpdaterTest {
         verifyInvokedOnce(mockListener).onScheduleUpdateAlarm(TWO_HOURS, expectedNextFetch)
     }
 
+    @Test
+    fun `calculateInterval with time of first day initial schedules alarm with adapted interval`() {
+        whenever(sharedPreferencesRepository.getAdaptiveScheduleRefreshInterval()).doReturn(ONE_HOUR)
+        // 2015-12-27T11:30:00+0100, in milliseconds: 1451212200000
+        val interval = alarmUpdater.calculateInterval(Moment.ofEpochMilli(1451212200000L), true)
+        assertThat(interval).isEqualTo(ONE_HOUR)
+        verifyInvokedOnce(mockListener).onCancelUpdateAlarm()
+        val expectedNextFetch = Moment.ofEpochMilli(1451212200000L).plusMilliseconds(ONE_HOUR)
+        verifyInvokedOnce(mockListener).onScheduleUpdateAlarm(ONE_HOUR, expectedNextFetch)
+    }
+
+    @Test
+    fun `calculateInterval with time of first day keeps the adapted interval within its bounds`() {
+        whenever(sharedPreferencesRepository.getAdaptiveScheduleRefreshInterval()).doReturn(THREE_SECONDS.toLong())
+        // 2015-12-27T11:30:00+0100, in milliseconds: 1451212200000
+        val interval = alarmUpdater.calculateInterval(Moment.ofEpochMilli(1451212200000L), false)
+        assertThat(interval).isEqualTo(AdaptiveRefreshInterval.MIN_INTERVAL_MILLIS)
+    }
+
     // Time == End
 
     @Test
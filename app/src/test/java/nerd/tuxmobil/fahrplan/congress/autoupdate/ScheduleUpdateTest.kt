@@ -0,0 +1,110 @@
+package nerd.tuxmobil.fahrplan.congress.autoupdate
+
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.test.runTest
+import nerd.tuxmobil.fahrplan.congress.autoupdate.UpdateMetrics.Outcome
+import nerd.tuxmobil.fahrplan.congress.net.FetchScheduleResult
+import nerd.tuxmobil.fahrplan.congress.net.HttpStatus
+import nerd.tuxmobil.fahrplan.congress.net.LoadShiftsResult
+import nerd.tuxmobil.fahrplan.congress.net.ParseScheduleResult
+import org.junit.jupiter.api.Test
+
+class ScheduleUpdateTest {
+
+    private companion object {
+        const val TIMEOUT_MILLIS = 1_000L
+        val FETCH_OK = FetchScheduleResult(httpStatus = HttpStatus.HTTP_OK, hostName = "example.com")
+        val FETCH_NOT_MODIFIED = FetchScheduleResult(httpStatus = HttpStatus.HTTP_NOT_MODIFIED, hostName = "example.com")
+        val FETCH_NOT_FOUND = FetchScheduleResult(httpStatus = HttpStatus.HTTP_NOT_FOUND, hostName = "example.com")
+    }
+
+    @Test
+    fun `awaitScheduleUpdate returns UPDATED once the schedule has been parsed`() = runTest {
+        val parseResult = ParseScheduleResult(isSuccess = true, version = "1.0")
+        val result = awaitScheduleUpdate(TIMEOUT_MILLIS) { listener ->
+            listener.onFetchingDone(FETCH_OK)
+            listener.onParsingDone(parseResult)
+            listener.onLoadingShiftsDone(LoadShiftsResult.Success)
+            listener.onLoadingDone()
+        }
+        assertThat(result).isEqualTo(ScheduleUpdateResult(Outcome.UPDATED, parseResult))
+    }
+
+    @Test
+    fun `awaitScheduleUpdate returns PARSE_FAILED if the schedule cannot be parsed`() = runTest {
+        val parseResult = ParseScheduleResult(isSuccess = false, version = "")
+        val result = awaitScheduleUpdate(TIMEOUT_MILLIS) { listener ->
+            listener.onFetchingDone(FETCH_OK)
+            listener.onParsingDone(parseResult)
+            listener.onLoadingDone()
+        }
+        assertThat(result).isEqualTo(ScheduleUpdateResult(Outcome.PARSE_FAILED, parseResult))
+    }
+
+    @Test
+    fun `awaitScheduleUpdate returns NOT_MODIFIED if the schedule has not been modified`() = runTest {
+        val result = awaitScheduleUpdate(TIMEOUT_MILLIS) { listener ->
+            listener.onFetchingDone(FETCH_NOT_MODIFIED)
+            listener.onLoadingDone()
+        }
+        assertThat(result).isEqualTo(ScheduleUpdateResult(Outcome.NOT_MODIFIED))
+    }
+
+    @Test
+    fun `awaitScheduleUpdate returns FETCH_FAILED if the schedule cannot be fetched`() = runTest {
+        val result = awaitScheduleUpdate(TIMEOUT_MILLIS) { listener ->
+            listener.onFetchingDone(FETCH_NOT_FOUND)
+            listener.onLoadingDone()
+        }
+        assertThat(result).isEqualTo(ScheduleUpdateResult(Outcome.FETCH_FAILED))
+    }
+
+    @Test
+    fun `awaitScheduleUpdate returns TIMED_OUT if the load does not finish in time`() = runTest {
+        val result = awaitScheduleUpdate(TIMEOUT_MILLIS) { listener ->
+            listener.onFetchingDone(FETCH_OK)
+        }
+        assertThat(result).isEqualTo(ScheduleUpdateResult(Outcome.TIMED_OUT))
+    }
+
+    @Test
+    fun `awaitScheduleUpdate ignores a load finishing after the timeout`() = runTest {
+        lateinit var onLoadingDone: () -> Unit
+        val result = awaitScheduleUpdate(TIMEOUT_MILLIS) { listener ->
+            onLoadingDone = listener.onLoadingDone
+        }
+        onLoadingDone()
+        assertThat(result.outcome).isEqualTo(Outcome.TIMED_OUT)
+    }
+
+    @Test
+    fun `UpdateMetrics counts the outcomes and the average duration`() {
+        val metrics = UpdateMetrics()
+            .plus(Outcome.UPDATED, durationMillis = 100)
+            .plus(Outcome.TIMED_OUT, durationMillis = 300)
+        assertThat(metrics.runs()).isEqualTo(2)
+        assertThat(metrics.outcomes(Outcome.UPDATED)).isEqualTo(1)
+        assertThat(metrics.outcomes(Outcome.TIMED_OUT)).isEqualTo(1)
+        assertThat(metrics.outcomes(Outcome.FETCH_FAILED)).isEqualTo(0)
+        assertThat(metrics.averageDurationMillis()).isEqualTo(200)
+    }
+
+    @Test
+    fun `UpdateMetrics are decoded as they have been encoded`() {
+        val metrics = UpdateMetrics()
+            .plus(Outcome.NOT_MODIFIED, durationMillis = 100)
+            .plus(Outcome.NOT_MODIFIED, durationMillis = 200)
+            .plus(Outcome.PARSE_FAILED, durationMillis = 300)
+        assertThat(UpdateMetrics.decode(UpdateMetrics.encode(metrics))).isEqualTo(metrics)
+    }
+
+    @Test
+    fun `UpdateMetrics decode resets malformed metrics and skips unknown outcomes`() {
+        assertThat(UpdateMetrics.decode("")).isEqualTo(UpdateMetrics())
+        assertThat(UpdateMetrics.decode("UPDATED=1")).isEqualTo(UpdateMetrics())
+        val metrics = UpdateMetrics.decode("400;UPDATED=2;GONE=7;TIMED_OUT=x")
+        assertThat(metrics.runs()).isEqualTo(2)
+        assertThat(metrics.averageDurationMillis()).isEqualTo(200)
+    }
+
+}
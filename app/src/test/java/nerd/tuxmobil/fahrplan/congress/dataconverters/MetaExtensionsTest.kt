@@ -18,6 +18,7 @@ class MetaExtensionsTest {
                 lastModified = "2019-12-31T23:59:59+01:00",
             ),
             numDays = 23,
+            parserVersion = 2,
             subtitle = "My subtitle",
             timeZoneId = ZoneId.of("Europe/Berlin"),
             title = "My title",
@@ -30,6 +31,7 @@ class MetaExtensionsTest {
                 lastModified = "2019-12-31T23:59:59+01:00",
             ),
             numDays = 23,
+            parserVersion = 2,
             subtitle = "My subtitle",
             timeZoneName = "Europe/Berlin",
             title = "My title",
@@ -42,6 +44,7 @@ class MetaExtensionsTest {
                 lastModified = "2019-12-31T23:59:59+01:00",
             ),
             numDays = 23,
+            parserVersion = 2,
             subtitle = "My subtitle",
             timeZoneName = "Europe/Berlin",
             title = "My title",
@@ -53,6 +53,15 @@ class SessionExtensionsTest {
         assertThat(shiftedSession).isSameInstanceAs(session)
     }
 
+    @Test
+    fun `shiftRoomIndexOnDays shifts the room index of a network session in place if the day index is contained in the given set`() {
+        val session = SessionNetworkModel(dayIndex = 3, roomIndex = 17)
+        session.shiftRoomIndexOnDays(setOf(3))
+        assertThat(session.roomIndex).isEqualTo(18)
+        session.shiftRoomIndexOnDays(setOf(1, 2))
+        assertThat(session.roomIndex).isEqualTo(18)
+    }
+
     @Test
     fun `toSessionDatabaseModel returns a database session derived from an app session`() {
         val session = SessionDatabaseModel(
@@ -189,6 +198,73 @@ class SessionExtensionsTest {
         assertThat(sessionNetworkModel.toSessionAppModel()).isEqualTo(sessionAppModel)
     }
 
+    @Test
+    fun `toSessionDatabaseModel returns a database session derived from a network session and the flags of an app session`() {
+        val sessionNetworkModel = SessionNetworkModel(
+                sessionId = "7331",
+                abstractt = "Lorem ipsum",
+                dayIndex = 3,
+                date = "2015-08-13",
+                dateUTC = 1439478900000L,
+                description = "Lorem ipsum dolor sit amet",
+                duration = 45,
+                feedbackUrl = "https://talks.mrmcd.net/2018/talk/V3FUNG/feedback",
+                language = "en",
+                links = "[Website](https://www.example.com/path)",
+                relativeStartTime = 1035,
+                recordingLicense = "CC 0",
+                recordingOptOut = RECORDING_OPT_OUT_ON,
+                roomName = "Simulacron-3",
+                roomGuid = "88888888-4444-4444-4444-121212121212",
+                roomIndex = 17,
+                speakers = "John Doe;Noah Doe",
+                startTime = 1036,
+                slug = "lorem",
+                subtitle = "My subtitle",
+                timeZoneOffset = 3600,
+                title = "My title",
+                track = "Security & Hacking",
+                type = "tutorial",
+                url = "https://talks.mrmcd.net/2018/talk/V3FUNG",
+                changedTitle = true
+        )
+        val flaggedSession = sessionNetworkModel.toSessionAppModel().copy(
+            changedTitle = false,
+            changedIsNew = true,
+            changedStartTime = true,
+        )
+        val sessionDatabaseModel = SessionDatabaseModel(
+                sessionId = "7331",
+                abstractt = "Lorem ipsum",
+                dayIndex = 3,
+                date = "2015-08-13",
+                dateUTC = 1439478900000L,
+                description = "Lorem ipsum dolor sit amet",
+                duration = 45,
+                feedbackUrl = "https://talks.mrmcd.net/2018/talk/V3FUNG/feedback",
+                language = "en",
+                links = "[Website](https://www.example.com/path)",
+                relativeStartTime = 1035,
+                recordingLicense = "CC 0",
+                recordingOptOut = RECORDING_OPT_OUT_ON,
+                roomName = "Simulacron-3",
+                roomIdentifier = "88888888-4444-4444-4444-121212121212",
+                roomIndex = 17,
+                speakers = "John Doe;Noah Doe",
+                startTime = 1036,
+                slug = "lorem",
+                subtitle = "My subtitle",
+                timeZoneOffset = 3600,
+                title = "My title",
+                track = "Security & Hacking",
+                type = "tutorial",
+                url = "https://talks.mrmcd.net/2018/talk/V3FUNG",
+                changedIsNew = true,
+                changedTime = true
+        )
+        assertThat(sessionNetworkModel.toSessionDatabaseModel(flaggedSession)).isEqualTo(sessionDatabaseModel)
+    }
+
     @Test
     fun `toDateInfo returns a DateInfo object derived from a session`() {
         val session = Session(
@@ -388,4 +464,27 @@ class SessionExtensionsTest {
         assertThat(session).isEqualTo(expected)
     }
 
+    @Test
+    fun `sanitize modifies a network session in place like an app session`() {
+        val session = SessionNetworkModel(
+            sessionId = "",
+            title = "",
+            subtitle = "Luke Skywalker",
+            abstractt = "Lorem ipsum",
+            description = "",
+            language = "EN",
+            track = "",
+            type = "Workshop",
+        )
+        val expected = session.toSessionAppModel().sanitize()
+        session.sanitize()
+        assertThat(session.title).isEqualTo("Luke Skywalker")
+        assertThat(session.subtitle).isEmpty()
+        assertThat(session.abstractt).isEmpty()
+        assertThat(session.description).isEqualTo("Lorem ipsum")
+        assertThat(session.language).isEqualTo("en")
+        assertThat(session.track).isEqualTo("Workshop")
+        assertThat(session.toSessionAppModel()).isEqualTo(expected)
+    }
+
 }
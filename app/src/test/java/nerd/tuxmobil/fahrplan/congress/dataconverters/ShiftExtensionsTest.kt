@@ -2,9 +2,9 @@ package nerd.tuxmobil.fahrplan.congress.dataconverters
 
 import com.google.common.truth.Truth.assertThat
 import info.metadude.android.eventfahrplan.commons.temporal.DayRange
+import info.metadude.android.eventfahrplan.commons.temporal.DayRangeIndex
 import info.metadude.android.eventfahrplan.commons.temporal.Moment
 import info.metadude.kotlin.library.engelsystem.models.Shift
-import nerd.tuxmobil.fahrplan.congress.NoLogging
 import org.junit.jupiter.api.Test
 import org.threeten.bp.ZoneOffset
 import org.threeten.bp.ZonedDateTime
@@ -21,7 +21,7 @@ class ShiftExtensionsTest {
         val shiftEnd = shiftStart.plusSeconds(59)
         val shift = Shift(startsAtDate = shiftStart, endsAtDate = shiftEnd)
 
-        assertThat(shift.oneBasedDayIndex(NoLogging, dayRanges)).isEqualTo(1)
+        assertThat(shift.oneBasedDayIndex(DayRangeIndex(dayRanges))).isEqualTo(1)
     }
 
     @Test
@@ -35,7 +35,7 @@ class ShiftExtensionsTest {
         val shiftEnd = shiftStart.plusSeconds(59)
         val shift = Shift(startsAtDate = shiftStart, endsAtDate = shiftEnd)
 
-        assertThat(shift.oneBasedDayIndex(NoLogging, dayRanges)).isEqualTo(2)
+        assertThat(shift.oneBasedDayIndex(DayRangeIndex(dayRanges))).isEqualTo(2)
     }
 
     @Test
@@ -84,7 +84,7 @@ class ShiftExtensionsTest {
                 timeZoneOffset = ZoneOffset.ofHours(2) // for whatever reason someone sets timeZoneOffset different than startsAtDate's offset
         )
         val dayRange = DayRange(day)
-        val session = shift.toSessionAppModel(NoLogging, "", listOf(dayRange))
+        val session = shift.toSessionAppModel("", DayRangeIndex(listOf(dayRange)))
         assertThat(session.startTime).isEqualTo(0) // nevertheless, we still expect sessions time data to be based on UTC
         assertThat(session.relStartTime).isEqualTo(0)
     }
@@ -96,7 +96,7 @@ class ShiftExtensionsTest {
         val endsAtDate = ZonedDateTime.of(2019, 8, 25, 12, 30, 13, 0, ZoneOffset.UTC)
         val dayRange = DayRange(day)
         val shift = Shift(startsAtDate = startsAtDate, endsAtDate = endsAtDate)
-        assertThat(shift.toSessionAppModel(NoLogging, "", listOf(dayRange)).duration).isEqualTo(30)
+        assertThat(shift.toSessionAppModel("", DayRangeIndex(listOf(dayRange))).duration).isEqualTo(30)
     }
 
 }
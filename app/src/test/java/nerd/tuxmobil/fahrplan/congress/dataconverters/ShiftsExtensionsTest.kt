@@ -2,6 +2,7 @@ package nerd.tuxmobil.fahrplan.congress.dataconverters
 
 import com.google.common.truth.Truth.assertThat
 import info.metadude.android.eventfahrplan.commons.temporal.DayRange
+import info.metadude.android.eventfahrplan.commons.temporal.DayRangeIndex
 import info.metadude.android.eventfahrplan.commons.temporal.Moment
 import info.metadude.kotlin.library.engelsystem.models.Shift
 import org.junit.jupiter.api.BeforeEach
@@ -25,31 +26,31 @@ class ShiftsExtensionsTest {
 
     @Test
     fun `cropToDayRangesExtent returns empty list if no shifts are present`() {
-        assertThat(emptyList<Shift>().cropToDayRangesExtent(dayRanges)).isEmpty()
+        assertThat(emptyList<Shift>().cropToDayRangesExtent(DayRangeIndex(dayRanges))).isEmpty()
     }
 
     @Test
     fun `cropToDayRangesExtent returns the shift if the shift start matches the day range start`() {
         val shift = Shift(startsAtDate = startsAt)
-        assertThat(listOf(shift).cropToDayRangesExtent(dayRanges)).hasSize(1)
+        assertThat(listOf(shift).cropToDayRangesExtent(DayRangeIndex(dayRanges))).hasSize(1)
     }
 
     @Test
     fun `cropToDayRangesExtent returns empty list if the shift starts before day range start`() {
         val shift = Shift(startsAtDate = startsAt.minusSeconds(1))
-        assertThat(listOf(shift).cropToDayRangesExtent(dayRanges)).isEmpty()
+        assertThat(listOf(shift).cropToDayRangesExtent(DayRangeIndex(dayRanges))).isEmpty()
     }
 
     @Test
     fun `cropToDayRangesExtent returns the shift if the shift start matches the day range end`() {
         val shift = Shift(startsAtDate = endsAt)
-        assertThat(listOf(shift).cropToDayRangesExtent(dayRanges)).hasSize(1)
+        assertThat(listOf(shift).cropToDayRangesExtent(DayRangeIndex(dayRanges))).hasSize(1)
     }
 
     @Test
     fun `cropToDayRangesExtent returns empty list if the shift starts after the day range end`() {
         val shift = Shift(startsAtDate = endsAt.plusSeconds(1))
-        assertThat(listOf(shift).cropToDayRangesExtent(dayRanges)).isEmpty()
+        assertThat(listOf(shift).cropToDayRangesExtent(DayRangeIndex(dayRanges))).isEmpty()
     }
 
 }
@@ -0,0 +1,66 @@
+package nerd.tuxmobil.fahrplan.congress.net
+
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.test.runTest
+import org.junit.jupiter.api.Test
+
+class ConnectivityFlowTest {
+
+    private companion object {
+        const val TIMEOUT_MILLIS = 1_000L
+    }
+
+    @Test
+    fun `settledReconnects emits once for a burst of available networks`() = runTest {
+        val connectivity = flow {
+            emit(true)
+            delay(100)
+            emit(false)
+            delay(100)
+            emit(true)
+            delay(100)
+            emit(true)
+        }
+
+        assertThat(connectivity.settledReconnects(TIMEOUT_MILLIS).toList()).hasSize(1)
+    }
+
+    @Test
+    fun `settledReconnects does not emit while connectivity remains available`() = runTest {
+        val connectivity = flow {
+            emit(true)
+            delay(TIMEOUT_MILLIS * 2)
+            emit(true)
+        }
+
+        assertThat(connectivity.settledReconnects(TIMEOUT_MILLIS).toList()).hasSize(1)
+    }
+
+    @Test
+    fun `settledReconnects emits again once connectivity has been lost for a while`() = runTest {
+        val connectivity = flow {
+            emit(true)
+            delay(TIMEOUT_MILLIS * 2)
+            emit(false)
+            delay(TIMEOUT_MILLIS * 2)
+            emit(true)
+        }
+
+        assertThat(connectivity.settledReconnects(TIMEOUT_MILLIS).toList()).hasSize(2)
+    }
+
+    @Test
+    fun `settledReconnects does not emit if connectivity settled on being lost`() = runTest {
+        val connectivity = flow {
+            emit(true)
+            delay(100)
+            emit(false)
+        }
+
+        assertThat(connectivity.settledReconnects(TIMEOUT_MILLIS).toList()).isEmpty()
+    }
+
+}
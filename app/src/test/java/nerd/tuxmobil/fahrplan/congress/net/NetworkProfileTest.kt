@@ -0,0 +1,56 @@
+package nerd.tuxmobil.fahrplan.congress.net
+
+import com.google.common.truth.Truth.assertThat
+import okhttp3.OkHttpClient
+import org.junit.jupiter.api.Test
+
+class NetworkProfileTest {
+
+    @Test
+    fun `of returns the profile matching the name regardless of its case`() {
+        assertThat(NetworkProfile.of("event")).isEqualTo(NetworkProfile.EVENT)
+        assertThat(NetworkProfile.of("DEFAULT")).isEqualTo(NetworkProfile.DEFAULT)
+    }
+
+    @Test
+    fun `of returns the default profile for an unknown name`() {
+        assertThat(NetworkProfile.of("")).isEqualTo(NetworkProfile.DEFAULT)
+        assertThat(NetworkProfile.of("turbo")).isEqualTo(NetworkProfile.DEFAULT)
+    }
+
+    @Test
+    fun `applyTo configures the timeouts and limits of the client`() {
+        val profile = NetworkProfile.EVENT
+        val clientBuilder = OkHttpClient.Builder()
+
+        profile.applyTo(clientBuilder)
+        val client = clientBuilder.build()
+
+        assertThat(client.connectTimeoutMillis).isEqualTo(profile.connectTimeoutSeconds.toInt() * 1_000)
+        assertThat(client.readTimeoutMillis).isEqualTo(profile.readTimeoutSeconds.toInt() * 1_000)
+        assertThat(client.writeTimeoutMillis).isEqualTo(profile.writeTimeoutSeconds.toInt() * 1_000)
+        assertThat(client.dispatcher.maxRequestsPerHost).isEqualTo(profile.maxRequestsPerHost)
+    }
+
+    @Test
+    fun `retryPolicy leaves room for whole attempts within the time budget`() {
+        NetworkProfile.values().forEach { profile ->
+            val attemptMillis = (profile.connectTimeoutSeconds + profile.readTimeoutSeconds) * 1_000
+
+            assertThat(profile.retryPolicy().totalBudgetMillis).isAtLeast(2 * attemptMillis)
+        }
+    }
+
+    @Test
+    fun `derived clients share the connection pool and the dispatcher`() {
+        val clientBuilder = OkHttpClient.Builder()
+        NetworkProfile.EVENT.applyTo(clientBuilder)
+        val client = clientBuilder.build()
+
+        val derivedClient = client.newBuilder().build()
+
+        assertThat(derivedClient.connectionPool).isSameInstanceAs(client.connectionPool)
+        assertThat(derivedClient.dispatcher).isSameInstanceAs(client.dispatcher)
+    }
+
+}
@@ -0,0 +1,242 @@
+package nerd.tuxmobil.fahrplan.congress.net
+
+import com.google.common.truth.Truth.assertThat
+import nerd.tuxmobil.fahrplan.congress.NoLogging
+import nerd.tuxmobil.fahrplan.congress.net.RetryMetrics.Outcome
+import okhttp3.Call
+import okhttp3.Connection
+import okhttp3.Interceptor.Chain
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.RequestBody.Companion.toRequestBody
+import okhttp3.Response
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+import java.io.IOException
+import java.net.SocketTimeoutException
+import java.util.concurrent.TimeUnit
+import javax.net.ssl.SSLHandshakeException
+import kotlin.random.Random
+
+class RetryInterceptorTest {
+
+    private companion object {
+        const val HOST = "example.com"
+    }
+
+    private var now = 0L
+    private val delays = mutableListOf<Long>()
+    private val metrics = RetryMetrics()
+
+    @Test
+    fun `intercept retries temporary failures and returns the first successful response`() {
+        val chain = FakeChain(SocketTimeoutException(), 503, 200)
+
+        val response = createInterceptor().intercept(chain)
+
+        assertThat(response.code).isEqualTo(200)
+        assertThat(chain.attempts).isEqualTo(3)
+        assertThat(delays).hasSize(2)
+        assertThat(metrics.attempts(HOST)).isEqualTo(3)
+        assertThat(metrics.outcomes(HOST, Outcome.RECOVERED)).isEqualTo(1)
+    }
+
+    @Test
+    fun `intercept waits for at most the exponentially growing backoff`() {
+        val policy = RetryPolicy(maxAttempts = 4, initialBackoffMillis = 100, maxBackoffMillis = 300)
+        val chain = FakeChain(IOException(), IOException(), IOException(), 200)
+
+        createInterceptor(policy, MaxRandom).intercept(chain)
+
+        assertThat(delays).containsExactly(100L, 200L, 300L).inOrder()
+    }
+
+    @Test
+    fun `intercept returns the last response once all attempts failed`() {
+        val chain = FakeChain(500, 500, 500)
+
+        val response = createInterceptor(RetryPolicy(maxAttempts = 3)).intercept(chain)
+
+        assertThat(response.code).isEqualTo(500)
+        assertThat(chain.attempts).isEqualTo(3)
+        assertThat(metrics.outcomes(HOST, Outcome.FAILED)).isEqualTo(1)
+    }
+
+    @Test
+    fun `intercept does not retry client errors`() {
+        val chain = FakeChain(404)
+
+        val response = createInterceptor().intercept(chain)
+
+        assertThat(response.code).isEqualTo(404)
+        assertThat(chain.attempts).isEqualTo(1)
+        assertThat(metrics.outcomes(HOST, Outcome.COMPLETED)).isEqualTo(1)
+    }
+
+    @Test
+    fun `intercept does not retry certificate errors`() {
+        val chain = FakeChain(SSLHandshakeException("untrusted"), 200)
+
+        assertThrows<SSLHandshakeException> { createInterceptor().intercept(chain) }
+        assertThat(chain.attempts).isEqualTo(1)
+        assertThat(metrics.outcomes(HOST, Outcome.FAILED)).isEqualTo(1)
+    }
+
+    @Test
+    fun `intercept gives up once the next attempt would exceed the time budget`() {
+        val policy = RetryPolicy(initialBackoffMillis = 1_000, maxBackoffMillis = 1_000, totalBudgetMillis = 2_500)
+        val chain = FakeChain(IOException(), IOException(), IOException(), 200)
+
+        assertThrows<IOException> { createInterceptor(policy, MaxRandom).intercept(chain) }
+        assertThat(chain.attempts).isEqualTo(3)
+        assertThat(metrics.outcomes(HOST, Outcome.BUDGET_EXHAUSTED)).isEqualTo(1)
+    }
+
+    @Test
+    fun `intercept bounds the timeouts of an attempt by the remaining time budget`() {
+        val chain = FakeChain(200)
+
+        createInterceptor(RetryPolicy(totalBudgetMillis = 5_000)).intercept(chain)
+
+        assertThat(chain.connectTimeoutMillis()).isEqualTo(5_000)
+        assertThat(chain.readTimeoutMillis()).isEqualTo(5_000)
+    }
+
+    @Test
+    fun `intercept rejects requests while the circuit of the host is open`() {
+        val policy = RetryPolicy(maxAttempts = 2, circuitFailureThreshold = 2, circuitOpenMillis = 60_000)
+        val interceptor = createInterceptor(policy)
+        assertThrows<IOException> { interceptor.intercept(FakeChain(IOException(), IOException())) }
+
+        val rejectedChain = FakeChain(200)
+        assertThrows<CircuitOpenException> { interceptor.intercept(rejectedChain) }
+        assertThat(rejectedChain.attempts).isEqualTo(0)
+        assertThat(metrics.outcomes(HOST, Outcome.CIRCUIT_OPEN)).isEqualTo(1)
+
+        now += policy.circuitOpenMillis + policy.maxBackoffMillis
+        val probingChain = FakeChain(200)
+        assertThat(interceptor.intercept(probingChain).code).isEqualTo(200)
+        assertThat(probingChain.attempts).isEqualTo(1)
+    }
+
+    @Test
+    fun `intercept neither retries nor counts a failure for the circuit once the call is canceled`() {
+        val policy = RetryPolicy(circuitFailureThreshold = 1)
+        val interceptor = createInterceptor(policy)
+        val canceledChain = FakeChain(IOException("Canceled"), isCanceled = true)
+
+        assertThrows<IOException> { interceptor.intercept(canceledChain) }
+        assertThat(canceledChain.attempts).isEqualTo(1)
+        assertThat(delays).isEmpty()
+
+        val nextChain = FakeChain(200)
+        assertThat(interceptor.intercept(nextChain).code).isEqualTo(200)
+        assertThat(nextChain.attempts).isEqualTo(1)
+    }
+
+    @Test
+    fun `intercept lets the next request probe once a probing call has been canceled`() {
+        val policy = RetryPolicy(maxAttempts = 1, circuitFailureThreshold = 1)
+        val interceptor = createInterceptor(policy)
+        assertThrows<IOException> { interceptor.intercept(FakeChain(IOException())) }
+        now += policy.circuitOpenMillis
+
+        assertThrows<IOException> { interceptor.intercept(FakeChain(IOException("Canceled"), isCanceled = true)) }
+
+        val probingChain = FakeChain(200)
+        assertThat(interceptor.intercept(probingChain).code).isEqualTo(200)
+        assertThat(probingChain.attempts).isEqualTo(1)
+    }
+
+    @Test
+    fun `intercept does not retry requests which are not idempotent`() {
+        val chain = FakeChain(503, 200, method = "POST")
+
+        val response = createInterceptor().intercept(chain)
+
+        assertThat(response.code).isEqualTo(503)
+        assertThat(chain.attempts).isEqualTo(1)
+        assertThat(metrics.attempts(HOST)).isEqualTo(0)
+    }
+
+    private fun createInterceptor(policy: RetryPolicy = RetryPolicy(), random: Random = Random(0)) = RetryInterceptor(
+        policy = policy,
+        logging = NoLogging,
+        metrics = metrics,
+        clock = { now },
+        sleep = { millis ->
+            delays += millis
+            now += millis
+        },
+        random = random,
+    )
+
+    /**
+     * Always returns the largest value allowed to reveal the upper bound of the backoff.
+     */
+    private object MaxRandom : Random() {
+        override fun nextBits(bitCount: Int) = throw UnsupportedOperationException()
+        override fun nextLong(until: Long) = until - 1
+    }
+
+    /**
+     * Responds to each attempt with the next of the given status codes or throws the next of
+     * the given exceptions.
+     */
+    private class FakeChain(vararg results: Any, method: String = "GET", isCanceled: Boolean = false) : Chain {
+
+        private val results = ArrayDeque(results.toList())
+        private val request = Request.Builder()
+            .url("https://$HOST/schedule.xml")
+            .method(method, if (method == "POST") ByteArray(0).toRequestBody() else null)
+            .build()
+        private val call = mock<Call> {
+            on { isCanceled() } doReturn isCanceled
+        }
+        private var connectTimeoutMillis = 10_000
+        private var readTimeoutMillis = 10_000
+
+        var attempts = 0
+            private set
+
+        override fun request() = request
+
+        override fun proceed(request: Request): Response {
+            attempts++
+            return when (val result = results.removeFirst()) {
+                is IOException -> throw result
+                is Int -> Response.Builder()
+                    .request(request)
+                    .protocol(Protocol.HTTP_1_1)
+                    .code(result)
+                    .message("")
+                    .build()
+                else -> throw IllegalArgumentException("Unknown result: $result")
+            }
+        }
+
+        override fun connection(): Connection? = null
+
+        override fun call() = call
+
+        override fun connectTimeoutMillis() = connectTimeoutMillis
+
+        override fun withConnectTimeout(timeout: Int, unit: TimeUnit) = apply {
+            connectTimeoutMillis = unit.toMillis(timeout.toLong()).toInt()
+        }
+
+        override fun readTimeoutMillis() = readTimeoutMillis
+
+        override fun withReadTimeout(timeout: Int, unit: TimeUnit) = apply {
+            readTimeoutMillis = unit.toMillis(timeout.toLong()).toInt()
+        }
+
+        override fun writeTimeoutMillis() = 10_000
+
+        override fun withWriteTimeout(timeout: Int, unit: TimeUnit) = this
+
+    }
+
+}
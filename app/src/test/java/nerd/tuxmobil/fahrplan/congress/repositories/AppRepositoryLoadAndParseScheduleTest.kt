@@ -9,9 +9,14 @@ import info.metadude.android.eventfahrplan.database.repositories.AlarmsDatabaseR
 import info.metadude.android.eventfahrplan.database.repositories.HighlightsDatabaseRepository
 import info.metadude.android.eventfahrplan.database.repositories.MetaDatabaseRepository
 import info.metadude.android.eventfahrplan.database.repositories.SessionsDatabaseRepository
+import info.metadude.android.eventfahrplan.engelsystem.EngelsystemNetworkRepository
+import info.metadude.android.eventfahrplan.engelsystem.models.ShiftsHttpHeader
+import info.metadude.android.eventfahrplan.engelsystem.models.ShiftsResult
 import info.metadude.android.eventfahrplan.network.models.HttpHeader
 import info.metadude.android.eventfahrplan.network.repositories.ScheduleNetworkRepository
+import kotlinx.coroutines.awaitCancellation
 import kotlinx.coroutines.test.runTest
+import nerd.tuxmobil.fahrplan.congress.BuildConfig
 import nerd.tuxmobil.fahrplan.congress.TestExecutionContext
 import nerd.tuxmobil.fahrplan.congress.dataconverters.toAppFetchScheduleResult
 import nerd.tuxmobil.fahrplan.congress.models.ScheduleData
@@ -28,11 +33,14 @@ import nerd.tuxmobil.fahrplan.congress.repositories.LoadScheduleState.ParseFailu
 import nerd.tuxmobil.fahrplan.congress.repositories.LoadScheduleState.ParseSuccess
 import nerd.tuxmobil.fahrplan.congress.repositories.LoadScheduleState.Parsing
 import okhttp3.OkHttpClient
+import org.junit.jupiter.api.Assumptions.assumeTrue
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.extension.ExtendWith
 import org.mockito.ArgumentMatchers.anyString
 import org.mockito.kotlin.any
 import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.doThrow
+import org.mockito.kotlin.eq
 import org.mockito.kotlin.mock
 import org.mockito.kotlin.times
 import org.mockito.kotlin.verify
@@ -44,6 +52,7 @@ import info.metadude.android.eventfahrplan.network.fetching.FetchScheduleResult
 import info.metadude.android.eventfahrplan.network.fetching.HttpStatus as NetworkHttpStatus
 import info.metadude.android.eventfahrplan.network.models.Meta as NetworkMeta
 import info.metadude.android.eventfahrplan.network.models.Session as NetworkSession
+import info.metadude.android.eventfahrplan.network.serialization.ParseScheduleResult as NetworkParseScheduleResult
 import nerd.tuxmobil.fahrplan.congress.models.Session as AppSession
 
 private typealias OnFetchingDone = (fetchScheduleResult: FetchScheduleResult) -> Unit
@@ -67,6 +76,7 @@ class AppRepositoryLoadAndParseScheduleTest {
         const val HOST_NAME = "https://example.com"
         const val SCHEDULE_URL = "https://example.com/schedule.xml"
         const val EMPTY_ENGELSYSTEM_URL = ""
+        const val ENGELSYSTEM_URL = "https://example.org/shifts-json-export?key=secret"
     }
 
     private val alarmsDatabaseRepository = mock<AlarmsDatabaseRepository>()
@@ -74,8 +84,13 @@ class AppRepositoryLoadAndParseScheduleTest {
     private val sessionsDatabaseRepository = mock<SessionsDatabaseRepository>()
     private val metaDatabaseRepository = mock<MetaDatabaseRepository>()
     private val scheduleNetworkRepository = TestScheduleNetworkRepository()
-    private val sharedPreferencesRepository = mock<SharedPreferencesRepository>()
+    private val sharedPreferencesRepository = mock<SharedPreferencesRepository> {
+        on { getEngelsystemShiftsUrl() } doReturn EMPTY_ENGELSYSTEM_URL
+        on { getScheduleRefreshOutcomes() } doReturn ""
+    }
+    private val engelsystemNetworkRepository = TestEngelsystemNetworkRepository()
     private val sessionsTransformer = mock<SessionsTransformer>()
+    private var networkScope = mock<NetworkScope>()
 
     private val testableAppRepository: AppRepository
         get() = with(AppRepository) {
@@ -84,14 +99,14 @@ class AppRepositoryLoadAndParseScheduleTest {
                 logging = mock(),
                 executionContext = TestExecutionContext,
                 databaseScope = mock(),
-                networkScope = mock(),
+                networkScope = networkScope,
                 okHttpClient = mock(),
                 alarmsDatabaseRepository = alarmsDatabaseRepository,
                 highlightsDatabaseRepository = highlightsDatabaseRepository,
                 sessionsDatabaseRepository = sessionsDatabaseRepository,
                 metaDatabaseRepository = metaDatabaseRepository,
                 scheduleNetworkRepository = scheduleNetworkRepository,
-                engelsystemNetworkRepository = mock(),
+                engelsystemNetworkRepository = engelsystemNetworkRepository,
                 sharedPreferencesRepository = sharedPreferencesRepository,
                 sessionsTransformer = sessionsTransformer
             )
@@ -171,6 +186,7 @@ class AppRepositoryLoadAndParseScheduleTest {
                 assertThat(awaitItem()).isEqualTo(expected)
             }
             verifyInvokedOnce(sharedPreferencesRepository).setScheduleLastFetchedAt(any())
+            verifyInvokedOnce(sharedPreferencesRepository).setAdaptiveScheduleRefreshState(any(), eq("N"))
             verifyInvokedNever(metaDatabaseRepository).insert(any())
         }
 
@@ -188,16 +204,109 @@ class AppRepositoryLoadAndParseScheduleTest {
             assertThat(awaitItem()).isEqualTo(expectedResult)
         }
         verifyInvokedNever(sharedPreferencesRepository).setScheduleLastFetchedAt(any())
+        verifyInvokedNever(sharedPreferencesRepository).setAdaptiveScheduleRefreshState(any(), any())
         verifyInvokedNever(metaDatabaseRepository).insert(any())
     }
 
+    @Test
+    fun `loadSchedule starts downloading shifts before the schedule has been fetched`() = runTest {
+        assumeTrue(BuildConfig.ENABLE_ENGELSYSTEM_SHIFTS)
+        networkScope = NetworkScope.of(TestExecutionContext, mock())
+        whenever(metaDatabaseRepository.query()) doReturn DatabaseMeta(numDays = 1)
+        whenever(sharedPreferencesRepository.getEngelsystemShiftsUrl()) doReturn ENGELSYSTEM_URL
+        testableAppRepository.loadSchedule(isUserRequest = false)
+        assertThat(engelsystemNetworkRepository.loadedUrls).containsExactly(ENGELSYSTEM_URL)
+        assertThat(engelsystemNetworkRepository.isCanceled).isFalse()
+    }
+
+    @Test
+    fun `loadSchedule sends the validators stored for the Engelsystem URL`() = runTest {
+        assumeTrue(BuildConfig.ENABLE_ENGELSYSTEM_SHIFTS)
+        networkScope = NetworkScope.of(TestExecutionContext, mock())
+        whenever(metaDatabaseRepository.query()) doReturn DatabaseMeta(numDays = 1)
+        whenever(sharedPreferencesRepository.getEngelsystemShiftsUrl()) doReturn ENGELSYSTEM_URL
+        whenever(sharedPreferencesRepository.getEngelsystemShiftsHttpHeaderUrl()) doReturn ENGELSYSTEM_URL
+        whenever(sharedPreferencesRepository.getEngelsystemShiftsETag()) doReturn "a1b2c3"
+        whenever(sharedPreferencesRepository.getEngelsystemShiftsLastModified()) doReturn ""
+        testableAppRepository.loadSchedule(isUserRequest = false)
+        assertThat(engelsystemNetworkRepository.sentHttpHeaders).containsExactly(ShiftsHttpHeader(eTag = "a1b2c3"))
+    }
+
+    @Test
+    fun `loadSchedule sends no validators stored for another Engelsystem URL`() = runTest {
+        assumeTrue(BuildConfig.ENABLE_ENGELSYSTEM_SHIFTS)
+        networkScope = NetworkScope.of(TestExecutionContext, mock())
+        whenever(metaDatabaseRepository.query()) doReturn DatabaseMeta(numDays = 1)
+        whenever(sharedPreferencesRepository.getEngelsystemShiftsUrl()) doReturn ENGELSYSTEM_URL
+        whenever(sharedPreferencesRepository.getEngelsystemShiftsHttpHeaderUrl()) doReturn "https://example.org/other"
+        testableAppRepository.loadSchedule(isUserRequest = false)
+        assertThat(engelsystemNetworkRepository.sentHttpHeaders).containsExactly(ShiftsHttpHeader())
+    }
+
+    @Test
+    fun `loadSchedule cancels downloading shifts when the schedule cannot be loaded`() = runTest {
+        assumeTrue(BuildConfig.ENABLE_ENGELSYSTEM_SHIFTS)
+        networkScope = NetworkScope.of(TestExecutionContext, mock())
+        whenever(metaDatabaseRepository.query()) doReturn DatabaseMeta(numDays = 1)
+        whenever(sharedPreferencesRepository.getEngelsystemShiftsUrl()) doReturn ENGELSYSTEM_URL
+        testableAppRepository.loadSchedule(isUserRequest = false)
+        scheduleNetworkRepository.onFetchScheduleFinished(createFetchScheduleResult(NetworkHttpStatus.HTTP_NOT_FOUND))
+        assertThat(engelsystemNetworkRepository.isCanceled).isTrue()
+    }
+
+    @Test
+    fun `loadSchedule joins the load in flight instead of fetching the schedule again`() = runTest {
+        whenever(metaDatabaseRepository.query()) doReturn DatabaseMeta(numDays = 1)
+        val notFound = createFetchScheduleResult(NetworkHttpStatus.HTTP_NOT_FOUND)
+        val firstResults = mutableListOf<FetchScheduleResult>()
+        val secondResults = mutableListOf<FetchScheduleResult>()
+        val repository = testableAppRepository
+        repository.loadSchedule(isUserRequest = false, onFetchingDone = { firstResults += it })
+        repository.loadSchedule(isUserRequest = false, onFetchingDone = { secondResults += it })
+        scheduleNetworkRepository.onFetchScheduleFinished(notFound)
+        assertThat(scheduleNetworkRepository.fetchCount).isEqualTo(1)
+        assertThat(firstResults).containsExactly(notFound.toAppFetchScheduleResult())
+        assertThat(secondResults).containsExactly(notFound.toAppFetchScheduleResult())
+    }
+
+    @Test
+    fun `loadSchedule reports failures of a background load to the user once a user request joined it`() = runTest {
+        whenever(metaDatabaseRepository.query()) doReturn DatabaseMeta(numDays = 1)
+        val repository = testableAppRepository
+        repository.loadSchedule(isUserRequest = false)
+        repository.loadSchedule(isUserRequest = true)
+        scheduleNetworkRepository.onFetchScheduleFinished(createFetchScheduleResult(NetworkHttpStatus.HTTP_NOT_FOUND))
+        repository.loadScheduleState.test {
+            val expected = createFetchFailure(HttpStatus.HTTP_NOT_FOUND, isUserRequest = true)
+            assertThat(awaitItem()).isEqualTo(expected)
+        }
+    }
+
+    @Test
+    fun `loadSchedule fetches the schedule again once the previous load has failed`() = runTest {
+        whenever(metaDatabaseRepository.query()) doReturn DatabaseMeta(numDays = 1)
+        val repository = testableAppRepository
+        repository.loadSchedule(isUserRequest = false)
+        scheduleNetworkRepository.onFetchScheduleFinished(createFetchScheduleResult(NetworkHttpStatus.HTTP_NOT_FOUND))
+        repository.loadSchedule(isUserRequest = false)
+        assertThat(scheduleNetworkRepository.fetchCount).isEqualTo(2)
+    }
+
     /**
      * Quickly passing through the loading part and only checking parsing part here.
      */
     @Test
     fun `loadScheduleState emits ParseSuccess when parsing finished successfully`() =
         runTest {
+            networkScope = NetworkScope.of(TestExecutionContext, mock())
             whenever(metaDatabaseRepository.query()) doReturn DatabaseMeta(numDays = 1)
+            whenever(sessionsDatabaseRepository.querySessionsOrderedByDateUtc()) doReturn listOf(
+                DatabaseSession(sessionId = "55", isHighlight = true, changedLanguage = true)
+            )
+            whenever(highlightsDatabaseRepository.query()) doReturn emptyList()
+            whenever(alarmsDatabaseRepository.query()) doReturn emptyList()
+            whenever(sharedPreferencesRepository.getEngelsystemShiftsUrl()) doReturn EMPTY_ENGELSYSTEM_URL // early exit to bypass here
+            scheduleNetworkRepository.parseScheduleResult = NetworkParseScheduleResult(isSuccess = true, NetworkMeta(version = "1.0.0"))
             val success = createFetchScheduleResult(NetworkHttpStatus.HTTP_OK)
             val onParsingDone: OnParsingDone = { result ->
                 assertThat(result).isEqualTo(ParseScheduleResult(isSuccess = true, "1.0.0"))
@@ -205,30 +314,19 @@ class AppRepositoryLoadAndParseScheduleTest {
             testableAppRepository.loadSchedule(isUserRequest = false, onParsingDone = onParsingDone)
             scheduleNetworkRepository.onFetchScheduleFinished(success)
 
-            // onUpdateSessions
-            whenever(sessionsDatabaseRepository.querySessionsOrderedByDateUtc()) doReturn listOf(
-                DatabaseSession(sessionId = "55", isHighlight = true, changedLanguage = true)
-            )
-            whenever(highlightsDatabaseRepository.query()) doReturn emptyList()
-            whenever(alarmsDatabaseRepository.query()) doReturn emptyList()
-
-            scheduleNetworkRepository.onUpdateSessions(emptyList())
-
+            // Session "55" is missing from the parsed sessions hence flagged as canceled.
             verifyInvokedOnce(sharedPreferencesRepository).setChangesSeen(any())
-            verifyInvokedOnce(sessionsDatabaseRepository).updateSessions(any(), any())
+            verifyInvokedOnce(sessionsDatabaseRepository).stageSessions(any())
+            verifyInvokedOnce(sessionsDatabaseRepository).commitStagedSessions(any())
 
             assertStarredSessionsProperty()
             assertChangedSessionsProperty()
             assertSelectedSessionProperty()
             assertUncanceledSessionsForDayIndexProperty()
 
-            // onUpdateMeta
-            scheduleNetworkRepository.onUpdateMeta(NetworkMeta())
+            // Meta of the fetch result and meta of the parse result
             verify(metaDatabaseRepository, times(2)).insert(any())
 
-            // onParsingDone
-            whenever(sharedPreferencesRepository.getEngelsystemShiftsUrl()) doReturn EMPTY_ENGELSYSTEM_URL // early exit to bypass here
-            scheduleNetworkRepository.onParsingDone(true, "1.0.0")
             testableAppRepository.loadScheduleState.test {
                 assertThat(awaitItem()).isEqualTo(ParseSuccess)
             }
@@ -285,7 +383,10 @@ class AppRepositoryLoadAndParseScheduleTest {
     @Test
     fun `loadScheduleState emits ParseFailure when parsing finished with an error`() =
         runTest {
+            networkScope = NetworkScope.of(TestExecutionContext, mock())
             whenever(metaDatabaseRepository.query()) doReturn DatabaseMeta(numDays = 1)
+            whenever(sharedPreferencesRepository.getEngelsystemShiftsUrl()) doReturn EMPTY_ENGELSYSTEM_URL // early exit to bypass here
+            scheduleNetworkRepository.parseScheduleResult = NetworkParseScheduleResult(isSuccess = false, NetworkMeta(version = "1.0.0"))
             val success = createFetchScheduleResult(NetworkHttpStatus.HTTP_OK)
             val onParsingDone: OnParsingDone = { result ->
                 assertThat(result).isEqualTo(ParseScheduleResult(isSuccess = false, "1.0.0"))
@@ -293,9 +394,7 @@ class AppRepositoryLoadAndParseScheduleTest {
             testableAppRepository.loadSchedule(isUserRequest = false, onParsingDone = onParsingDone)
             scheduleNetworkRepository.onFetchScheduleFinished(success)
 
-            // onParsingDone
-            whenever(sharedPreferencesRepository.getEngelsystemShiftsUrl()) doReturn EMPTY_ENGELSYSTEM_URL // early exit to bypass here
-            scheduleNetworkRepository.onParsingDone(false, "1.0.0")
+            verifyInvokedNever(sessionsDatabaseRepository).commitStagedSessions(any())
             testableAppRepository.loadScheduleState.test {
                 assertThat(awaitItem()).isEqualTo(ParseFailure(ParseScheduleResult(false, "1.0.0")))
             }
@@ -306,7 +405,10 @@ class AppRepositoryLoadAndParseScheduleTest {
     @Test
     fun `loadScheduleState emits ParseFailure when initial parsing finished with an error`() =
         runTest {
+            networkScope = NetworkScope.of(TestExecutionContext, mock())
             whenever(metaDatabaseRepository.query()) doReturn DatabaseMeta(numDays = 0)
+            whenever(sharedPreferencesRepository.getEngelsystemShiftsUrl()) doReturn EMPTY_ENGELSYSTEM_URL // early exit to bypass here
+            scheduleNetworkRepository.parseScheduleResult = NetworkParseScheduleResult(isSuccess = false, NetworkMeta(version = "1.0.0"))
             val success = createFetchScheduleResult(NetworkHttpStatus.HTTP_OK)
             val onParsingDone: OnParsingDone = { result ->
                 assertThat(result).isEqualTo(ParseScheduleResult(isSuccess = false, "1.0.0"))
@@ -314,9 +416,7 @@ class AppRepositoryLoadAndParseScheduleTest {
             testableAppRepository.loadSchedule(isUserRequest = false, onParsingDone = onParsingDone)
             scheduleNetworkRepository.onFetchScheduleFinished(success)
 
-            // onParsingDone
-            whenever(sharedPreferencesRepository.getEngelsystemShiftsUrl()) doReturn EMPTY_ENGELSYSTEM_URL // early exit to bypass here
-            scheduleNetworkRepository.onParsingDone(false, "1.0.0")
+            verifyInvokedNever(sessionsDatabaseRepository).commitStagedSessions(any())
             testableAppRepository.loadScheduleState.test {
                 assertThat(awaitItem()).isEqualTo(ParseFailure(ParseScheduleResult(false, "1.0.0")))
             }
@@ -324,6 +424,37 @@ class AppRepositoryLoadAndParseScheduleTest {
             verify(metaDatabaseRepository, times(2)).insert(any())
         }
 
+    @Test
+    fun `loadSchedule starts a new load once the schedule ingestion of the previous load has thrown`() =
+        runTest {
+            networkScope = NetworkScope.of(TestExecutionContext, mock())
+            whenever(metaDatabaseRepository.query()) doReturn DatabaseMeta(numDays = 1, version = "0.9.0")
+            whenever(sharedPreferencesRepository.getEngelsystemShiftsUrl()) doReturn EMPTY_ENGELSYSTEM_URL // early exit to bypass here
+            whenever(sessionsDatabaseRepository.commitStagedSessions(any())) doThrow IllegalStateException("disk I/O error")
+            scheduleNetworkRepository.parseScheduleResult = NetworkParseScheduleResult(isSuccess = true, NetworkMeta(version = "1.0.0"))
+            val parseResults = mutableListOf<ParseResult>()
+            var isLoadingDone = false
+            val repository = testableAppRepository
+            repository.loadSchedule(
+                url = SCHEDULE_URL,
+                isUserRequest = false,
+                onFetchingDone = {},
+                onParsingDone = { parseResults += it },
+                onLoadingShiftsDone = {},
+                onLoadingDone = { isLoadingDone = true }
+            )
+            scheduleNetworkRepository.onFetchScheduleFinished(createFetchScheduleResult(NetworkHttpStatus.HTTP_OK))
+
+            assertThat(parseResults).containsExactly(ParseScheduleResult(isSuccess = false, "0.9.0"))
+            assertThat(isLoadingDone).isTrue()
+            repository.loadScheduleState.test {
+                assertThat(awaitItem()).isEqualTo(ParseFailure(ParseScheduleResult(false, "0.9.0")))
+            }
+
+            repository.loadSchedule(isUserRequest = false)
+            assertThat(scheduleNetworkRepository.fetchCount).isEqualTo(2)
+        }
+
     private fun createFetchScheduleResult(httpStatus: NetworkHttpStatus) =
         NetworkFetchScheduleResult(
             httpStatus = httpStatus,
@@ -347,20 +478,39 @@ class AppRepositoryLoadAndParseScheduleTest {
     ) =
         loadSchedule(SCHEDULE_URL, isUserRequest, onFetchingDone, onParsingDone, mock())
 
-    private class TestScheduleNetworkRepository : ScheduleNetworkRepository {
+    /**
+     * Never finishes loading to allow checking whether loading has been started or canceled.
+     */
+    private class TestEngelsystemNetworkRepository : EngelsystemNetworkRepository {
 
-        lateinit var onFetchScheduleFinished: OnFetchScheduleFinished
-            private set
+        val loadedUrls = mutableListOf<String>()
+        val sentHttpHeaders = mutableListOf<ShiftsHttpHeader>()
 
-        lateinit var onUpdateSessions: (sessions: List<NetworkSession>) -> Unit
+        var isCanceled = false
             private set
 
-        lateinit var onUpdateMeta: (meta: NetworkMeta) -> Unit
+        override suspend fun load(okHttpClient: OkHttpClient, url: String, httpHeader: ShiftsHttpHeader): ShiftsResult {
+            loadedUrls += url
+            sentHttpHeaders += httpHeader
+            try {
+                awaitCancellation()
+            } finally {
+                isCanceled = true
+            }
+        }
+
+    }
+
+    private class TestScheduleNetworkRepository : ScheduleNetworkRepository {
+
+        lateinit var onFetchScheduleFinished: OnFetchScheduleFinished
             private set
 
-        lateinit var onParsingDone: (result: Boolean, version: String) -> Unit
+        var fetchCount = 0
             private set
 
+        lateinit var parseScheduleResult: NetworkParseScheduleResult
+
         override fun fetchSchedule(
             okHttpClient: OkHttpClient,
             url: String,
@@ -368,18 +518,16 @@ class AppRepositoryLoadAndParseScheduleTest {
             onFetchScheduleFinished: OnFetchScheduleFinished
         ) {
             this.onFetchScheduleFinished = onFetchScheduleFinished
+            fetchCount++
         }
 
-        override fun parseSchedule(
+        override fun parseScheduleIncrementally(
             scheduleXml: String,
             httpHeader: HttpHeader,
-            onUpdateSessions: (sessions: List<NetworkSession>) -> Unit,
-            onUpdateMeta: (meta: NetworkMeta) -> Unit,
-            onParsingDone: (isSuccess: Boolean, version: String) -> Unit
-        ) {
-            this.onUpdateSessions = onUpdateSessions
-            this.onUpdateMeta = onUpdateMeta
-            this.onParsingDone = onParsingDone
+            isCancelled: () -> Boolean,
+            onSessionParsed: (session: NetworkSession) -> Unit
+        ): NetworkParseScheduleResult {
+            return parseScheduleResult
         }
 
     }
@@ -6,6 +6,7 @@ import com.google.common.truth.Truth.assertThat
 import info.metadude.android.eventfahrplan.commons.testing.MainDispatcherTestExtension
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.MetasTable.Columns.ETAG
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.MetasTable.Columns.NUM_DAYS
+import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.MetasTable.Columns.PARSER_VERSION
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.MetasTable.Columns.SCHEDULE_LAST_MODIFIED
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.MetasTable.Columns.SUBTITLE
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.MetasTable.Columns.TIME_ZONE_NAME
@@ -116,6 +117,7 @@ private class InMemoryMetaDatabaseRepository : MetaDatabaseRepository {
 
 private fun ContentValues.toMeta() = MetaDatabaseModel(
     numDays = get(NUM_DAYS) as Int,
+    parserVersion = get(PARSER_VERSION) as Int,
     version = get(VERSION) as String,
     timeZoneName = get(TIME_ZONE_NAME) as String?,
     title = get(TITLE) as String,
@@ -0,0 +1,229 @@
+package nerd.tuxmobil.fahrplan.congress.repositories
+
+import android.content.ContentValues
+import com.google.common.truth.Truth.assertThat
+import info.metadude.android.eventfahrplan.commons.temporal.Moment
+import info.metadude.android.eventfahrplan.commons.testing.MainDispatcherTestExtension
+import info.metadude.android.eventfahrplan.database.repositories.MetaDatabaseRepository
+import info.metadude.android.eventfahrplan.database.repositories.SessionsDatabaseRepository
+import info.metadude.android.eventfahrplan.engelsystem.EngelsystemNetworkRepository
+import info.metadude.android.eventfahrplan.engelsystem.models.ShiftsHttpHeader
+import info.metadude.android.eventfahrplan.engelsystem.models.ShiftsResult
+import info.metadude.android.eventfahrplan.network.models.HttpHeader
+import info.metadude.android.eventfahrplan.network.repositories.ScheduleNetworkRepository
+import info.metadude.kotlin.library.engelsystem.models.Shift
+import nerd.tuxmobil.fahrplan.congress.BuildConfig
+import nerd.tuxmobil.fahrplan.congress.TestExecutionContext
+import nerd.tuxmobil.fahrplan.congress.preferences.SharedPreferencesRepository
+import nerd.tuxmobil.fahrplan.congress.repositories.AppRepository.ENGELSYSTEM_ROOM_NAME
+import okhttp3.OkHttpClient
+import org.junit.jupiter.api.Assumptions.assumeTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.extension.ExtendWith
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.whenever
+import org.threeten.bp.ZoneOffset
+import info.metadude.android.eventfahrplan.database.models.Meta as DatabaseMeta
+import info.metadude.android.eventfahrplan.database.models.Session as DatabaseSession
+import info.metadude.android.eventfahrplan.network.fetching.FetchScheduleResult as NetworkFetchScheduleResult
+import info.metadude.android.eventfahrplan.network.fetching.HttpStatus as NetworkHttpStatus
+import info.metadude.android.eventfahrplan.network.models.Meta as NetworkMeta
+import info.metadude.android.eventfahrplan.network.models.Session as NetworkSession
+import info.metadude.android.eventfahrplan.network.serialization.ParseScheduleResult as NetworkParseScheduleResult
+
+/**
+ * Covers the room indices of the main schedule which are shifted on days with Engelsystem shifts
+ * while schedules and shifts are loaded via [AppRepository.loadSchedule].
+ */
+@ExtendWith(MainDispatcherTestExtension::class)
+class AppRepositoryRoomIndicesTest {
+
+    private companion object {
+        const val SCHEDULE_URL = "https://example.com/schedule.xml"
+        const val ENGELSYSTEM_URL = "https://example.org/shifts-json-export?key=secret"
+        const val DATE = "2019-08-21"
+    }
+
+    private val day = Moment.parseDate(DATE)
+    private val sessionsDatabaseRepository = InMemorySessionsDatabaseRepository()
+    private val metaDatabaseRepository = mock<MetaDatabaseRepository> {
+        on { query() } doReturn DatabaseMeta(numDays = 1)
+    }
+    private val sharedPreferencesRepository = mock<SharedPreferencesRepository> {
+        on { getEngelsystemShiftsUrl() } doReturn ENGELSYSTEM_URL
+        on { getScheduleRefreshOutcomes() } doReturn ""
+    }
+    private val scheduleNetworkRepository = TestScheduleNetworkRepository(
+        listOf(
+            createSession("1", roomName = "Room A", roomIndex = 0),
+            createSession("2", roomName = "Room B", roomIndex = 1),
+        )
+    )
+    private val engelsystemNetworkRepository = TestEngelsystemNetworkRepository(
+        Shift(
+            startsAtDate = day.toZonedDateTime(ZoneOffset.UTC).plusHours(9),
+            endsAtDate = day.toZonedDateTime(ZoneOffset.UTC).plusHours(10),
+        )
+    )
+
+    private val testableAppRepository: AppRepository
+        get() = with(AppRepository) {
+            initialize(
+                context = mock(),
+                logging = mock(),
+                executionContext = TestExecutionContext,
+                databaseScope = mock(),
+                networkScope = NetworkScope.of(TestExecutionContext, mock()),
+                okHttpClient = mock(),
+                alarmsDatabaseRepository = mock(),
+                highlightsDatabaseRepository = mock(),
+                sessionsDatabaseRepository = sessionsDatabaseRepository,
+                metaDatabaseRepository = metaDatabaseRepository,
+                scheduleNetworkRepository = scheduleNetworkRepository,
+                scheduleDocumentRepository = mock(),
+                engelsystemNetworkRepository = engelsystemNetworkRepository,
+                sharedPreferencesRepository = sharedPreferencesRepository,
+                sessionsTransformer = mock()
+            )
+            return this
+        }
+
+    @Test
+    fun `room indices stay in place across schedule updates and removed and re-added shifts`() {
+        assumeTrue(BuildConfig.ENABLE_ENGELSYSTEM_SHIFTS)
+        val appRepository = testableAppRepository
+
+        // Initial schedule with shifts: the Engelshifts room takes the first position.
+        appRepository.loadSchedule(NetworkHttpStatus.HTTP_OK)
+        assertThat(roomIndexByRoomName()).isEqualTo(mapOf(ENGELSYSTEM_ROOM_NAME to 0, "Room A" to 1, "Room B" to 2))
+
+        // Schedule update while the shifts are kept.
+        appRepository.loadSchedule(NetworkHttpStatus.HTTP_OK)
+        assertThat(roomIndexByRoomName()).isEqualTo(mapOf(ENGELSYSTEM_ROOM_NAME to 0, "Room A" to 1, "Room B" to 2))
+
+        // Shifts removed.
+        whenever(sharedPreferencesRepository.getEngelsystemShiftsUrl()) doReturn ""
+        appRepository.loadSchedule(NetworkHttpStatus.HTTP_NOT_MODIFIED)
+        assertThat(roomIndexByRoomName()).isEqualTo(mapOf("Room A" to 0, "Room B" to 1))
+
+        // Shifts re-added.
+        whenever(sharedPreferencesRepository.getEngelsystemShiftsUrl()) doReturn ENGELSYSTEM_URL
+        appRepository.loadSchedule(NetworkHttpStatus.HTTP_NOT_MODIFIED)
+        assertThat(roomIndexByRoomName()).isEqualTo(mapOf(ENGELSYSTEM_ROOM_NAME to 0, "Room A" to 1, "Room B" to 2))
+    }
+
+    private fun AppRepository.loadSchedule(httpStatus: NetworkHttpStatus) {
+        scheduleNetworkRepository.httpStatus = httpStatus
+        loadSchedule(SCHEDULE_URL, isUserRequest = false, onFetchingDone = {}, onParsingDone = {}, onLoadingShiftsDone = {})
+    }
+
+    private fun roomIndexByRoomName() = sessionsDatabaseRepository.querySessionsOrderedByDateUtc()
+        .associate { it.roomName to it.roomIndex }
+
+    private fun createSession(sessionId: String, roomName: String, roomIndex: Int) = NetworkSession(
+        sessionId = sessionId,
+        dayIndex = 1,
+        date = DATE,
+        dateUTC = day.plusSeconds(12 * 60 * 60L).toMilliseconds(),
+        roomName = roomName,
+        roomIndex = roomIndex,
+        title = "Session $sessionId",
+    )
+
+    private class TestScheduleNetworkRepository(private val sessions: List<NetworkSession>) : ScheduleNetworkRepository {
+
+        lateinit var httpStatus: NetworkHttpStatus
+
+        override fun fetchSchedule(
+            okHttpClient: OkHttpClient,
+            url: String,
+            httpHeader: HttpHeader,
+            onFetchScheduleFinished: (fetchScheduleResult: NetworkFetchScheduleResult) -> Unit
+        ) {
+            onFetchScheduleFinished(
+                NetworkFetchScheduleResult(
+                    httpStatus = httpStatus,
+                    scheduleXml = "some fahrplan xml",
+                    httpHeader = HttpHeader(eTag = "a1b2bc3", lastModified = ""),
+                    hostName = "https://example.com"
+                )
+            )
+        }
+
+        override fun parseScheduleIncrementally(
+            scheduleXml: String,
+            httpHeader: HttpHeader,
+            isCancelled: () -> Boolean,
+            onSessionParsed: (session: NetworkSession) -> Unit
+        ): NetworkParseScheduleResult {
+            // Each parsing run hands out fresh instances like the parser does.
+            sessions.forEach { onSessionParsed(it.copy()) }
+            return NetworkParseScheduleResult(isSuccess = true, NetworkMeta(numDays = 1, version = "1.0.0"))
+        }
+
+    }
+
+    private class TestEngelsystemNetworkRepository(private val shift: Shift) : EngelsystemNetworkRepository {
+
+        override suspend fun load(okHttpClient: OkHttpClient, url: String, httpHeader: ShiftsHttpHeader) =
+            ShiftsResult.Success(listOf(shift))
+
+    }
+
+    /**
+     * Keeps the sessions in memory. Mirrors the statements of the real repository.
+     */
+    private class InMemorySessionsDatabaseRepository : SessionsDatabaseRepository {
+
+        private val sessions = LinkedHashMap<String, DatabaseSession>()
+        private val stagedSessions = LinkedHashMap<String, DatabaseSession>()
+
+        override fun insertSessionId(sessionIdContentValues: ContentValues) = 0
+
+        override fun deleteSessionIdByNotificationId(notificationId: Int) = 0
+
+        override fun updateSessions(sessions: List<DatabaseSession>, toBeDeletedSessionIds: List<String>) {
+            sessions.forEach { this.sessions[it.sessionId] = it }
+            toBeDeletedSessionIds.forEach { this.sessions.remove(it) }
+        }
+
+        override fun clearStagedSessions() {
+            stagedSessions.clear()
+        }
+
+        override fun stageSessions(sessions: List<DatabaseSession>) {
+            sessions.forEach { stagedSessions[it.sessionId] = it }
+        }
+
+        override fun commitStagedSessions(toBeDeletedSessionIds: List<String>) {
+            updateSessions(stagedSessions.values.toList(), toBeDeletedSessionIds)
+            stagedSessions.clear()
+        }
+
+        override fun shiftRoomIndices(dayIndices: Set<Int>, offset: Int, excludedRoomName: String): Int {
+            val shiftedSessions = sessions.values
+                .filter { it.dayIndex in dayIndices && it.roomName != excludedRoomName }
+                .map { it.copy(roomIndex = it.roomIndex + offset) }
+            shiftedSessions.forEach { sessions[it.sessionId] = it }
+            return shiftedSessions.size
+        }
+
+        override fun querySessionBySessionId(sessionId: String) = sessions.getValue(sessionId)
+
+        override fun querySessionsForDayIndexOrderedByDateUtc(dayIndex: Int) =
+            querySessionsOrderedByDateUtc().filter { it.dayIndex == dayIndex }
+
+        override fun querySessionsOrderedByDateUtc() = sessions.values.sortedBy { it.dateUTC }
+
+        override fun querySessionsWithoutRoom(roomName: String) =
+            querySessionsOrderedByDateUtc().filter { it.roomName != roomName }
+
+        override fun querySessionsWithinRoom(roomName: String) =
+            querySessionsOrderedByDateUtc().filter { it.roomName == roomName }
+
+        override fun querySessionsCount() = sessions.size.toLong()
+
+    }
+
+}
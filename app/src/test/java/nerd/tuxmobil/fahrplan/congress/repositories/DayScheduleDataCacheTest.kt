@@ -0,0 +1,50 @@
+package nerd.tuxmobil.fahrplan.congress.repositories
+
+import com.google.common.truth.Truth.assertThat
+import nerd.tuxmobil.fahrplan.congress.models.ScheduleData
+import org.junit.jupiter.api.Test
+
+class DayScheduleDataCacheTest {
+
+    private val cache = DayScheduleDataCache()
+
+    @Test
+    fun `get returns null for a day which has not been stored`() {
+        assertThat(cache[1]).isNull()
+    }
+
+    @Test
+    fun `put stores the schedule data of the day`() {
+        val scheduleData = createScheduleData(dayIndex = 2)
+        cache.put(cache.generation, scheduleData)
+        assertThat(cache[2]).isSameInstanceAs(scheduleData)
+    }
+
+    @Test
+    fun `invalidate drops all days`() {
+        cache.put(cache.generation, createScheduleData(dayIndex = 1))
+        cache.invalidate()
+        assertThat(cache[1]).isNull()
+    }
+
+    @Test
+    fun `put ignores schedule data which has been loaded before the last invalidation`() {
+        val generation = cache.generation
+        cache.invalidate()
+        cache.put(generation, createScheduleData(dayIndex = 1))
+        assertThat(cache[1]).isNull()
+    }
+
+    @Test
+    fun `retainAdjacentDays drops the days which are not adjacent to the given day`() {
+        (1..4).forEach { cache.put(cache.generation, createScheduleData(dayIndex = it)) }
+        cache.retainAdjacentDays(2)
+        assertThat(cache[1]).isNotNull()
+        assertThat(cache[2]).isNotNull()
+        assertThat(cache[3]).isNotNull()
+        assertThat(cache[4]).isNull()
+    }
+
+    private fun createScheduleData(dayIndex: Int) = ScheduleData(dayIndex, roomDataList = emptyList())
+
+}
@@ -3,6 +3,7 @@ package nerd.tuxmobil.fahrplan.congress.repositories
 import com.google.common.truth.Truth.assertThat
 import kotlinx.coroutines.CoroutineName
 import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.runTest
 import nerd.tuxmobil.fahrplan.congress.TestExecutionContext
 import org.junit.jupiter.api.Test
 
@@ -32,4 +33,11 @@ class NetworkScopeTest {
         assertThat(isExceptionHandled).isTrue()
     }
 
+    @Test
+    fun `asyncNamed returns the result`() = runTest {
+        val networkScope = NetworkScope.of(TestExecutionContext) { _, _ -> }
+        val deferred = networkScope.asyncNamed("Beta") { 23 }
+        assertThat(deferred.await()).isEqualTo(23)
+    }
+
 }
@@ -0,0 +1,174 @@
+package nerd.tuxmobil.fahrplan.congress.repositories
+
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.test.runTest
+import nerd.tuxmobil.fahrplan.congress.TestExecutionContext
+import nerd.tuxmobil.fahrplan.congress.models.Session
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import info.metadude.android.eventfahrplan.database.models.Session as DatabaseSession
+import info.metadude.android.eventfahrplan.network.models.Meta as NetworkMeta
+import info.metadude.android.eventfahrplan.network.models.Session as NetworkSession
+import info.metadude.android.eventfahrplan.network.serialization.ParseScheduleResult as NetworkParseScheduleResult
+
+class ScheduleIngestionTest {
+
+    private val writer = TestWriter()
+
+    private val ingestion = ScheduleIngestion(TestExecutionContext, batchSize = 2, channelCapacity = 8)
+
+    @Test
+    fun `ingest stages parsed sessions in chunks and commits them`() = runTest {
+        val result = ingest(listOf("1", "2", "3", "4", "5"), isSuccess = true, oldSessions = emptyList())
+
+        assertThat(writer.stagedChunks.map { chunk -> chunk.map { it.sessionId } }).isEqualTo(
+            listOf(listOf("1", "2"), listOf("3", "4"), listOf("5"))
+        )
+        assertThat(writer.commits).containsExactly(emptyList<Session>())
+        assertThat(result.parseResult.isSuccess).isTrue()
+        assertThat(result.foundNoteworthyChanges).isFalse()
+        assertThat(result.stageCounters.map { it.count }).isEqualTo(listOf(5, 5, 5, 5))
+    }
+
+    @Test
+    fun `ingest flags new and canceled sessions and deletes old canceled sessions`() = runTest {
+        val oldSessions = listOf(
+            Session("1"),
+            Session("2"),
+            Session("3", changedIsCanceled = true),
+        )
+        val result = ingest(listOf("1", "4"), isSuccess = true, oldSessions = oldSessions)
+
+        val stagedSessions = writer.stagedChunks.flatten()
+        assertThat(stagedSessions).containsExactly(
+            DatabaseSession("1"),
+            DatabaseSession("4", changedIsNew = true),
+            DatabaseSession("2", changedIsCanceled = true),
+        ).inOrder()
+        assertThat(stagedSessions.single { it.sessionId == "2" }.changedIsCanceled).isTrue()
+        assertThat(writer.commits).containsExactly(listOf(Session("3", changedIsCanceled = true)))
+        assertThat(result.foundNoteworthyChanges).isTrue()
+    }
+
+    @Test
+    fun `ingest retains the change flags of old sessions and neither cancels nor deletes sessions`() = runTest {
+        val oldSessions = listOf(
+            Session("1", changedTitle = true),
+            Session("2"),
+            Session("3", changedIsCanceled = true),
+        )
+        val result = ingest(listOf("1", "4"), isSuccess = true, oldSessions = oldSessions, retainChangeFlags = true)
+
+        assertThat(writer.stagedChunks.flatten()).containsExactly(
+            DatabaseSession("1", changedTitle = true),
+            DatabaseSession("4"),
+        ).inOrder()
+        assertThat(writer.commits).containsExactly(emptyList<Session>())
+        assertThat(result.foundNoteworthyChanges).isFalse()
+        assertThat(result.foundChanges).isFalse()
+    }
+
+    @Test
+    fun `ingest stages the parsed speakers and the shifted room index as they are`() = runTest {
+        ingestion.ingest(
+            parse = { _, onSessionParsed ->
+                onSessionParsed(NetworkSession(sessionId = "1", dayIndex = 2, roomIndex = 3, speakers = "Jane Doe;John Doe"))
+                onSessionParsed(NetworkSession(sessionId = "2", dayIndex = 1, roomIndex = 3))
+                NetworkParseScheduleResult(true, NetworkMeta())
+            },
+            oldSessions = emptyList(),
+            roomIndexShiftedDays = setOf(2),
+            writer = writer
+        )
+
+        assertThat(writer.committedSessions).containsExactly(
+            DatabaseSession("1", dayIndex = 2, roomIndex = 4, speakers = "Jane Doe;John Doe"),
+            DatabaseSession("2", dayIndex = 1, roomIndex = 3),
+        ).inOrder()
+    }
+
+    @Test
+    fun `ingest discards staged sessions and commits nothing if parsing failed`() = runTest {
+        val oldSessions = listOf(
+            Session("1"),
+            Session("2"),
+            Session("3", changedIsCanceled = true),
+        )
+        val result = ingest(listOf("1", "2", "3"), isSuccess = false, oldSessions = oldSessions)
+
+        assertThat(writer.commits).isEmpty()
+        assertThat(writer.stagedSessions).isEmpty()
+        assertThat(writer.stagedChunks.flatten().none { it.changedIsCanceled }).isTrue()
+        assertThat(result.parseResult.isSuccess).isFalse()
+        assertThat(result.foundNoteworthyChanges).isFalse()
+    }
+
+    @Test
+    fun `ingest discards staged sessions and commits nothing if parsing throws`() = runTest {
+        assertThrows<IllegalStateException> {
+            ingestion.ingest(
+                parse = { _, onSessionParsed ->
+                    listOf("1", "2", "3").forEach { onSessionParsed(NetworkSession(sessionId = it)) }
+                    throw IllegalStateException("Broken document.")
+                },
+                oldSessions = emptyList(),
+                writer = writer
+            )
+        }
+
+        assertThat(writer.commits).isEmpty()
+        assertThat(writer.stagedSessions).isEmpty()
+    }
+
+    @Test
+    fun `ingest discards leftovers of a previous ingestion before staging`() = runTest {
+        writer.stage(listOf(DatabaseSession("leftover")))
+
+        ingest(listOf("1"), isSuccess = true, oldSessions = emptyList())
+
+        assertThat(writer.committedSessions).containsExactly(DatabaseSession("1"))
+    }
+
+    private suspend fun ingest(
+        sessionIds: List<String>,
+        isSuccess: Boolean,
+        oldSessions: List<Session>,
+        retainChangeFlags: Boolean = false,
+    ) = ingestion.ingest(
+        parse = { isCancelled, onSessionParsed ->
+            sessionIds.forEach {
+                assertThat(isCancelled()).isFalse()
+                onSessionParsed(NetworkSession(sessionId = it))
+            }
+            NetworkParseScheduleResult(isSuccess, NetworkMeta())
+        },
+        oldSessions = oldSessions,
+        retainChangeFlags = retainChangeFlags,
+        writer = writer
+    )
+
+    private class TestWriter : ScheduleIngestion.Writer {
+
+        val stagedChunks = mutableListOf<List<DatabaseSession>>()
+        val stagedSessions = mutableListOf<DatabaseSession>()
+        val commits = mutableListOf<List<Session>>()
+        val committedSessions = mutableListOf<DatabaseSession>()
+
+        override fun discard() {
+            stagedSessions.clear()
+        }
+
+        override fun stage(sessions: List<DatabaseSession>) {
+            stagedChunks += sessions
+            stagedSessions += sessions
+        }
+
+        override fun commit(toBeDeletedSessions: List<Session>) {
+            commits += toBeDeletedSessions
+            committedSessions += stagedSessions
+            stagedSessions.clear()
+        }
+
+    }
+
+}
@@ -0,0 +1,163 @@
+package nerd.tuxmobil.fahrplan.congress.repositories
+
+import com.google.common.truth.Truth.assertThat
+import nerd.tuxmobil.fahrplan.congress.net.FetchScheduleResult
+import nerd.tuxmobil.fahrplan.congress.net.HttpStatus
+import nerd.tuxmobil.fahrplan.congress.net.LoadShiftsResult
+import nerd.tuxmobil.fahrplan.congress.net.ParseResult
+import nerd.tuxmobil.fahrplan.congress.net.ParseScheduleResult
+import org.junit.jupiter.api.Test
+
+class ScheduleLoadCoordinatorTest {
+
+    private companion object {
+        const val SCHEDULE_URL = "https://example.com/schedule.xml"
+        const val OTHER_SCHEDULE_URL = "https://example.com/other.xml"
+        val FETCH_RESULT = FetchScheduleResult(httpStatus = HttpStatus.HTTP_OK, hostName = "example.com")
+        val PARSE_RESULT = ParseScheduleResult(isSuccess = true, version = "1.0")
+    }
+
+    private val coordinator = ScheduleLoadCoordinator()
+
+    @Test
+    fun `join returns a new load if no load is in flight`() {
+        assertThat(coordinator.join(SCHEDULE_URL, isUserRequest = false, TestListener().listener)).isNotNull()
+    }
+
+    @Test
+    fun `join returns null if a load for the same URL is in flight`() {
+        coordinator.join(SCHEDULE_URL, isUserRequest = false, TestListener().listener)
+        assertThat(coordinator.join(SCHEDULE_URL, isUserRequest = false, TestListener().listener)).isNull()
+    }
+
+    @Test
+    fun `join returns a new load if only a load for another URL is in flight`() {
+        coordinator.join(OTHER_SCHEDULE_URL, isUserRequest = false, TestListener().listener)
+        assertThat(coordinator.join(SCHEDULE_URL, isUserRequest = false, TestListener().listener)).isNotNull()
+    }
+
+    @Test
+    fun `join returns a new load once the load in flight has finished`() {
+        val load = coordinator.join(SCHEDULE_URL, isUserRequest = false, TestListener().listener)!!
+        load.finish()
+        assertThat(coordinator.join(SCHEDULE_URL, isUserRequest = false, TestListener().listener)).isNotNull()
+    }
+
+    @Test
+    fun `join returns a new load once the coordinator has been cleared`() {
+        coordinator.join(SCHEDULE_URL, isUserRequest = false, TestListener().listener)
+        coordinator.clear()
+        assertThat(coordinator.join(SCHEDULE_URL, isUserRequest = false, TestListener().listener)).isNotNull()
+    }
+
+    @Test
+    fun `finish of an outdated load does not forget the load in flight`() {
+        val outdatedLoad = coordinator.join(SCHEDULE_URL, isUserRequest = false, TestListener().listener)!!
+        coordinator.clear()
+        coordinator.join(SCHEDULE_URL, isUserRequest = false, TestListener().listener)
+        outdatedLoad.finish()
+        assertThat(coordinator.join(SCHEDULE_URL, isUserRequest = false, TestListener().listener)).isNull()
+    }
+
+    @Test
+    fun `joinInFlight returns false and starts no load if no load is in flight`() {
+        assertThat(coordinator.joinInFlight(SCHEDULE_URL, isUserRequest = false, TestListener().listener)).isFalse()
+        assertThat(coordinator.join(SCHEDULE_URL, isUserRequest = false, TestListener().listener)).isNotNull()
+    }
+
+    @Test
+    fun `joinInFlight returns true and notifies the listener once the load in flight has finished`() {
+        val load = coordinator.join(SCHEDULE_URL, isUserRequest = false, TestListener().listener)!!
+        val listener = TestListener()
+
+        assertThat(coordinator.joinInFlight(SCHEDULE_URL, isUserRequest = false, listener.listener)).isTrue()
+        assertThat(listener.loadingDoneCount).isEqualTo(0)
+        load.finish()
+
+        assertThat(listener.loadingDoneCount).isEqualTo(1)
+    }
+
+    @Test
+    fun `joinInFlight returns false once the load in flight has finished`() {
+        val load = coordinator.join(SCHEDULE_URL, isUserRequest = false, TestListener().listener)!!
+        load.finish()
+        assertThat(coordinator.joinInFlight(SCHEDULE_URL, isUserRequest = false, TestListener().listener)).isFalse()
+    }
+
+    @Test
+    fun `join upgrades a background load in flight to a user request`() {
+        val load = coordinator.join(SCHEDULE_URL, isUserRequest = false, TestListener().listener)!!
+        coordinator.join(SCHEDULE_URL, isUserRequest = true, TestListener().listener)
+        assertThat(load.isUserRequest).isTrue()
+    }
+
+    @Test
+    fun `join does not downgrade a user request in flight to a background load`() {
+        val load = coordinator.join(SCHEDULE_URL, isUserRequest = true, TestListener().listener)!!
+        coordinator.join(SCHEDULE_URL, isUserRequest = false, TestListener().listener)
+        assertThat(load.isUserRequest).isTrue()
+    }
+
+    @Test
+    fun `load passes its results to all listeners`() {
+        val firstListener = TestListener()
+        val secondListener = TestListener()
+        val load = coordinator.join(SCHEDULE_URL, isUserRequest = false, firstListener.listener)!!
+        coordinator.join(SCHEDULE_URL, isUserRequest = false, secondListener.listener)
+
+        load.onFetchingDone(FETCH_RESULT)
+        load.onParsingDone(PARSE_RESULT)
+        load.onLoadingShiftsDone(LoadShiftsResult.Success)
+
+        listOf(firstListener, secondListener).forEach {
+            assertThat(it.fetchResults).containsExactly(FETCH_RESULT)
+            assertThat(it.parseResults).containsExactly(PARSE_RESULT)
+            assertThat(it.loadShiftsResults).containsExactly(LoadShiftsResult.Success)
+        }
+    }
+
+    @Test
+    fun `load passes the results delivered before a listener joined to it`() {
+        val load = coordinator.join(SCHEDULE_URL, isUserRequest = false, TestListener().listener)!!
+        load.onFetchingDone(FETCH_RESULT)
+        val lateListener = TestListener()
+
+        coordinator.join(SCHEDULE_URL, isUserRequest = false, lateListener.listener)
+        load.onParsingDone(PARSE_RESULT)
+
+        assertThat(lateListener.fetchResults).containsExactly(FETCH_RESULT)
+        assertThat(lateListener.parseResults).containsExactly(PARSE_RESULT)
+        assertThat(lateListener.loadShiftsResults).isEmpty()
+    }
+
+    @Test
+    fun `finish notifies all listeners once`() {
+        val firstListener = TestListener()
+        val secondListener = TestListener()
+        val load = coordinator.join(SCHEDULE_URL, isUserRequest = false, firstListener.listener)!!
+        coordinator.join(SCHEDULE_URL, isUserRequest = false, secondListener.listener)
+
+        load.finish()
+        load.finish()
+
+        assertThat(firstListener.loadingDoneCount).isEqualTo(1)
+        assertThat(secondListener.loadingDoneCount).isEqualTo(1)
+    }
+
+    private class TestListener {
+
+        val fetchResults = mutableListOf<FetchScheduleResult>()
+        val parseResults = mutableListOf<ParseResult>()
+        val loadShiftsResults = mutableListOf<LoadShiftsResult>()
+        var loadingDoneCount = 0
+
+        val listener = ScheduleLoadListener(
+            onFetchingDone = { fetchResults += it },
+            onParsingDone = { parseResults += it },
+            onLoadingShiftsDone = { loadShiftsResults += it },
+            onLoadingDone = { loadingDoneCount++ },
+        )
+
+    }
+
+}
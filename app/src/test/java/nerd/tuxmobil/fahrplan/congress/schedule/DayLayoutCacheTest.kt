@@ -0,0 +1,66 @@
+package nerd.tuxmobil.fahrplan.congress.schedule
+
+import com.google.common.truth.Truth.assertThat
+import nerd.tuxmobil.fahrplan.congress.models.RoomData
+import nerd.tuxmobil.fahrplan.congress.models.ScheduleData
+import nerd.tuxmobil.fahrplan.congress.models.Session
+import org.junit.jupiter.api.Test
+
+class DayLayoutCacheTest {
+
+    private val startsAt = 1582963200000L // February 29, 2020 08:00:00 AM GMT
+    private val session = Session("s1", dateUTC = startsAt, duration = 30)
+    private val scheduleData = ScheduleData(
+        dayIndex = 1,
+        roomDataList = listOf(RoomData(roomName = "Room A", sessions = listOf(session)))
+    )
+
+    @Test
+    fun `layoutOf returns the cached layout for the same day and box height`() {
+        val cache = DayLayoutCache()
+        val layout = cache.layoutOf(scheduleData, normalizedBoxHeight = 34)
+        assertThat(cache.layoutOf(scheduleData, normalizedBoxHeight = 34)).isSameInstanceAs(layout)
+    }
+
+    @Test
+    fun `layoutOf returns the cached layout if only the highlight of a session changed`() {
+        val cache = DayLayoutCache()
+        val layout = cache.layoutOf(scheduleData, normalizedBoxHeight = 34)
+        val highlighted = scheduleData.copy(roomDataList = listOf(
+            RoomData(roomName = "Room A", sessions = listOf(session.copy(highlight = true)))
+        ))
+        assertThat(cache.layoutOf(highlighted, normalizedBoxHeight = 34)).isSameInstanceAs(layout)
+    }
+
+    @Test
+    fun `layoutOf calculates the layout again for another box height`() {
+        val cache = DayLayoutCache()
+        val layout = cache.layoutOf(scheduleData, normalizedBoxHeight = 34)
+        val otherLayout = cache.layoutOf(scheduleData, normalizedBoxHeight = 42)
+        assertThat(otherLayout).isNotSameInstanceAs(layout)
+        assertThat(otherLayout.columns[0].heights[0]).isEqualTo(LayoutCalculator(42).calculateDisplayDistance(30))
+    }
+
+    @Test
+    fun `layoutOf calculates the layout again once the duration of a session changed`() {
+        val cache = DayLayoutCache()
+        cache.layoutOf(scheduleData, normalizedBoxHeight = 34)
+        val rescheduled = scheduleData.copy(roomDataList = listOf(
+            RoomData(roomName = "Room A", sessions = listOf(session.copy(duration = 60)))
+        ))
+        val layout = cache.layoutOf(rescheduled, normalizedBoxHeight = 34)
+        assertThat(layout.columns[0].heights[0]).isEqualTo(LayoutCalculator(34).calculateDisplayDistance(60))
+    }
+
+    @Test
+    fun `updateScheduleVersion drops the layouts of the previous version`() {
+        val cache = DayLayoutCache()
+        cache.updateScheduleVersion("1.0")
+        val layout = cache.layoutOf(scheduleData, normalizedBoxHeight = 34)
+        cache.updateScheduleVersion("1.0")
+        assertThat(cache.layoutOf(scheduleData, normalizedBoxHeight = 34)).isSameInstanceAs(layout)
+        cache.updateScheduleVersion("1.1")
+        assertThat(cache.layoutOf(scheduleData, normalizedBoxHeight = 34)).isNotSameInstanceAs(layout)
+    }
+
+}
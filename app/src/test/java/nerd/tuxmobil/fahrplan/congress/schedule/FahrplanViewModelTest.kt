@@ -30,7 +30,7 @@ import nerd.tuxmobil.fahrplan.congress.schedule.observables.FahrplanEmptyParamet
 import nerd.tuxmobil.fahrplan.congress.schedule.observables.FahrplanParameter
 import nerd.tuxmobil.fahrplan.congress.schedule.observables.ScrollToCurrentSessionParameter
 import nerd.tuxmobil.fahrplan.congress.schedule.observables.ScrollToSessionParameter
-import nerd.tuxmobil.fahrplan.congress.schedule.observables.TimeTextViewParameter
+import nerd.tuxmobil.fahrplan.congress.schedule.observables.TimeRulerParameter
 import nerd.tuxmobil.fahrplan.congress.sharing.JsonSessionFormat
 import nerd.tuxmobil.fahrplan.congress.sharing.SimpleSessionFormat
 import org.junit.jupiter.api.Disabled
@@ -303,13 +303,30 @@ class FahrplanViewModelTest {
             verifyInvokedNever(repository).loadSchedule(isUserRequest = false, onFetchingDone = {}, onParsingDone = {}, onLoadingShiftsDone = {})
         }
 
+        @Test
+        fun `requestScheduleAutoUpdateOnReconnect invokes repository function if the schedule has not been fetched recently`() {
+            val repository = createRepository(isAutoUpdateEnabled = true, scheduleLastFetchedAt = 0)
+            val viewModel = createViewModel(repository)
+            viewModel.requestScheduleAutoUpdateOnReconnect()
+            verifyInvokedOnce(repository).loadSchedule(isUserRequest = false, onFetchingDone = {}, onParsingDone = {}, onLoadingShiftsDone = {})
+        }
+
+        @Test
+        fun `requestScheduleAutoUpdateOnReconnect never invokes repository function if the schedule has been fetched recently`() {
+            val lastFetchedAt = Moment.now().minusMinutes(1).toMilliseconds()
+            val repository = createRepository(isAutoUpdateEnabled = true, scheduleLastFetchedAt = lastFetchedAt)
+            val viewModel = createViewModel(repository)
+            viewModel.requestScheduleAutoUpdateOnReconnect()
+            verifyInvokedNever(repository).loadSchedule(isUserRequest = false, onFetchingDone = {}, onParsingDone = {}, onLoadingShiftsDone = {})
+        }
+
     }
 
     @Nested
     inner class TimeText {
 
         @Test
-        fun `fillTimes posts TimeTextViewParameter to timeTextViewParameters property`() = runTest {
+        fun `fillTimes posts TimeRulerParameter to timeRulerParameter property`() = runTest {
             val startsAt = 1582963200000L // February 29, 2020 08:00:00 AM GMT
             val session = Session(
                 sessionId = "session-01",
@@ -322,16 +339,43 @@ class FahrplanViewModelTest {
             )
             val viewModel = createViewModel(repository)
             viewModel.fillTimes(nowMoment = mock(), normalizedBoxHeight = 42)
-            val expected = listOf(
-                TimeTextViewParameter(R.layout.time_layout, height = 126, titleText = "08:00"),
-                TimeTextViewParameter(R.layout.time_layout, height = 126, titleText = "08:15")
+            val expected = TimeRulerParameter(
+                slotLabels = listOf("08:00", "08:15"),
+                slotHeight = 126,
+                nowSlotIndex = TimeRulerParameter.NO_SLOT_INDEX
             )
-            viewModel.timeTextViewParameters.test {
+            viewModel.timeRulerParameter.test {
                 assertThat(awaitItem()).isEqualTo(expected)
+                cancelAndIgnoreRemainingEvents()
             }
             verifyInvokedOnce(repository).readUseDeviceTimeZoneEnabled()
         }
 
+        @Test
+        fun `fillTimes moves the now slot and keeps the slot labels`() = runTest {
+            val startsAt = Moment.ofEpochMilli(1582963200000L) // February 29, 2020 08:00:00 AM GMT
+            val session = Session(
+                sessionId = "session-01",
+                dateUTC = startsAt.toMilliseconds(),
+                duration = 30,
+                timeZoneOffset = ZoneOffset.UTC,
+            )
+            val repository = createRepository(
+                uncanceledSessionsForDayIndexFlow = flowOf(createScheduleData(session)),
+            )
+            val viewModel = createViewModel(repository)
+            viewModel.fillTimes(nowMoment = startsAt.plusMinutes(5), normalizedBoxHeight = 42)
+            viewModel.timeRulerParameter.test {
+                val first = awaitItem()
+                assertThat(first.nowSlotIndex).isEqualTo(0)
+                viewModel.fillTimes(nowMoment = startsAt.plusMinutes(20), normalizedBoxHeight = 42)
+                val second = awaitItem()
+                assertThat(second.nowSlotIndex).isEqualTo(1)
+                assertThat(second.slotLabels).isSameInstanceAs(first.slotLabels)
+                cancelAndIgnoreRemainingEvents()
+            }
+        }
+
     }
 
     @Nested
@@ -630,6 +674,7 @@ class FahrplanViewModelTest {
         isAutoUpdateEnabled: Boolean = true,
         displayDayIndex: Int = 0,
         dateInfos: DateInfos = DateInfos(),
+        scheduleLastFetchedAt: Long = 0,
     ) = mock<AppRepository> {
         on { sessions } doReturn sessionsFlow
         on { uncanceledSessionsForDayIndex } doReturn uncanceledSessionsForDayIndexFlow
@@ -640,6 +685,7 @@ class FahrplanViewModelTest {
         on { readAutoUpdateEnabled() } doReturn isAutoUpdateEnabled
         on { readDisplayDayIndex() } doReturn displayDayIndex
         on { readDateInfos() } doReturn dateInfos
+        on { readScheduleLastFetchedAt() } doReturn scheduleLastFetchedAt
     }
 
     private fun createScheduleData(sessionId: String? = null, hasAlarm: Boolean = false): ScheduleData {
@@ -0,0 +1,29 @@
+package nerd.tuxmobil.fahrplan.congress.schedule
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Test
+
+class FrameTimeStatsTest {
+
+    @Test
+    fun `stats are empty without frames`() {
+        val stats = FrameTimeStats(jankThresholdNanos = 20)
+        assertThat(stats.frames).isEqualTo(0)
+        assertThat(stats.jankyFrames).isEqualTo(0)
+        assertThat(stats.maxDurationNanos).isEqualTo(0)
+        assertThat(stats.averageDurationNanos).isEqualTo(0)
+    }
+
+    @Test
+    fun `add counts the frames exceeding the threshold as janky`() {
+        val stats = FrameTimeStats(jankThresholdNanos = 20)
+        stats.add(10)
+        stats.add(20)
+        stats.add(60)
+        assertThat(stats.frames).isEqualTo(3)
+        assertThat(stats.jankyFrames).isEqualTo(1)
+        assertThat(stats.maxDurationNanos).isEqualTo(60)
+        assertThat(stats.averageDurationNanos).isEqualTo(30)
+    }
+
+}
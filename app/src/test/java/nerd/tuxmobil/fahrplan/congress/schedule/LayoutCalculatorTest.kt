@@ -1,6 +1,5 @@
 package nerd.tuxmobil.fahrplan.congress.schedule
 
-import android.widget.LinearLayout
 import com.google.common.truth.Truth.assertThat
 import info.metadude.android.eventfahrplan.commons.temporal.Moment
 import nerd.tuxmobil.fahrplan.congress.NoLogging
@@ -27,32 +26,32 @@ class LayoutCalculatorTest {
     }
 
     @Test
-    fun `calculateLayoutParams for single session returns margins 0`() {
+    fun `calculateColumnLayout for single session returns margins 0`() {
         val sessions = listOf(createSession())
         val conference = Conference.ofSessions(sessions)
         val roomData = sessions.toRoomData()
 
-        val layoutParams = layoutCalculator.calculateLayoutParams(roomData, conference)
-        val sessionParams = layoutParams[sessions.first().sessionId]
+        val columnLayout = layoutCalculator.calculateColumnLayout(roomData, conference)
+        val sessionMargins = columnLayout.marginsOf(roomData, sessions.first())
 
-        assertMargins(sessionParams, 0, 0)
+        assertMargins(sessionMargins, 0, 0)
     }
 
     @Test
-    fun `calculateLayoutParams for single UTC session sets top margin 0 (its the first session in all rooms, so on the top)`() {
+    fun `calculateColumnLayout for single UTC session sets top margin 0 (its the first session in all rooms, so on the top)`() {
         val startTime = 10 * 60 // 10:00am
         val sessions = listOf(createSession(date = conferenceDate, startTime = startTime))
         val conference = Conference.ofSessions(sessions)
         val roomData = sessions.toRoomData()
 
-        val layoutParams = layoutCalculator.calculateLayoutParams(roomData, conference)
-        val sessionParams = layoutParams[sessions.first().sessionId]
+        val columnLayout = layoutCalculator.calculateColumnLayout(roomData, conference)
+        val sessionMargins = columnLayout.marginsOf(roomData, sessions.first())
 
-        assertMargins(sessionParams, 0, 0)
+        assertMargins(sessionMargins, 0, 0)
     }
 
     @Test
-    fun `calculateLayoutParams for consecutive session sets margins based on gap duration`() {
+    fun `calculateColumnLayout for consecutive session sets margins based on gap duration`() {
         val startTime1 = 10 * 60 // 10:00am
         val duration1 = 45
         val gapMinutes = 15
@@ -64,16 +63,16 @@ class LayoutCalculatorTest {
         val conference = Conference.ofSessions(sessions)
         val roomData = sessions.toRoomData()
 
-        val layoutParams = layoutCalculator.calculateLayoutParams(roomData, conference)
-        val session1Params = layoutParams[session1.sessionId]
-        val session2Params = layoutParams[session2.sessionId]
+        val columnLayout = layoutCalculator.calculateColumnLayout(roomData, conference)
+        val session1Margins = columnLayout.marginsOf(roomData, session1)
+        val session2Margins = columnLayout.marginsOf(roomData, session2)
 
-        assertMargins(session1Params, 0, gapMinutes)
-        assertMargins(session2Params, 0, 0)
+        assertMargins(session1Margins, 0, gapMinutes)
+        assertMargins(session2Margins, 0, 0)
     }
 
     @Test
-    fun `calculateLayoutParams for consecutive session in another room sets top margin based on conference day start`() {
+    fun `calculateColumnLayout for consecutive session in another room sets top margin based on conference day start`() {
         /*
                          room 1             room 2
                    +---------------------------------------+
@@ -99,15 +98,15 @@ class LayoutCalculatorTest {
         val conference = Conference.ofSessions(listOf(session1, session2))
         val roomData = listOf(session2).toRoomData()
 
-        val layoutParams = layoutCalculator.calculateLayoutParams(roomData, conference)
-        val session2Params = layoutParams[session2.sessionId]
+        val columnLayout = layoutCalculator.calculateColumnLayout(roomData, conference)
+        val session2Margins = columnLayout.marginsOf(roomData, session2)
         val gapMinutes = 60
 
-        assertMargins(session2Params, gapMinutes, 0)
+        assertMargins(session2Margins, gapMinutes, 0)
     }
 
     @Test
-    fun `calculateLayoutParams consecutive session after midnight in another room`() {
+    fun `calculateColumnLayout consecutive session after midnight in another room`() {
         val duration1 = 45
         val startTime1 = 23 * 60 // 11:00pm
         val startTime2 = startTime1 + duration1 + 20 // 00:05am, next day
@@ -120,18 +119,18 @@ class LayoutCalculatorTest {
         val roomData1 = sessionsInRoom1.toRoomData()
         val roomData2 = sessionsInRoom2.toRoomData()
 
-        val layoutParamsRoom1 = layoutCalculator.calculateLayoutParams(roomData1, conference)
-        val layoutParamsRoom2 = layoutCalculator.calculateLayoutParams(roomData2, conference)
-        val session1Params = layoutParamsRoom1[session1.sessionId]
-        val session2Params = layoutParamsRoom2[session2.sessionId]
+        val columnLayoutRoom1 = layoutCalculator.calculateColumnLayout(roomData1, conference)
+        val columnLayoutRoom2 = layoutCalculator.calculateColumnLayout(roomData2, conference)
+        val session1Margins = columnLayoutRoom1.marginsOf(roomData1, session1)
+        val session2Margins = columnLayoutRoom2.marginsOf(roomData2, session2)
         val gapMinutes = 5 + 60 // 5 minutes in new day. 60 minutes on previous day, from session1, which starts at 11am
 
-        assertMargins(session1Params, 0, 0)
-        assertMargins(session2Params, gapMinutes, 0)
+        assertMargins(session1Margins, 0, 0)
+        assertMargins(session2Margins, gapMinutes, 0)
     }
 
     @Test
-    fun `calculateLayoutParams consecutive session after midnight in same room`() {
+    fun `calculateColumnLayout consecutive session after midnight in same room`() {
         val duration1 = 45
         val startTime1 = 23 * 60 // 11:00pm
         val startTime2 = startTime1 + duration1 + 30 // 00:15am, next day
@@ -142,17 +141,17 @@ class LayoutCalculatorTest {
         val conference = Conference.ofSessions(sessions)
         val roomData = sessions.toRoomData()
 
-        val layoutParams = layoutCalculator.calculateLayoutParams(roomData, conference)
-        val session1Params = layoutParams[session1.sessionId]
-        val session2Params = layoutParams[session2.sessionId]
+        val columnLayout = layoutCalculator.calculateColumnLayout(roomData, conference)
+        val session1Margins = columnLayout.marginsOf(roomData, session1)
+        val session2Margins = columnLayout.marginsOf(roomData, session2)
         val gapMinutes = 30
 
-        assertMargins(session1Params, 0, gapMinutes)
-        assertMargins(session2Params, 0, 0)
+        assertMargins(session1Margins, 0, gapMinutes)
+        assertMargins(session2Margins, 0, 0)
     }
 
     @Test
-    fun `calculateLayoutParams overlapping session in same room - should cut first session duration to match next session start`() {
+    fun `calculateColumnLayout overlapping session in same room - should cut first session duration to match next session start`() {
         val duration1 = 45
         val startTime1 = 10 * 60 // 10:00am
         val startTime2 = startTime1 + duration1 - 10 // 10:35am (10 minutes overlap)
@@ -163,16 +162,17 @@ class LayoutCalculatorTest {
         val conference = Conference.ofSessions(sessions)
         val roomData = sessions.toRoomData()
 
-        val layoutParams = layoutCalculator.calculateLayoutParams(roomData, conference)
-        val session1Params = layoutParams[session1.sessionId]
-        val session2Params = layoutParams[session2.sessionId]
+        val columnLayout = layoutCalculator.calculateColumnLayout(roomData, conference)
+        val session1Margins = columnLayout.marginsOf(roomData, session1)
+        val session2Margins = columnLayout.marginsOf(roomData, session2)
 
-        assertMargins(session1Params, 0, 0)
-        assertMargins(session2Params, 0, 0)
+        assertMargins(session1Margins, 0, 0)
+        assertMargins(session2Margins, 0, 0)
+        assertThat(columnLayout.heights[0]).isEqualTo(layoutCalculator.calculateDisplayDistance(35))
     }
 
     @Test
-    fun `calculateLayoutParams overlapping session in another room - should not cut any session`() {
+    fun `calculateColumnLayout overlapping session in another room - should not cut any session`() {
         val duration1 = 45
         val startTime1 = 10 * 60 // 10:00am
         val startTime2 = startTime1 + duration1 - 10 // 10:35am (10 minutes overlap)
@@ -185,13 +185,27 @@ class LayoutCalculatorTest {
         val roomData1 = sessionsInRoom1.toRoomData()
         val roomData2 = sessionsInRoom2.toRoomData()
 
-        val layoutParamsRoom1 = layoutCalculator.calculateLayoutParams(roomData1, conference)
-        val layoutParamsRoom2 = layoutCalculator.calculateLayoutParams(roomData2, conference)
-        val session1Params = layoutParamsRoom1[session1.sessionId]
-        val session2Params = layoutParamsRoom2[session2.sessionId]
+        val columnLayoutRoom1 = layoutCalculator.calculateColumnLayout(roomData1, conference)
+        val columnLayoutRoom2 = layoutCalculator.calculateColumnLayout(roomData2, conference)
+        val session1Margins = columnLayoutRoom1.marginsOf(roomData1, session1)
+        val session2Margins = columnLayoutRoom2.marginsOf(roomData2, session2)
 
-        assertMargins(session1Params, 0, 0)
-        assertMargins(session2Params, 35, 0)
+        assertMargins(session1Margins, 0, 0)
+        assertMargins(session2Margins, 35, 0)
+    }
+
+    @Test
+    fun `calculateDayLayout returns one column per room and the fingerprint of the sessions`() {
+        val session1 = createSession(date = conferenceDate, startTime = 10 * 60, duration = 45)
+        val session2 = createSession(date = conferenceDate, startTime = 11 * 60, duration = 30)
+        val roomDataList = listOf(listOf(session1).toRoomData(), listOf(session2).toRoomData())
+        val conference = Conference.ofSessions(listOf(session1, session2))
+
+        val dayLayout = layoutCalculator.calculateDayLayout(roomDataList, conference)
+
+        assertThat(dayLayout.columns.map { it.size }).containsExactly(1, 1).inOrder()
+        assertThat(dayLayout.columns[1].heights[0]).isEqualTo(layoutCalculator.calculateDisplayDistance(30))
+        assertThat(dayLayout.fingerprint).isEqualTo(DayLayout.fingerprintOf(roomDataList))
     }
 
     @Test
@@ -226,12 +240,19 @@ class LayoutCalculatorTest {
         assertThat(session2.duration).isEqualTo(45) // not mutated
     }
 
-    private fun assertMargins(sessionParams: LinearLayout.LayoutParams?, top: Int, bottom: Int) {
-        assertThat(sessionParams!!).isNotNull()
-        assertThat(sessionParams.topMargin).isEqualTo(layoutCalculator.calculateDisplayDistance(top))
-        assertThat(sessionParams.bottomMargin).isEqualTo(layoutCalculator.calculateDisplayDistance(bottom))
+    private fun ColumnLayout.marginsOf(roomData: RoomData, session: Session): Margins {
+        val index = roomData.sessions.indexOf(session)
+        assertThat(index).isAtLeast(0)
+        return Margins(topMargins[index], bottomMargins[index])
+    }
+
+    private fun assertMargins(margins: Margins, top: Int, bottom: Int) {
+        assertThat(margins.top).isEqualTo(layoutCalculator.calculateDisplayDistance(top))
+        assertThat(margins.bottom).isEqualTo(layoutCalculator.calculateDisplayDistance(bottom))
     }
 
+    private data class Margins(val top: Int, val bottom: Int)
+
     private fun List<Session>.toRoomData() = RoomData(roomName = "irrelevant", sessions = this)
 }
 
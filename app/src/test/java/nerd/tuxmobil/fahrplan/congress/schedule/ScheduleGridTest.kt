@@ -0,0 +1,92 @@
+package nerd.tuxmobil.fahrplan.congress.schedule
+
+import com.google.common.truth.Truth.assertThat
+import nerd.tuxmobil.fahrplan.congress.models.RoomData
+import nerd.tuxmobil.fahrplan.congress.models.Session
+import org.junit.jupiter.api.Test
+
+class ScheduleGridTest {
+
+    private val session1 = Session("s1")
+    private val session2 = Session("s2")
+    private val session3 = Session("s3")
+
+    private val grid = ScheduleGrid.of(
+        roomDataList = listOf(
+            RoomData(roomName = "Room A", sessions = listOf(session1, session2)),
+            RoomData(roomName = "Room B", sessions = listOf(session3)),
+        ),
+        dayLayout = DayLayout(
+            columns = listOf(
+                createColumnLayout(
+                    Margins(top = 10, height = 30, bottom = 20),
+                    Margins(top = 0, height = 40),
+                ),
+                createColumnLayout(
+                    Margins(top = 5, height = 50),
+                ),
+            ),
+            fingerprint = 0
+        )
+    )
+
+    @Test
+    fun `of stacks the sessions of each room according to their margins`() {
+        assertThat(grid.columns).containsExactly(
+            listOf(
+                GridCell(session1, columnIndex = 0, top = 10, height = 30),
+                GridCell(session2, columnIndex = 0, top = 60, height = 40),
+            ),
+            listOf(
+                GridCell(session3, columnIndex = 1, top = 5, height = 50),
+            ),
+        ).inOrder()
+    }
+
+    @Test
+    fun `height returns the bottom of the tallest column`() {
+        assertThat(grid.height).isEqualTo(100)
+    }
+
+    @Test
+    fun `height returns 0 for an empty grid`() {
+        assertThat(ScheduleGrid.EMPTY.height).isEqualTo(0)
+    }
+
+    @Test
+    fun `cellsBySessionId returns the cells of all columns`() {
+        assertThat(grid.cellsBySessionId()).containsExactly(
+            session1.sessionId, GridCell(session1, columnIndex = 0, top = 10, height = 30),
+            session2.sessionId, GridCell(session2, columnIndex = 0, top = 60, height = 40),
+            session3.sessionId, GridCell(session3, columnIndex = 1, top = 5, height = 50),
+        )
+    }
+
+    @Test
+    fun `cellsWithin returns the cells intersecting the range`() {
+        assertThat(grid.cellsWithin(columnIndex = 0, top = 0, bottom = 200).map { it.session }).containsExactly(session1, session2).inOrder()
+        assertThat(grid.cellsWithin(columnIndex = 0, top = 39, bottom = 61).map { it.session }).containsExactly(session1, session2).inOrder()
+    }
+
+    @Test
+    fun `cellsWithin excludes cells which only touch the range`() {
+        assertThat(grid.cellsWithin(columnIndex = 0, top = 40, bottom = 60)).isEmpty()
+        assertThat(grid.cellsWithin(columnIndex = 0, top = 0, bottom = 10)).isEmpty()
+    }
+
+    @Test
+    fun `cellsWithin returns no cells below the last cell`() {
+        assertThat(grid.cellsWithin(columnIndex = 1, top = 55, bottom = 500)).isEmpty()
+    }
+
+    private class Margins(val top: Int, val height: Int, val bottom: Int = 0)
+
+    private fun createColumnLayout(vararg margins: Margins) = ColumnLayout(margins.size).apply {
+        margins.forEachIndexed { index, margin ->
+            topMargins[index] = margin.top
+            heights[index] = margin.height
+            bottomMargins[index] = margin.bottom
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package nerd.tuxmobil.fahrplan.congress.schedule
+
+import com.google.common.truth.Truth.assertThat
+import nerd.tuxmobil.fahrplan.congress.models.Session
+import org.junit.jupiter.api.Test
+
+class SessionChangeTest {
+
+    private val session = Session("s1", title = "Title")
+
+    @Test
+    fun `of returns an empty set if nothing changed`() {
+        assertThat(SessionChange.of(session, session.copy())).isEmpty()
+    }
+
+    @Test
+    fun `of returns HIGHLIGHT if only the highlight changed`() {
+        assertThat(SessionChange.of(session, session.copy(highlight = true)))
+            .containsExactly(SessionChange.HIGHLIGHT)
+    }
+
+    @Test
+    fun `of returns ALARM if only the alarm changed`() {
+        assertThat(SessionChange.of(session, session.copy(hasAlarm = true)))
+            .containsExactly(SessionChange.ALARM)
+    }
+
+    @Test
+    fun `of returns HIGHLIGHT and ALARM if both changed`() {
+        assertThat(SessionChange.of(session, session.copy(highlight = true, hasAlarm = true)))
+            .containsExactly(SessionChange.HIGHLIGHT, SessionChange.ALARM)
+    }
+
+    @Test
+    fun `of returns null if any other property changed`() {
+        assertThat(SessionChange.of(session, session.copy(title = "Other title", highlight = true))).isNull()
+    }
+
+}
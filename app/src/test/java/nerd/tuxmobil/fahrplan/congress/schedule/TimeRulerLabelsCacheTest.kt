@@ -0,0 +1,60 @@
+package nerd.tuxmobil.fahrplan.congress.schedule
+
+import com.google.common.truth.Truth.assertThat
+import info.metadude.android.eventfahrplan.commons.temporal.Moment
+import org.junit.jupiter.api.Test
+import org.threeten.bp.ZoneOffset
+
+class TimeRulerLabelsCacheTest {
+
+    private val startsAt = Moment.ofEpochMilli(1582963200000L) // February 29, 2020 08:00:00 AM GMT
+    private val conference = createConference(startsAt, startsAt.plusMinutes(60))
+
+    @Test
+    fun `slotLabelsOf returns the formatted labels`() {
+        val cache = TimeRulerLabelsCache()
+        val slotLabels = cache.slotLabelsOf(dayIndex = 1, conference, useDeviceTimeZone = false)
+        assertThat(slotLabels).containsExactly("08:00", "08:15", "08:30", "08:45").inOrder()
+    }
+
+    @Test
+    fun `slotLabelsOf returns the cached labels for the same day and time zone mode`() {
+        val cache = TimeRulerLabelsCache()
+        val first = cache.slotLabelsOf(dayIndex = 1, conference, useDeviceTimeZone = false)
+        val second = cache.slotLabelsOf(dayIndex = 1, conference.copy(), useDeviceTimeZone = false)
+        assertThat(second).isSameInstanceAs(first)
+    }
+
+    @Test
+    fun `slotLabelsOf formats the labels again for another time zone mode`() {
+        val cache = TimeRulerLabelsCache()
+        val first = cache.slotLabelsOf(dayIndex = 1, conference, useDeviceTimeZone = false)
+        val second = cache.slotLabelsOf(dayIndex = 1, conference, useDeviceTimeZone = true)
+        assertThat(second).isNotSameInstanceAs(first)
+    }
+
+    @Test
+    fun `slotLabelsOf formats the labels again once the time frame of the day changed`() {
+        val cache = TimeRulerLabelsCache()
+        cache.slotLabelsOf(dayIndex = 1, conference, useDeviceTimeZone = false)
+        val updatedConference = createConference(startsAt, startsAt.plusMinutes(30))
+        val slotLabels = cache.slotLabelsOf(dayIndex = 1, updatedConference, useDeviceTimeZone = false)
+        assertThat(slotLabels).containsExactly("08:00", "08:15").inOrder()
+    }
+
+    @Test
+    fun `slotLabelsOf evicts the least recently used day`() {
+        val cache = TimeRulerLabelsCache(maxSize = 1)
+        val first = cache.slotLabelsOf(dayIndex = 1, conference, useDeviceTimeZone = false)
+        cache.slotLabelsOf(dayIndex = 2, conference, useDeviceTimeZone = false)
+        val second = cache.slotLabelsOf(dayIndex = 1, conference, useDeviceTimeZone = false)
+        assertThat(second).isNotSameInstanceAs(first)
+    }
+
+    private fun createConference(startsAt: Moment, endsAt: Moment) = Conference(
+        timeFrame = startsAt..endsAt,
+        timeZoneOffset = ZoneOffset.UTC,
+        spansMultipleDays = false
+    )
+
+}
@@ -0,0 +1,171 @@
+package nerd.tuxmobil.fahrplan.congress.schedule.observables
+
+import com.google.common.truth.Truth.assertThat
+import info.metadude.android.eventfahrplan.commons.temporal.Moment
+import nerd.tuxmobil.fahrplan.congress.models.Session
+import nerd.tuxmobil.fahrplan.congress.schedule.Conference
+import nerd.tuxmobil.fahrplan.congress.schedule.observables.TimeRulerParameter.Companion.NO_SLOT_INDEX
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.threeten.bp.ZoneOffset
+import java.util.Locale
+import java.util.TimeZone
+
+class TimeRulerParameterTest {
+
+    private companion object {
+        const val NORMALIZED_BOX_HEIGHT = 34 // Pixel 2 portrait mode
+    }
+
+    private val systemTimezone = TimeZone.getDefault()
+    private val systemLocale = Locale.getDefault()
+
+    @BeforeEach
+    fun setUp() {
+        Locale.setDefault(Locale("de", "DE"))
+        TimeZone.setDefault(TimeZone.getTimeZone("GMT"))
+    }
+
+    @AfterEach
+    fun resetSystemDefaults() {
+        Locale.setDefault(systemLocale)
+        TimeZone.setDefault(systemTimezone)
+    }
+
+    @Test
+    fun `parameterOf returns four slots without -now- slot if the session happened yesterday`() {
+        val moment = Moment.ofEpochMilli(1582963200000L) // February 29, 2020 08:00:00 AM GMT
+        val nowMoment = moment.plusDays(1)
+        val parameter = parameterOf(nowMoment, moment, 60)
+        assertThat(parameter.slotLabels.size).isEqualTo(4)
+        assertThat(parameter.slotLabels[0]).isEqualTo("08:00")
+        assertThat(parameter.slotLabels[1]).isEqualTo("08:15")
+        assertThat(parameter.slotLabels[2]).isEqualTo("08:30")
+        assertThat(parameter.slotLabels[3]).isEqualTo("08:45")
+        assertThat(parameter.nowSlotIndex).isEqualTo(NO_SLOT_INDEX)
+    }
+
+    @Test
+    fun `parameterOf returns four slots without -now- slot if the session happened at the same date last month`() {
+        val momentInFebruary = Moment.ofEpochMilli(1582963200000L) // February 29, 2020 08:00:00 AM GMT
+        val momentInMarch = Moment.ofEpochMilli(1585468800000L) // March 29, 2020 08:00:00 AM GMT
+        val nowMoment = momentInMarch.plusMinutes(30)
+        val parameter = parameterOf(nowMoment, momentInFebruary, 60)
+        assertThat(parameter.slotLabels.size).isEqualTo(4)
+        assertThat(parameter.slotLabels[0]).isEqualTo("08:00")
+        assertThat(parameter.slotLabels[1]).isEqualTo("08:15")
+        assertThat(parameter.slotLabels[2]).isEqualTo("08:30")
+        assertThat(parameter.slotLabels[3]).isEqualTo("08:45")
+        assertThat(parameter.nowSlotIndex).isEqualTo(NO_SLOT_INDEX)
+    }
+
+    @Test
+    fun `parameterOf returns four slots including one -now- slot if the session happens now`() {
+        val moment = Moment.ofEpochMilli(1582963200000L) // February 29, 2020 08:00:00 AM GMT
+        val nowMoment = moment.plusMinutes(30)
+        val parameter = parameterOf(nowMoment, moment, 60)
+        assertThat(parameter.slotLabels.size).isEqualTo(4)
+        assertThat(parameter.slotLabels[0]).isEqualTo("08:00")
+        assertThat(parameter.slotLabels[1]).isEqualTo("08:15")
+        assertThat(parameter.slotLabels[2]).isEqualTo("08:30")
+        assertThat(parameter.slotLabels[3]).isEqualTo("08:45")
+        assertThat(parameter.nowSlotIndex).isEqualTo(2)
+    }
+
+    @Test
+    fun `parameterOf returns four slots for a session crossing the intra-day limit if the session happened yesterday`() {
+        val moment = Moment.ofEpochMilli(1583019000000L) // February 29, 2020 11:30:00 PM GMT
+        val nowMoment = moment.plusDays(1)
+        val parameter = parameterOf(nowMoment, moment, 60)
+        assertThat(parameter.slotLabels.size).isEqualTo(4)
+        assertThat(parameter.slotLabels[0]).isEqualTo("23:30")
+        assertThat(parameter.slotLabels[1]).isEqualTo("23:45")
+        assertThat(parameter.slotLabels[2]).isEqualTo("00:00")
+        assertThat(parameter.slotLabels[3]).isEqualTo("00:15")
+        assertThat(parameter.nowSlotIndex).isEqualTo(NO_SLOT_INDEX)
+    }
+
+    @Test
+    fun `parameterOf returns four slots including one -now- slot for a session crossing the intra-day limit`() {
+        val moment = Moment.ofEpochMilli(1583019000000L) // February 29, 2020 11:30:00 PM GMT
+        val nowMoment = moment.plusMinutes(45) // March 1, 2020 00:15:00 AM GMT
+        val parameter = parameterOf(nowMoment, moment, 60)
+        assertThat(parameter.slotLabels.size).isEqualTo(4)
+        assertThat(parameter.slotLabels[0]).isEqualTo("23:30")
+        assertThat(parameter.slotLabels[1]).isEqualTo("23:45")
+        assertThat(parameter.slotLabels[2]).isEqualTo("00:00")
+        assertThat(parameter.slotLabels[3]).isEqualTo("00:15")
+        assertThat(parameter.nowSlotIndex).isEqualTo(3)
+    }
+
+    @Test
+    fun `parameterOf returns 20 slots for a session crossing the daylight saving time start`() {
+        val moment = Moment.ofEpochMilli(1616889600000L) // March 28, 2021 12:00:00 AM GMT
+        val nowMoment = moment.plusDays(1) // March 29, 2021 12:00:00 AM GMT
+        val parameter = parameterOf(nowMoment, moment, 300)
+        assertThat(parameter.slotLabels.size).isEqualTo(20)
+        assertThat(parameter.slotLabels[0]).isEqualTo("00:00")
+        assertThat(parameter.slotLabels[2]).isEqualTo("00:30")
+        assertThat(parameter.slotLabels[4]).isEqualTo("01:00")
+        assertThat(parameter.slotLabels[6]).isEqualTo("01:30")
+        assertThat(parameter.slotLabels[8]).isEqualTo("02:00") // Clock turns to 03:00 summer time, currently not supported, see Conference class
+        assertThat(parameter.slotLabels[10]).isEqualTo("02:30")
+        assertThat(parameter.slotLabels[12]).isEqualTo("03:00")
+        assertThat(parameter.slotLabels[14]).isEqualTo("03:30")
+        assertThat(parameter.slotLabels[16]).isEqualTo("04:00")
+        assertThat(parameter.nowSlotIndex).isEqualTo(NO_SLOT_INDEX)
+    }
+
+    @Test
+    fun `parameterOf returns 20 slots for a session crossing the daylight saving time end`() {
+        val moment = Moment.ofEpochMilli(1635638400000L) // October 31, 2021 12:00:00 AM GMT
+        val nowMoment = moment.plusDays(1) // November 1, 2021 12:00:00 AM GMT
+        val parameter = parameterOf(nowMoment, moment, 300)
+        assertThat(parameter.slotLabels.size).isEqualTo(20)
+        assertThat(parameter.slotLabels[0]).isEqualTo("00:00")
+        assertThat(parameter.slotLabels[2]).isEqualTo("00:30")
+        assertThat(parameter.slotLabels[4]).isEqualTo("01:00")
+        assertThat(parameter.slotLabels[6]).isEqualTo("01:30")
+        assertThat(parameter.slotLabels[8]).isEqualTo("02:00")
+        assertThat(parameter.slotLabels[10]).isEqualTo("02:30")
+        assertThat(parameter.slotLabels[12]).isEqualTo("03:00") // Clock turns to 02:00 winter time, currently not supported, see Conference class
+        assertThat(parameter.slotLabels[14]).isEqualTo("03:30")
+        assertThat(parameter.slotLabels[16]).isEqualTo("04:00")
+        assertThat(parameter.nowSlotIndex).isEqualTo(NO_SLOT_INDEX)
+    }
+
+    @Test
+    fun `parameterOf returns the slot height according to the normalized box height`() {
+        val moment = Moment.ofEpochMilli(1582963200000L) // February 29, 2020 08:00:00 AM GMT
+        val parameter = parameterOf(moment, moment, 60)
+        assertThat(parameter.slotHeight).isEqualTo(102)
+    }
+
+    @Test
+    fun `parameterOf keeps the given slot labels`() {
+        val moment = Moment.ofEpochMilli(1582963200000L) // February 29, 2020 08:00:00 AM GMT
+        val conference = Conference.ofSessions(listOf(createSession(moment)))
+        val slotLabels = listOf("a", "b", "c", "d")
+        val parameter = TimeRulerParameter.parameterOf(moment.plusDays(1), conference, NORMALIZED_BOX_HEIGHT, slotLabels)
+        assertThat(parameter.slotLabels).isSameInstanceAs(slotLabels)
+    }
+
+    private fun parameterOf(nowMoment: Moment, moment: Moment, duration: Int): TimeRulerParameter {
+        val session = createSession(moment, duration)
+        val conference = Conference.ofSessions(listOf(session))
+        val slotLabels = TimeRulerParameter.slotLabelsOf(conference, useDeviceTimeZone = false)
+        return TimeRulerParameter.parameterOf(nowMoment, conference, NORMALIZED_BOX_HEIGHT, slotLabels)
+    }
+
+    private fun createSession(moment: Moment, duration: Int = 60) = Session(
+        sessionId = "s1",
+        dayIndex = 0,
+        dateText = moment.toZonedDateTime(ZoneOffset.UTC).toLocalDate().toString(),
+        dateUTC = moment.toMilliseconds(),
+        startTime = moment.minuteOfDay,
+        duration = duration,
+        roomName = "Main hall",
+    )
+
+}
\ No newline at end of file
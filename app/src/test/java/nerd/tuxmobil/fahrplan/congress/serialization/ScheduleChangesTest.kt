@@ -2,7 +2,9 @@ package nerd.tuxmobil.fahrplan.congress.serialization
 
 import com.google.common.truth.Truth.assertThat
 import nerd.tuxmobil.fahrplan.congress.models.Session
+import nerd.tuxmobil.fahrplan.congress.serialization.ScheduleChanges.Companion.carryOverChangeFlags
 import nerd.tuxmobil.fahrplan.congress.serialization.ScheduleChanges.Companion.computeSessionsWithChangeFlags
+import org.junit.jupiter.api.Test
 import org.junit.jupiter.params.ParameterizedTest
 import org.junit.jupiter.params.provider.Arguments
 import org.junit.jupiter.params.provider.MethodSource
@@ -463,4 +465,24 @@ class ScheduleChangesTest {
         }
     }
 
+    @Test
+    fun `carryOverChangeFlags copies the change flags of the old sessions`() {
+        val oldSessions = listOf(
+            Session("1", title = "Old title", changedTitle = true),
+            Session("2", changedIsNew = true),
+        )
+        val newSessions = listOf(
+            Session("1", title = "New title"),
+            Session("2"),
+            Session("3"),
+        )
+        val sessions = carryOverChangeFlags(newSessions, oldSessions)
+        assertThat(sessions).isEqualTo(newSessions)
+        assertThat(sessions[0].changedTitle).isTrue()
+        assertThat(sessions[0].title).isEqualTo("New title")
+        assertThat(sessions[1].changedIsNew).isTrue()
+        assertThat(sessions[2].isChanged).isFalse()
+        assertThat(sessions[2].changedIsNew).isFalse()
+    }
+
 }
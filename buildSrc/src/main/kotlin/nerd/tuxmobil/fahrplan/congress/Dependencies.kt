@@ -56,10 +56,12 @@ object Libs {
         const val androidTest = "1.4.0"
         const val annotation = "1.8.0"
         const val appCompat = "1.6.1"
+        const val asyncLayoutInflater = "1.0.0"
         const val betterLinkMovementMethod = "2.2.0"
         const val constraintLayout = "2.1.4"
         const val coreKtx = "1.13.1"
         const val coreTesting = "2.2.0"
+        const val customView = "1.1.0"
         const val emailIntentBuilder = "2.0.0"
         const val engelsystem = "9.1.0"
         const val junitJupiter = "5.10.2"
@@ -79,16 +81,19 @@ object Libs {
         const val tracedroid = "3.1"
         const val truth = "1.4.2"
         const val turbine = "1.1.0"
+        const val workManager = "2.9.0"
     }
 
     const val androidTestCore = "de.mannodermaus.junit5:android-test-core:${Versions.androidTest}"
     const val androidTestRunner = "de.mannodermaus.junit5:android-test-runner:${Versions.androidTest}"
     const val annotation = "androidx.annotation:annotation:${Versions.annotation}"
     const val appCompat = "androidx.appcompat:appcompat:${Versions.appCompat}"
+    const val asyncLayoutInflater = "androidx.asynclayoutinflater:asynclayoutinflater:${Versions.asyncLayoutInflater}"
     const val betterLinkMovementMethod = "me.saket:better-link-movement-method:${Versions.betterLinkMovementMethod}"
     const val constraintLayout = "androidx.constraintlayout:constraintlayout:${Versions.constraintLayout}"
     const val coreKtx = "androidx.core:core-ktx:${Versions.coreKtx}"
     const val coreTesting = "androidx.arch.core:core-testing:${Versions.coreTesting}"
+    const val customView = "androidx.customview:customview:${Versions.customView}"
     const val emailIntentBuilder = "de.cketti.mailto:email-intent-builder:${Versions.emailIntentBuilder}"
     const val engelsystem = "info.metadude.kotlin.library.engelsystem:engelsystem-base:${Versions.engelsystem}"
     const val junitJupiterApi = "org.junit.jupiter:junit-jupiter-api:${Versions.junitJupiter}"
@@ -118,4 +123,5 @@ object Libs {
     const val tracedroid = "com.github.ligi:tracedroid:${Versions.tracedroid}"
     const val truth = "com.google.truth:truth:${Versions.truth}"
     const val turbine = "app.cash.turbine:turbine:${Versions.turbine}"
+    const val workManager = "androidx.work:work-runtime-ktx:${Versions.workManager}"
 }
@@ -0,0 +1,120 @@
+package nerd.tuxmobil.fahrplan.congress
+
+import org.gradle.api.DefaultTask
+import org.gradle.api.file.ConfigurableFileCollection
+import org.gradle.api.file.DirectoryProperty
+import org.gradle.api.file.RegularFileProperty
+import org.gradle.api.provider.Property
+import org.gradle.api.tasks.CacheableTask
+import org.gradle.api.tasks.Input
+import org.gradle.api.tasks.InputFile
+import org.gradle.api.tasks.InputFiles
+import org.gradle.api.tasks.OutputDirectory
+import org.gradle.api.tasks.PathSensitive
+import org.gradle.api.tasks.PathSensitivity
+import org.gradle.api.tasks.TaskAction
+import org.w3c.dom.Element
+import java.io.File
+import javax.xml.parsers.DocumentBuilderFactory
+
+/**
+ * Generates the `TrackColors` Kotlin object from the `track_resource_names.xml` of a
+ * product flavor. It maps each track name to the color resources of its default and its
+ * highlighted background. The app no longer parses the XML file and looks up the color
+ * resources by name at runtime.
+ *
+ * Track names without a matching color in the given [resourceDirectories] are left out
+ * so that they fall back to the default track colors.
+ */
+@CacheableTask
+abstract class GenerateTrackColorsTask : DefaultTask() {
+
+    private companion object {
+        const val PACKAGE_NAME = "nerd.tuxmobil.fahrplan.congress.schedule"
+        const val DEFAULT_COLOR_PREFIX = "track_background_default"
+        const val HIGHLIGHT_COLOR_PREFIX = "track_background_highlight"
+        val COLOR_NAME_REGEX = """<color\s+name="([^"]+)"""".toRegex()
+    }
+
+    @get:InputFile
+    @get:PathSensitive(PathSensitivity.RELATIVE)
+    abstract val trackResourceNames: RegularFileProperty
+
+    @get:InputFiles
+    @get:PathSensitive(PathSensitivity.RELATIVE)
+    abstract val resourceDirectories: ConfigurableFileCollection
+
+    /**
+     * Package of the `R` class.
+     */
+    @get:Input
+    abstract val namespace: Property<String>
+
+    @get:OutputDirectory
+    abstract val outputDirectory: DirectoryProperty
+
+    @TaskAction
+    fun generate() {
+        val resourceNamesByTrackName = parseTrackResourceNames(trackResourceNames.get().asFile)
+        val colorNames = collectColorNames()
+        val source = buildString {
+            appendLine("// Generated by ${GenerateTrackColorsTask::class.java.simpleName}. Do not edit.")
+            appendLine("package $PACKAGE_NAME")
+            appendLine()
+            appendLine("import ${namespace.get()}.R")
+            appendLine()
+            appendLine("internal object TrackColors {")
+            appendLine()
+            appendColorMap("DEFAULT", DEFAULT_COLOR_PREFIX, resourceNamesByTrackName, colorNames)
+            appendLine()
+            appendColorMap("HIGHLIGHT", HIGHLIGHT_COLOR_PREFIX, resourceNamesByTrackName, colorNames)
+            appendLine()
+            appendLine("}")
+        }
+        val packageDirectory = outputDirectory.get().asFile.resolve(PACKAGE_NAME.replace('.', '/'))
+        packageDirectory.mkdirs()
+        packageDirectory.resolve("TrackColors.kt").writeText(source)
+    }
+
+    private fun StringBuilder.appendColorMap(
+        propertyName: String,
+        colorPrefix: String,
+        resourceNamesByTrackName: Map<String, String>,
+        colorNames: Set<String>
+    ) {
+        appendLine("    val $propertyName: Map<String, Int> = mapOf(")
+        resourceNamesByTrackName.forEach { (trackName, resourceName) ->
+            // Empty track names use the plain prefix, see track_resource_names.xml.
+            val colorName = if (trackName.isEmpty()) colorPrefix else "${colorPrefix}_$resourceName"
+            if (colorName in colorNames) {
+                appendLine("        \"${trackName.escaped()}\" to R.color.$colorName,")
+            } else {
+                logger.warn("Color \"$colorName\" of track \"$trackName\" is not defined. The track uses the default color.")
+            }
+        }
+        appendLine("    )")
+    }
+
+    private fun parseTrackResourceNames(file: File): Map<String, String> {
+        val document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file)
+        val entries = document.getElementsByTagName("entry")
+        val resourceNamesByTrackName = linkedMapOf<String, String>()
+        for (index in 0 until entries.length) {
+            val entry = entries.item(index) as Element
+            check(entry.hasAttribute("key")) { "Entry #$index in $file is missing the \"key\" attribute." }
+            resourceNamesByTrackName[entry.getAttribute("key")] = entry.textContent.trim()
+        }
+        return resourceNamesByTrackName
+    }
+
+    private fun collectColorNames() = resourceDirectories.asFileTree
+        .matching { include("values*/*.xml") }
+        .flatMap { file -> COLOR_NAME_REGEX.findAll(file.readText()).map { it.groupValues[1] }.toList() }
+        .toSet()
+
+    private fun String.escaped() = this
+        .replace("\\", "\\\\")
+        .replace("\"", "\\\"")
+        .replace("$", "\\$")
+
+}
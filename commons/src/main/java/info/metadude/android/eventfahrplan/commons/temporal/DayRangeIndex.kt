@@ -0,0 +1,39 @@
+package info.metadude.android.eventfahrplan.commons.temporal
+
+import org.threeten.bp.ZonedDateTime
+
+/**
+ * Looks up the [DayRange] which contains a point in time by binary search
+ * instead of scanning all day ranges. The given day ranges must not overlap.
+ */
+class DayRangeIndex(dayRanges: List<DayRange>) {
+
+    /**
+     * The given day ranges sorted by their start.
+     */
+    val dayRanges = dayRanges.sortedBy { it.startsAt }
+
+    /**
+     * Returns the index of the day range in [dayRanges] which contains the given [dateTime]
+     * or `-1` if none contains it.
+     */
+    fun indexOf(dateTime: ZonedDateTime): Int {
+        var low = 0
+        var high = dayRanges.lastIndex
+        var candidate = -1
+        // Find the last day range which starts at or before the given date time.
+        while (low <= high) {
+            val middle = (low + high) ushr 1
+            if (dayRanges[middle].startsAt <= dateTime) {
+                candidate = middle
+                low = middle + 1
+            } else {
+                high = middle - 1
+            }
+        }
+        return if (candidate != -1 && dayRanges[candidate].contains(dateTime)) candidate else -1
+    }
+
+    operator fun contains(dateTime: ZonedDateTime) = indexOf(dateTime) != -1
+
+}
@@ -0,0 +1,75 @@
+package info.metadude.android.eventfahrplan.commons.text
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Hands out one shared instance for equal strings. Meant for low-cardinality values which
+ * repeat across many sessions such as room names, tracks or languages. Free text such as
+ * titles or descriptions must not be pooled because the pool retains every value it has seen
+ * until it is [cleared][clear].
+ *
+ * Unlike [String.intern] the pool can be dropped at once and is not shared process-wide.
+ * This class is thread-safe.
+ */
+class StringPool {
+
+    private companion object {
+        /**
+         * Approximate size of a string object without its characters.
+         */
+        const val STRING_OVERHEAD_BYTES = 16
+    }
+
+    private val strings = ConcurrentHashMap<String, String>()
+    private val mutableDuplicatesCount = AtomicLong()
+    private val mutableSavedBytes = AtomicLong()
+
+    /**
+     * Number of strings which have been replaced by a pooled instance.
+     */
+    val duplicatesCount: Long
+        get() = mutableDuplicatesCount.get()
+
+    /**
+     * Estimated number of bytes which are not retained thanks to replacing strings by pooled
+     * instances. Assumes two bytes per character, hence an upper bound for compressed strings.
+     */
+    val savedBytes: Long
+        get() = mutableSavedBytes.get()
+
+    /**
+     * Number of distinct strings held by the pool.
+     */
+    val size: Int
+        get() = strings.size
+
+    /**
+     * Returns the pooled instance which equals the given [value]. The given instance is pooled
+     * and returned if no equal instance has been pooled so far.
+     */
+    fun intern(value: String): String {
+        if (value.isEmpty()) {
+            return ""
+        }
+        val pooled = strings.putIfAbsent(value, value) ?: return value
+        if (pooled !== value) {
+            mutableDuplicatesCount.incrementAndGet()
+            mutableSavedBytes.addAndGet(STRING_OVERHEAD_BYTES + 2L * value.length)
+        }
+        return pooled
+    }
+
+    /**
+     * Removes all pooled instances and resets the statistics.
+     * Instances which have been handed out before remain valid.
+     */
+    fun clear() {
+        strings.clear()
+        mutableDuplicatesCount.set(0)
+        mutableSavedBytes.set(0)
+    }
+
+    override fun toString() = "StringPool(size = $size, duplicatesCount = $duplicatesCount, savedBytes = $savedBytes)"
+
+}
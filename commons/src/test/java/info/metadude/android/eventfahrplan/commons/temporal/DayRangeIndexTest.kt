@@ -0,0 +1,48 @@
+package info.metadude.android.eventfahrplan.commons.temporal
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Test
+import org.threeten.bp.ZoneOffset
+
+class DayRangeIndexTest {
+
+    private val day1 = Moment.parseDate("2019-08-21")
+    private val day2 = Moment.parseDate("2019-08-22")
+    private val day4 = Moment.parseDate("2019-08-24")
+
+    // Unsorted on purpose.
+    private val index = DayRangeIndex(listOf(DayRange(day4), DayRange(day1), DayRange(day2)))
+
+    @Test
+    fun `dayRanges returns the day ranges sorted by their start`() {
+        assertThat(index.dayRanges).containsExactly(DayRange(day1), DayRange(day2), DayRange(day4)).inOrder()
+    }
+
+    @Test
+    fun `indexOf returns the index of the day range containing the start of a day`() {
+        assertThat(index.indexOf(day2.toZonedDateTime(ZoneOffset.UTC))).isEqualTo(1)
+    }
+
+    @Test
+    fun `indexOf returns the index of the day range containing the end of a day`() {
+        assertThat(index.indexOf(day4.endOfDay().toZonedDateTime(ZoneOffset.UTC))).isEqualTo(2)
+    }
+
+    @Test
+    fun `indexOf returns -1 for a date time between two day ranges`() {
+        val day3 = Moment.parseDate("2019-08-23")
+        assertThat(index.indexOf(day3.toZonedDateTime(ZoneOffset.UTC).plusHours(12))).isEqualTo(-1)
+    }
+
+    @Test
+    fun `indexOf returns -1 for a date time before and after all day ranges`() {
+        assertThat(index.indexOf(day1.toZonedDateTime(ZoneOffset.UTC).minusSeconds(1))).isEqualTo(-1)
+        assertThat(index.indexOf(day4.endOfDay().toZonedDateTime(ZoneOffset.UTC).plusSeconds(1))).isEqualTo(-1)
+    }
+
+    @Test
+    fun `contains returns false if there are no day ranges`() {
+        assertThat(Moment.now().toZonedDateTime(ZoneOffset.UTC) in DayRangeIndex(emptyList())).isFalse()
+    }
+
+}
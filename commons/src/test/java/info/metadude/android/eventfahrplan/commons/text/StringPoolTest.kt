@@ -0,0 +1,45 @@
+package info.metadude.android.eventfahrplan.commons.text
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Test
+
+class StringPoolTest {
+
+    private val pool = StringPool()
+
+    @Test
+    fun `intern returns the first instance for equal strings`() {
+        val first = String(charArrayOf('S', 'a', 'a', 'l', ' ', '1'))
+        val second = String(charArrayOf('S', 'a', 'a', 'l', ' ', '1'))
+        assertThat(pool.intern(first)).isSameInstanceAs(first)
+        assertThat(pool.intern(second)).isSameInstanceAs(first)
+        assertThat(pool.size).isEqualTo(1)
+        assertThat(pool.duplicatesCount).isEqualTo(1)
+        assertThat(pool.savedBytes).isEqualTo(16 + 2 * 6)
+    }
+
+    @Test
+    fun `intern does not count the same instance as a duplicate`() {
+        val value = "Saal 1"
+        pool.intern(value)
+        pool.intern(value)
+        assertThat(pool.duplicatesCount).isEqualTo(0)
+    }
+
+    @Test
+    fun `intern does not pool empty strings`() {
+        assertThat(pool.intern(String(CharArray(0)))).isEmpty()
+        assertThat(pool.size).isEqualTo(0)
+    }
+
+    @Test
+    fun `clear removes all strings and resets the statistics`() {
+        pool.intern("en")
+        pool.intern(String(charArrayOf('e', 'n')))
+        pool.clear()
+        assertThat(pool.size).isEqualTo(0)
+        assertThat(pool.duplicatesCount).isEqualTo(0)
+        assertThat(pool.savedBytes).isEqualTo(0)
+    }
+
+}
@@ -3,6 +3,7 @@ package info.metadude.android.eventfahrplan.database.extensions
 import com.google.common.truth.Truth.assertThat
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.MetasTable.Columns.ETAG
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.MetasTable.Columns.NUM_DAYS
+import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.MetasTable.Columns.PARSER_VERSION
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.MetasTable.Columns.SCHEDULE_LAST_MODIFIED
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.MetasTable.Columns.SUBTITLE
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.MetasTable.Columns.TIME_ZONE_NAME
@@ -19,6 +20,7 @@ class MetaExtensionsTest {
         val meta = Meta(
                 httpHeader = HttpHeader(eTag = "abc123", lastModified = "2023-12-31T23:59:59+01:00"),
                 numDays = 23,
+                parserVersion = 2,
                 subtitle = "My subtitle",
                 timeZoneName = "Europe/Berlin",
                 title = "My title",
@@ -28,6 +30,7 @@ class MetaExtensionsTest {
         assertThat(values.getAsString(ETAG)).isEqualTo("abc123")
         assertThat(values.getAsString(SCHEDULE_LAST_MODIFIED)).isEqualTo("2023-12-31T23:59:59+01:00")
         assertThat(values.getAsInteger(NUM_DAYS)).isEqualTo(23)
+        assertThat(values.getAsInteger(PARSER_VERSION)).isEqualTo(2)
         assertThat(values.getAsString(SUBTITLE)).isEqualTo("My subtitle")
         assertThat(values.getAsString(TIME_ZONE_NAME)).isEqualTo("Europe/Berlin")
         assertThat(values.getAsString(TITLE)).isEqualTo("My title")
@@ -127,4 +127,11 @@ class SessionExtensionsTest {
         assertThat(values.getAsBoolean(CHANGED_TRACK)).isEqualTo(true)
     }
 
+    @Test
+    fun sessionColumnsMatchContentValues() {
+        val values = Session(sessionId = "7331").toContentValues()
+        assertThat(SESSION_COLUMNS.toSet()).isEqualTo(values.keySet())
+        assertThat(SESSION_COLUMNS.toSet()).hasSize(SESSION_COLUMNS.size)
+    }
+
 }
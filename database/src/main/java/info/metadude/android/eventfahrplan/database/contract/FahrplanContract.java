@@ -19,12 +19,14 @@ public interface FahrplanContract {
             /* 6 */ String NUM_DAYS = "numdays";
             /* 7 */ String TIME_ZONE_NAME = "time_zone_name";
             /* 8 */ String SCHEDULE_LAST_MODIFIED = "schedule_last_modified";
+            /* 9 */ String PARSER_VERSION = "parser_version";
         }
 
         interface Defaults {
 
             int NUM_DAYS_DEFAULT = 0;
             String ETAG_DEFAULT = "''";
+            int PARSER_VERSION_DEFAULT = 0;
         }
 
     }
@@ -143,4 +145,12 @@ public interface FahrplanContract {
 
     }
 
+    /**
+     * Holds the sessions of a schedule while it is being parsed. Same columns as {@link SessionsTable}.
+     */
+    interface StagedSessionsTable {
+
+        String NAME = "staged_lectures";
+    }
+
 }
@@ -3,6 +3,7 @@ package info.metadude.android.eventfahrplan.database.extensions
 import androidx.core.content.contentValuesOf
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.MetasTable.Columns.ETAG
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.MetasTable.Columns.NUM_DAYS
+import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.MetasTable.Columns.PARSER_VERSION
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.MetasTable.Columns.SCHEDULE_LAST_MODIFIED
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.MetasTable.Columns.SUBTITLE
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.MetasTable.Columns.TIME_ZONE_NAME
@@ -14,6 +15,7 @@ fun Meta.toContentValues() = contentValuesOf(
         ETAG to httpHeader.eTag,
         SCHEDULE_LAST_MODIFIED to httpHeader.lastModified,
         NUM_DAYS to numDays,
+        PARSER_VERSION to parserVersion,
         SUBTITLE to subtitle,
         TIME_ZONE_NAME to timeZoneName,
         TITLE to title,
@@ -1,6 +1,7 @@
 package info.metadude.android.eventfahrplan.database.extensions
 
 import android.content.ContentValues
+import android.database.sqlite.SQLiteStatement
 import androidx.core.content.contentValuesOf
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.SessionByNotificationIdTable
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.SessionsTable.Columns.ABSTRACT
@@ -85,6 +86,110 @@ fun Session.toContentValues() = contentValuesOf(
         CHANGED_TRACK to changedTrack
 )
 
+/**
+ * Columns bound by [bindColumnsOf] in this very order, starting at index 1.
+ * Contains the same columns as [toContentValues].
+ */
+internal val SESSION_COLUMNS = arrayOf(
+        SESSION_ID,
+        ABSTRACT,
+        DAY,
+        DATE,
+        DATE_UTC,
+        DESCR,
+        DURATION,
+        FEEDBACK_URL,
+        LANG,
+        LINKS,
+        REC_LICENSE,
+        REC_OPTOUT,
+        REL_START,
+        ROOM_NAME,
+        ROOM_IDENTIFIER,
+        ROOM_INDEX,
+        SLUG,
+        SPEAKERS,
+        START,
+        SUBTITLE,
+        TIME_ZONE_OFFSET,
+        TITLE,
+        TRACK,
+        TYPE,
+        URL,
+
+        CHANGED_DAY,
+        CHANGED_DURATION,
+        CHANGED_IS_CANCELED,
+        CHANGED_IS_NEW,
+        CHANGED_LANGUAGE,
+        CHANGED_RECORDING_OPTOUT,
+        CHANGED_ROOM_NAME,
+        CHANGED_SPEAKERS,
+        CHANGED_SUBTITLE,
+        CHANGED_TIME,
+        CHANGED_TITLE,
+        CHANGED_TRACK
+)
+
+/**
+ * Binds the values of the given [session] to the placeholders of this statement in the order
+ * of [SESSION_COLUMNS]. Unlike [toContentValues] no intermediate map of boxed values is created
+ * which matters when thousands of sessions are written in a row.
+ */
+internal fun SQLiteStatement.bindColumnsOf(session: Session) = with(session) {
+    var index = 0
+    bindString(++index, sessionId)
+    bindString(++index, abstractt)
+    bindLong(++index, dayIndex.toLong())
+    bindString(++index, date)
+    bindLong(++index, dateUTC)
+    bindString(++index, description)
+    bindLong(++index, duration.toLong())
+    bindStringOrNull(++index, feedbackUrl)
+    bindString(++index, language)
+    bindString(++index, links)
+    bindString(++index, recordingLicense)
+    bindLong(++index, (if (recordingOptOut) REC_OPT_OUT_ON else REC_OPT_OUT_OFF).toLong())
+    bindLong(++index, relativeStartTime.toLong())
+    bindString(++index, roomName)
+    bindString(++index, roomIdentifier)
+    bindLong(++index, roomIndex.toLong())
+    bindString(++index, slug)
+    bindString(++index, speakers)
+    bindLong(++index, startTime.toLong())
+    bindString(++index, subtitle)
+    bindLongOrNull(++index, timeZoneOffset?.toLong())
+    bindString(++index, title)
+    bindString(++index, track)
+    bindString(++index, type)
+    bindString(++index, url)
+
+    bindBoolean(++index, changedDay)
+    bindBoolean(++index, changedDuration)
+    bindBoolean(++index, changedIsCanceled)
+    bindBoolean(++index, changedIsNew)
+    bindBoolean(++index, changedLanguage)
+    bindBoolean(++index, changedRecordingOptOut)
+    bindBoolean(++index, changedRoomName)
+    bindBoolean(++index, changedSpeakers)
+    bindBoolean(++index, changedSubtitle)
+    bindBoolean(++index, changedTime)
+    bindBoolean(++index, changedTitle)
+    bindBoolean(++index, changedTrack)
+}
+
+private fun SQLiteStatement.bindStringOrNull(index: Int, value: String?) =
+        if (value == null) bindNull(index) else bindString(index, value)
+
+private fun SQLiteStatement.bindLongOrNull(index: Int, value: Long?) =
+        if (value == null) bindNull(index) else bindLong(index, value)
+
+/**
+ * Binds the given [value] the same way [ContentValues] stores booleans.
+ */
+private fun SQLiteStatement.bindBoolean(index: Int, value: Boolean) =
+        bindLong(index, if (value) 1 else 0)
+
 /**
  * Converts a session ID into [ContentValues].
  */
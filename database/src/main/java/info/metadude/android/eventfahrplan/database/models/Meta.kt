@@ -1,11 +1,13 @@
 package info.metadude.android.eventfahrplan.database.models
 
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.MetasTable.Defaults.NUM_DAYS_DEFAULT
+import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.MetasTable.Defaults.PARSER_VERSION_DEFAULT
 
 data class Meta(
 
         val httpHeader: HttpHeader = HttpHeader(),
         val numDays: Int = NUM_DAYS_DEFAULT,
+        val parserVersion: Int = PARSER_VERSION_DEFAULT,
         val subtitle: String = "",
         val timeZoneName: String? = null,
         val title: String = "",
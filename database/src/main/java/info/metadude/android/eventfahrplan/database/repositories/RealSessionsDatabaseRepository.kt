@@ -2,10 +2,13 @@ package info.metadude.android.eventfahrplan.database.repositories
 
 import android.content.ContentValues
 import android.database.Cursor
+import android.database.DatabaseUtils
 import android.database.sqlite.SQLiteDatabase
 import android.database.sqlite.SQLiteException
+import android.database.sqlite.SQLiteStatement
 import androidx.core.database.sqlite.transaction
 import info.metadude.android.eventfahrplan.commons.logging.Logging
+import info.metadude.android.eventfahrplan.commons.text.StringPool
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.SessionByNotificationIdTable
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.SessionsTable
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.SessionsTable.Columns.ABSTRACT
@@ -46,6 +49,9 @@ import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.Se
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.SessionsTable.Columns.TYPE
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.SessionsTable.Columns.URL
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.SessionsTable.Values.REC_OPT_OUT_OFF
+import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.StagedSessionsTable
+import info.metadude.android.eventfahrplan.database.extensions.SESSION_COLUMNS
+import info.metadude.android.eventfahrplan.database.extensions.bindColumnsOf
 import info.metadude.android.eventfahrplan.database.extensions.delete
 import info.metadude.android.eventfahrplan.database.extensions.getInt
 import info.metadude.android.eventfahrplan.database.extensions.getIntOrNull
@@ -55,19 +61,50 @@ import info.metadude.android.eventfahrplan.database.extensions.getStringOrNull
 import info.metadude.android.eventfahrplan.database.extensions.insert
 import info.metadude.android.eventfahrplan.database.extensions.map
 import info.metadude.android.eventfahrplan.database.extensions.read
-import info.metadude.android.eventfahrplan.database.extensions.updateRow
 import info.metadude.android.eventfahrplan.database.models.Session
 import info.metadude.android.eventfahrplan.database.sqliteopenhelper.SessionsDBOpenHelper
 
+/**
+ * Low-cardinality values such as room names, tracks or languages of the sessions read are
+ * replaced by instances from the given [stringPool] so that equal values are retained once.
+ */
 class RealSessionsDatabaseRepository(
 
         private val sqLiteOpenHelper: SessionsDBOpenHelper,
-        private val logging: Logging
+        private val logging: Logging,
+        private val stringPool: StringPool
 
 ) : SessionsDatabaseRepository {
 
     private companion object {
         const val LOG_TAG = "SessionsDatabaseRepository"
+
+        val UPDATE_SESSION_STATEMENT = updateSessionStatement(SessionsTable.NAME)
+        val INSERT_SESSION_STATEMENT = insertSessionStatement(SessionsTable.NAME)
+
+        val UPDATE_STAGED_SESSION_STATEMENT = updateSessionStatement(StagedSessionsTable.NAME)
+        val INSERT_STAGED_SESSION_STATEMENT = insertSessionStatement(StagedSessionsTable.NAME)
+
+        val DELETE_REPLACED_SESSIONS_STATEMENT = "DELETE FROM ${SessionsTable.NAME}" +
+                " WHERE $SESSION_ID IN (SELECT $SESSION_ID FROM ${StagedSessionsTable.NAME})"
+
+        val COPY_STAGED_SESSIONS_STATEMENT = "INSERT INTO ${SessionsTable.NAME} (" +
+                SESSION_COLUMNS.joinToString() +
+                ") SELECT " +
+                SESSION_COLUMNS.joinToString() +
+                " FROM ${StagedSessionsTable.NAME}"
+
+        val CLEAR_STAGED_SESSIONS_STATEMENT = "DELETE FROM ${StagedSessionsTable.NAME}"
+
+        fun updateSessionStatement(tableName: String) = "UPDATE $tableName SET " +
+                SESSION_COLUMNS.joinToString { "$it = ?" } +
+                " WHERE $SESSION_ID = ?"
+
+        fun insertSessionStatement(tableName: String) = "INSERT INTO $tableName (" +
+                SESSION_COLUMNS.joinToString() +
+                ") VALUES (" +
+                SESSION_COLUMNS.joinToString { "?" } +
+                ")"
     }
 
     /**
@@ -95,17 +132,67 @@ class RealSessionsDatabaseRepository(
 
 
     /**
-     * Updates or inserts sessions based on the given [contentValuesBySessionId].
+     * Updates or inserts the given [sessions] in one transaction.
      * Removes all sessions identified by their [session IDs][toBeDeletedSessionIds].
+     *
+     * The update and insert statements are compiled once per transaction and the session
+     * values are bound to them directly, see [bindColumnsOf].
      */
     override fun updateSessions(
-            contentValuesBySessionId: List<Pair</* sessionId */ String, ContentValues>>,
+            sessions: List<Session>,
             toBeDeletedSessionIds: List</* sessionId */ String>
     ) = with(sqLiteOpenHelper) {
         writableDatabase.transaction {
-            contentValuesBySessionId.forEach { (sessionId, contentValues) ->
-                upsertSession(sessionId, contentValues)
+            compileStatement(UPDATE_SESSION_STATEMENT).use { updateStatement ->
+                compileStatement(INSERT_SESSION_STATEMENT).use { insertStatement ->
+                    sessions.forEach { session ->
+                        upsertSession(session, updateStatement, insertStatement)
+                    }
+                }
+            }
+            toBeDeletedSessionIds.forEach { toBeDeletedSessionId ->
+                deleteSession(toBeDeletedSessionId)
+            }
+        }
+    }
+
+    /**
+     * Removes all sessions from the [StagedSessionsTable].
+     */
+    override fun clearStagedSessions() {
+        sqLiteOpenHelper.writableDatabase.execSQL(CLEAR_STAGED_SESSIONS_STATEMENT)
+    }
+
+    /**
+     * Updates or inserts the given [sessions] into the [StagedSessionsTable] in one transaction.
+     * The [SessionsTable] is not touched until the staged sessions are committed,
+     * see [commitStagedSessions].
+     */
+    override fun stageSessions(sessions: List<Session>) = with(sqLiteOpenHelper) {
+        writableDatabase.transaction {
+            compileStatement(UPDATE_STAGED_SESSION_STATEMENT).use { updateStatement ->
+                compileStatement(INSERT_STAGED_SESSION_STATEMENT).use { insertStatement ->
+                    sessions.forEach { session ->
+                        upsertSession(session, updateStatement, insertStatement)
+                    }
+                }
             }
+        }
+    }
+
+    /**
+     * Replaces the sessions in the [SessionsTable] with the staged sessions of the same session ID
+     * and inserts all other staged sessions. Clears the [StagedSessionsTable] afterwards.
+     * Removes all sessions identified by their [session IDs][toBeDeletedSessionIds].
+     * Everything happens in one transaction.
+     */
+    override fun commitStagedSessions(
+            toBeDeletedSessionIds: List</* sessionId */ String>
+    ) = with(sqLiteOpenHelper) {
+        writableDatabase.transaction {
+            execSQL(DELETE_REPLACED_SESSIONS_STATEMENT)
+            execSQL(COPY_STAGED_SESSIONS_STATEMENT)
+            execSQL(CLEAR_STAGED_SESSIONS_STATEMENT)
             toBeDeletedSessionIds.forEach { toBeDeletedSessionId ->
                 deleteSession(toBeDeletedSessionId)
             }
@@ -113,24 +200,47 @@ class RealSessionsDatabaseRepository(
     }
 
     /**
-     * Updates a session with the given [contentValues]. A row is matched by its [sessionId].
-     * If no row was affected by the update operation then an insert operation is performed
+     * Adds the given [offset] to the room index of all sessions which take place on one of the
+     * given [days][dayIndices] except for the sessions in the room named [excludedRoomName].
+     * Runs a single statement instead of rewriting each affected session.
+     * Returns the number of affected rows.
+     */
+    override fun shiftRoomIndices(
+            dayIndices: Set<Int>,
+            offset: Int,
+            excludedRoomName: String
+    ): Int {
+        if (dayIndices.isEmpty() || offset == 0) {
+            return 0
+        }
+        val statement = "UPDATE ${SessionsTable.NAME} SET $ROOM_INDEX = $ROOM_INDEX + ?" +
+                " WHERE $DAY IN (${dayIndices.joinToString { "?" }}) AND $ROOM_NAME != ?"
+        return sqLiteOpenHelper.writableDatabase.compileStatement(statement).use { shiftStatement ->
+            shiftStatement.bindLong(1, offset.toLong())
+            dayIndices.forEachIndexed { index, dayIndex ->
+                shiftStatement.bindLong(index + 2, dayIndex.toLong())
+            }
+            shiftStatement.bindString(dayIndices.size + 2, excludedRoomName)
+            shiftStatement.executeUpdateDelete()
+        }.also { logging.d(LOG_TAG, "Shifted room indices by $offset on days $dayIndices: $it rows.") }
+    }
+
+    /**
+     * Updates a session via the given [updateStatement]. A row is matched by its session ID.
+     * If no row was affected by the update operation then the [insertStatement] is executed
      * assuming that the session does not exist in the table.
      *
      * This function must be called in the context of a [transaction] block.
      */
-    private fun SQLiteDatabase.upsertSession(sessionId: String, contentValues: ContentValues) {
-        val affectedRowsCount = updateRow(
-                tableName = SessionsTable.NAME,
-                contentValues = contentValues,
-                columnName = SESSION_ID,
-                columnValue = sessionId
-        )
+    private fun upsertSession(session: Session, updateStatement: SQLiteStatement, insertStatement: SQLiteStatement) {
+        updateStatement.clearBindings()
+        updateStatement.bindColumnsOf(session)
+        updateStatement.bindString(SESSION_COLUMNS.size + 1, session.sessionId)
+        val affectedRowsCount = updateStatement.executeUpdateDelete()
         if (affectedRowsCount == 0) {
-            insert(
-                    tableName = SessionsTable.NAME,
-                    values = contentValues
-            )
+            insertStatement.clearBindings()
+            insertStatement.bindColumnsOf(session)
+            insertStatement.executeInsert()
         }
     }
 
@@ -183,6 +293,16 @@ class RealSessionsDatabaseRepository(
         )
     }
 
+    /**
+     * Returns the number of rows in the [SessionsTable] without loading them.
+     */
+    override fun querySessionsCount() = try {
+        DatabaseUtils.queryNumEntries(sqLiteOpenHelper.readableDatabase, SessionsTable.NAME)
+    } catch (e: SQLiteException) {
+        e.printStackTrace()
+        0L
+    }
+
     private fun query(query: SQLiteDatabase.() -> Cursor): List<Session> = with(sqLiteOpenHelper.readableDatabase) {
         val cursor = try {
             query()
@@ -201,18 +321,18 @@ class RealSessionsDatabaseRepository(
             Session(
                     sessionId = cursor.getString(SESSION_ID),
                     abstractt = cursor.getString(ABSTRACT),
-                    date = cursor.getString(DATE),
+                    date = stringPool.intern(cursor.getString(DATE)),
                     dateUTC = cursor.getLong(DATE_UTC),
                     dayIndex = cursor.getInt(DAY),
                     description = cursor.getString(DESCR),
                     duration = cursor.getInt(DURATION),
                     feedbackUrl = cursor.getStringOrNull(FEEDBACK_URL),
-                    language = cursor.getString(LANG),
+                    language = stringPool.intern(cursor.getString(LANG)),
                     links = cursor.getString(LINKS),
-                    recordingLicense = cursor.getString(REC_LICENSE),
+                    recordingLicense = stringPool.intern(cursor.getString(REC_LICENSE)),
                     relativeStartTime = cursor.getInt(REL_START),
-                    roomName = cursor.getString(ROOM_NAME),
-                    roomIdentifier = cursor.getString(ROOM_IDENTIFIER),
+                    roomName = stringPool.intern(cursor.getString(ROOM_NAME)),
+                    roomIdentifier = stringPool.intern(cursor.getString(ROOM_IDENTIFIER)),
                     roomIndex = cursor.getInt(ROOM_INDEX),
                     slug = cursor.getString(SLUG),
                     speakers = cursor.getString(SPEAKERS),
@@ -220,8 +340,8 @@ class RealSessionsDatabaseRepository(
                     startTime = cursor.getInt(START),
                     timeZoneOffset = cursor.getIntOrNull(TIME_ZONE_OFFSET),
                     title = cursor.getString(TITLE),
-                    track = cursor.getString(TRACK),
-                    type = cursor.getString(TYPE),
+                    track = stringPool.intern(cursor.getString(TRACK)),
+                    type = stringPool.intern(cursor.getString(TYPE)),
                     url = cursor.getString(URL),
                     recordingOptOut = recordingOptOut,
                     changedDay = cursor.getInt(CHANGED_DAY).isChanged,
@@ -9,14 +9,27 @@ interface SessionsDatabaseRepository {
     fun deleteSessionIdByNotificationId(notificationId: Int): Int
 
     fun updateSessions(
-        contentValuesBySessionId: List<Pair<String, ContentValues>>,
+        sessions: List<Session>,
         toBeDeletedSessionIds: List<String>
     )
 
+    fun clearStagedSessions()
+
+    fun stageSessions(sessions: List<Session>)
+
+    fun commitStagedSessions(toBeDeletedSessionIds: List<String>)
+
+    fun shiftRoomIndices(
+        dayIndices: Set<Int>,
+        offset: Int,
+        excludedRoomName: String
+    ): Int
+
     fun querySessionBySessionId(sessionId: String): Session
     fun querySessionsForDayIndexOrderedByDateUtc(dayIndex: Int): List<Session>
     fun querySessionsOrderedByDateUtc(): List<Session>
     fun querySessionsWithoutRoom(roomName: String): List<Session>
     fun querySessionsWithinRoom(roomName: String): List<Session>
+    fun querySessionsCount(): Long
 
 }
@@ -13,7 +13,7 @@ import info.metadude.android.eventfahrplan.database.extensions.SQLiteDatabaseExt
 
 public class MetaDBOpenHelper extends SQLiteOpenHelper {
 
-    private static final int DATABASE_VERSION = 9;
+    private static final int DATABASE_VERSION = 10;
 
     private static final String DATABASE_NAME = "meta";
 
@@ -25,7 +25,8 @@ public class MetaDBOpenHelper extends SQLiteOpenHelper {
                     Columns.SUBTITLE + " TEXT, " +
                     Columns.ETAG + " TEXT, " +
                     Columns.TIME_ZONE_NAME + " TEXT, " +
-                    Columns.SCHEDULE_LAST_MODIFIED + " TEXT DEFAULT '');";
+                    Columns.SCHEDULE_LAST_MODIFIED + " TEXT DEFAULT '', " +
+                    Columns.PARSER_VERSION + " INTEGER DEFAULT " + Defaults.PARSER_VERSION_DEFAULT + ");";
 
     public MetaDBOpenHelper(@NonNull Context context) {
         super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
@@ -73,5 +74,12 @@ public class MetaDBOpenHelper extends SQLiteOpenHelper {
                         Columns.SCHEDULE_LAST_MODIFIED + " TEXT DEFAULT ''");
             }
         }
+        if (oldVersion < 10) {
+            boolean columnExists = SQLiteDatabaseExtensions.columnExists(db, MetasTable.NAME, Columns.PARSER_VERSION);
+            if (!columnExists) {
+                db.execSQL("ALTER TABLE " + MetasTable.NAME + " ADD COLUMN " +
+                        Columns.PARSER_VERSION + " INTEGER DEFAULT " + Defaults.PARSER_VERSION_DEFAULT);
+            }
+        }
     }
 }
@@ -12,16 +12,17 @@ import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.Se
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.SessionsTable.Columns;
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.SessionsTable.Defaults;
 import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.SessionsTable.Values;
+import info.metadude.android.eventfahrplan.database.contract.FahrplanContract.StagedSessionsTable;
 import info.metadude.android.eventfahrplan.database.extensions.SQLiteDatabaseExtensions;
 
 public class SessionsDBOpenHelper extends SQLiteOpenHelper {
 
-    private static final int DATABASE_VERSION = 15;
+    private static final int DATABASE_VERSION = 16;
 
     private static final String DATABASE_NAME = "lectures"; // Keep table name to avoid database migration.
 
-    private static final String SESSIONS_TABLE_CREATE =
-            "CREATE TABLE " + SessionsTable.NAME + " (" +
+    private static final String SESSIONS_TABLE_COLUMNS =
+            " (" +
                     Columns.SESSION_ID + " TEXT, " +
                     Columns.TITLE + " TEXT, " +
                     Columns.SUBTITLE + " TEXT, " +
@@ -60,6 +61,16 @@ public class SessionsDBOpenHelper extends SQLiteOpenHelper {
                     Columns.CHANGED_DURATION + " INTEGER," +
                     Columns.CHANGED_IS_CANCELED + " INTEGER)";
 
+    private static final String SESSIONS_TABLE_CREATE =
+            "CREATE TABLE " + SessionsTable.NAME + SESSIONS_TABLE_COLUMNS;
+
+    /**
+     * Create statement for the table which holds the sessions of a schedule while it is being
+     * parsed. Same columns as the sessions table.
+     */
+    private static final String STAGED_SESSIONS_TABLE_CREATE =
+            "CREATE TABLE IF NOT EXISTS " + StagedSessionsTable.NAME + SESSIONS_TABLE_COLUMNS;
+
     /**
      * Create statement for a mapping table (notification ID, session ID). Each insert automatically
      * increments the primary key and therefore generates a new notification ID.
@@ -78,6 +89,7 @@ public class SessionsDBOpenHelper extends SQLiteOpenHelper {
         db.beginTransaction();
         db.execSQL(SESSIONS_TABLE_CREATE);
         db.execSQL(SESSION_BY_NOTIFICATION_ID_TABLE_CREATE);
+        db.execSQL(STAGED_SESSIONS_TABLE_CREATE);
         db.setTransactionSuccessful();
         db.endTransaction();
     }
@@ -164,6 +176,9 @@ public class SessionsDBOpenHelper extends SQLiteOpenHelper {
                 db.execSQL("ALTER TABLE " + SessionsTable.NAME + " ADD COLUMN " + Columns.FEEDBACK_URL + " TEXT DEFAULT NULL");
             }
         }
+        if (oldVersion < 16) {
+            db.execSQL(STAGED_SESSIONS_TABLE_CREATE);
+        }
 
 
     }
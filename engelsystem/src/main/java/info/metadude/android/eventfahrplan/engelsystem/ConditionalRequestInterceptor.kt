@@ -0,0 +1,47 @@
+package info.metadude.android.eventfahrplan.engelsystem
+
+import info.metadude.android.eventfahrplan.engelsystem.models.ShiftsHttpHeader
+import okhttp3.Interceptor
+import okhttp3.Response
+import java.io.IOException
+
+/**
+ * Adds the validators of the [requestHttpHeader] to the request and
+ * keeps the validators of the response in [responseHttpHeader].
+ * Callers must not run requests concurrently.
+ */
+internal class ConditionalRequestInterceptor : Interceptor {
+
+    private companion object {
+        const val IF_NONE_MATCH = "If-None-Match"
+        const val IF_MODIFIED_SINCE = "If-Modified-Since"
+        const val ETAG = "ETag"
+        const val LAST_MODIFIED = "Last-Modified"
+    }
+
+    @Volatile
+    var requestHttpHeader = ShiftsHttpHeader()
+
+    @Volatile
+    var responseHttpHeader = ShiftsHttpHeader()
+        private set
+
+    @Throws(IOException::class)
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val httpHeader = requestHttpHeader
+        val requestBuilder = chain.request().newBuilder()
+        if (httpHeader.eTag.isNotEmpty()) {
+            requestBuilder.header(IF_NONE_MATCH, httpHeader.eTag)
+        }
+        if (httpHeader.lastModified.isNotEmpty()) {
+            requestBuilder.header(IF_MODIFIED_SINCE, httpHeader.lastModified)
+        }
+        val response = chain.proceed(requestBuilder.build())
+        responseHttpHeader = ShiftsHttpHeader(
+            eTag = response.header(ETAG).orEmpty(),
+            lastModified = response.header(LAST_MODIFIED).orEmpty()
+        )
+        return response
+    }
+
+}
@@ -1,10 +1,20 @@
 package info.metadude.android.eventfahrplan.engelsystem
 
+import info.metadude.android.eventfahrplan.engelsystem.models.ShiftsHttpHeader
 import info.metadude.android.eventfahrplan.engelsystem.models.ShiftsResult
 import okhttp3.OkHttpClient
 
 interface EngelsystemNetworkRepository {
 
-    suspend fun load(okHttpClient: OkHttpClient, url: String): ShiftsResult
+    /**
+     * Loads the shifts from the given [url]. Passing the [httpHeader] of a previous
+     * [ShiftsResult.Success] makes the request conditional. [ShiftsResult.NotModified]
+     * is returned if the shifts have not changed since.
+     */
+    suspend fun load(
+        okHttpClient: OkHttpClient,
+        url: String,
+        httpHeader: ShiftsHttpHeader = ShiftsHttpHeader()
+    ): ShiftsResult
 
 }
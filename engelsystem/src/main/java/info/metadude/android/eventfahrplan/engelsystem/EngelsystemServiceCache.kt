@@ -0,0 +1,60 @@
+package info.metadude.android.eventfahrplan.engelsystem
+
+import info.metadude.android.eventfahrplan.engelsystem.models.EngelsystemUri
+import info.metadude.android.eventfahrplan.engelsystem.utils.UriParser
+import info.metadude.kotlin.library.engelsystem.EngelsystemApi
+import info.metadude.kotlin.library.engelsystem.EngelsystemService
+import kotlinx.coroutines.sync.Mutex
+import okhttp3.OkHttpClient
+
+/**
+ * Keeps the service for the last requested Engelsystem URL so that neither the URL is parsed
+ * nor Retrofit, its converters and the service proxy are built again on every refresh.
+ * The service is built again once another URL or another [OkHttpClient] instance is passed.
+ */
+internal class EngelsystemServiceCache(
+
+        private val uriParser: UriParser,
+        private val engelsystemApi: EngelsystemApi
+
+) {
+
+    /**
+     * A service bound to the [uri]. Requests must be run while holding the [mutex]
+     * because they share the state of the [conditionalRequestInterceptor].
+     */
+    class Entry(
+
+            val url: String,
+            val okHttpClient: OkHttpClient,
+            val uri: EngelsystemUri,
+            val service: EngelsystemService,
+            val conditionalRequestInterceptor: ConditionalRequestInterceptor
+
+    ) {
+        val mutex = Mutex()
+    }
+
+    private var entry: Entry? = null
+
+    /**
+     * Returns the cached entry for the given [url] and [okHttpClient] or builds a new one.
+     * @throws java.net.URISyntaxException if the [url] cannot be parsed.
+     */
+    @Synchronized
+    fun get(url: String, okHttpClient: OkHttpClient): Entry {
+        val cachedEntry = entry
+        if (cachedEntry != null && cachedEntry.url == url && cachedEntry.okHttpClient === okHttpClient) {
+            return cachedEntry
+        }
+        val uri = uriParser.parseUri(url)
+        val conditionalRequestInterceptor = ConditionalRequestInterceptor()
+        // The derived client shares the connection pool and the dispatcher.
+        val conditionalHttpClient = okHttpClient.newBuilder()
+            .addInterceptor(conditionalRequestInterceptor)
+            .build()
+        val service = engelsystemApi.provideEngelsystemService(uri.baseUrl, conditionalHttpClient)
+        return Entry(url, okHttpClient, uri, service, conditionalRequestInterceptor).also { entry = it }
+    }
+
+}
@@ -1,26 +1,37 @@
 package info.metadude.android.eventfahrplan.engelsystem
 
+import info.metadude.android.eventfahrplan.engelsystem.models.ShiftsHttpHeader
 import info.metadude.android.eventfahrplan.engelsystem.models.ShiftsResult
 import info.metadude.android.eventfahrplan.engelsystem.utils.UriParser
 import info.metadude.kotlin.library.engelsystem.ApiModule
 import info.metadude.kotlin.library.engelsystem.EngelsystemApi
+import kotlinx.coroutines.sync.withLock
 import okhttp3.OkHttpClient
 import retrofit2.HttpException
+import java.net.HttpURLConnection
 
 class RealEngelsystemNetworkRepository(
 
-    private val uriParser: UriParser = UriParser(),
-    private val engelsystemApi: EngelsystemApi = ApiModule
+    uriParser: UriParser = UriParser(),
+    engelsystemApi: EngelsystemApi = ApiModule
 
 ) : EngelsystemNetworkRepository {
 
-    override suspend fun load(okHttpClient: OkHttpClient, url: String) = try {
-        val uri = uriParser.parseUri(url)
-        val service = engelsystemApi.provideEngelsystemService(uri.baseUrl, okHttpClient)
-        val shifts = service.getShifts(uri.pathPart, uri.apiKey)
-        ShiftsResult.Success(shifts)
+    private val serviceCache = EngelsystemServiceCache(uriParser, engelsystemApi)
+
+    override suspend fun load(okHttpClient: OkHttpClient, url: String, httpHeader: ShiftsHttpHeader) = try {
+        val entry = serviceCache.get(url, okHttpClient)
+        entry.mutex.withLock {
+            entry.conditionalRequestInterceptor.requestHttpHeader = httpHeader
+            val shifts = entry.service.getShifts(entry.uri.pathPart, entry.uri.apiKey)
+            ShiftsResult.Success(shifts, entry.conditionalRequestInterceptor.responseHttpHeader)
+        }
     } catch (e: HttpException) {
-        ShiftsResult.Error(e.code(), e.message())
+        if (e.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            ShiftsResult.NotModified
+        } else {
+            ShiftsResult.Error(e.code(), e.message())
+        }
     } catch (e: Exception) {
         ShiftsResult.Exception(e)
     }
@@ -0,0 +1,12 @@
+package info.metadude.android.eventfahrplan.engelsystem.models
+
+/**
+ * Validators of the last shifts response. Sent along with the next request
+ * so that the server can respond with HTTP 304 if the shifts are unchanged.
+ */
+data class ShiftsHttpHeader(
+
+        val eTag: String = "",
+        val lastModified: String = ""
+
+)
@@ -4,7 +4,8 @@ import info.metadude.kotlin.library.engelsystem.models.Shift
 
 sealed class ShiftsResult {
 
-    data class Success(val shifts: List<Shift>) : ShiftsResult()
+    data class Success(val shifts: List<Shift>, val httpHeader: ShiftsHttpHeader = ShiftsHttpHeader()) : ShiftsResult()
+    data object NotModified : ShiftsResult()
     data class Error(val httpStatusCode: Int, val exceptionMessage: String) : ShiftsResult()
 
     open class Exception(val throwable: Throwable) : ShiftsResult() {
@@ -3,6 +3,7 @@ package info.metadude.android.eventfahrplan.engelsystem
 import com.google.common.truth.Truth.assertThat
 import com.squareup.moshi.JsonDataException
 import com.squareup.moshi.Moshi
+import info.metadude.android.eventfahrplan.engelsystem.models.ShiftsHttpHeader
 import info.metadude.android.eventfahrplan.engelsystem.models.ShiftsResult
 import info.metadude.kotlin.library.engelsystem.EngelsystemApi
 import info.metadude.kotlin.library.engelsystem.EngelsystemService
@@ -15,7 +16,6 @@ import okhttp3.mockwebserver.MockWebServer
 import org.junit.jupiter.api.AfterEach
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
-import org.mockito.Mockito.mock
 import org.threeten.bp.ZoneOffset
 import org.threeten.bp.ZonedDateTime
 import retrofit2.Retrofit
@@ -80,7 +80,7 @@ class EngelsystemNetworkRepositoryTest {
 
 
     private val mockWebServer = MockWebServer()
-    private val okHttpClient = mock<OkHttpClient>()
+    private val okHttpClient = OkHttpClient()
     private val repository = createRepository()
 
     @BeforeEach
@@ -159,19 +159,67 @@ class EngelsystemNetworkRepositoryTest {
         assertThat(shiftsResult).isEqualTo(ShiftsResult.Error(HttpURLConnection.HTTP_INTERNAL_ERROR, "Server Error"))
     }
 
+    @Test
+    fun `load returns success and the validators of the response when call responds with HTTP 200`() = runTest {
+        val shiftsResult = repository.loadMockResponse(
+            httpStatusCode = HttpURLConnection.HTTP_OK,
+            shiftsJson = EMPTY_ARRAY_SHIFTS_JSON,
+            responseHeaders = mapOf("ETag" to "\"a1b2c3\"", "Last-Modified" to "Wed, 21 Aug 2019 11:00:00 GMT")
+        )
+        val expectedHttpHeader = ShiftsHttpHeader(eTag = "\"a1b2c3\"", lastModified = "Wed, 21 Aug 2019 11:00:00 GMT")
+        assertThat(shiftsResult).isEqualTo(ShiftsResult.Success(emptyList(), expectedHttpHeader))
+    }
+
+    @Test
+    fun `load sends the given validators`() = runTest {
+        repository.loadMockResponse(
+            httpStatusCode = HttpURLConnection.HTTP_NOT_MODIFIED,
+            shiftsJson = EMPTY_STRING,
+            httpHeader = ShiftsHttpHeader(eTag = "\"a1b2c3\"", lastModified = "Wed, 21 Aug 2019 11:00:00 GMT")
+        )
+        val request = mockWebServer.takeRequest()
+        assertThat(request.getHeader("If-None-Match")).isEqualTo("\"a1b2c3\"")
+        assertThat(request.getHeader("If-Modified-Since")).isEqualTo("Wed, 21 Aug 2019 11:00:00 GMT")
+    }
+
+    @Test
+    fun `load sends no validators if none are given`() = runTest {
+        repository.loadMockResponse(
+            httpStatusCode = HttpURLConnection.HTTP_OK,
+            shiftsJson = EMPTY_ARRAY_SHIFTS_JSON
+        )
+        val request = mockWebServer.takeRequest()
+        assertThat(request.getHeader("If-None-Match")).isNull()
+        assertThat(request.getHeader("If-Modified-Since")).isNull()
+    }
+
+    @Test
+    fun `load returns not modified when call responds with HTTP 304`() = runTest {
+        val shiftsResult = repository.loadMockResponse(
+            httpStatusCode = HttpURLConnection.HTTP_NOT_MODIFIED,
+            shiftsJson = EMPTY_STRING,
+            httpHeader = ShiftsHttpHeader(eTag = "\"a1b2c3\"")
+        )
+        assertThat(shiftsResult).isEqualTo(ShiftsResult.NotModified)
+    }
+
     /**
-     * Performs a HTTP request against a [mockWebServer] using the given [httpStatusCode] and [shiftsJson] for the response.
+     * Performs a HTTP request against a [mockWebServer] using the given [httpStatusCode], [shiftsJson]
+     * and [responseHeaders] for the response. The given [httpHeader] is passed to the request.
      */
     private suspend fun RealEngelsystemNetworkRepository.loadMockResponse(
         httpStatusCode: Int,
-        shiftsJson: String
+        shiftsJson: String,
+        responseHeaders: Map<String, String> = emptyMap(),
+        httpHeader: ShiftsHttpHeader = ShiftsHttpHeader()
     ): ShiftsResult {
         val shiftsResponse = MockResponse()
             .addHeader("Content-Type", "application/json")
             .setResponseCode(httpStatusCode)
             .setBody(shiftsJson)
+        responseHeaders.forEach { (name, value) -> shiftsResponse.addHeader(name, value) }
         mockWebServer.enqueue(shiftsResponse)
-        return load(okHttpClient, URL)
+        return load(okHttpClient, URL, httpHeader)
     }
 
     private fun createRepository() = RealEngelsystemNetworkRepository(
@@ -190,6 +238,7 @@ class EngelsystemNetworkRepositoryTest {
                 .build()
             val retrofit = Retrofit.Builder()
                 .baseUrl(mockWebServer.url("/"))
+                .client(okHttpClient)
                 .addConverterFactory(MoshiConverterFactory.create(moshi))
                 .build()
             return retrofit.create(EngelsystemService::class.java)
@@ -0,0 +1,71 @@
+package info.metadude.android.eventfahrplan.engelsystem
+
+import info.metadude.android.eventfahrplan.engelsystem.utils.UriParser
+import info.metadude.kotlin.library.engelsystem.ApiModule
+import okhttp3.OkHttpClient
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.TestReporter
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable
+import java.lang.management.ManagementFactory
+import com.sun.management.ThreadMXBean as AllocationMXBean
+
+/**
+ * Compares the work done per refresh before obtaining the [EngelsystemService][info.metadude.kotlin.library.engelsystem.EngelsystemService]:
+ * parsing the URL and building the service on every refresh versus looking it up in the
+ * [EngelsystemServiceCache]. Reports the average latency and allocated bytes per refresh
+ * as entries of the test report. Asserts nothing since the numbers depend on the machine.
+ *
+ * Skipped unless enabled via the `BENCHMARK` environment variable:
+ *
+ * `BENCHMARK=true ./gradlew :engelsystem:test --tests "*EngelsystemServiceCacheBenchmark"`
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK", matches = "true")
+class EngelsystemServiceCacheBenchmark {
+
+    private companion object {
+        const val URL = "https://example.com/test/shifts-json-export/file.json?key=111111"
+        const val WARMUP_ITERATIONS = 200
+        const val MEASURED_ITERATIONS = 2_000
+    }
+
+    private val okHttpClient = OkHttpClient()
+    private val uriParser = UriParser()
+
+    /**
+     * Counts the bytes allocated by a thread. Not supported by every JVM.
+     */
+    private val allocationMXBean = (ManagementFactory.getThreadMXBean() as? AllocationMXBean)
+        ?.takeIf { it.isThreadAllocatedMemorySupported }
+
+    @Test
+    fun `measure building the service per refresh versus the cached lookup`(testReporter: TestReporter) {
+        val cache = EngelsystemServiceCache(uriParser, ApiModule)
+
+        measure("uncached", testReporter) {
+            val uri = uriParser.parseUri(URL)
+            ApiModule.provideEngelsystemService(uri.baseUrl, okHttpClient)
+        }
+        measure("cached", testReporter) {
+            cache.get(URL, okHttpClient)
+        }
+    }
+
+    private fun measure(name: String, testReporter: TestReporter, block: () -> Any) {
+        repeat(WARMUP_ITERATIONS) { block() }
+        val threadId = Thread.currentThread().id
+        val allocatedBefore = allocationMXBean?.getThreadAllocatedBytes(threadId)
+        val startedAt = System.nanoTime()
+        repeat(MEASURED_ITERATIONS) { block() }
+        val nanos = (System.nanoTime() - startedAt) / MEASURED_ITERATIONS
+        val allocatedBytes = allocatedBefore?.let {
+            (allocationMXBean!!.getThreadAllocatedBytes(threadId) - it) / MEASURED_ITERATIONS
+        }
+        testReporter.publishEntry(
+            mapOf(
+                "$name.nanosPerRefresh" to "$nanos",
+                "$name.allocatedBytesPerRefresh" to (allocatedBytes?.toString() ?: "unsupported"),
+            )
+        )
+    }
+
+}
@@ -0,0 +1,58 @@
+package info.metadude.android.eventfahrplan.engelsystem
+
+import com.google.common.truth.Truth.assertThat
+import info.metadude.android.eventfahrplan.engelsystem.utils.UriParser
+import info.metadude.kotlin.library.engelsystem.EngelsystemApi
+import info.metadude.kotlin.library.engelsystem.EngelsystemService
+import okhttp3.OkHttpClient
+import org.junit.jupiter.api.Test
+import org.mockito.Mockito.mock
+
+class EngelsystemServiceCacheTest {
+
+    private companion object {
+        const val URL = "https://example.com/test/shifts-json-export/file.json?key=111111"
+        const val OTHER_URL = "https://example.com/test/shifts-json-export/file.json?key=222222"
+    }
+
+    private val engelsystemApi = CountingEngelsystemApi()
+    private val cache = EngelsystemServiceCache(UriParser(), engelsystemApi)
+    private val okHttpClient = OkHttpClient()
+
+    @Test
+    fun `get returns the same service for the same URL and client`() {
+        val first = cache.get(URL, okHttpClient)
+        val second = cache.get(URL, okHttpClient)
+        assertThat(second).isSameInstanceAs(first)
+        assertThat(engelsystemApi.baseUrls).containsExactly("https://example.com")
+    }
+
+    @Test
+    fun `get builds a new service once the URL changes`() {
+        val first = cache.get(URL, okHttpClient)
+        val second = cache.get(OTHER_URL, okHttpClient)
+        assertThat(second.service).isNotSameInstanceAs(first.service)
+        assertThat(second.uri.apiKey).isEqualTo("222222")
+        assertThat(engelsystemApi.baseUrls).hasSize(2)
+    }
+
+    @Test
+    fun `get builds a new service once the client changes`() {
+        val first = cache.get(URL, okHttpClient)
+        val second = cache.get(URL, OkHttpClient())
+        assertThat(second.service).isNotSameInstanceAs(first.service)
+        assertThat(engelsystemApi.baseUrls).hasSize(2)
+    }
+
+    private class CountingEngelsystemApi : EngelsystemApi {
+
+        val baseUrls = mutableListOf<String>()
+
+        override fun provideEngelsystemService(baseUrl: String, okHttpClient: OkHttpClient): EngelsystemService {
+            baseUrls += baseUrl
+            return mock(EngelsystemService::class.java)
+        }
+
+    }
+
+}
@@ -25,7 +25,9 @@ internal class FetchFahrplan(private val logging: Logging) {
 
     fun fetch(okHttpClient: OkHttpClient, url: String, httpHeader: HttpHeader) {
         task = FetchFahrplanTask(okHttpClient, logging, onFetchScheduleResult)
-        task.execute(url, httpHeader.eTag, httpHeader.lastModified)
+        // Retries of the HTTP client back off on the fetching thread. The serial executor would
+        // hold back all other tasks such as the parsing meanwhile.
+        task.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, url, httpHeader.eTag, httpHeader.lastModified)
     }
 
     fun cancel() {
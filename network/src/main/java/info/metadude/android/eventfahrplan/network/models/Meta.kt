@@ -4,6 +4,7 @@ data class Meta(
 
         var httpHeader: HttpHeader = HttpHeader(),
         var numDays: Int = 0,
+        var parserVersion: Int = 0,
         var subtitle: String = "",
         var title: String = "",
         var timeZoneName: String? = null,
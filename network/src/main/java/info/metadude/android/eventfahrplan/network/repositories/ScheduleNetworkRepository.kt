@@ -1,9 +1,10 @@
 package info.metadude.android.eventfahrplan.network.repositories
 
+import androidx.annotation.WorkerThread
 import info.metadude.android.eventfahrplan.network.fetching.FetchScheduleResult
 import info.metadude.android.eventfahrplan.network.models.HttpHeader
-import info.metadude.android.eventfahrplan.network.models.Meta
 import info.metadude.android.eventfahrplan.network.models.Session
+import info.metadude.android.eventfahrplan.network.serialization.ParseScheduleResult
 import okhttp3.OkHttpClient
 
 interface ScheduleNetworkRepository {
@@ -13,10 +14,15 @@ interface ScheduleNetworkRepository {
                       httpHeader: HttpHeader,
                       onFetchScheduleFinished: (fetchScheduleResult: FetchScheduleResult) -> Unit)
 
-    fun parseSchedule(scheduleXml: String,
-                      httpHeader: HttpHeader,
-                      onUpdateSessions: (sessions: List<Session>) -> Unit,
-                      onUpdateMeta: (meta: Meta) -> Unit,
-                      onParsingDone: (isSuccess: Boolean, version: String) -> Unit)
+    /**
+     * Parses the given [scheduleXml] synchronously on the calling thread and passes each session
+     * to [onSessionParsed] as soon as it has been read. Parsing stops once [isCancelled] returns
+     * `true`. The returned result tells whether the document has been parsed completely.
+     */
+    @WorkerThread
+    fun parseScheduleIncrementally(scheduleXml: String,
+                                   httpHeader: HttpHeader,
+                                   isCancelled: () -> Boolean,
+                                   onSessionParsed: (session: Session) -> Unit): ParseScheduleResult
 
 }
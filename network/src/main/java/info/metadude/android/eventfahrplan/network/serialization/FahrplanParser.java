@@ -2,22 +2,21 @@ package info.metadude.android.eventfahrplan.network.serialization;
 
 import static info.metadude.android.eventfahrplan.commons.temporal.Moment.MINUTES_OF_ONE_DAY;
 
-import android.os.AsyncTask;
 import android.util.Xml;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
 
 import org.xmlpull.v1.XmlPullParser;
 
 import java.io.StringReader;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
 import info.metadude.android.eventfahrplan.commons.logging.Logging;
+import info.metadude.android.eventfahrplan.commons.text.StringPool;
 import info.metadude.android.eventfahrplan.network.models.HttpHeader;
 import info.metadude.android.eventfahrplan.network.models.Meta;
 import info.metadude.android.eventfahrplan.network.models.Session;
@@ -28,108 +27,77 @@ import info.metadude.android.eventfahrplan.network.validation.DateFieldValidatio
 
 public class FahrplanParser {
 
-    public interface OnParseCompleteListener {
+    /**
+     * Receives each session as soon as its closing tag has been read.
+     */
+    public interface OnSessionParsedListener {
 
-        void onUpdateSessions(@NonNull List<Session> sessions);
-
-        void onUpdateMeta(@NonNull Meta meta);
-
-        void onParseDone(@NonNull Boolean isSuccess, @NonNull String version);
+        void onSessionParsed(@NonNull Session session);
     }
 
-    @NonNull
-    private final Logging logging;
-
-    @Nullable
-    private ParserTask task;
-
-    @NonNull
-    private OnParseCompleteListener listener;
-
-    public FahrplanParser(@NonNull Logging logging) {
-        this.logging = logging;
-        task = null;
-    }
+    /**
+     * Tells whether parsing should be stopped. Polled while the document is being read.
+     */
+    public interface Cancellation {
 
-    public void parse(@NonNull String fahrplan, @NonNull HttpHeader httpHeader) {
-        task = new ParserTask(logging, listener);
-        task.execute(fahrplan, httpHeader.getETag(), httpHeader.getLastModified());
+        boolean isCancelled();
     }
 
-    public void cancel() {
-        if (task != null) {
-            task.cancel(false);
-        }
-    }
-
-    public void setListener(@NonNull OnParseCompleteListener listener) {
-        this.listener = listener;
-        if (task != null) {
-            task.setListener(listener);
-        }
-    }
-}
-
-class ParserTask extends AsyncTask<String, Void, Boolean> {
-
     @NonNull
     private final Logging logging;
 
     @NonNull
-    private List<Session> sessions;
-
-    @NonNull
-    private Meta meta;
+    private final StringPool stringPool;
 
-    @NonNull
-    private FahrplanParser.OnParseCompleteListener listener;
-
-    private boolean completed;
-
-    private boolean isSuccess;
-
-    ParserTask(@NonNull Logging logging, @NonNull FahrplanParser.OnParseCompleteListener listener) {
+    /**
+     * Low-cardinality values such as room names, tracks or languages are replaced by
+     * instances from the given {@code stringPool}.
+     */
+    public FahrplanParser(@NonNull Logging logging, @NonNull StringPool stringPool) {
         this.logging = logging;
-        this.listener = listener;
-        this.completed = false;
+        this.stringPool = stringPool;
     }
 
-    public void setListener(@NonNull FahrplanParser.OnParseCompleteListener listener) {
-        this.listener = listener;
-
-        if (completed) {
-            notifyActivity();
-        }
-    }
-
-    @Override
-    protected Boolean doInBackground(String... args) {
-        boolean parsingSuccessful = parseFahrplan(args[0], args[1], args[2]);
-        if (parsingSuccessful) {
-            DateFieldValidation dateFieldValidation = new DateFieldValidation(logging);
-            dateFieldValidation.validate(sessions);
-            dateFieldValidation.printValidationErrors();
-            // TODO Clear database on validation failure.
-        }
-        return parsingSuccessful;
-    }
-
-    private void notifyActivity() {
+    /**
+     * Parses the given schedule synchronously on the calling thread. The sessions are not
+     * collected but handed to the given {@code listener} one by one while the document is
+     * being read. Parsing stops as soon as the given {@code cancellation} reports
+     * to be cancelled. The returned result holds the {@link Meta} information and whether
+     * the document has been parsed completely. Date fields are validated once the document
+     * has been parsed completely.
+     */
+    @WorkerThread
+    @NonNull
+    public ParseScheduleResult parseIncrementally(
+            @NonNull String fahrplan,
+            @NonNull HttpHeader httpHeader,
+            @NonNull Cancellation cancellation,
+            @NonNull OnSessionParsedListener listener) {
+        Meta meta = new Meta();
+        meta.setHttpHeader(httpHeader);
+        DateFieldValidation dateFieldValidation = new DateFieldValidation(logging);
+        boolean isSuccess = parseFahrplan(fahrplan, meta, stringPool, session -> {
+            dateFieldValidation.collect(session);
+            listener.onSessionParsed(session);
+        }, cancellation);
         if (isSuccess) {
-            listener.onUpdateMeta(meta);
-            listener.onUpdateSessions(sessions);
+            dateFieldValidation.validateCollected();
+            dateFieldValidation.printValidationErrors();
         }
-        listener.onParseDone(isSuccess, meta.getVersion());
-        completed = false;
-    }
-
-    protected void onPostExecute(Boolean isSuccess) {
-        completed = true;
-        this.isSuccess = isSuccess;
-        notifyActivity();
+        return new ParseScheduleResult(isSuccess, meta);
     }
 
-    private Boolean parseFahrplan(String fahrplan, String eTag, String lastModified) {
+    /**
+     * Parses the given schedule into the given {@code meta} instance while passing each session
+     * to the given {@code listener}. Returns {@code true} if the document has been parsed
+     * completely, {@code false} otherwise.
+     */
+    static boolean parseFahrplan(
+            @NonNull String fahrplan,
+            @NonNull Meta meta,
+            @NonNull StringPool stringPool,
+            @NonNull OnSessionParsedListener listener,
+            @NonNull Cancellation cancellation) {
         XmlPullParser parser = Xml.newPullParser();
         try {
             parser.setInput(new StringReader(fahrplan));
@@ -145,14 +113,9 @@ class ParserTask extends AsyncTask<String, Void, Boolean> {
             int roomMapIndex = 0;
             boolean scheduleComplete = false;
             Map<String, Integer> roomIndexByRoomName = new HashMap<>();
-            while (eventType != XmlPullParser.END_DOCUMENT && !done && !isCancelled()) {
+            while (eventType != XmlPullParser.END_DOCUMENT && !done && !cancellation.isCancelled()) {
                 String name;
                 switch (eventType) {
-                    case XmlPullParser.START_DOCUMENT:
-                        sessions = new ArrayList<>();
-                        meta = new Meta();
-                        meta.setHttpHeader(new HttpHeader(eTag, lastModified));
-                        break;
                     case XmlPullParser.END_TAG:
                         name = parser.getName();
                         if (name.equals("schedule")) {
@@ -168,7 +131,7 @@ class ParserTask extends AsyncTask<String, Void, Boolean> {
                         if (name.equals("day")) {
                             String index = parser.getAttributeValue(null, "index");
                             day = Integer.parseInt(index);
-                            date = parser.getAttributeValue(null, "date");
+                            date = internOrNull(stringPool, parser.getAttributeValue(null, "date"));
                             String end = parser.getAttributeValue(null, "end");
                             if (end == null) {
                                 throw new MissingXmlAttributeException("day", "end");
@@ -179,7 +142,7 @@ class ParserTask extends AsyncTask<String, Void, Boolean> {
                             }
                         }
                         if (name.equals("room")) {
-                            roomName = parser.getAttributeValue(null, "name");
+                            roomName = internOrNull(stringPool, parser.getAttributeValue(null, "name"));
                             if (roomIndexByRoomName.containsKey(roomName)) {
                                 roomMapIndex = getOrDefault(roomIndexByRoomName, roomName, 0);
                             } else {
@@ -187,7 +150,7 @@ class ParserTask extends AsyncTask<String, Void, Boolean> {
                                 roomMapIndex = roomIndex;
                                 roomIndex++;
                             }
-                            roomGuid = parser.getAttributeValue(null, "guid");
+                            roomGuid = internOrNull(stringPool, parser.getAttributeValue(null, "guid"));
                         }
                         if (name.equalsIgnoreCase("event")) {
                             String id = parser.getAttributeValue(null, "id");
@@ -201,12 +164,12 @@ class ParserTask extends AsyncTask<String, Void, Boolean> {
                             eventType = parser.next();
                             boolean isSessionDone = false;
                             while (eventType != XmlPullParser.END_DOCUMENT
-                                    && !isSessionDone && !isCancelled()) {
+                                    && !isSessionDone && !cancellation.isCancelled()) {
                                 switch (eventType) {
                                     case XmlPullParser.END_TAG:
                                         name = parser.getName();
                                         if (name.equals("event")) {
-                                            sessions.add(session);
+                                            listener.onSessionParsed(session);
                                             isSessionDone = true;
                                         }
                                         break;
@@ -230,13 +193,13 @@ class ParserTask extends AsyncTask<String, Void, Boolean> {
                                             session.setUrl(XmlPullParsers.getSanitizedText(parser));
                                         } else if (name.equals("track")) {
                                             parser.next();
-                                            session.setTrack(XmlPullParsers.getSanitizedText(parser));
+                                            session.setTrack(stringPool.intern(XmlPullParsers.getSanitizedText(parser)));
                                         } else if (name.equals("type")) {
                                             parser.next();
-                                            session.setType(XmlPullParsers.getSanitizedText(parser));
+                                            session.setType(stringPool.intern(XmlPullParsers.getSanitizedText(parser)));
                                         } else if (name.equals("language")) {
                                             parser.next();
-                                            session.setLanguage(XmlPullParsers.getSanitizedText(parser));
+                                            session.setLanguage(stringPool.intern(XmlPullParsers.getSanitizedText(parser)));
                                         } else if (name.equals("abstract")) {
                                             parser.next();
                                             session.setAbstractt(XmlPullParsers.getSanitizedText(parser));
@@ -285,7 +248,7 @@ class ParserTask extends AsyncTask<String, Void, Boolean> {
                                             eventType = parser.next();
                                             boolean recordingDone = false;
                                             while (eventType != XmlPullParser.END_DOCUMENT
-                                                    && !recordingDone && !isCancelled()) {
+                                                    && !recordingDone && !cancellation.isCancelled()) {
                                                 switch (eventType) {
                                                     case XmlPullParser.END_TAG:
                                                         name = parser.getName();
@@ -297,7 +260,7 @@ class ParserTask extends AsyncTask<String, Void, Boolean> {
                                                         name = parser.getName();
                                                         if (name.equals("license")) {
                                                             parser.next();
-                                                            session.setRecordingLicense(XmlPullParsers.getSanitizedText(parser));
+                                                            session.setRecordingLicense(stringPool.intern(XmlPullParsers.getSanitizedText(parser)));
                                                         } else if (name.equals("optout")) {
                                                             parser.next();
                                                             session.setRecordingOptOut(Boolean.parseBoolean(XmlPullParsers.getSanitizedText(parser)));
@@ -366,7 +329,7 @@ class ParserTask extends AsyncTask<String, Void, Boolean> {
             if (!scheduleComplete) {
                 return false;
             }
-            if (isCancelled()) {
+            if (cancellation.isCancelled()) {
                 return false;
             }
             meta.setNumDays(numdays);
@@ -377,6 +340,11 @@ class ParserTask extends AsyncTask<String, Void, Boolean> {
         }
     }
 
+    @Nullable
+    private static String internOrNull(@NonNull StringPool stringPool, @Nullable String value) {
+        return value == null ? null : stringPool.intern(value);
+    }
+
     /** @noinspection SameParameterValue*/
     private static <K, V> V getOrDefault(
             @NonNull Map<K, V> map,
@@ -384,5 +352,4 @@ class ParserTask extends AsyncTask<String, Void, Boolean> {
             @NonNull V defaultValue) {
         return map.containsKey(key) ? map.get(key) : defaultValue;
     }
-
 }
@@ -0,0 +1,10 @@
+package info.metadude.android.eventfahrplan.network.serialization
+
+import info.metadude.android.eventfahrplan.network.models.Meta
+
+data class ParseScheduleResult(
+
+        val isSuccess: Boolean,
+        val meta: Meta
+
+)
@@ -16,7 +16,13 @@ internal class DateFieldValidation(
         const val LOG_TAG = "DateFieldValidation"
     }
 
+    /**
+     * The date fields of a session. Retained instead of the whole session while collecting.
+     */
+    private class SessionDates(val sessionId: String, val date: String, val dateUTC: Long)
+
     private val validationErrors: MutableList<ValidationError> = ArrayList()
+    private val collectedSessionDates = mutableListOf<SessionDates>()
 
     fun printValidationErrors() {
         for (validationError in validationErrors) {
@@ -28,8 +34,23 @@ internal class DateFieldValidation(
      * Returns true if the timestamps in the [Session.date] fields of each session are within a valid time range.
      * The time range is defined by the [Session.date] fields of first and last session (which are sorted by [Session.dateUTC]).
      */
-    fun validate(sessions: List<Session>): Boolean {
-        val sortedSessions = sessions.sortedBy { it.dateUTC }
+    fun validate(sessions: List<Session>) = validateSessionDates(sessions.map { it.toSessionDates() })
+
+    /**
+     * Collects the date fields of the given [session] to be validated by [validateCollected].
+     * Meant for sessions which are parsed one by one and not retained as a whole.
+     */
+    fun collect(session: Session) {
+        collectedSessionDates += session.toSessionDates()
+    }
+
+    /**
+     * Validates the date fields of all [collected][collect] sessions like [validate] does.
+     */
+    fun validateCollected() = validateSessionDates(collectedSessionDates)
+
+    private fun validateSessionDates(sessionDates: List<SessionDates>): Boolean {
+        val sortedSessions = sessionDates.sortedBy { it.dateUTC }
 
         if (sortedSessions.isEmpty()) {
             return true
@@ -47,7 +68,9 @@ internal class DateFieldValidation(
         return validationErrors.isEmpty()
     }
 
-    private fun validateSession(session: Session, dateRange: DayRange) {
+    private fun Session.toSessionDates() = SessionDates(sessionId, date, dateUTC)
+
+    private fun validateSession(session: SessionDates, dateRange: DayRange) {
         val dateUtcInMilliseconds = session.dateUTC
         val sessionDate = Moment.ofEpochMilli(dateUtcInMilliseconds).toZonedDateTime(ZoneOffset.UTC)
         if (!dateRange.contains(sessionDate)) {
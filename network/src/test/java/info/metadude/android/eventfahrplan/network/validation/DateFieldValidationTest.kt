@@ -122,6 +122,39 @@ class DateFieldValidationTest {
         validation.printValidationErrors()
     }
 
+    @Test
+    fun `validateCollected returns false if any collected session is outside the range`() {
+        val validation = createValidation()
+
+        listOf(
+                Session(date = "2019-01-02", dateUTC = Moment.parseDate("2019-01-01").toMilliseconds(), sessionId = "1"),
+                Session(date = "2019-01-01", dateUTC = Moment.parseDate("2019-01-01").toMilliseconds(), sessionId = "2"),
+                Session(date = "2019-01-03", dateUTC = Moment.parseDate("2019-01-03").toMilliseconds(), sessionId = "3")
+        ).forEach(validation::collect)
+
+        val isValid = validation.validateCollected()
+
+        assertThat(isValid).isFalse()
+
+        validation.printValidationErrors()
+    }
+
+    @Test
+    fun `validateCollected returns true if collected sessions are between start and end`() {
+        val validation = createValidation()
+
+        listOf(
+                Session(date = "2019-01-01", dateUTC = Moment.parseDate("2019-01-01").toMilliseconds(), sessionId = "1"),
+                Session(date = "2019-01-03", dateUTC = Moment.parseDate("2019-01-03").toMilliseconds(), sessionId = "2")
+        ).forEach(validation::collect)
+
+        val isValid = validation.validateCollected()
+
+        assertThat(isValid).isTrue()
+
+        validation.printValidationErrors()
+    }
+
     private fun createValidation() = DateFieldValidation(TestLogger)
 
     private object TestLogger : Logging {